@@ -35,9 +35,13 @@ import org.jpos.util.*;
 import javax.net.ssl.SSLSocket;
 import java.io.*;
 import java.net.*;
+import java.nio.channels.SocketChannel;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 /*
@@ -95,6 +99,14 @@ public abstract class BaseChannel extends Observable
     // The lock objects should be final, and never changed, but due to the clone() method, they must be set there.
     protected Lock serverInLock = new ReentrantLock();
     protected Lock serverOutLock = new ReentrantLock();
+    // send coalescing (see setSendMaxLinger)
+    private long sendLingerNanos;
+    private ReentrantLock flushLock = new ReentrantLock();
+    private Condition flushed = flushLock.newCondition();
+    private AtomicInteger writers = new AtomicInteger();
+    private boolean flushing;
+    private long writeSeq;
+    private volatile FlushState flushState = new FlushState();
     protected ISOPackager packager;
     protected ServerSocket serverSocket = null;
     protected List<ISOFilter> incomingFilters, outgoingFilters;
@@ -110,6 +122,8 @@ public abstract class BaseChannel extends Observable
     private int nextHostPort = 0;
     private boolean roundRobin = false;
     private boolean debugIsoError = true;
+    private ByteArrayPool bufferPool;
+    private boolean lazyUnpack;
 
     private ISOMsgMetrics isoMsgMetrics;
 
@@ -282,6 +296,9 @@ public abstract class BaseChannel extends Observable
      * @exception IOException on error
      */
     protected void connect (Socket socket) throws IOException {
+        connect (socket, new BufferedInputStream (socket.getInputStream ()), socket.getOutputStream());
+    }
+    private void connect (Socket socket, InputStream in, OutputStream out) throws IOException {
         this.socket = socket;
         applyTimeout();
         InetAddress inetAddress = socket.getInetAddress();
@@ -291,17 +308,16 @@ public abstract class BaseChannel extends Observable
         );
         serverInLock.lock();
         try {
-            serverIn = new DataInputStream (
-              new BufferedInputStream (socket.getInputStream ())
-            );
+            serverIn = new DataInputStream (in);
         } finally {
             serverInLock.unlock();
         }
         serverOutLock.lock();
         try {
             serverOut = new DataOutputStream(
-              new BufferedOutputStream(socket.getOutputStream(), 2048)
+              new BufferedOutputStream(out, sendLingerNanos > 0L ? 65536 : 2048)
             );
+            resetFlushState();
         } finally {
             serverOutLock.unlock();
         }
@@ -491,6 +507,31 @@ public abstract class BaseChannel extends Observable
         // s.close();
     }
 
+    /**
+     * Sets up this channel on a connection accepted by a NIO based {@link ISOServer}.
+     *
+     * @param sc accepted (non-blocking) socket channel
+     * @param in input stream fed by the server's selector, see {@link #readFrame(ISOMsg)}
+     * @param out output stream writing to <code>sc</code>
+     * @throws IOException on error
+     */
+    void accept (SocketChannel sc, InputStream in, OutputStream out) throws IOException {
+        ChannelEvent jfr = new ChannelEvent.Accept();
+        jfr.begin();
+        try {
+            Socket ss = sc.socket();
+            this.name = "%d %s:%d".formatted(
+              ss.getLocalPort(),
+              ss.getInetAddress().getHostAddress(),
+              ss.getPort()
+            );
+            jfr.setDetail(name);
+            connect(ss, in, out);
+        } finally {
+            jfr.commit();
+        }
+    }
+
     /**
      * @param b - new Usable state (used by ISOMUX internals to
      * flag as unusable in order to force a reconnection)
@@ -671,17 +712,32 @@ public abstract class BaseChannel extends Observable
             m.setPackager (p); // and could have dropped packager as well
             byte[] b = pack(m);
 
-            if (serverOutLock.tryLock(sendTimeout, TimeUnit.MILLISECONDS)) {
+            long seq = 0L;
+            FlushState fs = null;
+            writers.incrementAndGet();
+            boolean locked;
+            try {
+                locked = serverOutLock.tryLock(sendTimeout, TimeUnit.MILLISECONDS);
+            } finally {
+                writers.decrementAndGet();
+            }
+            if (locked) {
                 try  {
                     sendMessageLength(b.length + getHeaderLength(m));
                     sendMessageHeader(m, b.length);
                     sendMessage (b, 0, b.length);
                     sendMessageTrailer(m, b);
-                    serverOut.flush ();
+                    if (sendLingerNanos > 0L) {
+                        seq = ++writeSeq;
+                        fs = flushState;
+                    } else
+                        serverOut.flush ();
                     cnt[TX]++;
                 } finally {
                     serverOutLock.unlock();
                 }
+                if (seq > 0L)
+                    flush (fs, seq);
                incrementMsgOutCounter(m);
             } else {
                 disconnect();
@@ -708,6 +764,76 @@ public abstract class BaseChannel extends Observable
             jfr.commit();
         }
     }
+    /**
+     * Coalesced flush: waits until the frame written under sequence number <code>seq</code>
+     * has been flushed. The first waiter becomes the flusher; it lingers (up to
+     * <code>send-max-linger</code>) while other senders are still queued on
+     * <code>serverOutLock</code>, so their frames go out in the same write.
+     * Frames still buffered when the connection is lost or replaced are failed,
+     * never reported as flushed by a later write on a new stream.
+     *
+     * @param fs flush state of the stream the frame was written to
+     * @param seq write sequence number
+     * @throws IOException if the flush fails or the frame was lost with its connection
+     */
+    private void flush (FlushState fs, long seq) throws IOException {
+        flushLock.lock();
+        try {
+            while (fs.flushedSeq < seq) {
+                if (fs.failed)
+                    throw new IOException ("connection lost before message was flushed");
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                FlushState current = null;
+                long upTo = 0L;
+                boolean ok = false;
+                flushLock.unlock();
+                try {
+                    long deadline = System.nanoTime() + sendLingerNanos;
+                    for (long remaining; writers.get() > 0 && (remaining = deadline - System.nanoTime()) > 0L; )
+                        LockSupport.parkNanos (Math.min (remaining, 10_000L));
+                    serverOutLock.lock();
+                    try {
+                        current = flushState;
+                        if (serverOut == null)
+                            throw new IOException ("unconnected ISOChannel");
+                        serverOut.flush();
+                        upTo = writeSeq;
+                        ok = true;
+                    } finally {
+                        serverOutLock.unlock();
+                    }
+                } finally {
+                    flushLock.lock();
+                    flushing = false;
+                    if (ok)
+                        current.flushedSeq = Math.max (current.flushedSeq, upTo);
+                    else if (current != null)
+                        current.failed = true; // whatever was buffered is gone
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    /**
+     * Fails the frames pending on the current stream and starts a new flush state;
+     * called whenever the output stream goes away or is replaced.
+     */
+    private void resetFlushState() {
+        flushLock.lock();
+        try {
+            flushState.failed = true;
+            flushState = new FlushState();
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
     /**
      * sends a byte[] over the TCP/IP session
      * @param b the byte array to be sent
@@ -795,53 +921,43 @@ public abstract class BaseChannel extends Observable
      * @throws ISOException
      */
     public ISOMsg receive() throws IOException, ISOException {
+        return receive ((Frame) null);
+    }
+
+    /**
+     * Unpacks a frame previously read by {@link #readFrame(ISOMsg)}, or reads
+     * a new one off the wire if <code>frame</code> is null.
+     *
+     * @param frame frame to process (may be null)
+     * @return the Message received
+     * @throws IOException
+     * @throws ISOException
+     */
+    ISOMsg receive (Frame frame) throws IOException, ISOException {
         var jfr = new ChannelEvent.Receive();
         jfr.begin();
 
         byte[] b=null;
         byte[] header=null;
         LogEvent evt = new LogEvent (this, "receive").withTraceId(getSocketUUID());
-        ISOMsg m = createMsg ();  // call createMsg instead of createISOMsg for backward compatibility
+        // call createMsg instead of createISOMsg for backward compatibility
+        ISOMsg m = frame != null ? frame.msg() : createMsg ();
 
         m.setSource (this);
         try {
-            if (!isConnected())
-                throw new IOException ("unconnected ISOChannel");
+            if (frame == null) {
+                if (!isConnected())
+                    throw new IOException ("unconnected ISOChannel");
 
-            serverInLock.lock();
-            try {
-                int len  = getMessageLength();
-                if (expectKeepAlive) {
-                    while (len == 0) {
-                        //If zero length, this is a keep alive msg
-                        len  = getMessageLength();
-                    }
-                }
-                int hLen = getHeaderLength();
-
-                if (len == -1) {
-                    if (hLen > 0) {
-                        header = readHeader(hLen);
-                    }
-                    b = streamReceive();
-                }
-                else if (len > 0 && len <= getMaxPacketLength()) {
-                    if (hLen > 0) {
-                        // ignore message header (TPDU)
-                        // Note header length is not necessarily equal to hLen (see VAPChannel)
-                        header = readHeader(hLen);
-                        len -= header.length;
-                    }
-                    b = new byte[len];
-                    getMessage (b, 0, len);
-                    getMessageTrailer(m);
+                serverInLock.lock();
+                try {
+                    frame = readFrame (m);
+                } finally {
+                    serverInLock.unlock();
                 }
-                else
-                    throw new ISOException(
-                        "receive length " +len + " seems strange - maxPacketLength = " + getMaxPacketLength());
-            } finally {
-                serverInLock.unlock();
             }
+            header = frame.header();
+            b = frame.image();
             m.setPackager (getDynamicPackager(header, b));
             m.setHeader (getDynamicHeader(header));
             if (b.length > 0 && !shouldIgnore (header))  // Ignore NULL messages
@@ -879,11 +995,66 @@ public abstract class BaseChannel extends Observable
             throw new IOException ("unexpected exception", e);
         } finally {
             Logger.log (evt);
+            if (bufferPool != null && b != null && !hasRawIncomingFilters() && !lazyUnpack)
+                bufferPool.release (b);
         }
         jfr.setDetail(m.toString());
         jfr.commit();
         return m;
     }
+
+    /**
+     * Reads a raw message (header and image) using this channel's framing logic
+     * ({@link #getMessageLength()}, {@link #getHeaderLength()}, {@link #readHeader(int)}, ...).
+     *
+     * @param m message being received, the frame gets unpacked into it
+     * @return frame
+     * @throws IOException on I/O error (an EOFException if the stream ends before a full frame is available)
+     * @throws ISOException if the message length is out of bounds
+     */
+    protected Frame readFrame (ISOMsg m) throws IOException, ISOException {
+        byte[] b;
+        byte[] header=null;
+        int len  = getMessageLength();
+        if (expectKeepAlive) {
+            while (len == 0) {
+                //If zero length, this is a keep alive msg
+                len  = getMessageLength();
+            }
+        }
+        int hLen = getHeaderLength();
+
+        if (len == -1) {
+            if (hLen > 0) {
+                header = readHeader(hLen);
+            }
+            b = streamReceive();
+        }
+        else if (len > 0 && len <= getMaxPacketLength()) {
+            if (hLen > 0) {
+                // ignore message header (TPDU)
+                // Note header length is not necessarily equal to hLen (see VAPChannel)
+                header = readHeader(hLen);
+                len -= header.length;
+            }
+            b = bufferPool != null ? bufferPool.acquire (len) : new byte[len];
+            getMessage (b, 0, len);
+            getMessageTrailer(m);
+        }
+        else
+            throw new ISOException(
+                "receive length " +len + " seems strange - maxPacketLength = " + getMaxPacketLength());
+        return new Frame (m, header, b);
+    }
+
+    /**
+     * A raw message as read by {@link #readFrame(ISOMsg)}
+     * @param msg message the frame is going to be unpacked into
+     * @param header header bytes (may be null)
+     * @param image message image
+     */
+    protected record Frame (ISOMsg msg, byte[] header, byte[] image) { }
+
     /**
      * Low level receive
      * @param b byte array
@@ -926,6 +1097,7 @@ public abstract class BaseChannel extends Observable
                 } catch (IOException ex) { evt.addMessage (ex); }
                 serverOut = null;
             }
+            resetFlushState();
         } catch (IOException e) {
             evt.addMessage (e);
             jfr.append (e.getMessage());
@@ -1073,7 +1245,10 @@ public abstract class BaseChannel extends Observable
         return m;
     }
     protected void unpack (ISOMsg m, byte[] b) throws ISOException {
-        m.unpack (b);
+        if (lazyUnpack && m.getPackager() instanceof ISOBasePackager p)
+            p.unpack (m, b, true);
+        else
+            m.unpack (b);
     }
     protected byte[] pack (ISOMsg m) throws ISOException {
         return m.pack();
@@ -1125,6 +1300,9 @@ public abstract class BaseChannel extends Observable
         expectKeepAlive = cfg.getBoolean ("expect-keep-alive", false);
         roundRobin = cfg.getBoolean ("round-robin", false);
         debugIsoError = cfg.getBoolean ("debug-iso-error", true);
+        bufferPool = cfg.getBoolean ("pooled-buffers", false) ? ByteArrayPool.getDefault() : null;
+        lazyUnpack = cfg.getBoolean ("lazy-unpack", false);
+        setSendMaxLinger (cfg.getLong ("send-max-linger", 0L));
         if (socketFactory != this && socketFactory instanceof Configurable)
             ((Configurable)socketFactory).setConfiguration (cfg);
         try {
@@ -1137,6 +1315,60 @@ public abstract class BaseChannel extends Observable
     public Configuration getConfiguration() {
         return cfg;
     }
+
+    /**
+     * Enables send coalescing. Instead of flushing every message, concurrent senders
+     * let a single thread flush all pending frames at once, waiting up to
+     * <code>micros</code> for senders still queued on the output lock.
+     * {@link #send(ISOMsg)} still returns once its message has been flushed.
+     *
+     * @param micros max linger time in microseconds, 0 disables coalescing
+     * @since 3.0.2
+     */
+    public void setSendMaxLinger (long micros) {
+        this.sendLingerNanos = TimeUnit.MICROSECONDS.toNanos (Math.max (0L, micros));
+    }
+    public long getSendMaxLinger() {
+        return TimeUnit.NANOSECONDS.toMicros (sendLingerNanos);
+    }
+
+    /**
+     * Reads incoming message images into arrays taken from <code>pool</code>, recycling
+     * them once the message has been unpacked. Images are not recycled while there are
+     * {@link RawIncomingFilter}s, as those may hold a reference to them.
+     *
+     * @param pool buffer pool, null to allocate a new array per message
+     * @since 3.0.2
+     */
+    public void setBufferPool (ByteArrayPool pool) {
+        this.bufferPool = pool;
+    }
+    public ByteArrayPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Defers decoding of incoming fields until they are accessed, see
+     * {@link ISOBasePackager#unpack(ISOComponent, byte[], boolean)}.
+     * Incoming images stay referenced by their messages, so they are not
+     * returned to the buffer pool.
+     *
+     * @param lazyUnpack true to enable lazy unpacking
+     * @since 3.0.2
+     */
+    public void setLazyUnpack (boolean lazyUnpack) {
+        this.lazyUnpack = lazyUnpack;
+    }
+    public boolean isLazyUnpack() {
+        return lazyUnpack;
+    }
+    private boolean hasRawIncomingFilters() {
+        for (ISOFilter f : incomingFilters) {
+            if (f instanceof RawIncomingFilter)
+                return true;
+        }
+        return false;
+    }
     public Collection<ISOFilter> getIncomingFilters() {
         return incomingFilters;
     }
@@ -1236,6 +1468,11 @@ public abstract class BaseChannel extends Observable
             // and it immediately calls accept(ServerSocket) which does a connect(), and that sets the stream objects.
             channel.serverInLock = new ReentrantLock();
             channel.serverOutLock = new ReentrantLock();
+            channel.flushLock = new ReentrantLock();
+            channel.flushed = channel.flushLock.newCondition();
+            channel.writers = new AtomicInteger();
+            channel.flushing = false;
+            channel.flushState = new FlushState();
             channel.serverIn = null;
             channel.serverOut = null;
             channel.usable = false;
@@ -1262,4 +1499,12 @@ public abstract class BaseChannel extends Observable
             isoMsgMetrics.recordMessage(m, MeterInfo.ISOMSG_OUT);
         }
     }
+
+    /**
+     * Coalesced flush progress of a single output stream, guarded by <code>flushLock</code>.
+     */
+    private static final class FlushState {
+        long flushedSeq;
+        boolean failed;
+    }
 }
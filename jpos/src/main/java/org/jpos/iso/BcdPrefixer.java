@@ -62,11 +62,17 @@ public class BcdPrefixer implements Prefixer
 
     @Override
     public void encodeLength(int length, byte[] b)
+    {
+        encodeLength(length, b, 0);
+    }
+
+    @Override
+    public void encodeLength(int length, byte[] b, int offset)
     {
         for (int i = getPackedLength() - 1; i >= 0; i--) {
             int twoDigits = length % 100;
             length /= 100;
-            b[i] = (byte)((twoDigits / 10 << 4) + twoDigits % 10);
+            b[offset + i] = (byte)((twoDigits / 10 << 4) + twoDigits % 10);
         }
     }
 
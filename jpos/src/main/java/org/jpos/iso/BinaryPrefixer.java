@@ -47,9 +47,15 @@ public class BinaryPrefixer implements Prefixer
 
     @Override
     public void encodeLength(int length, byte[] b)
+    {
+        encodeLength(length, b, 0);
+    }
+
+    @Override
+    public void encodeLength(int length, byte[] b, int offset)
     {
         for (int i = nBytes - 1; i >= 0; i--) {
-            b[i] = (byte)(length & 0xFF);
+            b[offset + i] = (byte)(length & 0xFF);
             length >>= 8;
         }
     }
@@ -0,0 +1,541 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Compiled (fused) field packagers.
+ *
+ * <p>{@link ISOStringFieldPackager} and {@link ISOBinaryFieldPackager} delegate to
+ * their {@link Prefixer}, {@link Interpreter} and {@link Padder}; as every field of a
+ * packager goes through the same call sites, those calls are megamorphic and the JIT
+ * can't inline them. {@link #compile(ISOFieldPackager)} returns a packager bound to the
+ * concrete prefixer, interpreter and padder classes of a given field, so each combination
+ * gets its own (monomorphic) call sites; ASCII fields are written and read without
+ * intermediate padded strings.</p>
+ *
+ * <p>Compiled packagers produce exactly the same images, values and errors as the
+ * packager they were compiled from. Fields whose packager, prefixer, interpreter or
+ * padder is not a stock jPOS class (or overrides pack/unpack) are left untouched; values
+ * that can't take the fast path (i.e. non String values on string fields, values too
+ * long, non ISO-8859-1 characters) are handed over to the original packager.</p>
+ *
+ * @see org.jpos.iso.packager.GenericPackager#compile()
+ * @since 3.0.2
+ */
+public final class CompiledFieldPackager {
+    private static final int P_NULL = 0;
+    private static final int P_ASCII = 1;
+    private static final int P_BCD = 2;
+    private static final int P_BINARY = 3;
+    private static final int P_EBCDIC = 4;
+    private static final int P_HEX_NIBBLES = 5;
+
+    private static final int I_ASCII = 0;
+    private static final int I_BCD = 1;
+    private static final int I_EBCDIC = 2;
+    private static final int I_LITERAL = 3;
+
+    private static final int B_LITERAL = 0;
+    private static final int B_ASCII_HEX = 1;
+    private static final int B_EBCDIC_HEX = 2;
+    private static final int B_EBCDIC = 3;
+
+    private static final int PAD_NONE = 0;
+    private static final int PAD_LEFT = 1;
+    private static final int PAD_RIGHT = 2;
+    private static final int PAD_RIGHT_T = 3;
+
+    private static final ClassValue<Boolean> COMPILABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue (Class<?> type) {
+            Class<?> base = ISOStringFieldPackager.class.isAssignableFrom (type) ?
+              ISOStringFieldPackager.class : ISOBinaryFieldPackager.class;
+            try {
+                return type.getMethod ("pack", ISOComponent.class).getDeclaringClass() == base
+                  && type.getMethod ("pack", ISOComponent.class, byte[].class, int.class).getDeclaringClass() == base
+                  && type.getMethod ("getPackedLength", ISOComponent.class).getDeclaringClass() == base
+                  && type.getMethod ("getPackedLength", byte[].class, int.class).getDeclaringClass() == base
+                  && type.getMethod ("unpack", ISOComponent.class, byte[].class, int.class).getDeclaringClass() == base;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private CompiledFieldPackager() { }
+
+    /**
+     * @param f field packager
+     * @return compiled packager, or <code>f</code> if it can't be compiled
+     */
+    public static ISOFieldPackager compile (ISOFieldPackager f) {
+        if (f instanceof StringField || f instanceof BinaryField)
+            return f;
+        if (f instanceof ISOStringFieldPackager s && COMPILABLE.get (s.getClass())) {
+            int p = prefixerKind (s.getPrefixer());
+            int i = interpreterKind (s.getInterpreter());
+            int pad = padderKind (s.getPadder());
+            if (p >= 0 && i >= 0 && pad >= 0)
+                return new StringField (s, p, i, pad);
+        } else if (f instanceof ISOBinaryFieldPackager b && COMPILABLE.get (b.getClass())) {
+            int p = prefixerKind (b.getPrefixer());
+            int i = binaryInterpreterKind (b.getInterpreter());
+            if (p >= 0 && i >= 0)
+                return new BinaryField (b, p, i);
+        }
+        return f;
+    }
+
+    /**
+     * Compiles <code>p</code>'s field packagers in place, including those of
+     * subfield packagers.
+     * @param p packager
+     * @return number of field packagers compiled
+     */
+    public static int compile (ISOBasePackager p) {
+        int n = 0;
+        ISOFieldPackager[] fld = p.fld;
+        if (fld == null)
+            return 0;
+        for (int i=0; i<fld.length; i++) {
+            ISOFieldPackager f = fld[i];
+            if (f instanceof ISOMsgFieldPackager mfp) {
+                if (mfp.getISOMsgPackager() instanceof ISOBasePackager bp)
+                    n += compile (bp);
+            } else if (f != null) {
+                ISOFieldPackager c = compile (f);
+                if (c != f) {
+                    fld[i] = c;
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int prefixerKind (Prefixer p) {
+        if (p == null)
+            return -1;
+        Class<?> type = p.getClass();
+        if (type == NullPrefixer.class)
+            return P_NULL;
+        if (type == AsciiPrefixer.class)
+            return P_ASCII;
+        if (type == BcdPrefixer.class)
+            return P_BCD;
+        if (type == BinaryPrefixer.class)
+            return P_BINARY;
+        if (type == EbcdicPrefixer.class)
+            return P_EBCDIC;
+        if (type == HexNibblesPrefixer.class)
+            return P_HEX_NIBBLES;
+        return -1;
+    }
+
+    private static int interpreterKind (Interpreter i) {
+        if (i == null)
+            return -1;
+        Class<?> type = i.getClass();
+        if (type == AsciiInterpreter.class)
+            return I_ASCII;
+        if (type == BCDInterpreter.class)
+            return I_BCD;
+        if (type == EbcdicInterpreter.class)
+            return I_EBCDIC;
+        if (type == LiteralInterpreter.class)
+            return I_LITERAL;
+        return -1;
+    }
+
+    private static int binaryInterpreterKind (BinaryInterpreter i) {
+        if (i == null)
+            return -1;
+        Class<?> type = i.getClass();
+        if (type == LiteralBinaryInterpreter.class)
+            return B_LITERAL;
+        if (type == AsciiHexInterpreter.class)
+            return B_ASCII_HEX;
+        if (type == EbcdicHexInterpreter.class)
+            return B_EBCDIC_HEX;
+        if (type == EbcdicBinaryInterpreter.class)
+            return B_EBCDIC;
+        return -1;
+    }
+
+    private static int padderKind (Padder p) {
+        if (p == null)
+            return -1;
+        Class<?> type = p.getClass();
+        if (type == NullPadder.class)
+            return PAD_NONE;
+        if (type == LeftPadder.class)
+            return PAD_LEFT;
+        if (type == RightPadder.class)
+            return PAD_RIGHT;
+        if (type == RightTPadder.class)
+            return PAD_RIGHT_T;
+        return -1;
+    }
+
+    /**
+     * Length prefix handling shared by both field kinds
+     */
+    private static final class LengthStep {
+        final int kind;
+        final Prefixer prefixer;
+        final int packedLength;
+
+        LengthStep (int kind, Prefixer prefixer) {
+            this.kind = kind;
+            this.prefixer = prefixer;
+            this.packedLength = prefixer.getPackedLength();
+        }
+
+        void encode (int length, byte[] b, int offset) throws ISOException {
+            switch (kind) {
+                case P_NULL -> { }
+                case P_ASCII -> ((AsciiPrefixer) prefixer).encodeLength (length, b, offset);
+                case P_BCD -> ((BcdPrefixer) prefixer).encodeLength (length, b, offset);
+                case P_BINARY -> ((BinaryPrefixer) prefixer).encodeLength (length, b, offset);
+                case P_EBCDIC -> ((EbcdicPrefixer) prefixer).encodeLength (length, b, offset);
+                default -> ((HexNibblesPrefixer) prefixer).encodeLength (length, b, offset);
+            }
+        }
+
+        int decode (byte[] b, int offset) throws ISOException {
+            return switch (kind) {
+                case P_NULL -> -1;
+                case P_ASCII -> ((AsciiPrefixer) prefixer).decodeLength (b, offset);
+                case P_BCD -> ((BcdPrefixer) prefixer).decodeLength (b, offset);
+                case P_BINARY -> ((BinaryPrefixer) prefixer).decodeLength (b, offset);
+                case P_EBCDIC -> ((EbcdicPrefixer) prefixer).decodeLength (b, offset);
+                default -> ((HexNibblesPrefixer) prefixer).decodeLength (b, offset);
+            };
+        }
+    }
+
+    /**
+     * Compiled {@link ISOStringFieldPackager}
+     */
+    static final class StringField extends ISOStringFieldPackager {
+        private final ISOStringFieldPackager source;
+        private final LengthStep prefix;
+        private final int interpreterKind;
+        private final Interpreter interpreter;
+        private final int padderKind;
+        private final Padder padder;
+        private final char padChar;
+
+        StringField (ISOStringFieldPackager source, int prefixerKind, int interpreterKind, int padderKind) {
+            super (source.getLength(), source.getDescription(), source.getPadder(), source.getInterpreter(), source.getPrefixer());
+            this.source = source;
+            pad = source.pad;
+            trim = source.trim;
+            this.prefix = new LengthStep (prefixerKind, source.getPrefixer());
+            this.interpreterKind = interpreterKind;
+            this.interpreter = source.getInterpreter();
+            this.padderKind = padderKind;
+            this.padder = source.getPadder();
+            this.padChar = padder instanceof LeftPadder lp ? lp.getPad() : padder instanceof RightPadder rp ? rp.getPad() : ' ';
+        }
+
+        @Override
+        public ISOComponent createComponent (int fieldNumber) {
+            return source.createComponent (fieldNumber);
+        }
+
+        @Override
+        public byte[] pack (ISOComponent c) throws ISOException {
+            int len = getPackedLength (c);
+            if (len < 0)
+                return source.pack (c);
+            byte[] b = new byte[len];
+            pack (c, b, 0);
+            return b;
+        }
+
+        @Override
+        public int getPackedLength (ISOComponent c) throws ISOException {
+            int len = getPaddedLength (c);
+            return len < 0 ? -1 : prefix.packedLength + packedLength (len);
+        }
+
+        @Override
+        public int pack (ISOComponent c, byte[] b, int offset) throws ISOException {
+            try {
+                int len = getPaddedLength (c);
+                if (len >= 0) {
+                    String data = (String) c.getValue();
+                    prefix.encode (len, b, offset);
+                    if (interpret (data, len, b, offset + prefix.packedLength))
+                        return prefix.packedLength + packedLength (len);
+                }
+            } catch (Exception ignored) {
+                // let the source packager report it
+            }
+            return source.pack (c, b, offset);
+        }
+
+        @Override
+        public int getPackedLength (byte[] b, int offset) {
+            try {
+                int len = prefix.decode (b, offset);
+                if (len == -1)
+                    len = trim ? Math.min (getLength(), b.length-offset) : getLength();
+                else if (getLength() > 0 && len > getLength())
+                    return -1;
+                int packedLength = prefix.packedLength + packedLength (len);
+                return len >= 0 && offset + packedLength <= b.length ? packedLength : -1;
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int unpack (ISOComponent c, byte[] b, int offset) throws ISOException {
+            try {
+                int len = prefix.decode (b, offset);
+                if (len == -1)
+                    len = trim ? Math.min (getLength(), b.length-offset) : getLength();
+                else if (getLength() > 0 && len > getLength())
+                    return source.unpack (c, b, offset); // reports it
+                int start = offset + prefix.packedLength;
+                int packedLength = packedLength (len);
+                if (len >= 0 && start + packedLength <= b.length) {
+                    c.setValue (uninterpret (b, start, len));
+                    return prefix.packedLength + packedLength;
+                }
+            } catch (Exception ignored) {
+                // let the source packager report it
+            }
+            return source.unpack (c, b, offset);
+        }
+
+        @Override
+        public void unpack (ISOComponent c, InputStream in) throws IOException, ISOException {
+            source.unpack (c, in);
+        }
+
+        @Override
+        public int getMaxPackedLength() {
+            return source.getMaxPackedLength();
+        }
+
+        /**
+         * @return padded length of a String value that can be packed straight away, -1 otherwise
+         */
+        private int getPaddedLength (ISOComponent c) throws ISOException {
+            if (!(c.getValue() instanceof String data) || data.length() > getLength())
+                return -1;
+            return padderKind == PAD_NONE ? data.length() : getLength();
+        }
+
+        private int packedLength (int len) {
+            return switch (interpreterKind) {
+                case I_ASCII -> ((AsciiInterpreter) interpreter).getPackedLength (len);
+                case I_BCD -> ((BCDInterpreter) interpreter).getPackedLength (len);
+                case I_EBCDIC -> ((EbcdicInterpreter) interpreter).getPackedLength (len);
+                default -> ((LiteralInterpreter) interpreter).getPackedLength (len);
+            };
+        }
+
+        /**
+         * Pads and interprets <code>data</code> into <code>b</code>
+         * @return false if the fast path can't handle <code>data</code>
+         */
+        private boolean interpret (String data, int len, byte[] b, int offset) throws ISOException {
+            if (interpreterKind == I_ASCII) {
+                int n = data.length();
+                if (n < len && padChar > 0xFF)
+                    return false;
+                int k = offset;
+                if (padderKind == PAD_LEFT)
+                    for (int i = n; i < len; i++)
+                        b[k++] = (byte) padChar;
+                for (int i = 0; i < n; i++) {
+                    char ch = data.charAt (i);
+                    if (ch > 0xFF)
+                        return false; // let the charset encoder deal with it
+                    b[k++] = (byte) ch;
+                }
+                for (; k < offset + len; k++)
+                    b[k] = (byte) padChar;
+                return true;
+            }
+            String padded = switch (padderKind) {
+                case PAD_NONE -> data;
+                case PAD_LEFT -> ((LeftPadder) padder).pad (data, len);
+                case PAD_RIGHT -> ((RightPadder) padder).pad (data, len);
+                default -> ((RightTPadder) padder).pad (data, len);
+            };
+            switch (interpreterKind) {
+                case I_BCD -> ((BCDInterpreter) interpreter).interpret (padded, b, offset);
+                case I_EBCDIC -> ((EbcdicInterpreter) interpreter).interpret (padded, b, offset);
+                default -> ((LiteralInterpreter) interpreter).interpret (padded, b, offset);
+            }
+            return true;
+        }
+
+        private String uninterpret (byte[] b, int offset, int len) throws ISOException {
+            return switch (interpreterKind) {
+                case I_ASCII -> new String (b, offset, len, ISOUtil.CHARSET);
+                case I_BCD -> ((BCDInterpreter) interpreter).uninterpret (b, offset, len);
+                case I_EBCDIC -> ((EbcdicInterpreter) interpreter).uninterpret (b, offset, len);
+                default -> ((LiteralInterpreter) interpreter).uninterpret (b, offset, len);
+            };
+        }
+    }
+
+    /**
+     * Compiled {@link ISOBinaryFieldPackager}
+     */
+    static final class BinaryField extends ISOBinaryFieldPackager {
+        private final ISOBinaryFieldPackager source;
+        private final LengthStep prefix;
+        private final int interpreterKind;
+        private final BinaryInterpreter interpreter;
+
+        BinaryField (ISOBinaryFieldPackager source, int prefixerKind, int interpreterKind) {
+            super (source.getLength(), source.getDescription(), source.getInterpreter(), source.getPrefixer());
+            this.source = source;
+            pad = source.pad;
+            trim = source.trim;
+            this.prefix = new LengthStep (prefixerKind, source.getPrefixer());
+            this.interpreterKind = interpreterKind;
+            this.interpreter = source.getInterpreter();
+        }
+
+        @Override
+        public ISOComponent createComponent (int fieldNumber) {
+            return source.createComponent (fieldNumber);
+        }
+
+        @Override
+        public byte[] pack (ISOComponent c) throws ISOException {
+            int len = getPackedLength (c);
+            if (len < 0)
+                return source.pack (c);
+            byte[] b = new byte[len];
+            pack (c, b, 0);
+            return b;
+        }
+
+        @Override
+        public int getPackedLength (ISOComponent c) throws ISOException {
+            byte[] data = getPackableBytes (c);
+            return data != null ? prefix.packedLength + packedLength (data.length) : -1;
+        }
+
+        @Override
+        public int pack (ISOComponent c, byte[] b, int offset) throws ISOException {
+            try {
+                byte[] data = getPackableBytes (c);
+                if (data != null) {
+                    prefix.encode (data.length, b, offset);
+                    interpret (data, b, offset + prefix.packedLength);
+                    return prefix.packedLength + packedLength (data.length);
+                }
+            } catch (Exception ignored) {
+                // let the source packager report it
+            }
+            return source.pack (c, b, offset);
+        }
+
+        @Override
+        public int getPackedLength (byte[] b, int offset) {
+            try {
+                int len = prefix.decode (b, offset);
+                if (len == -1)
+                    len = getLength();
+                else if (getLength() > 0 && len > getLength())
+                    return -1;
+                int packedLength = prefix.packedLength + packedLength (len);
+                return len >= 0 && offset + packedLength <= b.length ? packedLength : -1;
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int unpack (ISOComponent c, byte[] b, int offset) throws ISOException {
+            try {
+                int len = prefix.decode (b, offset);
+                if (len == -1)
+                    len = getLength();
+                else if (getLength() > 0 && len > getLength())
+                    return source.unpack (c, b, offset); // reports it
+                int start = offset + prefix.packedLength;
+                int packedLength = packedLength (len);
+                if (len >= 0 && start + packedLength <= b.length) {
+                    c.setValue (uninterpret (b, start, len));
+                    return prefix.packedLength + packedLength;
+                }
+            } catch (Exception ignored) {
+                // let the source packager report it
+            }
+            return source.unpack (c, b, offset);
+        }
+
+        @Override
+        public void unpack (ISOComponent c, InputStream in) throws IOException, ISOException {
+            source.unpack (c, in);
+        }
+
+        @Override
+        public int getMaxPackedLength() {
+            return source.getMaxPackedLength();
+        }
+
+        private byte[] getPackableBytes (ISOComponent c) throws ISOException {
+            if (!(c.getValue() instanceof byte[] data))
+                return null;
+            return prefix.packedLength == 0 && data.length != getLength() ? null : data;
+        }
+
+        private int packedLength (int len) {
+            return switch (interpreterKind) {
+                case B_LITERAL -> ((LiteralBinaryInterpreter) interpreter).getPackedLength (len);
+                case B_ASCII_HEX -> ((AsciiHexInterpreter) interpreter).getPackedLength (len);
+                case B_EBCDIC_HEX -> ((EbcdicHexInterpreter) interpreter).getPackedLength (len);
+                default -> ((EbcdicBinaryInterpreter) interpreter).getPackedLength (len);
+            };
+        }
+
+        private void interpret (byte[] data, byte[] b, int offset) throws ISOException {
+            switch (interpreterKind) {
+                case B_LITERAL -> ((LiteralBinaryInterpreter) interpreter).interpret (data, b, offset);
+                case B_ASCII_HEX -> ((AsciiHexInterpreter) interpreter).interpret (data, b, offset);
+                case B_EBCDIC_HEX -> ((EbcdicHexInterpreter) interpreter).interpret (data, b, offset);
+                default -> ((EbcdicBinaryInterpreter) interpreter).interpret (data, b, offset);
+            }
+        }
+
+        private byte[] uninterpret (byte[] b, int offset, int len) throws ISOException {
+            return switch (interpreterKind) {
+                case B_LITERAL -> ((LiteralBinaryInterpreter) interpreter).uninterpret (b, offset, len);
+                case B_ASCII_HEX -> ((AsciiHexInterpreter) interpreter).uninterpret (b, offset, len);
+                case B_EBCDIC_HEX -> ((EbcdicHexInterpreter) interpreter).uninterpret (b, offset, len);
+                default -> ((EbcdicBinaryInterpreter) interpreter).uninterpret (b, offset, len);
+            };
+        }
+    }
+}
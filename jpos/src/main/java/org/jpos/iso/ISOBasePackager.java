@@ -25,7 +25,8 @@ import org.jpos.util.Logger;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Map;
 
@@ -90,18 +91,98 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
             evt = new LogEvent (this, "pack");
 
         try {
-            if (m.getComposite() != m)
-                throw new ISOException ("Can't call packager on non Composite");
+            Image image = new Image (m, evt);
+            byte[] d = new byte[image.len];
+            image.write (d, 0);
+            if (evt != null)  // save a few CPU cycle if no logger available
+                evt.addMessage (ISOUtil.hexString (d));
 
-            ArrayList<byte[]> v = new ArrayList<byte[]>(128);
-            byte[] b;
-            byte[] hdr= null;
-            int len = 0;
+            return d;
+        } catch (ISOException e) {
+            if (evt != null)
+                evt.addMessage (e);
+            throw e;
+        } finally {
+            if (evt != null)
+                Logger.log(evt);
+        }
+    }
 
-            Map fields = m.getChildren();
-            ISOComponent c = (ISOComponent) fields.get (0);
-            int first = getFirstField();
+    /**
+     * Packs <code>m</code> into a caller supplied buffer, starting at its current position.
+     * <p>
+     * Produces the same image as {@link #pack(ISOComponent)}; when <code>buf</code> is backed
+     * by an accessible array, fields are written in place.
+     *
+     * @param   m   the Component to pack
+     * @param   buf destination buffer, its position is advanced past the packed image
+     * @return      number of bytes written
+     * @exception ISOException if <code>m</code> can't be packed or doesn't fit in <code>buf</code>
+     * @since 3.0.2
+     */
+    public int pack (ISOComponent m, ByteBuffer buf) throws ISOException
+    {
+        LogEvent evt = null;
+        if (logger != null)
+            evt = new LogEvent (this, "pack");
 
+        try {
+            Image image = new Image (m, evt);
+            if (image.len > buf.remaining())
+                throw new ISOException ("buffer too small (" + buf.remaining() + "/" + image.len + ")");
+            if (buf.hasArray() && !buf.isReadOnly()) {
+                int offset = buf.arrayOffset() + buf.position();
+                Arrays.fill (buf.array(), offset, offset + image.len, (byte) 0);
+                image.write (buf.array(), offset);
+                if (evt != null)
+                    evt.addMessage (ISOUtil.hexString (buf.array(), offset, image.len));
+                buf.position (buf.position() + image.len);
+            } else {
+                byte[] d = new byte[image.len];
+                image.write (d, 0);
+                if (evt != null)
+                    evt.addMessage (ISOUtil.hexString (d));
+                buf.put (d);
+            }
+            return image.len;
+        } catch (ISOException e) {
+            if (evt != null)
+                evt.addMessage (e);
+            throw e;
+        } finally {
+            if (evt != null)
+                Logger.log(evt);
+        }
+    }
+
+    /**
+     * Two pass packing: the constructor works out the exact image length, asking each
+     * field packager for its packed length (see {@link ISOFieldPackager#getPackedLength(ISOComponent)}),
+     * {@link #write(byte[], int)} then has every field packed straight into the destination.
+     * <p>
+     * Fields whose length can't be known upfront (bitmaps, subfields, custom packagers) are packed
+     * during the first pass and copied over.
+     */
+    private final class Image {
+        final ISOComponent m;
+        final LogEvent evt;
+        final Map fields;       // null when we can read straight from the ISOMsg
+        final int first;
+        byte[] hdr;
+        byte[] mti;
+        byte[] bitmap;
+        byte[][] images;        // field images packed during the first pass
+        final BitSet present = new BitSet();
+        int maxField;
+        int len;
+
+        Image (ISOComponent m, LogEvent evt) throws ISOException {
+            if (m.getComposite() != m)
+                throw new ISOException ("Can't call packager on non Composite");
+            this.m = m;
+            this.evt = evt;
+            fields = m instanceof ISOMsg ? null : m.getChildren();
+            first = getFirstField();
 
             // pre-read header, if it exists, and advance total len
             if (m instanceof ISOMsg && headerLength>0)
@@ -111,20 +192,19 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
             		len += hdr.length;
             }
 
+            ISOComponent c = get (0);
             if (first > 0 && c != null) {
-                b = fld[0].pack(c);
-                len += b.length;
-                v.add (b);
+                mti = fld[0].pack(c);
+                len += mti.length;
             }
 
-            BitSet bmap12= null;                            // will store primary and secondary part of bitmap
             BitSet bmap3= null;                             // will store tertiary part of bitmap
             if (emitBitMap())
             {   // The ISOComponent stores a single bitmap in field -1, which could be up to
                 // 192 bits long. If we have a thirdBitmapField, we may need to split the full
                 // bitmap into 1 & 2 at the beginning (16 bytes), and 3rd inside the Data Element
-                c = (ISOComponent) fields.get (-1);
-                bmap12= (BitSet)c.getValue();               // the full bitmap (up to 192 bits long)
+                c = get (-1);
+                BitSet bmap12= (BitSet)c.getValue();        // the full bitmap (up to 192 bits long)
 
                 if (thirdBitmapField >= 0 &&                // we may need to split it!
                     fld[thirdBitmapField] instanceof ISOBitMapPackager)
@@ -140,10 +220,11 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
                         ISOBitMap bmField= new ISOBitMap(thirdBitmapField);
                         bmField.setValue(bmap3);
                         m.set(bmField);
-                        fields.put(thirdBitmapField, bmField);    // fields is a clone of m's inner map, so we store it here as well
+                        if (fields != null)
+                            fields.put(thirdBitmapField, bmField);    // fields is a clone of m's inner map, so we store it here as well
 
                         // bit65 should only be set if there's a data-containing DE-65 (which should't happen!)
-                        bmap12.set(65, fields.get(65) == null ? false : true);
+                        bmap12.set(65, get(65) != null);
                     }
                     else
                     {   // else: No bits/fields above 128 in this message.
@@ -151,66 +232,94 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
                         // we need to clear the bit and the data
                         m.unset(thirdBitmapField);                // remove from ISOMsg
                         bmap12.clear(thirdBitmapField);           // remove from inner bitmap
-                        fields.remove(thirdBitmapField);          // remove from fields clone
+                        if (fields != null)
+                            fields.remove(thirdBitmapField);      // remove from fields clone
                     }
                 }
                 // now will emit the 1st and 2nd bitmaps, and the loop below will take care of 3rd
                 // when emitting field `thirdBitmapField`
-                b = getBitMapfieldPackager().pack(c);
-                len += b.length;
-                v.add (b);
+                bitmap = getBitMapfieldPackager().pack(c);
+                len += bitmap.length;
             }
 
             // if Field 1 is a BitMap then we are packing an
             // ISO-8583 message so next field is fld#2.
             // else we are packing an ANSI X9.2 message, first field is 1
-            int tmpMaxField=Math.min (m.getMaxField(), (bmap3 != null || fld.length > 129) ? 192 : 128);
+            maxField=Math.min (m.getMaxField(), (bmap3 != null || fld.length > 129) ? 192 : 128);
 
-            for (int i=first; i<=tmpMaxField; i++) {
-                if ((c=(ISOComponent) fields.get (i)) != null)
+            for (int i=first; i<=maxField; i++) {
+                if ((c=get (i)) != null)
                 {
                     try {
                         ISOFieldPackager fp = fld[i];
                         if (fp == null)
                             throw new ISOException ("null field "+i+" packager");
-                        b = fp.pack(c);
-                        len += b.length;
-                        v.add (b);
-                    } catch (ISOException e) {
-                        if (evt != null) {
-                            evt.addMessage ("error packing field "+i);
-                            evt.addMessage (c);
-                            evt.addMessage (e);
+                        present.set (i);
+                        int l = fp.getPackedLength(c);
+                        if (l < 0) {
+                            if (images == null)
+                                images = new byte[maxField+1][];
+                            images[i] = fp.pack(c);
+                            l = images[i].length;
                         }
-                        throw new ISOException("error packing field "+i, e);
+                        len += l;
+                    } catch (ISOException e) {
+                        throw fieldError (i, c, e);
                     }
                 }
             }
+        }
 
-            int k = 0;
-            byte[] d = new byte[len];
+        /**
+         * Writes the message image
+         * @param d destination, zero filled
+         * @param offset starting offset
+         * @exception ISOException
+         */
+        void write (byte[] d, int offset) throws ISOException {
+            int k = offset;
 
             // if ISOMsg insert header (we pre-read it at the beginning)
             if (hdr != null) {
                 System.arraycopy(hdr, 0, d, k, hdr.length);
                 k += hdr.length;
             }
-
-            for (byte[] bb : v) {
-                System.arraycopy(bb, 0, d, k, bb.length);
-                k += bb.length;
+            if (mti != null) {
+                System.arraycopy(mti, 0, d, k, mti.length);
+                k += mti.length;
             }
-            if (evt != null)  // save a few CPU cycle if no logger available
-                evt.addMessage (ISOUtil.hexString (d));
+            if (bitmap != null) {
+                System.arraycopy(bitmap, 0, d, k, bitmap.length);
+                k += bitmap.length;
+            }
+            for (int i=present.nextSetBit(0); i>=0; i=present.nextSetBit(i+1)) {
+                if (images != null && images[i] != null) {
+                    System.arraycopy(images[i], 0, d, k, images[i].length);
+                    k += images[i].length;
+                } else {
+                    ISOComponent c = get (i);
+                    try {
+                        k += fld[i].pack(c, d, k);
+                    } catch (ISOException e) {
+                        throw fieldError (i, c, e);
+                    }
+                }
+            }
+            if (k - offset != len)
+                throw new ISOException ("packed length mismatch (" + (k - offset) + "/" + len + ")");
+        }
 
-            return d;
-        } catch (ISOException e) {
-            if (evt != null)
+        private ISOComponent get (int fldno) {
+            return fields != null ? (ISOComponent) fields.get (fldno) : ((ISOMsg) m).getComponent (fldno);
+        }
+
+        private ISOException fieldError (int fldno, ISOComponent c, ISOException e) {
+            if (evt != null) {
+                evt.addMessage ("error packing field "+fldno);
+                evt.addMessage (c);
                 evt.addMessage (e);
-            throw e;
-        } finally {
-            if (evt != null)
-                Logger.log(evt);
+            }
+            return new ISOException("error packing field "+fldno, e);
         }
     }
 
@@ -222,8 +331,33 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
      */
     @Override
     public int unpack (ISOComponent m, byte[] b) throws ISOException {
+        return unpack (m, b, false);
+    }
+
+    /**
+     * Unpacks a message, optionally deferring field decoding.
+     * <p>
+     * In lazy mode, fields whose packed length can be worked out without decoding them
+     * (see {@link ISOFieldPackager#getPackedLength(byte[], int)}) are just indexed; an
+     * {@link ISOMsg} decodes them the first time they are accessed, and reuses
+     * <code>b</code> when packed again without changes. Lazy mode is ignored if this
+     * packager has a logger, or <code>m</code> is not an ISOMsg.
+     * <p>
+     * In lazy mode the caller must not modify <code>b</code> afterwards, and errors in
+     * the content of a field (as opposed to its length) surface as an
+     * {@link IllegalStateException} when the field is first accessed.
+     *
+     * @param   m   the Container of this message
+     * @param   b   ISO message image
+     * @param   lazy true to defer field decoding
+     * @return      consumed bytes
+     * @exception ISOException
+     * @since 3.0.2
+     */
+    public int unpack (ISOComponent m, byte[] b, boolean lazy) throws ISOException {
         LogEvent evt = logger != null ? new LogEvent (this, "unpack") : null;
         int consumed = 0;
+        lazy &= evt == null && m instanceof ISOMsg;
 
         try {
             if (m.getComposite() != m)
@@ -281,6 +415,12 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
                         if (fld[i] == null)
                             throw new ISOException ("field packager '" + i + "' is null");
 
+                        int len = lazy && i != thirdBitmapField ? fld[i].getPackedLength(b, consumed) : -1;
+                        if (len >= 0) {
+                            m.set(new LazyField(i, fld[i], b, consumed, len));
+                            consumed += len;
+                            continue;
+                        }
                         ISOComponent c = fld[i].createComponent(i);
                         consumed += fld[i].unpack (c, b, consumed);
                         if (evt != null)
@@ -328,6 +468,8 @@ public abstract class ISOBasePackager implements ISOPackager, LogSource {
             if (evt != null && b.length != consumed) {
                 evt.addMessage ("WARNING: unpack len=" +b.length +" consumed=" +consumed);
             }
+            if (lazy)
+                ((ISOMsg) m).setPackedImage(this, b.length == consumed ? b : Arrays.copyOf(b, consumed));
 
             return consumed;
         } catch (ISOException e) {
@@ -87,6 +87,22 @@ public class ISOBinaryFieldPackager extends ISOFieldPackager
         this.prefixer = prefixer;
     }
 
+    /**
+     * @return the interpreter
+     */
+    public BinaryInterpreter getInterpreter()
+    {
+        return interpreter;
+    }
+
+    /**
+     * @return the length prefixer
+     */
+    public Prefixer getPrefixer()
+    {
+        return prefixer;
+    }
+
     public int getMaxPackedLength()
     {
         return prefixer.getPackedLength() + interpreter.getPackedLength(getLength());
@@ -113,6 +129,67 @@ public class ISOBinaryFieldPackager extends ISOFieldPackager
         }
     }
 
+    @Override
+    public int getPackedLength(ISOComponent c) throws ISOException
+    {
+        byte[] data = getPackableBytes(c);
+        return data != null ? prefixer.getPackedLength() + interpreter.getPackedLength(data.length) : -1;
+    }
+
+    /**
+     * Packs the component straight into <code>b</code>, producing the same image
+     * as {@link #pack(ISOComponent)}.
+     * @return number of bytes written
+     */
+    @Override
+    public int pack(ISOComponent c, byte[] b, int offset) throws ISOException
+    {
+        byte[] data = getPackableBytes(c);
+        if (data == null)
+            return super.pack(c, b, offset);
+        try
+        {
+            int packedLength = prefixer.getPackedLength();
+            prefixer.encodeLength(data.length, b, offset);
+            interpreter.interpret(data, b, offset + packedLength);
+            return packedLength + interpreter.getPackedLength(data.length);
+        } catch(Exception e) {
+            throw new ISOException(makeExceptionMessage(c, "packing"), e);
+        }
+    }
+
+    private byte[] getPackableBytes(ISOComponent c) throws ISOException
+    {
+        if (!isPackDeclaredBy(ISOBinaryFieldPackager.class) || !(c.getValue() instanceof byte[] data))
+            return null; // let pack(ISOComponent) handle (or report) it
+        return prefixer.getPackedLength() == 0 && data.length != getLength() ? null : data;
+    }
+
+    /**
+     * Packed length of the field starting at <code>offset</code>, that is, the number
+     * of bytes {@link #unpack(ISOComponent, byte[], int)} would consume.
+     * @return packed length or -1
+     */
+    @Override
+    public int getPackedLength(byte[] b, int offset)
+    {
+        if (!isUnpackDeclaredBy(ISOBinaryFieldPackager.class))
+            return -1;
+        try
+        {
+            int len = prefixer.decodeLength(b, offset);
+            if (len == -1)
+                len = getLength();
+            else if (getLength() > 0 && len > getLength())
+                return -1; // let unpack report it
+            int packedLength = prefixer.getPackedLength() + interpreter.getPackedLength(len);
+            return len >= 0 && offset + packedLength <= b.length ? packedLength : -1;
+        } catch(Exception e)
+        {
+            return -1;
+        }
+    }
+
     public int unpack(ISOComponent c, byte[] b, int offset) throws ISOException
     {
         try
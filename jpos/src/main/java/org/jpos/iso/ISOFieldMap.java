@@ -0,0 +1,328 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link ISOMsg}'s field store.
+ *
+ * <p>Field numbers from -1 (the bitmap) up to {@link #DENSE_LIMIT} are kept in an
+ * array indexed by field number, plus a presence bitmap, so lookups, presence checks
+ * and the max field are plain array and bit operations. Other keys (i.e. tag numbers
+ * used as subfield ids) go to an overflow TreeMap.</p>
+ *
+ * <p>Iteration is in ascending key order, as with the TreeMap this store replaces.
+ * Iterators are not fail-fast; values may be replaced while iterating.</p>
+ *
+ * @since 3.0.2
+ */
+final class ISOFieldMap extends AbstractMap<Integer,Object> implements Cloneable, Serializable {
+    private static final long serialVersionUID = -1936542815062542346L;
+    static final int DENSE_LIMIT = 1023;
+    private static final int INITIAL_SLOTS = 130; // -1..128
+
+    private Object[] values;
+    private long[] present;
+    private int size;
+    private TreeMap<Integer,Object> overflow;
+    private transient Set<Map.Entry<Integer,Object>> entrySet;
+
+    ISOFieldMap() {
+        values = new Object[INITIAL_SLOTS];
+        present = new long[words (INITIAL_SLOTS)];
+    }
+
+    /**
+     * @param key field number
+     * @return field value, null if not present
+     */
+    Object get (int key) {
+        int idx = key + 1;
+        if (idx >= 0 && idx < values.length)
+            return values[idx];
+        return isDense (key) || overflow == null ? null : overflow.get (key);
+    }
+
+    /**
+     * @param key field number
+     * @return true if field is present
+     */
+    boolean containsKey (int key) {
+        int idx = key + 1;
+        if (idx >= 0 && idx < values.length)
+            return (present[idx >>> 6] & 1L << idx) != 0L;
+        return !isDense (key) && overflow != null && overflow.containsKey (key);
+    }
+
+    /**
+     * @param key field number
+     * @param value field value
+     * @return previous value
+     */
+    Object put (int key, Object value) {
+        if (!isDense (key)) {
+            if (overflow == null)
+                overflow = new TreeMap<>();
+            int n = overflow.size();
+            Object old = overflow.put (key, value);
+            size += overflow.size() - n;
+            return old;
+        }
+        int idx = key + 1;
+        if (idx >= values.length)
+            grow (idx);
+        Object old = values[idx];
+        values[idx] = value;
+        long bit = 1L << idx;
+        if ((present[idx >>> 6] & bit) == 0L) {
+            present[idx >>> 6] |= bit;
+            size++;
+        }
+        return old;
+    }
+
+    /**
+     * @param key field number
+     * @return removed value
+     */
+    Object remove (int key) {
+        if (!isDense (key)) {
+            if (overflow == null || !overflow.containsKey (key))
+                return null;
+            size--;
+            return overflow.remove (key);
+        }
+        int idx = key + 1;
+        if (idx >= values.length || (present[idx >>> 6] & 1L << idx) == 0L)
+            return null;
+        Object old = values[idx];
+        values[idx] = null;
+        present[idx >>> 6] &= ~(1L << idx);
+        size--;
+        return old;
+    }
+
+    /**
+     * @param from field number
+     * @return the lowest field number greater than or equal to <code>from</code>,
+     *   or Integer.MIN_VALUE if there's none
+     */
+    int nextKey (int from) {
+        if (from < -1 && overflow != null) {
+            Integer k = overflow.ceilingKey (from);
+            if (k != null && k < -1)
+                return k;
+        }
+        int idx = Math.max (from + 1, 0);
+        for (int w = idx >>> 6; w < present.length; w++) {
+            long bits = w == idx >>> 6 ? present[w] & -1L << idx : present[w];
+            if (bits != 0L)
+                return (w << 6) + Long.numberOfTrailingZeros (bits) - 1;
+        }
+        if (overflow != null) {
+            Integer k = overflow.ceilingKey (Math.max (from, DENSE_LIMIT + 1));
+            if (k != null)
+                return k;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return the highest field number, Integer.MIN_VALUE if empty
+     */
+    int maxKey() {
+        if (overflow != null && !overflow.isEmpty() && overflow.lastKey() > DENSE_LIMIT)
+            return overflow.lastKey();
+        for (int w = present.length - 1; w >= 0; w--) {
+            if (present[w] != 0L)
+                return (w << 6) + 63 - Long.numberOfLeadingZeros (present[w]) - 1;
+        }
+        return overflow != null && !overflow.isEmpty() ? overflow.lastKey() : Integer.MIN_VALUE;
+    }
+
+    @Override
+    public Object get (Object key) {
+        return key instanceof Integer k ? get (k.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey (Object key) {
+        return key instanceof Integer k && containsKey (k.intValue());
+    }
+
+    @Override
+    public Object put (Integer key, Object value) {
+        return put (key.intValue(), value);
+    }
+
+    @Override
+    public Object remove (Object key) {
+        return key instanceof Integer k ? remove (k.intValue()) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill (values, null);
+        Arrays.fill (present, 0L);
+        overflow = null;
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer,Object>> entrySet() {
+        Set<Map.Entry<Integer,Object>> es = entrySet;
+        if (es == null) {
+            entrySet = es = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<Integer,Object>> iterator() {
+                    return new EntryIterator();
+                }
+                @Override
+                public int size() {
+                    return size;
+                }
+                @Override
+                public void clear() {
+                    ISOFieldMap.this.clear();
+                }
+            };
+        }
+        return es;
+    }
+
+    @Override
+    public ISOFieldMap clone() {
+        try {
+            ISOFieldMap m = (ISOFieldMap) super.clone();
+            m.values = values.clone();
+            m.present = present.clone();
+            if (overflow != null)
+                m.overflow = new TreeMap<>(overflow);
+            m.entrySet = null;
+            return m;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError();
+        }
+    }
+
+    private void grow (int idx) {
+        int slots = Math.min (Math.max (idx + 1, values.length * 2), DENSE_LIMIT + 2);
+        values = Arrays.copyOf (values, slots);
+        present = Arrays.copyOf (present, words (slots));
+    }
+
+    private static boolean isDense (int key) {
+        return key >= -1 && key <= DENSE_LIMIT;
+    }
+
+    private static int words (int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Integer,Object>> {
+        int next;
+        int last = Integer.MIN_VALUE;
+
+        EntryIterator() {
+            next = nextKey (Integer.MIN_VALUE + 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != Integer.MIN_VALUE;
+        }
+
+        @Override
+        public Map.Entry<Integer,Object> next() {
+            if (next == Integer.MIN_VALUE)
+                throw new NoSuchElementException();
+            last = next;
+            next = last == Integer.MAX_VALUE ? Integer.MIN_VALUE : nextKey (last + 1);
+            return new Entry (last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == Integer.MIN_VALUE)
+                throw new IllegalStateException();
+            ISOFieldMap.this.remove (last);
+            last = Integer.MIN_VALUE;
+        }
+    }
+
+    private final class Entry implements Map.Entry<Integer,Object> {
+        final int key;
+
+        Entry (int key) {
+            this.key = key;
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return get (key);
+        }
+
+        @Override
+        public Object setValue (Object value) {
+            return put (key, value);
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            return o instanceof Map.Entry<?,?> e
+              && getKey().equals (e.getKey()) && Objects.equals (getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object v = getValue();
+            return key ^ (v == null ? 0 : v.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
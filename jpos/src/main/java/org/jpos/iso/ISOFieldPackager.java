@@ -58,10 +58,14 @@ import java.io.ObjectOutput;
  * @see IF_CHAR
  */
 public abstract class ISOFieldPackager {
+    private static final ClassValue<Class<?>> PACK_DECLARER = declarer ("pack", ISOComponent.class);
+    private static final ClassValue<Class<?>> UNPACK_DECLARER = declarer ("unpack", ISOComponent.class, byte[].class, int.class);
     private int len;
     private String description;
     protected boolean pad;
     protected boolean trim;
+    private Class<?> packDeclarer;
+    private Class<?> unpackDeclarer;
 
     /**
      * Default Constructor
@@ -113,6 +117,37 @@ public abstract class ISOFieldPackager {
      */
     public abstract byte[] pack (ISOComponent c) throws ISOException;
 
+    /**
+     * Length query used by {@link ISOBasePackager} to size its output buffer
+     * before packing.
+     *
+     * @param c - a component
+     * @return exact packed length of <code>c</code>, or -1 if it can't be
+     *         known without actually packing it
+     * @exception ISOException
+     * @since 3.0.2
+     */
+    public int getPackedLength (ISOComponent c) throws ISOException {
+        return -1;
+    }
+
+    /**
+     * Packs a component straight into a caller supplied buffer.
+     * Default implementation delegates to {@link #pack(ISOComponent)}.
+     *
+     * @param c - a component
+     * @param b - destination buffer
+     * @param offset - starting offset within <code>b</code>
+     * @return number of bytes written
+     * @exception ISOException
+     * @since 3.0.2
+     */
+    public int pack (ISOComponent c, byte[] b, int offset) throws ISOException {
+        byte[] image = pack (c);
+        System.arraycopy (image, 0, b, offset, image.length);
+        return image.length;
+    }
+
     /**
      * @param c - the Component to unpack
      * @param b - binary image
@@ -123,6 +158,20 @@ public abstract class ISOFieldPackager {
     public abstract int unpack (ISOComponent c, byte[] b, int offset)
         throws ISOException;
 
+    /**
+     * Length query used by {@link ISOBasePackager} to index fields without
+     * decoding them (see {@link ISOBasePackager#unpack(ISOComponent, byte[], boolean)}).
+     *
+     * @param b - binary image
+     * @param offset - starting offset of the field within the binary image
+     * @return number of bytes {@link #unpack(ISOComponent, byte[], int)} would consume,
+     *         or -1 if it can't be known without actually unpacking the field
+     * @since 3.0.2
+     */
+    public int getPackedLength (byte[] b, int offset) {
+        return -1;
+    }
+
     /**
      * @param c  - the Component to unpack
      * @param in - input stream
@@ -145,6 +194,49 @@ public abstract class ISOFieldPackager {
         out.write (pack (c));
     }
 
+    /**
+     * Subclasses providing a {@link #getPackedLength(ISOComponent)} derived from their
+     * own pack logic use this to detect a further subclass overriding that logic.
+     *
+     * @param declarer class whose {@link #pack(ISOComponent)} the length query is based on
+     * @return true if this packager's pack(ISOComponent) is the one declared by <code>declarer</code>
+     * @since 3.0.2
+     */
+    protected final boolean isPackDeclaredBy (Class<?> declarer) {
+        Class<?> c = packDeclarer;
+        if (c == null)
+            packDeclarer = c = PACK_DECLARER.get (getClass());
+        return c == declarer;
+    }
+
+    /**
+     * Same as {@link #isPackDeclaredBy(Class)}, for {@link #unpack(ISOComponent, byte[], int)}
+     * and {@link #getPackedLength(byte[], int)}.
+     *
+     * @param declarer class whose {@link #unpack(ISOComponent, byte[], int)} the length query is based on
+     * @return true if this packager's unpack(ISOComponent, byte[], int) is the one declared by <code>declarer</code>
+     * @since 3.0.2
+     */
+    protected final boolean isUnpackDeclaredBy (Class<?> declarer) {
+        Class<?> c = unpackDeclarer;
+        if (c == null)
+            unpackDeclarer = c = UNPACK_DECLARER.get (getClass());
+        return c == declarer;
+    }
+
+    private static ClassValue<Class<?>> declarer (String name, Class<?>... parameterTypes) {
+        return new ClassValue<>() {
+            @Override
+            protected Class<?> computeValue (Class<?> type) {
+                try {
+                    return type.getMethod (name, parameterTypes).getDeclaringClass();
+                } catch (NoSuchMethodException e) {
+                    return ISOFieldPackager.class;
+                }
+            }
+        };
+    }
+
     protected byte[] readBytes (InputStream in, int l) throws IOException {
         byte[] b = new byte [l];
         int n = 0;
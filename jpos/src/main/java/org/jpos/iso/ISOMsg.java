@@ -51,12 +51,13 @@ public class ISOMsg extends ISOComponent
     public static final int OUTGOING = 2;
     private static final long serialVersionUID = 4306251831901413975L;
     private WeakReference sourceRef;
+    private PackedImage packedImage;
 
     /**
      * Creates an ISOMsg
      */
     public ISOMsg () {
-        fields = new TreeMap<>();
+        fields = new ISOFieldMap();
         maxField = -1;
         dirty = true;
         maxFieldDirty=true;
@@ -108,10 +109,12 @@ public class ISOMsg extends ISOComponent
      */
     public void setHeader(byte[] b) {
         header = new BaseHeader (b);
+        touch();
     }
 
     public void setHeader (ISOHeader header) {
         this.header = header;
+        touch();
     }
     /**
      * get optional message header image
@@ -148,6 +151,7 @@ public class ISOMsg extends ISOComponent
      * @return header associated with this ISOMsg, can be null
      */
     public ISOHeader getISOHeader() {
+        touch();
         return header;
     }
     /**
@@ -182,9 +186,13 @@ public class ISOMsg extends ISOComponent
     }
     private void recalcMaxField() {
         maxField = 0;
-        for (Object obj : fields.keySet()) {
-            if (obj instanceof Integer)
-                maxField = Math.max(maxField, ((Integer) obj).intValue());
+        if (fields instanceof ISOFieldMap fm) {
+            maxField = Math.max(maxField, fm.maxKey());
+        } else {
+            for (Object obj : fields.keySet()) {
+                if (obj instanceof Integer)
+                    maxField = Math.max(maxField, ((Integer) obj).intValue());
+            }
         }
         maxFieldDirty = false;
     }
@@ -194,6 +202,7 @@ public class ISOMsg extends ISOComponent
     public void setPackager (ISOPackager p) {
         packager = p;
         if (packager == null) {
+            decodeAll();
             for (Object o : fields.values()) {
                 if (o instanceof ISOMsg)
                     ((ISOMsg) o).setPackager(null);
@@ -217,6 +226,7 @@ public class ISOMsg extends ISOComponent
             if (i > maxField)
                 maxField = i;
             dirty = true;
+            touch();
         }
     }
 
@@ -369,8 +379,11 @@ public class ISOMsg extends ISOComponent
      */
     @Override
     public void unset (int fldno) {
-        if (fields.remove (fldno) != null)
+        Object o = fields instanceof ISOFieldMap fm ? fm.remove (fldno) : fields.remove (fldno);
+        if (o != null) {
             dirty = maxFieldDirty = true;
+            touch();
+        }
     }
 
     /**
@@ -448,9 +461,15 @@ public class ISOMsg extends ISOComponent
         int mf = Math.min (getMaxField(), 192);
 
         BitSet bmap = new BitSet (mf+62 >>6 <<6);
-        for (int i=1; i<=mf; i++)
-            if (fields.get (i) != null)
-                bmap.set (i);
+        if (fields instanceof ISOFieldMap fm) {
+            for (int i=fm.nextKey(1); i>0 && i<=mf; i=fm.nextKey(i+1))
+                if (fm.get (i) != null)
+                    bmap.set (i);
+        } else {
+            for (int i=1; i<=mf; i++)
+                if (fields.get (i) != null)
+                    bmap.set (i);
+        }
         set (new ISOBitMap (-1, bmap));
         dirty = false;
     }
@@ -460,7 +479,9 @@ public class ISOMsg extends ISOComponent
      */
     @Override
     public Map getChildren() {
-        return (Map) ((TreeMap)fields).clone();
+        decodeAll();
+        touch();
+        return copyOf (fields);
     }
     /**
      * pack the message with the current packager
@@ -470,10 +491,24 @@ public class ISOMsg extends ISOComponent
     @Override
     public byte[] pack() throws ISOException {
         synchronized (this) {
+            PackedImage pi = packedImage;
+            if (pi != null && pi.valid && pi.packager == packager)
+                return pi.image.clone(); // lazily unpacked and untouched since
             recalcBitMap();
             return packager.pack(this);
         }
     }
+    /**
+     * @return a copy of the image this message was lazily unpacked from (see
+     * {@link ISOBasePackager#unpack(ISOComponent, byte[], boolean)}), provided it
+     * wasn't modified since and its packager is still the same, or null
+     */
+    public byte[] getPackedImage() {
+        synchronized (this) {
+            PackedImage pi = packedImage;
+            return pi != null && pi.valid && pi.packager == packager ? pi.image.clone() : null;
+        }
+    }
     /**
      * unpack a message
      * @param b - raw message
@@ -529,7 +564,12 @@ public class ISOMsg extends ISOComponent
         for (int i : fields.keySet()) {
            //If you want the bitmap dumped in the log, change the condition from (i >= 0) to (i >= -1). 
             if (i >= 0) {
-                if ((c = (ISOComponent) fields.get(i)) != null)
+                try {
+                    c = decode (i);
+                } catch (IllegalStateException e) {
+                    c = (ISOComponent) fields.get(i); // dump undecoded image
+                }
+                if (c != null)
                     c.dump(p, newIndent);
             }
         }
@@ -542,7 +582,8 @@ public class ISOMsg extends ISOComponent
      * @return the Component
      */
     public ISOComponent getComponent(int fldno) {
-        return (ISOComponent) fields.get(fldno);
+        touch();
+        return decode (fldno);
     }
     /**
      * Return the object value associated with the given field number
@@ -550,9 +591,12 @@ public class ISOMsg extends ISOComponent
      * @return the field Object
      */
     public Object getValue(int fldno) {
-        ISOComponent c = getComponent(fldno);
+        ISOComponent c = decode (fldno);
         try {
-            return c != null ? c.getValue() : null;
+            Object value = c != null ? c.getValue() : null;
+            if (value != null && !(value instanceof String))
+                touch(); // caller may change it
+            return value;
         } catch (ISOException ex) {
             return null; //never happens for the given arguments of getValue method
         }
@@ -684,7 +728,7 @@ public class ISOMsg extends ISOComponent
      * @return boolean indicating the existence of the field
      */
     public boolean hasField(int fldno) {
-        return fields.get(fldno) != null;
+        return field (fldno) != null;
     }
     /**
      * Check if all fields are present
@@ -768,7 +812,7 @@ public class ISOMsg extends ISOComponent
     public Object clone() {
         try {
             ISOMsg m = (ISOMsg) super.clone();
-            m.fields = (TreeMap) ((TreeMap) fields).clone();
+            m.fields = copyOf (fields); // shares undecoded fields and packed image
             if (header != null)
                 m.header = (ISOHeader) header.clone();
             if (trailer != null)
@@ -793,7 +837,8 @@ public class ISOMsg extends ISOComponent
     public Object clone(int ... fields) {
         try {
             ISOMsg m = (ISOMsg) super.clone();
-            m.fields = new TreeMap();
+            m.fields = new ISOFieldMap();
+            m.packedImage = null;
             for (int field : fields) {
                 if (hasField(field)) {
                     try {
@@ -822,7 +867,8 @@ public class ISOMsg extends ISOComponent
     public ISOMsg clone(String ... fpaths) {
         try {
             ISOMsg m = (ISOMsg) super.clone();
-            m.fields = new TreeMap();
+            m.fields = new ISOFieldMap();
+            m.packedImage = null;
             for (String fpath : fpaths) {
                 try {
                     ISOComponent component = getComponent(fpath);
@@ -1159,6 +1205,7 @@ public class ISOMsg extends ISOComponent
 
         // List keySet = new ArrayList (fields.keySet());
         // Collections.sort (keySet);
+        decodeAll();
         for (Object o : fields.values()) {
             ISOComponent c = (ISOComponent) o;
             if (c instanceof ISOMsg) {
@@ -1238,6 +1285,73 @@ public class ISOMsg extends ISOComponent
         out.writeByte (b);
         ((Externalizable) c).writeExternal (out);
     }
+    /**
+     * Called by {@link ISOBasePackager#unpack(ISOComponent, byte[], boolean)} once
+     * done, so that {@link #pack()} can reuse the image as long as the message is
+     * not modified, nor any of its (mutable) components handed out.
+     *
+     * @param p packager that produced this message
+     * @param image message image
+     */
+    void setPackedImage (ISOPackager p, byte[] image) {
+        packedImage = new PackedImage (p, image);
+    }
+
+    /**
+     * @param fldno field number
+     * @return the field's component, decoding it if it was lazily unpacked
+     * @throws IllegalStateException if the field can't be decoded
+     */
+    private ISOComponent decode (int fldno) {
+        Object o = field (fldno);
+        if (o instanceof LazyField lf) {
+            try {
+                ISOComponent c = lf.decode();
+                fields.put (fldno, c);
+                return c;
+            } catch (ISOException e) {
+                throw new IllegalStateException ("error unpacking field " + fldno, e);
+            }
+        }
+        return (ISOComponent) o;
+    }
+
+    private Object field (int fldno) {
+        return fields instanceof ISOFieldMap fm ? fm.get (fldno) : fields.get (fldno);
+    }
+
+    private static Map<Integer,Object> copyOf (Map<Integer,Object> fields) {
+        return fields instanceof ISOFieldMap fm ? fm.clone() : new TreeMap<>(fields);
+    }
+
+    private void decodeAll() {
+        for (int i : fields.keySet())
+            decode (i);
+    }
+
+    /**
+     * The message, or some component we can't tell won't be changed, is being
+     * handed out: invalidate the packed image (for clones sharing it as well).
+     */
+    private void touch() {
+        PackedImage pi = packedImage;
+        if (pi != null) {
+            pi.valid = false;
+            packedImage = null;
+        }
+    }
+
+    private static final class PackedImage {
+        final ISOPackager packager;
+        final byte[] image;
+        volatile boolean valid = true;
+
+        PackedImage (ISOPackager packager, byte[] image) {
+            this.packager = packager;
+            this.image = image;
+        }
+    }
+
     private int parseInt (String s) {
         return s.startsWith("0x") ? Integer.parseInt(s.substring(2), 16) : Integer.parseInt(s);
     }
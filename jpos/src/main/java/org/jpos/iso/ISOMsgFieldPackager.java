@@ -103,6 +103,16 @@ public class ISOMsgFieldPackager extends ISOFieldPackager {
         return consumed;
     }
 
+    /**
+     * @param b - binary image
+     * @param offset - starting offset within the binary image
+     * @return packed length of the wrapping field, or -1
+     */
+    @Override
+    public int getPackedLength (byte[] b, int offset) {
+        return isUnpackDeclaredBy (ISOMsgFieldPackager.class) ? fieldPackager.getPackedLength (b, offset) : -1;
+    }
+
     /**
      * @param c  - the Component to unpack
      * @param in - input stream
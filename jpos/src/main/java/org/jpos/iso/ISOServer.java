@@ -23,13 +23,16 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.PrintStream;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.BindException;
 import java.net.SocketException;
+import java.net.StandardSocketOptions;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
@@ -87,13 +90,13 @@ public class ISOServer extends Observable
 
     private int backlog;
     protected Configuration cfg;
-    private volatile boolean shutdown = false;
+    volatile boolean shutdown = false;
     private ServerSocket serverSocket;
     private Map<String,WeakReference<ISOChannel>> channels;
     protected boolean ignoreISOExceptions;
     protected List<ISOServerEventListener> serverListeners = null;
     private ExecutorService executor;
-    private Semaphore permits;
+    Semaphore permits;
     private int permitsCount = DEFAULT_MAX_SESSIONS;
     private static final long SMALL_RELAX = 250;
     private static final long LONG_RELAX = 5000;
@@ -304,16 +307,42 @@ public class ISOServer extends Observable
     protected class Session implements Runnable, LogSource {
         ServerChannel channel;
         String realm;
+        UUID sessionUUID = uuid;
+        String sessionInfo = "";
         protected Session(ServerChannel channel) {
             this.channel = channel;
             realm = ISOServer.this.getRealm() + ".session";
         }
         @Override
         public void run() {
+            if (!open())
+                return;
+            Throwable cause = null;
+            try {
+                while (true) try {
+                    dispatch (channel.receive());
+                } catch (ISOFilter.VetoException e) {
+                    Logger.log(new LogEvent(this, "VetoException", e.getMessage()));
+                } catch (ISOException e) {
+                    if (ignoreISOExceptions) {
+                        Logger.log(new LogEvent(this, "ISOException", e.getMessage()));
+                    } else {
+                        throw e;
+                    }
+                }
+            } catch (Throwable e) {
+                cause = e;
+            }
+            close (cause);
+        }
+
+        /**
+         * Checks connection permissions and registers the channel
+         * @return false if the connection has been rejected
+         */
+        protected boolean open() {
             setChanged ();
             notifyObservers ();
-            UUID sessionUUID = uuid;
-            String sessionInfo = "";
             if (channel instanceof BaseChannel baseChannel) {
                 Socket socket = baseChannel.getSocket ();
                 sessionInfo = socket.toString();
@@ -324,39 +353,42 @@ public class ISOServer extends Observable
                   .add(new SessionStart(getActiveConnections(), permitsCount, sessionInfo)
                 );
                 if (!checkPermission (socket, ev))
-                    return;
+                    return false;
                 realm = realm + "/" + socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
             }
-            try {
-                WeakReference<ISOChannel> wr = new WeakReference<> (channel);
-                channels.put (channel.getName(), wr);
-                channels.put (LAST, wr); // we are most likely the last one
-                while (true) try {
-                    ISOMsg m = channel.receive();
-                    lastTxn = System.currentTimeMillis();
-                    for (ISORequestListener listener : listeners) {
-                        if (listener.process(channel, m)) {
-                            break;
-                        }
-                    }
-                } catch (ISOFilter.VetoException e) {
-                    Logger.log(new LogEvent(this, "VetoException", e.getMessage()));
-                } catch (ISOException e) {
-                    if (ignoreISOExceptions) {
-                        Logger.log(new LogEvent(this, "ISOException", e.getMessage()));
-                    } else {
-                        throw e;
-                    }
+            WeakReference<ISOChannel> wr = new WeakReference<> (channel);
+            channels.put (channel.getName(), wr);
+            channels.put (LAST, wr); // we are most likely the last one
+            return true;
+        }
+
+        /**
+         * Forwards an incoming message to the request listeners
+         * @param m message received
+         */
+        protected void dispatch (ISOMsg m) {
+            lastTxn = System.currentTimeMillis();
+            for (ISORequestListener listener : listeners) {
+                if (listener.process(channel, m)) {
+                    break;
                 }
-            } catch (EOFException e) {
+            }
+        }
+
+        /**
+         * Disconnects the channel and ends this session
+         * @param cause exception that terminated the session (may be null)
+         */
+        protected void close (Throwable cause) {
+            if (cause instanceof EOFException) {
                  // Logger.log (new LogEvent (this, "session-warning", "<eof/>"));
-            } catch (SocketException e) {
+            } else if (cause instanceof SocketException) {
                  if (!shutdown)
-                     Logger.log (new LogEvent (this, "session-warning", e));
-            } catch (InterruptedIOException e) {
+                     Logger.log (new LogEvent (this, "session-warning", cause));
+            } else if (cause instanceof InterruptedIOException) {
                 // nothing to log
-            } catch (Throwable e) {
-                Logger.log (new LogEvent (this, "session-error", e));
+            } else if (cause != null) {
+                Logger.log (new LogEvent (this, "session-error", cause));
             }
 
             try {
@@ -472,6 +504,15 @@ public class ISOServer extends Observable
         if (socketFactory == null) {
             socketFactory = this;
         }
+        if (cfg != null && cfg.getBoolean("nio")) {
+            if (socketFactory == this && supportsNio (clientSideChannel)) {
+                runNio();
+                return;
+            }
+            warn (new Warning("nio mode not supported by %s (custom socket factory or framing), using blocking sessions".formatted(
+              clientSideChannel.getClass().getName()))
+            );
+        }
         int round = 0;
         serverLoop : while  (!shutdown) {
             round++;
@@ -504,9 +545,6 @@ public class ISOServer extends Observable
                         }
                         final ServerChannel channel = (ServerChannel) clientSideChannel.clone();
                         channel.accept (serverSocket);
-                        if (connectionCount.getAndIncrement() % 100 == 0) {
-                            purgeChannels ();
-                        }
                         executor.submit (() -> {
                             try {
                                 permits.acquireUninterruptibly();
@@ -515,12 +553,7 @@ public class ISOServer extends Observable
                                 permits.release();
                             }
                           });
-                        setChanged ();
-                        notifyObservers (this);
-                        fireEvent(new ISOServerAcceptEvent(this, channel));
-                        if (channel instanceof Observable) {
-                            ((Observable)channel).addObserver (this);
-                        }
+                        accepted (channel);
                     } catch (SocketException e) {
                         if (!shutdown) {
                             log (new ThrowableAuditLogEvent(e));
@@ -545,6 +578,68 @@ public class ISOServer extends Observable
     } // ISOServer's run()
     //-------------------------------------------------------------------------------
 
+    /**
+     * Bookkeeping for a newly accepted channel: counters, observers and
+     * {@link ISOServerAcceptEvent}
+     */
+    void accepted (ServerChannel channel) {
+        if (connectionCount.getAndIncrement() % 100 == 0) {
+            purgeChannels ();
+        }
+        setChanged ();
+        notifyObservers (this);
+        fireEvent(new ISOServerAcceptEvent(this, channel));
+        if (channel instanceof Observable) {
+            ((Observable)channel).addObserver (this);
+        }
+    }
+
+    /**
+     * NIO variant of {@link #run()}: connections get multiplexed over a small
+     * pool of selector threads (see {@link NioAcceptor}).
+     */
+    private void runNio() {
+        int round = 0;
+        int selectors = cfg.getInt("nio-selectors", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        while (!shutdown) {
+            round++;
+            try (ServerSocketChannel ssc = ServerSocketChannel.open()) {
+                ssc.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                ssc.bind(new InetSocketAddress(bindAddr, port), backlog);
+                serverSocket = ssc.socket();
+                log (new Listen(port, bindAddr, permits.availablePermits(), backlog));
+                new NioAcceptor(this, ssc, selectors, cfg.getInt("nio-workers", 0)).run();
+            } catch (BindException e) {
+                warn(new Listen(port, bindAddr,
+                                permits.availablePermits(), backlog,
+                                "(round "+round+") "+e));
+                relax();
+            } catch (Throwable e) {
+                if (!shutdown) {
+                    log (new ThrowableAuditLogEvent(e));
+                    relax();
+                }
+            }
+        }
+    }
+
+    /**
+     * NIO mode frames messages through BaseChannel's hooks, channels with their own
+     * <code>connect</code> or <code>receive</code> implementation can't be used.
+     */
+    private static boolean supportsNio (ISOChannel channel) {
+        if (!(channel instanceof BaseChannel))
+            return false;
+        for (Class<?> c = channel.getClass(); c != BaseChannel.class; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (m.getName().equals("receive") && m.getParameterCount() == 0
+                  || m.getName().equals("connect") && Arrays.equals(m.getParameterTypes(), new Class<?>[] { Socket.class }))
+                    return false;
+            }
+        }
+        return true;
+    }
+
     private void relax() {
         LockSupport.parkNanos(Duration.ofMillis(LONG_RELAX).toNanos());
     }
@@ -103,6 +103,30 @@ public class ISOStringFieldPackager extends ISOFieldPackager
         this.prefixer = prefixer;
     }
 
+    /**
+     * @return the padder
+     */
+    public Padder getPadder()
+    {
+        return padder;
+    }
+
+    /**
+     * @return the interpreter
+     */
+    public Interpreter getInterpreter()
+    {
+        return interpreter;
+    }
+
+    /**
+     * @return the length prefixer
+     */
+    public Prefixer getPrefixer()
+    {
+        return prefixer;
+    }
+
     /**
      * Returns the prefixer's packed length and the interpreter's packed length.
      */
@@ -158,6 +182,77 @@ public class ISOStringFieldPackager extends ISOFieldPackager
         }
     }
 
+    /**
+     * Packed length of a String component, available when the padded length
+     * can be known upfront (no padding, {@link LeftPadder}, {@link RightPadder} or {@link RightTPadder}).
+     * @return packed length or -1
+     */
+    @Override
+    public int getPackedLength(ISOComponent c) throws ISOException
+    {
+        int len = getPaddedLength(c);
+        return len < 0 ? -1 : prefixer.getPackedLength() + interpreter.getPackedLength(len);
+    }
+
+    /**
+     * Packs the component straight into <code>b</code>, producing the same image
+     * as {@link #pack(ISOComponent)}.
+     * @return number of bytes written
+     */
+    @Override
+    public int pack(ISOComponent c, byte[] b, int offset) throws ISOException
+    {
+        if (getPaddedLength(c) < 0)
+            return super.pack(c, b, offset);
+        try
+        {
+            String paddedData = padder.pad((String) c.getValue(), getLength());
+            int lenLen = prefixer.getPackedLength();
+            prefixer.encodeLength(paddedData.length(), b, offset);
+            interpreter.interpret(paddedData, b, offset + lenLen);
+            return lenLen + interpreter.getPackedLength(paddedData.length());
+        } catch(Exception e)
+        {
+            throw new ISOException(makeExceptionMessage(c, "packing"), e);
+        }
+    }
+
+    private int getPaddedLength(ISOComponent c) throws ISOException
+    {
+        if (padder == null || !isPackDeclaredBy(ISOStringFieldPackager.class)
+          || !(c.getValue() instanceof String data) || data.length() > getLength())
+            return -1; // let pack(ISOComponent) handle (or report) it
+        if (padder == NullPadder.INSTANCE)
+            return data.length();
+        Class<?> type = padder.getClass();
+        return type == LeftPadder.class || type == RightPadder.class || type == RightTPadder.class ? getLength() : -1;
+    }
+
+    /**
+     * Packed length of the field starting at <code>offset</code>, that is, the number
+     * of bytes {@link #unpack(ISOComponent, byte[], int)} would consume.
+     * @return packed length or -1
+     */
+    @Override
+    public int getPackedLength(byte[] b, int offset)
+    {
+        if (!isUnpackDeclaredBy(ISOStringFieldPackager.class))
+            return -1;
+        try
+        {
+            int len = prefixer.decodeLength(b, offset);
+            if (len == -1)
+                len = trim ? Math.min(getLength(), b.length-offset) : getLength();
+            else if (getLength() > 0 && len > getLength())
+                return -1; // let unpack report it
+            int packedLength = prefixer.getPackedLength() + interpreter.getPackedLength(len);
+            return len >= 0 && offset + packedLength <= b.length ? packedLength : -1;
+        } catch(Exception e)
+        {
+            return -1;
+        }
+    }
+
     /**
      * Unpacks the byte array into the component.
      * @param c The component to unpack into.
@@ -0,0 +1,110 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+
+/**
+ * Field indexed, but not yet decoded, by a lazy unpack
+ * (see {@link ISOBasePackager#unpack(ISOComponent, byte[], boolean)}).
+ *
+ * <p>{@link ISOMsg} replaces it with the actual component the first time
+ * the field is accessed, so it never leaves the message.</p>
+ *
+ * @since 3.0.2
+ */
+final class LazyField extends ISOComponent {
+    private final int fieldNumber;
+    private final ISOFieldPackager packager;
+    private final byte[] image;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param fieldNumber field number
+     * @param packager field packager
+     * @param image message image
+     * @param offset field offset within <code>image</code>
+     * @param length packed field length
+     */
+    LazyField (int fieldNumber, ISOFieldPackager packager, byte[] image, int offset, int length) {
+        this.fieldNumber = fieldNumber;
+        this.packager = packager;
+        this.image = image;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the decoded field
+     * @throws ISOException if the field can't be unpacked
+     */
+    ISOComponent decode() throws ISOException {
+        ISOComponent c = packager.createComponent (fieldNumber);
+        int consumed = packager.unpack (c, image, offset);
+        if (consumed != length)
+            throw new ISOException ("field " + fieldNumber + " consumed=" + consumed + ", expected=" + length);
+        return c;
+    }
+
+    @Override
+    public Object getKey() {
+        return fieldNumber;
+    }
+
+    @Override
+    public int getFieldNumber() {
+        return fieldNumber;
+    }
+
+    @Override
+    public void setFieldNumber (int fieldNumber) {
+        throw new UnsupportedOperationException ("lazy field");
+    }
+
+    @Override
+    public void setValue (Object obj) throws ISOException {
+        throw new ISOException ("setValue N/A in lazy field");
+    }
+
+    @Override
+    public byte[] pack() throws ISOException {
+        throw new ISOException ("pack N/A in lazy field");
+    }
+
+    @Override
+    public int unpack (byte[] b) throws ISOException {
+        throw new ISOException ("unpack N/A in lazy field");
+    }
+
+    @Override
+    public void unpack (InputStream in) throws ISOException {
+        throw new ISOException ("unpack N/A in lazy field");
+    }
+
+    /**
+     * Dumps the raw field image, used when the field can't be decoded
+     */
+    @Override
+    public void dump (PrintStream p, String indent) {
+        p.println (indent + "<field id=\"" + fieldNumber + "\" value=\""
+          + ISOUtil.hexString (image, offset, length) + "\" type=\"undecoded\"/>");
+    }
+}
@@ -48,6 +48,14 @@ public class LeftPadder implements Padder
         this.pad = pad;
     }
 
+    /**
+     * @return the padding character
+     */
+    public char getPad()
+    {
+        return pad;
+    }
+
     /**
      */
     public String pad(String data, int maxLength) throws ISOException
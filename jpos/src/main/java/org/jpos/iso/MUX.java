@@ -18,6 +18,9 @@
 
 package org.jpos.iso;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * MUX interface
  * @author Alejandro Revilla
@@ -42,4 +45,41 @@ public interface MUX extends ISOSource {
      */
     void request(ISOMsg m, long timeout, ISOResponseListener r, Object handBack)
         throws ISOException;
+
+    /**
+     * Sends a message to remote host without blocking the caller.
+     *
+     * <p>The returned future gets completed with the response, or with
+     * <code>null</code> if no response arrives within <code>timeout</code>
+     * (same semantic as {@link #request(ISOMsg, long)}). It completes
+     * exceptionally if the request can't be sent (i.e. duplicate key or
+     * too many requests in flight). Cancelling the future discards the
+     * pending request.</p>
+     *
+     * <p>The default implementation delegates to
+     * {@link #request(ISOMsg, long, ISOResponseListener, Object)}.</p>
+     *
+     * @param m message to send
+     * @param timeout time to wait for the response
+     * @return future response
+     * @since 3.0.2
+     */
+    default CompletableFuture<ISOMsg> requestAsync(ISOMsg m, Duration timeout) {
+        CompletableFuture<ISOMsg> f = new CompletableFuture<>();
+        try {
+            request(m, timeout.toMillis(), new ISOResponseListener() {
+                @Override
+                public void responseReceived(ISOMsg resp, Object handBack) {
+                    f.complete(resp);
+                }
+                @Override
+                public void expired(Object handBack) {
+                    f.complete(null);
+                }
+            }, null);
+        } catch (ISOException e) {
+            f.completeExceptionally(e);
+        }
+        return f;
+    }
 }
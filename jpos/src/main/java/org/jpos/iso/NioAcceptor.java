@@ -0,0 +1,396 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import org.jpos.util.LogEvent;
+import org.jpos.util.Logger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Selector based connection handling for {@link ISOServer}
+ * (<code>&lt;property name="nio" value="true" /&gt;</code>).
+ *
+ * <p>The server thread accepts connections and hands them over, round robin,
+ * to a small pool of selector threads. Selector threads read whatever is available
+ * into a per-connection buffer and frame it using the channel's own length/header
+ * logic (see {@link BaseChannel#readFrame(ISOMsg)}). Complete frames are unpacked
+ * and forwarded to the request listeners on a worker pool, one frame at a time
+ * per connection, so message ordering is preserved.</p>
+ *
+ * <p>Channels have to do their framing through BaseChannel's hooks reading from
+ * <code>serverIn</code>; channels overriding <code>connect</code> or <code>receive</code>
+ * (i.e. XMLChannel, PADChannel) are not supported in this mode.</p>
+ *
+ * @since 3.0.2
+ */
+class NioAcceptor {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_QUEUED_FRAMES = 64;
+    private static final long SELECT_TIMEOUT = 1000L;
+    private final ISOServer server;
+    private final ServerSocketChannel ssc;
+    private final Reactor[] reactors;
+    private final ExecutorService workers;
+    private final AtomicInteger running;
+    private volatile boolean accepting = true;
+
+    /**
+     * @param server the server
+     * @param ssc bound server socket channel
+     * @param selectors number of selector threads
+     * @param workers size of the worker pool, 0 to use virtual threads
+     * @throws IOException if a selector can't be opened
+     */
+    NioAcceptor (ISOServer server, ServerSocketChannel ssc, int selectors, int workers) throws IOException {
+        this.server = server;
+        this.ssc = ssc;
+        this.workers = workers > 0 ?
+          Executors.newFixedThreadPool (workers, Thread.ofPlatform().name ("nio-worker-" + server.getPort() + "-", 0).factory()) :
+          Executors.newVirtualThreadPerTaskExecutor();
+        reactors = new Reactor[Math.max (1, selectors)];
+        for (int i=0; i<reactors.length; i++)
+            reactors[i] = new Reactor (Selector.open());
+        running = new AtomicInteger (reactors.length);
+    }
+
+    /**
+     * Accepts connections until the server socket channel gets closed.
+     * Selector threads keep serving already accepted connections until they disconnect.
+     */
+    void run() throws IOException, InterruptedException {
+        for (int i=0; i<reactors.length; i++)
+            Thread.ofPlatform().name ("nio-selector-" + server.getPort() + "-" + i).start (reactors[i]);
+        try {
+            for (int i=0; !server.shutdown; i++) {
+                while (!server.permits.tryAcquire (SELECT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    if (server.shutdown)
+                        return;
+                }
+                SocketChannel sc;
+                try {
+                    sc = ssc.accept();
+                } catch (IOException e) {
+                    server.permits.release();
+                    throw e;
+                }
+                try {
+                    register (sc, reactors[i % reactors.length]);
+                } catch (IOException e) {
+                    server.permits.release();
+                    sc.close();
+                    Logger.log (new LogEvent (server, "nio-accept", e));
+                }
+            }
+        } finally {
+            accepting = false;
+            for (Reactor r : reactors)
+                r.selector.wakeup();
+        }
+    }
+
+    private void register (SocketChannel sc, Reactor reactor) throws IOException {
+        sc.configureBlocking (false);
+        BaseChannel channel = (BaseChannel) server.clientSideChannel.clone();
+        Connection c = new Connection (sc, channel, reactor);
+        channel.accept (sc, c.in, new ChannelOutputStream (sc));
+        c.session = server.createSession (channel);
+        workers.execute (c::open);
+        server.accepted (channel);
+    }
+
+    private final class Reactor implements Runnable {
+        final Selector selector;
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final Set<Connection> connections = new HashSet<>();
+
+        Reactor (Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Runs <code>r</code> on this reactor's selector thread
+         */
+        void execute (Runnable r) {
+            tasks.add (r);
+            selector.wakeup();
+        }
+
+        void register (Connection c) {
+            execute (() -> {
+                try {
+                    c.key = c.sc.register (selector, SelectionKey.OP_READ, c);
+                    connections.add (c);
+                } catch (IOException e) {
+                    c.close (e);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            long lastSweep = System.currentTimeMillis();
+            try {
+                while (accepting || !connections.isEmpty() || !tasks.isEmpty()) {
+                    selector.select (SELECT_TIMEOUT);
+                    for (Runnable r; (r = tasks.poll()) != null; )
+                        r.run();
+                    Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                    while (iter.hasNext()) {
+                        SelectionKey k = iter.next();
+                        iter.remove();
+                        if (k.isValid() && k.isReadable())
+                            ((Connection) k.attachment()).read();
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now - lastSweep >= SELECT_TIMEOUT) {
+                        lastSweep = now;
+                        sweep (now);
+                    }
+                }
+            } catch (Throwable t) {
+                Logger.log (new LogEvent (server, "nio-error", t));
+                for (Connection c : connections)
+                    c.close (t);
+            } finally {
+                try {
+                    selector.close();
+                } catch (IOException ignored) { }
+                if (running.decrementAndGet() == 0)
+                    workers.shutdown();
+            }
+        }
+
+        /**
+         * Ends sessions closed elsewhere (i.e. by a request listener) and idle sessions
+         * (channel's timeout, the NIO counterpart of the socket's SO_TIMEOUT)
+         */
+        private void sweep (long now) {
+            for (Connection c : connections) {
+                int timeout = c.channel.getTimeout();
+                if (!c.sc.isOpen())
+                    c.close (new SocketException ("Socket closed"));
+                else if (timeout > 0 && now - c.lastRead > timeout)
+                    c.close (new SocketTimeoutException ("Read timed out"));
+            }
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel sc;
+        final BaseChannel channel;
+        final Reactor reactor;
+        final FrameInputStream in = new FrameInputStream();
+        final Queue<BaseChannel.Frame> frames = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        ISOServer.Session session;
+        SelectionKey key;
+        long lastRead = System.currentTimeMillis();
+        volatile boolean paused;
+
+        Connection (SocketChannel sc, BaseChannel channel, Reactor reactor) {
+            this.sc = sc;
+            this.channel = channel;
+            this.reactor = reactor;
+        }
+
+        void open() {
+            if (session.open()) {
+                reactor.register (this);
+            } else {
+                closed.set (true); // rejected, socket already closed
+                server.permits.release();
+            }
+        }
+
+        /**
+         * Called by the selector thread when there's data available
+         */
+        void read() {
+            try {
+                if (sc.read (in.buf) < 0) {
+                    close (new EOFException());
+                    return;
+                }
+                lastRead = System.currentTimeMillis();
+                in.buf.flip();
+                try {
+                    while (in.buf.hasRemaining()) {
+                        int start = in.buf.position();
+                        try {
+                            frames.add (channel.readFrame (channel.createMsg()));
+                        } catch (EOFException e) {
+                            in.buf.position (start); // partial frame, wait for more data
+                            break;
+                        }
+                    }
+                } finally {
+                    in.buf.compact();
+                }
+                if (!in.buf.hasRemaining())
+                    in.grow();
+                if (frames.size() >= MAX_QUEUED_FRAMES) {
+                    paused = true;
+                    key.interestOps (0);
+                }
+                schedule();
+            } catch (Throwable e) {
+                close (e);
+            }
+        }
+
+        private void schedule() {
+            if (!frames.isEmpty() && scheduled.compareAndSet (false, true))
+                workers.execute (this::drain);
+        }
+
+        private void drain() {
+            do {
+                for (BaseChannel.Frame f; !closed.get() && (f = frames.poll()) != null; )
+                    process (f);
+                if (paused) {
+                    paused = false;
+                    reactor.execute (() -> {
+                        if (key.isValid())
+                            key.interestOps (SelectionKey.OP_READ);
+                    });
+                }
+                scheduled.set (false);
+            } while (!frames.isEmpty() && !closed.get() && scheduled.compareAndSet (false, true));
+        }
+
+        private void process (BaseChannel.Frame f) {
+            try {
+                session.dispatch (channel.receive (f));
+            } catch (ISOFilter.VetoException e) {
+                Logger.log (new LogEvent (session, "VetoException", e.getMessage()));
+            } catch (ISOException e) {
+                if (server.ignoreISOExceptions)
+                    Logger.log (new LogEvent (session, "ISOException", e.getMessage()));
+                else
+                    close (e);
+            } catch (Throwable e) {
+                close (e);
+            }
+        }
+
+        void close (Throwable cause) {
+            if (closed.compareAndSet (false, true)) {
+                reactor.execute (() -> {
+                    if (key != null)
+                        key.cancel();
+                    reactor.connections.remove (this);
+                });
+                workers.execute (() -> {
+                    try {
+                        session.close (cause);
+                    } finally {
+                        server.permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Exposes the bytes read by the selector thread to the channel's framing logic.
+     * Running out of data throws an EOFException, meaning the frame is not complete yet.
+     */
+    private static final class FrameInputStream extends InputStream {
+        ByteBuffer buf = ByteBuffer.allocate (INITIAL_BUFFER_SIZE);
+
+        @Override
+        public int read() throws IOException {
+            if (!buf.hasRemaining())
+                throw new EOFException();
+            return buf.get() & 0xFF;
+        }
+
+        @Override
+        public int read (byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!buf.hasRemaining())
+                throw new EOFException();
+            int n = Math.min (len, buf.remaining());
+            buf.get (b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+
+        void grow() {
+            ByteBuffer b = ByteBuffer.allocate (buf.capacity() * 2);
+            buf.flip();
+            b.put (buf);
+            buf = b;
+        }
+    }
+
+    /**
+     * Blocking writes over a non-blocking socket channel; responses are usually small
+     * enough to fit in the socket's send buffer, so this rarely has to wait.
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+        private final SocketChannel sc;
+
+        ChannelOutputStream (SocketChannel sc) {
+            this.sc = sc;
+        }
+
+        @Override
+        public void write (int b) throws IOException {
+            write (new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write (byte[] b, int off, int len) throws IOException {
+            ByteBuffer bb = ByteBuffer.wrap (b, off, len);
+            while (bb.hasRemaining()) {
+                if (sc.write (bb) == 0)
+                    LockSupport.parkNanos (TimeUnit.MICROSECONDS.toNanos (100L));
+            }
+        }
+    }
+}
@@ -35,6 +35,9 @@ public class NullPrefixer implements Prefixer
     @Override
     public void encodeLength(int length, byte[] b) {}
 
+    @Override
+    public void encodeLength(int length, byte[] b, int offset) {}
+
     /**
 	 * Returns -1 meaning there is no length field.
 	 *
@@ -37,6 +37,23 @@ public interface Prefixer
 	 */
     void encodeLength(int length, byte[] b) throws ISOException;
 
+    /**
+     * Writes the encoded field length at a given offset.
+     *
+     * @param length
+     *            The length to be encoded.
+     * @param b
+     *            The byte array to write the encoded length to.
+     * @param offset
+     *            The offset to start writing at.
+     * @since 3.0.2
+     */
+    default void encodeLength(int length, byte[] b, int offset) throws ISOException {
+        byte[] l = new byte[getPackedLength()];
+        encodeLength(length, l);
+        System.arraycopy(l, 0, b, offset, l.length);
+    }
+
     /**
 	 * Decodes an encoded length.
 	 * 
@@ -0,0 +1,142 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import org.jpos.core.Configurable;
+import org.jpos.core.Configuration;
+import org.jpos.core.ConfigurationException;
+import org.jpos.util.RateLimiter;
+import org.jpos.util.TokenBucket;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per key (and optionally global) ISOMsg rate limits, shared by
+ * {@link org.jpos.iso.filter.RateLimitFilter}, the <code>RateLimit</code> transaction
+ * participant and the <code>RateLimitedMUX</code>.
+ *
+ * <p>Configuration properties:</p>
+ * <ul>
+ *  <li>key - space separated list of field paths the key is built from, a field
+ *      can be followed by <code>:n</code> to just use its first <code>n</code> characters
+ *      (i.e. <code>"41"</code>, <code>"42 0"</code>, <code>"2:6"</code> for the BIN). Defaults to no key (global limit only)
+ *  <li>permits - permits per key and period
+ *  <li>period - in millis, defaults to 1000
+ *  <li>burst - per key bucket capacity, defaults to permits
+ *  <li>global-permits, global-period, global-burst - optional limit shared by all keys
+ *  <li>action - what to do when the limit is exceeded: <code>reject</code> (default),
+ *      <code>delay</code> (blocks the caller) or <code>queue</code> (resumes the caller asynchronously,
+ *      where supported, otherwise same as delay)
+ *  <li>max-delay - in millis, max delay for the delay and queue actions, defaults to 1000
+ *  <li>max-keys - number of keys above which idle ones are discarded
+ * </ul>
+ *
+ * @since 3.0.2
+ */
+public class RateLimitPolicy implements Configurable {
+    public enum Action { REJECT, DELAY, QUEUE }
+
+    private String[] fields = new String[0];
+    private int[] prefixes = new int[0];
+    private RateLimiter limiter;
+    private Action action = Action.REJECT;
+    private long maxDelay;
+
+    public RateLimitPolicy () {
+        super();
+    }
+
+    public void setConfiguration (Configuration cfg) throws ConfigurationException {
+        try {
+            String[] keys = ISOUtil.toStringArray (cfg.get ("key", ""));
+            fields = new String[keys.length];
+            prefixes = new int[keys.length];
+            for (int i=0; i<keys.length; i++) {
+                int colon = keys[i].indexOf (':');
+                fields[i] = colon < 0 ? keys[i] : keys[i].substring (0, colon);
+                prefixes[i] = colon < 0 ? 0 : Integer.parseInt (keys[i].substring (colon+1));
+            }
+            long period = cfg.getLong ("period", 1000L);
+            long permits = cfg.getLong ("permits", 0L);
+            if (keys.length > 0) {
+                if (permits <= 0L)
+                    throw new ConfigurationException ("'permits' property not configured");
+                limiter = new RateLimiter (permits, Duration.ofMillis (period), cfg.getLong ("burst", permits))
+                  .withMaxKeys (cfg.getInt ("max-keys", RateLimiter.DEFAULT_MAX_KEYS));
+            } else {
+                limiter = null;
+            }
+            long globalPermits = cfg.getLong ("global-permits", 0L);
+            if (globalPermits > 0L) {
+                TokenBucket global = new TokenBucket (globalPermits,
+                  Duration.ofMillis (cfg.getLong ("global-period", period)), cfg.getLong ("global-burst", globalPermits));
+                limiter = limiter != null ? limiter.withGlobal (global) :
+                  new RateLimiter (globalPermits, Duration.ofMillis (period), globalPermits).withGlobal (global);
+            }
+            if (limiter == null)
+                throw new ConfigurationException ("neither 'key'/'permits' nor 'global-permits' configured");
+            action = Action.valueOf (cfg.get ("action", "reject").toUpperCase());
+            maxDelay = TimeUnit.MILLISECONDS.toNanos (cfg.getLong ("max-delay", 1000L));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException (e);
+        }
+    }
+
+    /**
+     * @param m message
+     * @return rate limiting key, or null if no key is configured
+     */
+    public String getKey (ISOMsg m) {
+        if (fields.length == 0)
+            return null;
+        StringBuilder sb = new StringBuilder();
+        for (int i=0; i<fields.length; i++) {
+            if (i > 0)
+                sb.append ('|');
+            String s = m.getString (fields[i]);
+            if (s != null)
+                sb.append (prefixes[i] > 0 && s.length() > prefixes[i] ? s.substring (0, prefixes[i]) : s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reserves a permit for message <code>m</code>.
+     *
+     * @param m message
+     * @return nanos to wait before proceeding (0 if it can proceed now), or -1 if the message has to be rejected
+     */
+    public long reserve (ISOMsg m) {
+        return limiter.reserve (getKey (m), action == Action.REJECT ? 0L : maxDelay, TimeUnit.NANOSECONDS);
+    }
+
+    public Action getAction () {
+        return action;
+    }
+
+    public RateLimiter getRateLimiter () {
+        return limiter;
+    }
+
+    @Override
+    public String toString() {
+        return String.format ("RateLimitPolicy[key=%s, action=%s, %s]", String.join (" ", fields), action, limiter);
+    }
+}
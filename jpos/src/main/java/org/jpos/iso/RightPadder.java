@@ -48,6 +48,13 @@ public class RightPadder implements Padder
         this.pad = pad;
     }
 
+    /**
+     * @return the padding character
+     */
+    public char getPad() {
+        return pad;
+    }
+
     public String pad(String data, int maxLength) throws ISOException {
         if (maxLength < 0)
             throw new ISOException ("invalid maxLength " + maxLength);
@@ -0,0 +1,78 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso.filter;
+
+import org.jpos.core.Configurable;
+import org.jpos.core.Configuration;
+import org.jpos.core.ConfigurationException;
+import org.jpos.iso.ISOChannel;
+import org.jpos.iso.ISOFilter;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.RateLimitPolicy;
+import org.jpos.util.LogEvent;
+import org.jpos.util.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed token bucket based rate limiting filter.
+ *
+ * <p>Unlike {@link ThroughputControlFilter}, limits are enforced per key (i.e. per
+ * terminal, merchant or BIN, see {@link RateLimitPolicy}), so only messages for a key
+ * that exceeds its limit get vetoed (or delayed, with <code>action="delay"</code>).</p>
+ *
+ * @since 3.0.2
+ */
+public class RateLimitFilter implements ISOFilter, Configurable {
+    RateLimitPolicy policy;
+
+    public RateLimitFilter () {
+        super();
+    }
+
+   /**
+    * @param cfg see {@link RateLimitPolicy}
+    */
+    public void setConfiguration (Configuration cfg) throws ConfigurationException {
+        RateLimitPolicy p = new RateLimitPolicy();
+        p.setConfiguration (cfg);
+        policy = p;
+    }
+
+    public ISOMsg filter (ISOChannel channel, ISOMsg m, LogEvent evt)
+        throws VetoException
+    {
+        if (policy == null)
+            return m;
+        long wait = policy.reserve (m);
+        if (wait < 0L) {
+            String key = policy.getKey (m);
+            if (evt != null)
+                evt.addMessage ("rate-limit exceeded" + (key != null ? " key=" + key : ""));
+            throw new VetoException ("rate limit exceeded");
+        }
+        if (wait > 0L) {
+            if (!RateLimiter.await (wait))
+                throw new VetoException ("interrupted while rate limited");
+            if (evt != null)
+                evt.addMessage ("rate-limit delay=" + TimeUnit.NANOSECONDS.toMillis (wait));
+        }
+        return m;
+    }
+}
@@ -40,6 +40,7 @@ import java.io.ByteArrayOutputStream;
  * Implements ISOFilter by means of XSL-Transformations
  * @author <a href="mailto:apr@cs.com.uy">Alejandro P. Revilla</a>
  * @version $Revision$ $Date$
+ * @see XSLTTemplatesFilter
  */
 public class XSLTFilter implements ISOFilter, Configurable {
     boolean reread;
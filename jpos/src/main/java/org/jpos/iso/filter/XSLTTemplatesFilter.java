@@ -0,0 +1,383 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso.filter;
+
+import org.jpos.core.Configurable;
+import org.jpos.core.Configuration;
+import org.jpos.core.ConfigurationException;
+import org.jpos.iso.ISOAmount;
+import org.jpos.iso.ISOBinaryField;
+import org.jpos.iso.ISOChannel;
+import org.jpos.iso.ISOComponent;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOField;
+import org.jpos.iso.ISOFilter;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOUtil;
+import org.jpos.iso.header.BaseHeader;
+import org.jpos.iso.packager.XMLPackager;
+import org.jpos.util.LogEvent;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * XSL-Transformations based ISOFilter.
+ *
+ * <p>Unlike {@link XSLTFilter}, the stylesheet is compiled once into {@link Templates}
+ * (each thread gets its own {@link Transformer}), and the message is fed to the transformer
+ * as SAX events (same XML representation used by {@link XMLPackager}), with the result
+ * being built from the transformer's SAX output, without intermediate XML images.</p>
+ *
+ * <p>Fields present in the original message but not in the transformation output
+ * are preserved, as in {@link XSLTFilter}.</p>
+ *
+ * @since 3.0.2
+ */
+public class XSLTTemplatesFilter implements ISOFilter, Configurable {
+    private final TransformerFactory tfactory = TransformerFactory.newInstance();
+    private final ThreadLocal<CachedTransformer> transformers = new ThreadLocal<>();
+    private volatile Templates templates;
+    private File xsltfile;
+    private long lastModified;
+    private long reloadInterval;
+    private volatile long nextCheck;
+
+    public XSLTTemplatesFilter () {
+        super();
+    }
+
+    /**
+     * @param xsltfile XSL Transformation file
+     * @param reloadInterval interval (in millis) to check the file for changes, 0 to never reload it
+     * @throws ISOException if the stylesheet can't be compiled
+     */
+    public XSLTTemplatesFilter (String xsltfile, long reloadInterval) throws ISOException {
+        this();
+        try {
+            init (xsltfile, reloadInterval);
+        } catch (TransformerConfigurationException e) {
+            throw new ISOException (e);
+        }
+    }
+
+   /**
+    * configure filter.
+    *
+    * <ul>
+    *  <li>xsltfile - source XSL-T file
+    *  <li>reload-interval - interval (in millis) to check xsltfile for changes (defaults to 0, never reload)
+    * </ul>
+    *
+    * @param cfg new ConfigurationFile
+    */
+    public void setConfiguration (Configuration cfg)
+        throws ConfigurationException
+    {
+        try {
+            init (cfg.get ("xsltfile"), cfg.getLong ("reload-interval", 0L));
+        } catch (Exception e) {
+            throw new ConfigurationException (e);
+        }
+    }
+
+    /**
+     * @param channel current ISOChannel instance
+     * @param m ISOMsg to filter
+     * @param evt LogEvent
+     * @return an ISOMsg (possibly parameter m)
+     * @throws VetoException
+     */
+    public ISOMsg filter (ISOChannel channel, ISOMsg m, LogEvent evt)
+        throws VetoException
+    {
+        try {
+            ISOMsgBuilder builder = new ISOMsgBuilder();
+            getTransformer().transform (
+                new SAXSource (new ISOMsgReader (m), new InputSource()),
+                new SAXResult (builder)
+            );
+            ISOMsg m1 = builder.getISOMsg();
+            m.merge (m1);
+            m.setHeader (m1.getHeader());
+        } catch (Exception e) {
+            throw new VetoException(e);
+        }
+        return m;
+    }
+
+    private synchronized void init (String xsltfile, long reloadInterval) throws TransformerConfigurationException {
+        this.xsltfile = new File (xsltfile);
+        this.reloadInterval = reloadInterval;
+        compile();
+    }
+
+    private void compile () throws TransformerConfigurationException {
+        lastModified = xsltfile.lastModified();
+        templates = tfactory.newTemplates (new StreamSource (xsltfile));
+        nextCheck = System.currentTimeMillis() + reloadInterval;
+    }
+
+    private Transformer getTransformer () throws TransformerConfigurationException {
+        if (templates == null)
+            throw new TransformerConfigurationException ("xsltfile not configured");
+        if (reloadInterval > 0L && System.currentTimeMillis() >= nextCheck)
+            checkModified();
+        Templates t = templates;
+        CachedTransformer ct = transformers.get();
+        if (ct == null || ct.templates != t) {
+            ct = new CachedTransformer (t, t.newTransformer());
+            transformers.set (ct);
+        }
+        return ct.transformer;
+    }
+
+    private synchronized void checkModified () throws TransformerConfigurationException {
+        if (System.currentTimeMillis() < nextCheck)
+            return; // another thread got here first
+        if (xsltfile.lastModified() != lastModified)
+            compile();
+        else
+            nextCheck = System.currentTimeMillis() + reloadInterval;
+    }
+
+    private record CachedTransformer (Templates templates, Transformer transformer) { }
+
+    /**
+     * Emits the XML representation of an ISOMsg (as produced by {@link XMLPackager#pack}) as SAX events.
+     */
+    private static class ISOMsgReader extends XMLFilterImpl {
+        private static final Attributes NO_ATTRS = new AttributesImpl();
+        private final ISOMsg msg;
+
+        ISOMsgReader (ISOMsg msg) {
+            this.msg = msg;
+        }
+
+        @Override
+        public void parse (InputSource input) throws SAXException {
+            startDocument();
+            try {
+                emit (msg, true);
+            } catch (ISOException e) {
+                throw new SAXException (e);
+            }
+            endDocument();
+        }
+
+        @Override
+        public void parse (String systemId) throws SAXException {
+            parse ((InputSource) null);
+        }
+
+        private void emit (ISOMsg m, boolean outer) throws SAXException, ISOException {
+            AttributesImpl atts = new AttributesImpl();
+            if (!outer)
+                addAttribute (atts, XMLPackager.ID_ATTR, Integer.toString (m.getFieldNumber()));
+            startElement (XMLPackager.ISOMSG_TAG, atts);
+            byte[] header = m.getHeader();
+            if (header != null) {
+                startElement (XMLPackager.HEADER_TAG, NO_ATTRS);
+                characters (ISOUtil.hexString (header));
+                endElement (XMLPackager.HEADER_TAG);
+            }
+            int maxField = m.getMaxField();
+            for (int i=0; i<=maxField; i++) {
+                if (!m.hasField (i))
+                    continue;
+                ISOComponent c = m.getComponent (i);
+                if (c instanceof ISOMsg inner)
+                    emit (inner, false);
+                else
+                    emitField (i, c);
+            }
+            endElement (XMLPackager.ISOMSG_TAG);
+        }
+
+        private void emitField (int fldno, ISOComponent c) throws SAXException, ISOException {
+            AttributesImpl atts = new AttributesImpl();
+            addAttribute (atts, XMLPackager.ID_ATTR, Integer.toString (fldno));
+            String text = null;
+            if (c instanceof ISOAmount a) {
+                addAttribute (atts, XMLPackager.CURRENCY_ATTR, ISOUtil.zeropad (a.getCurrencyCode(), 3));
+                addAttribute (atts, XMLPackager.TYPE_ATTR, XMLPackager.TYPE_AMOUNT);
+                addAttribute (atts, XMLPackager.VALUE_ATTR, a.getAmount().toString());
+            } else if (c instanceof ISOBinaryField || c.getValue() instanceof byte[]) {
+                addAttribute (atts, XMLPackager.VALUE_ATTR, ISOUtil.hexString (c.getBytes()));
+                addAttribute (atts, XMLPackager.TYPE_ATTR, XMLPackager.TYPE_BINARY);
+            } else {
+                Object value = c.getValue();
+                if (value == null)
+                    return;
+                String s = value.toString();
+                if (s.indexOf('<') >= 0 || s.startsWith("{"))
+                    text = s;  // ISOField dumps these as CDATA
+                else
+                    addAttribute (atts, XMLPackager.VALUE_ATTR, s);
+            }
+            startElement (XMLPackager.ISOFIELD_TAG, atts);
+            if (text != null)
+                characters (text);
+            endElement (XMLPackager.ISOFIELD_TAG);
+        }
+
+        private static void addAttribute (AttributesImpl atts, String name, String value) {
+            atts.addAttribute ("", name, name, "CDATA", value);
+        }
+        private void startElement (String name, Attributes atts) throws SAXException {
+            getContentHandler().startElement ("", name, name, atts);
+        }
+        private void endElement (String name) throws SAXException {
+            getContentHandler().endElement ("", name, name);
+        }
+        private void characters (String s) throws SAXException {
+            getContentHandler().characters (s.toCharArray(), 0, s.length());
+        }
+        @Override
+        public boolean getFeature (String name) {
+            return "http://xml.org/sax/features/namespaces".equals (name);
+        }
+        @Override
+        public void setFeature (String name, boolean value) { }
+        @Override
+        public Object getProperty (String name) {
+            return null;
+        }
+        @Override
+        public void setProperty (String name, Object value) { }
+    }
+
+    /**
+     * Builds an ISOMsg out of its XML representation (see {@link XMLPackager#unpack}) SAX events.
+     */
+    private static class ISOMsgBuilder extends DefaultHandler {
+        private final Deque<Object> stk = new ArrayDeque<>();
+        private final StringBuilder text = new StringBuilder();
+        private ISOMsg msg;
+
+        ISOMsg getISOMsg () throws ISOException {
+            if (msg == null)
+                throw new ISOException ("error parsing");
+            return msg;
+        }
+
+        @Override
+        public void startElement (String ns, String localName, String qName, Attributes atts)
+            throws SAXException
+        {
+            String name = localName == null || localName.isEmpty() ? qName : localName;
+            int fieldNumber = -1;
+            String id = atts.getValue (XMLPackager.ID_ATTR);
+            if (id != null) {
+                try {
+                    fieldNumber = Integer.parseInt (id);
+                } catch (NumberFormatException ex) {
+                    throw new SAXException ("Invalid id " + id);
+                }
+            }
+            try {
+                text.setLength (0);
+                if (XMLPackager.ISOMSG_TAG.equals (name)) {
+                    if (fieldNumber >= 0) {
+                        if (stk.isEmpty())
+                            throw new SAXException ("inner without outer");
+                        ISOMsg inner = new ISOMsg (fieldNumber);
+                        ((ISOMsg) stk.peek()).set (inner);
+                        stk.push (inner);
+                    } else {
+                        stk.push (new ISOMsg (0));
+                    }
+                } else if (XMLPackager.ISOFIELD_TAG.equals (name)) {
+                    if (id == null || !(stk.peek() instanceof ISOMsg m))
+                        throw new SAXException ("invalid field");
+                    String value = atts.getValue (XMLPackager.VALUE_ATTR);
+                    String type  = atts.getValue (XMLPackager.TYPE_ATTR);
+                    value = value == null ? "" : value;
+                    ISOComponent ic;
+                    if (XMLPackager.TYPE_BINARY.equals (type)) {
+                        ic = new ISOBinaryField (fieldNumber, ISOUtil.hex2byte (value));
+                    } else if (XMLPackager.TYPE_AMOUNT.equals (type)) {
+                        ic = new ISOAmount (
+                          fieldNumber,
+                          Integer.parseInt (atts.getValue (XMLPackager.CURRENCY_ATTR)),
+                          new BigDecimal (value)
+                        );
+                    } else {
+                        ic = new ISOField (fieldNumber, ISOUtil.stripUnicode (value));
+                    }
+                    m.set (ic);
+                    stk.push (ic);
+                } else if (XMLPackager.HEADER_TAG.equals (name)) {
+                    BaseHeader bh = new BaseHeader();
+                    bh.setAsciiEncoding (XMLPackager.ASCII_ENCODING.equalsIgnoreCase (atts.getValue (XMLPackager.ENCODING_ATTR)));
+                    stk.push (bh);
+                }
+            } catch (ISOException | NumberFormatException e) {
+                throw new SAXException ("error unpacking " + fieldNumber, e);
+            }
+        }
+
+        @Override
+        public void characters (char[] ch, int start, int length) {
+            Object obj = stk.peek();
+            if (obj instanceof ISOField || obj instanceof BaseHeader)
+                text.append (ch, start, length);
+        }
+
+        @Override
+        public void endElement (String ns, String localName, String qName) throws SAXException {
+            String name = localName == null || localName.isEmpty() ? qName : localName;
+            try {
+                if (XMLPackager.ISOMSG_TAG.equals (name)) {
+                    ISOMsg m = (ISOMsg) stk.pop();
+                    if (stk.isEmpty())
+                        msg = m;
+                } else if (XMLPackager.ISOFIELD_TAG.equals (name)) {
+                    Object obj = stk.pop();
+                    if (obj instanceof ISOField f && !text.isEmpty())
+                        f.setValue (f.getValue() + text.toString());
+                } else if (XMLPackager.HEADER_TAG.equals (name)) {
+                    BaseHeader bh = (BaseHeader) stk.pop();
+                    String s = text.toString();
+                    bh.unpack (bh.isAsciiEncoding() ? s.getBytes() : ISOUtil.hex2byte (s));
+                    ((ISOMsg) stk.peek()).setHeader (bh);
+                }
+            } catch (ISOException e) {
+                throw new SAXException (e);
+            } finally {
+                text.setLength (0);
+            }
+        }
+    }
+}
@@ -134,6 +134,7 @@ public class GenericPackager
      *  <li>packager-logger
      *  <li>packager-log-fieldname
      *  <li>packager-realm
+     *  <li>packager-compile
      * </ul>
      *
      * @param cfg Configuration
@@ -156,12 +157,25 @@ public class GenericPackager
             logFieldName= cfg.getBoolean("packager-log-fieldname", logFieldName);
 
             readFile(filename);
+            if (cfg.getBoolean("packager-compile", false))
+                compile();
         } catch (ISOException e)
         {
             throw new ConfigurationException(e.getMessage(), e.fillInStackTrace());
         }
     }
 
+    /**
+     * Replaces this packager's field packagers (and those of its subfield
+     * packagers) by their compiled form, see {@link CompiledFieldPackager}.
+     *
+     * @return number of field packagers compiled
+     */
+    public int compile()
+    {
+        return CompiledFieldPackager.compile(this);
+    }
+
     @Override
     protected int getMaxValidField()
     {
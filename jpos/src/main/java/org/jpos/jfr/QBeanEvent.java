@@ -0,0 +1,50 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Category("jPOS")
+@Name("jpos.QBean")
+@StackTrace(false)
+public class QBeanEvent extends Event {
+    @Name("name")
+    protected final String name;
+
+    public QBeanEvent(String name) {
+        this.name = name;
+    }
+
+    @Name("jpos.QBean.Init")
+    public static class Init extends QBeanEvent {
+        public Init(String name) {
+            super(name);
+        }
+    }
+
+    @Name("jpos.QBean.Start")
+    public static class Start extends QBeanEvent {
+        public Start(String name) {
+            super(name);
+        }
+    }
+}
@@ -40,7 +40,10 @@ public enum MeterInfo {
     MUX_TX("jpos.mux", "MUX tx", Tags.of("type", "tx")),
     MUX_RX ("jpos.mux", "MUX rx", Tags.of("type", "rx")),
     MUX_MATCH ("jpos.mux", "MUX rx unhandled", Tags.of("type", "match")),
-    MUX_UNHANDLED ("jpos.mux", "MUX rx unhandled", Tags.of("type", "unhandled"));
+    MUX_UNHANDLED ("jpos.mux", "MUX rx unhandled", Tags.of("type", "unhandled")),
+
+    LOGGER_QUEUE_DEPTH("jpos.logger.queue", "Async logger queued events"),
+    LOGGER_DROPPED("jpos.logger.dropped", "Async logger dropped events");
 
     final String id;
     final String description;
@@ -48,6 +48,7 @@ import org.jdom2.output.XMLOutputter;
 import org.jpos.core.Environment;
 import org.jpos.iso.ISOException;
 import org.jpos.iso.ISOUtil;
+import org.jpos.jfr.QBeanEvent;
 import org.jpos.log.AuditLogEvent;
 import org.jpos.log.evt.*;
 import org.jpos.metrics.MeterInfo;
@@ -83,7 +84,10 @@ import java.text.ParseException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -149,6 +153,7 @@ public class Q2 implements FileFilter, Runnable {
     private boolean disableDeployScan;
     private boolean disableDynamicClassloader;
     private boolean disableJFR;
+    private boolean parallelDeploy;
     private int sshPort;
     private String sshAuthorizedKeys;
     private String sshUser;
@@ -462,6 +467,7 @@ public class Q2 implements FileFilter, Runnable {
 
     private void deploy () {
         List<ObjectInstance> startList = new ArrayList<ObjectInstance>();
+        List<File> parallelList = new ArrayList<>();
         Iterator<Map.Entry<File,QEntry>> iter = dirMap.entrySet().iterator();
 
         try {
@@ -470,7 +476,9 @@ public class Q2 implements FileFilter, Runnable {
                 File   f        = entry.getKey ();
                 QEntry qentry   = entry.getValue ();
                 long deployed   = qentry.getDeployed ();
-                if (deployed == 0) {
+                if (deployed == 0 && parallelDeploy) {
+                    parallelList.add (f);
+                } else if (deployed == 0) {
                     if (deploy(f)) {
                         if (qentry.isQBean ()) {
                             if (qentry.isEagerStart())
@@ -491,12 +499,160 @@ public class Q2 implements FileFilter, Runnable {
             }
             for (ObjectInstance instance : startList)
                 start(instance);
+            if (!parallelList.isEmpty())
+                deployParallel (parallelList);
         }
         catch (Exception e){
             log.error ("deploy", e);
         }
     }
 
+    /**
+     * Deploys and starts <code>files</code> concurrently, on virtual threads.
+     *
+     * <p>A descriptor waits for the ones with a lower numeric prefix (i.e. <code>20_mux.xml</code>
+     * waits for <code>10_channel.xml</code> and <code>00_logger.xml</code>; descriptors without
+     * a numeric prefix go last) and for the QBeans listed in its <code>depends</code> attribute,
+     * to be deployed and started.</p>
+     *
+     * @param files new descriptors, in deploy directory order
+     */
+    private void deployParallel (List<File> files) {
+        long start = System.nanoTime();
+        LogEvent evt = log.createInfo().withTraceId(getInstanceId());
+        Map<String,DeployTask> byName = new HashMap<>();
+        TreeMap<Long,List<DeployTask>> groups = new TreeMap<>();
+        List<DeployTask> tasks = new ArrayList<>();
+        for (File f : files) {
+            DeployTask t = new DeployTask(f);
+            try {
+                t.doc = readDescriptor (f);
+                Element root = t.doc.getRootElement();
+                t.name = getQBeanName (root);
+                t.depends = Environment.get (root.getAttributeValue ("depends", ""));
+                byName.putIfAbsent (t.name, t);
+            } catch (Exception e) {
+                t.doc = null; // let deploy(File, Document) report it
+            }
+            groups.computeIfAbsent (getDeployPrefix (f), k -> new ArrayList<>()).add (t);
+            tasks.add (t);
+        }
+        List<DeployTask> previous = Collections.emptyList();
+        for (List<DeployTask> group : groups.values()) {
+            for (DeployTask t : group) {
+                t.dependencies.addAll (previous);
+                if (t.depends != null) {
+                    for (String dep : ISOUtil.commaDecode (t.depends)) {
+                        DeployTask d = byName.get (dep.trim());
+                        if (d != null && d != t)
+                            t.dependencies.add (d);
+                        else if (d == null && !dep.isBlank())
+                            evt.addMessage (String.format ("%s: unknown dependency '%s' ignored", t.file.getName(), dep.trim()));
+                    }
+                }
+            }
+            previous = group;
+        }
+        List<DeployTask> ordered = new ArrayList<>();
+        Set<DeployTask> visiting = new HashSet<>();
+        for (DeployTask t : tasks)
+            sort (t, ordered, visiting, evt);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (DeployTask t : ordered) {
+                CompletableFuture<?>[] deps = t.dependencies.stream()
+                  .map (d -> d.done)
+                  .toArray(CompletableFuture[]::new);
+                t.done = CompletableFuture.allOf(deps).thenRunAsync(() -> deploy (t), executor);
+            }
+            CompletableFuture.allOf(ordered.stream().map(t -> t.done).toArray(CompletableFuture[]::new)).join();
+        }
+        for (DeployTask t : tasks) {
+            if (t.deployed) {
+                evt.addMessage (String.format ("%s: init %d ms, start %d ms",
+                  t.file.getName(), t.initNanos / 1_000_000L, t.startNanos / 1_000_000L));
+            } else {
+                dirMap.remove (t.file);   // deploy failed, clean up.
+            }
+        }
+        evt.addMessage (String.format ("parallel deploy: %d descriptor(s) in %d ms",
+          tasks.size(), (System.nanoTime() - start) / 1_000_000L));
+        Logger.log (evt);
+    }
+
+    private void deploy (DeployTask t) {
+        if (shutdown.getCount() == 0)
+            return;
+        try {
+            Thread.currentThread().setContextClassLoader(loader);
+            QEntry qentry = dirMap.get (t.file);
+            long start = System.nanoTime();
+            if (!deploy (t.file, t.doc))
+                return;
+            t.initNanos = System.nanoTime() - start;
+            if (qentry.isQBean()) {
+                start = System.nanoTime();
+                start (qentry.getInstance());
+                t.startNanos = System.nanoTime() - start;
+            }
+            qentry.setDeployed (t.file.lastModified());
+            t.deployed = true;
+        } catch (Throwable e) {
+            log.error ("deploy", e);
+        }
+    }
+
+    /**
+     * Depth first topological sort, circular dependencies are reported and dropped.
+     */
+    private void sort (DeployTask t, List<DeployTask> ordered, Set<DeployTask> visiting, LogEvent evt) {
+        if (t.sorted)
+            return;
+        visiting.add (t);
+        for (Iterator<DeployTask> iter = t.dependencies.iterator(); iter.hasNext(); ) {
+            DeployTask d = iter.next();
+            if (visiting.contains (d)) {
+                evt.addMessage (String.format ("%s: circular dependency on %s ignored", t.file.getName(), d.file.getName()));
+                iter.remove();
+            } else {
+                sort (d, ordered, visiting, evt);
+            }
+        }
+        visiting.remove (t);
+        t.sorted = true;
+        ordered.add (t);
+    }
+
+    private static String getQBeanName (Element e) {
+        String name = QFactory.getAttributeValue (e, "name");
+        return name != null ? name : e.getName();
+    }
+
+    private static long getDeployPrefix (File f) {
+        String name = f.getName();
+        int i = 0;
+        while (i < name.length() && i < 18 && Character.isDigit(name.charAt(i)))
+            i++;
+        return i > 0 ? Long.parseLong (name.substring (0, i)) : Long.MAX_VALUE;
+    }
+
+    private static class DeployTask {
+        final File file;
+        final Set<DeployTask> dependencies = new LinkedHashSet<>();
+        Document doc;
+        String name;
+        String depends;
+        boolean sorted;
+        CompletableFuture<Void> done;
+        volatile long initNanos;
+        volatile long startNanos;
+        volatile boolean deployed;
+
+        DeployTask (File file) {
+            this.file = file;
+        }
+    }
+
     private void undeploy () {
         Object[] set = dirMap.entrySet().toArray ();
         int l = set.length;
@@ -637,20 +793,28 @@ public class Q2 implements FileFilter, Runnable {
     }
 
     private boolean deploy (File f) {
+        return deploy (f, null);
+    }
+
+    private Document readDescriptor (File f) throws Exception {
+        SAXBuilder builder = createSAXBuilder();
+        if (decorator != null && !f.getName().equals(LOGGER_CONFIG))
+            return decrypt(builder.build(new StringReader(decorator.decorateFile(f))));
+        return decrypt(builder.build(f));
+    }
+
+    /**
+     * @param f deployment descriptor
+     * @param doc already parsed descriptor, or null
+     * @return true if deployed
+     */
+    private boolean deploy (File f, Document doc) {
         LogEvent evt = log != null ? log.createInfo().withTraceId(getInstanceId()) : null;
         boolean enabled;
         try {
             QEntry qentry = dirMap.get (f);
-            SAXBuilder builder = createSAXBuilder();
-            Document doc;
-            if(decorator!=null && !f.getName().equals(LOGGER_CONFIG))
-            {
-                doc=decrypt(builder.build(new StringReader(decorator.decorateFile(f))));
-            }
-            else
-            {
-                doc=decrypt(builder.build(f));
-            }
+            if (doc == null)
+                doc = readDescriptor (f);
 
             Element rootElement = doc.getRootElement();
             String iuuid = rootElement.getAttributeValue ("instance");
@@ -666,12 +830,15 @@ public class Q2 implements FileFilter, Runnable {
             if (evt != null)
                 evt.addMessage(new Deploy(f.getCanonicalPath(), enabled, qentry.isEagerStart()));
             if (enabled) {
+                QBeanEvent jfr = new QBeanEvent.Init(getQBeanName(rootElement));
+                jfr.begin();
                 Object obj = factory.instantiate (this, factory.expandEnvProperties(rootElement));
                 qentry.setObject (obj);
                 ObjectInstance instance = factory.createQBean (
                     this, doc.getRootElement(), obj
                 );
                 qentry.setInstance (instance);
+                jfr.commit();
             }
         }
         catch (InstanceAlreadyExistsException e) {
@@ -710,10 +877,14 @@ public class Q2 implements FileFilter, Runnable {
     }
 
     private void start (ObjectInstance instance) {
+        QBeanEvent jfr = new QBeanEvent.Start(instance.getObjectName().getKeyProperty("service"));
+        jfr.begin();
         try {
             factory.startQBean (this, instance.getObjectName());
         } catch (Exception e) {
             getLog().warn ("start", e);
+        } finally {
+            jfr.commit();
         }
     }
     public void relax (long sleep) {
@@ -810,6 +981,7 @@ public class Q2 implements FileFilter, Runnable {
         options.addOption ("Nd", "no-dynamic", false, "Disables dynamic classloader");
         options.addOption ("Nf", "no-jfr", false, "Disables Java Flight Recorder");
         options.addOption ("Nh", "no-shutdown-hook", false, "Disable shutdown hook");
+        options.addOption ("Pd", "parallel-deploy", false, "Deploy independent QBeans concurrently");
         options.addOption ("E", "environment", true, "Environment name.\nCan be given multiple times (applied in order, and values may override previous ones)");
         options.addOption ("Ed", "envdir", true, "Environment file directory, defaults to cfg");
         options.addOption ("mp", "metrics-port", true, "Metrics port");
@@ -864,6 +1036,7 @@ public class Q2 implements FileFilter, Runnable {
             disableDeployScan = line.hasOption("Ns");
             disableDynamicClassloader = line.hasOption("Nd");
             disableJFR = line.hasOption("Nf");
+            parallelDeploy = line.hasOption("Pd");
             sshPort = Integer.parseInt(line.getOptionValue("sp", "2222"));
             sshAuthorizedKeys = line.getOptionValue ("sa", "cfg/authorized_keys");
             sshUser = line.getOptionValue("su", "admin");
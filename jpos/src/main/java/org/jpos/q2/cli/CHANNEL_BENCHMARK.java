@@ -0,0 +1,143 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.cli;
+
+import org.jpos.iso.BaseChannel;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOPackager;
+import org.jpos.iso.ISOUtil;
+import org.jpos.iso.channel.ASCIIChannel;
+import org.jpos.iso.channel.NACChannel;
+import org.jpos.iso.packager.ISO87APackager;
+import org.jpos.iso.packager.ISO87BPackager;
+import org.jpos.q2.CLICommand;
+import org.jpos.q2.CLIContext;
+import org.jpos.util.ByteArrayPool;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compares BaseChannel's receive path with and without pooled buffers
+ * (see {@link BaseChannel#setBufferPool(ByteArrayPool)}).
+ */
+@SuppressWarnings("unused")
+public class CHANNEL_BENCHMARK implements CLICommand {
+    private static final byte[] TPDU = ISOUtil.hex2byte ("6000010000");
+
+    public void exec(CLIContext ctx, String[] args) throws Exception {
+        if (args.length != 2) {
+            ctx.println (String.format ("Usage: %s messages", args[0]));
+            return;
+        }
+        int messages = Integer.parseInt(args[1]);
+        run (ctx, "ASCIIChannel", messages, new ISO87APackager(),
+          () -> new ASCIIChannel(new ISO87APackager()),
+          image -> ISOUtil.concat (ISOUtil.zeropad (image.length, 4).getBytes(), image)
+        );
+        run (ctx, "NACChannel", messages, new ISO87BPackager(),
+          () -> new NACChannel(new ISO87BPackager(), TPDU),
+          image -> {
+              int len = TPDU.length + image.length;
+              return ISOUtil.concat (new byte[] { (byte) (len >> 8), (byte) len }, ISOUtil.concat (TPDU, image));
+          }
+        );
+    }
+
+    private void run (CLIContext ctx, String name, int messages, ISOPackager p, Callable<BaseChannel> factory, UnaryOperator<byte[]> framer)
+      throws Exception
+    {
+        byte[] frame = framer.apply (createMessage (p).pack());
+        for (boolean pooled : new boolean[] { false, true }) {
+            bench (factory, frame, Math.max (1, messages / 10), pooled); // warm up
+            long[] r = bench (factory, frame, messages, pooled);
+            ctx.println ("%-12s %-8s %d messages in %d ms (%d msg/s), gc count=%d, gc time=%d ms".formatted(
+              name, pooled ? "pooled" : "byte[]", messages, r[0], r[0] > 0 ? messages * 1000L / r[0] : messages, r[1], r[2])
+            );
+        }
+    }
+
+    private long[] bench (Callable<BaseChannel> factory, byte[] frame, int messages, boolean pooled) throws Exception {
+        try (ServerSocket ss = new ServerSocket (0, 1, InetAddress.getLoopbackAddress())) {
+            BaseChannel channel = factory.call();
+            channel.setBufferPool (pooled ? new ByteArrayPool (16, 16) : null);
+            Thread sender = Thread.ofVirtual().start (() -> {
+                try (Socket s = new Socket (ss.getInetAddress(), ss.getLocalPort())) {
+                    OutputStream out = new BufferedOutputStream (s.getOutputStream(), 65536);
+                    for (int i=0; i<messages; i++)
+                        out.write (frame);
+                    out.flush();
+                    s.shutdownOutput();
+                    s.getInputStream().read(); // wait for the receiver to disconnect
+                } catch (Exception ignored) { }
+            });
+            channel.accept (ss);
+            long gcCount = gcCount();
+            long gcTime = gcTime();
+            long start = System.nanoTime();
+            for (int i=0; i<messages; i++)
+                channel.receive();
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            long[] r = { elapsed, gcCount() - gcCount, gcTime() - gcTime };
+            channel.disconnect();
+            sender.join();
+            return r;
+        }
+    }
+
+    private static ISOMsg createMessage (ISOPackager p) throws Exception {
+        ISOMsg m = new ISOMsg ("0200");
+        m.setPackager (p);
+        m.set (2, "4111111111111111");
+        m.set (3, "000000");
+        m.set (4, "000000010000");
+        m.set (7, "1018103000");
+        m.set (11, "000001");
+        m.set (12, "103000");
+        m.set (13, "1018");
+        m.set (22, "051");
+        m.set (35, "4111111111111111=28121011234567890");
+        m.set (37, "123456789012");
+        m.set (41, "29110001");
+        m.set (42, "001001001001001");
+        m.set (49, "840");
+        return m;
+    }
+
+    private static long gcCount() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcTime() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionTime());
+        return n;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.cli;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOUtil;
+import org.jpos.iso.packager.ISO87APackager;
+import org.jpos.q2.CLICommand;
+import org.jpos.q2.CLIContext;
+import org.jpos.transaction.BinaryContextCodec;
+import org.jpos.transaction.Context;
+import org.jpos.transaction.ContextCodec;
+import org.jpos.transaction.SerializationContextCodec;
+import org.jpos.util.Serializer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Compares {@link Context} snapshot size and (de)serialization time
+ * using the legacy Java serialization codec and the binary one.
+ */
+@SuppressWarnings("unused")
+public class CONTEXT_BENCHMARK implements CLICommand {
+    private static final String PACKAGER_NAME = "CONTEXT_BENCHMARK";
+
+    interface Op {
+        void run() throws Exception;
+    }
+
+    public void exec(CLIContext ctx, String[] args) throws Exception {
+        if (args.length != 2) {
+            ctx.println (String.format ("Usage: %s iterations", args[0]));
+            return;
+        }
+        int iterations = Integer.parseInt (args[1]);
+        ContextCodec codec = Context.getCodec();
+        ISO87APackager p = new ISO87APackager();
+        try {
+            run (ctx, "java", iterations, new SerializationContextCodec(), p);
+            run (ctx, "binary", iterations, new BinaryContextCodec(), p);
+            BinaryContextCodec.registerPackager (PACKAGER_NAME, p);
+            run (ctx, "binary+packed", iterations, new BinaryContextCodec(), p);
+        } finally {
+            BinaryContextCodec.unregisterPackager (PACKAGER_NAME);
+            Context.setCodec (codec);
+        }
+    }
+
+    private void run (CLIContext ctx, String name, int iterations, ContextCodec codec, ISO87APackager p) throws Exception {
+        Context.setCodec (codec);
+        Context context = createContext (p);
+        byte[] b = Serializer.serialize (context);
+        ctx.println (String.format ("%-14s snapshot size %d bytes", name, b.length));
+        bench (ctx, name + " write", iterations, () -> Serializer.serialize (context));
+        bench (ctx, name + " read", iterations, () -> Serializer.deserialize (b));
+    }
+
+    private void bench (CLIContext ctx, String name, int iterations, Op op) throws Exception {
+        for (int i=0; i<Math.min (iterations, 100_000); i++)
+            op.run(); // warm up
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long start = System.nanoTime();
+        for (int i=0; i<iterations; i++)
+            op.run();
+        long elapsed = System.nanoTime() - start;
+        ctx.println (String.format ("%-20s %d ops in %d ms (%d ops/s, %d ns/op), gc count=%d, gc time=%d ms",
+          name, iterations, elapsed / 1_000_000L, iterations * 1_000_000_000L / Math.max (1L, elapsed),
+          elapsed / Math.max (1, iterations), gcCount() - gcCount, gcTime() - gcTime));
+    }
+
+    private static Context createContext (ISO87APackager p) throws ISOException {
+        ISOMsg m = new ISOMsg ("0200");
+        m.setPackager (p);
+        m.set (2, "4111111111111111");
+        m.set (3, "000000");
+        m.set (4, "000000010000");
+        m.set (7, "1018103000");
+        m.set (11, "000001");
+        m.set (12, "103000");
+        m.set (13, "1018");
+        m.set (22, "051");
+        m.set (35, "4111111111111111=28121011234567890");
+        m.set (37, "123456789012");
+        m.set (41, "29110001");
+        m.set (42, "001001001001001");
+        m.set (49, "840");
+        m.set (52, ISOUtil.hex2byte ("0123456789ABCDEF"));
+        m.set (102, "0123456789");
+        ISOMsg received = new ISOMsg();
+        received.setPackager (p);
+        p.unpack (received, m.pack(), true); // as received from a channel with lazy-unpack
+        received.setDirection (ISOMsg.INCOMING);
+
+        Context ctx = new Context();
+        ctx.put ("REQUEST", received, true);
+        ctx.put ("TIMESTAMP", Instant.now(), true);
+        ctx.put ("AMOUNT", new BigDecimal ("100.00"), true);
+        ctx.put ("CURRENCY", "840", true);
+        ctx.put ("PCODE", "000000", true);
+        ctx.put ("TXNID", 1234567890L, true);
+        ctx.put ("CAPTURE_DATE", "20261018", true);
+        ctx.put ("SS", "JCARD", true);
+        ctx.put ("DESTINATION", "mux.jcard", true);
+        ctx.put ("EMV", ISOUtil.hex2byte ("9F2608AABBCCDDEEFF00119F2701809F10120110A00003220000000000000000000000FF"), true);
+        return ctx;
+    }
+
+    private static long gcCount() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcTime() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionTime());
+        return n;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.cli;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.packager.ISO87APackager;
+import org.jpos.q2.CLICommand;
+import org.jpos.q2.CLIContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link ISOMsg}'s array backed field store with the
+ * TreeMap it replaced, on set, get, pack and clone.
+ */
+@SuppressWarnings("unused")
+public class ISOMSG_BENCHMARK implements CLICommand {
+    private static final int[] REQUIRED = { 2, 3, 4, 11, 41 };
+
+    interface Op {
+        void run() throws Exception;
+    }
+
+    public void exec(CLIContext ctx, String[] args) throws Exception {
+        if (args.length != 2) {
+            ctx.println (String.format ("Usage: %s iterations", args[0]));
+            return;
+        }
+        int iterations = Integer.parseInt (args[1]);
+        run (ctx, "TreeMap", iterations, TreeMapISOMsg::new);
+        run (ctx, "array", iterations, ISOMsg::new);
+    }
+
+    private void run (CLIContext ctx, String name, int iterations, Supplier<ISOMsg> factory) throws Exception {
+        ISO87APackager p = new ISO87APackager();
+        ISOMsg m = createMessage (factory.get());
+        m.setPackager (p);
+        bench (ctx, name + " set", iterations, () -> createMessage (factory.get()));
+        bench (ctx, name + " get", iterations, () -> {
+            if (m.getString (11) == null || !m.hasFields (REQUIRED) || m.getMaxField() != 102)
+                throw new IllegalStateException();
+        });
+        bench (ctx, name + " pack", iterations, () -> {
+            ISOMsg x = createMessage (factory.get());
+            x.setPackager (p);
+            x.pack();
+        });
+        bench (ctx, name + " clone", iterations, m::clone);
+    }
+
+    private void bench (CLIContext ctx, String name, int iterations, Op op) throws Exception {
+        for (int i=0; i<Math.min (iterations, 100_000); i++)
+            op.run(); // warm up
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long start = System.nanoTime();
+        for (int i=0; i<iterations; i++)
+            op.run();
+        long elapsed = System.nanoTime() - start;
+        ctx.println (String.format ("%-14s %d ops in %d ms (%d ops/s, %d ns/op), gc count=%d, gc time=%d ms",
+          name, iterations, elapsed / 1_000_000L, iterations * 1_000_000_000L / Math.max (1L, elapsed),
+          elapsed / Math.max (1, iterations), gcCount() - gcCount, gcTime() - gcTime));
+    }
+
+    private static ISOMsg createMessage (ISOMsg m) throws ISOException {
+        m.setMTI ("0200");
+        m.set (2, "4111111111111111");
+        m.set (3, "000000");
+        m.set (4, "000000010000");
+        m.set (7, "1018103000");
+        m.set (11, "000001");
+        m.set (12, "103000");
+        m.set (13, "1018");
+        m.set (22, "051");
+        m.set (35, "4111111111111111=28121011234567890");
+        m.set (37, "123456789012");
+        m.set (41, "29110001");
+        m.set (42, "001001001001001");
+        m.set (49, "840");
+        m.set (102, "0123456789");
+        return m;
+    }
+
+    private static long gcCount() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcTime() {
+        long n = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max (0L, gc.getCollectionTime());
+        return n;
+    }
+
+    /**
+     * ISOMsg using the previous TreeMap based field store
+     */
+    private static class TreeMapISOMsg extends ISOMsg {
+        TreeMapISOMsg() {
+            fields = new TreeMap<>();
+        }
+    }
+}
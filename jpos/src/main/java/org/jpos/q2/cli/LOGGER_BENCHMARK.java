@@ -20,39 +20,77 @@ package org.jpos.q2.cli;
 
 import org.jpos.q2.CLICommand;
 import org.jpos.q2.CLIContext;
+import org.jpos.q2.Q2;
+import org.jpos.util.AsyncLogDispatcher;
 import org.jpos.util.LogEvent;
+import org.jpos.util.LogSource;
 import org.jpos.util.Logger;
-import org.jpos.util.Profiler;
+import org.jpos.util.SimpleLogSource;
 
 import java.util.concurrent.CountDownLatch;
 
+/**
+ * Logs <code>messages</code> events from <code>threads</code> threads, first
+ * synchronously and then through an {@link AsyncLogDispatcher}, reporting
+ * the time spent by the callers and the time it took to get all events to the listeners.
+ */
 @SuppressWarnings("unused")
 public class LOGGER_BENCHMARK implements CLICommand {
     public void exec(CLIContext ctx, String[] args) throws Exception {
-        if (args.length != 3) {
-            ctx.println (String.format ("Usage: %s threads messages", args[0]));
+        if (args.length != 3 && args.length != 4) {
+            ctx.println (String.format ("Usage: %s threads messages [logger]", args[0]));
             return;
         }
         int threadCount = Integer.parseInt(args[1]);
-        final int numMessages = Integer.parseInt(args[2]);
-        final Profiler p = new Profiler();
-        final CountDownLatch done = new CountDownLatch(threadCount);
-        for (int i = 0; i<threadCount; i++) {
-            final  String name = "Thread " + i;
-            new Thread() {
-                public void run() {
-                    for (int i = 0; i < numMessages; i++) {
-                        LogEvent ev = new LogEvent();
-                        ev.addMessage(name + " " + i);
-                        Logger.log(ev);
-                    }
-                    p.checkPoint (name);
-                    done.countDown();
+        int numMessages = Integer.parseInt(args[2]);
+        Logger logger = Logger.getLogger (args.length == 4 ? args[3] : Q2.LOGGER_NAME);
+        LogSource source = new SimpleLogSource (logger, "benchmark");
+
+        AsyncLogDispatcher d = logger.getAsyncDispatcher();
+        boolean wasAsync = d != null;
+        int capacity = d != null ? d.getCapacity() : 8192;
+        AsyncLogDispatcher.OverflowPolicy policy = d != null ? d.getPolicy() : AsyncLogDispatcher.OverflowPolicy.BLOCK;
+        try {
+            logger.stopAsync();
+            long elapsed = run (source, threadCount, numMessages);
+            report (ctx, "sync", threadCount * numMessages, elapsed, elapsed);
 
+            logger.startAsync (capacity, policy);
+            d = logger.getAsyncDispatcher();
+            long start = System.nanoTime();
+            elapsed = run (source, threadCount, numMessages);
+            logger.stopAsync(); // waits for the writer thread to catch up
+            report (ctx, "async", threadCount * numMessages, elapsed, System.nanoTime() - start);
+            ctx.println ("async dropped=" + d.getDropped() + " (" + policy + ", capacity=" + capacity + ")");
+        } finally {
+            logger.stopAsync();
+            if (wasAsync)
+                logger.startAsync (capacity, policy); // restore
+        }
+    }
+
+    private long run (LogSource source, int threadCount, int numMessages) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threadCount);
+        long start = System.nanoTime();
+        for (int i = 0; i<threadCount; i++) {
+            final String name = "Thread " + i;
+            Thread.ofPlatform().start (() -> {
+                for (int n = 0; n < numMessages; n++) {
+                    LogEvent ev = new LogEvent(source, "info");
+                    ev.addMessage(name + " " + n);
+                    Logger.log(ev);
                 }
-            }.start();
+                done.countDown();
+            });
         }
         done.await();
-        p.dump (System.out, "");
+        return System.nanoTime() - start;
+    }
+
+    private void report (CLIContext ctx, String mode, long events, long callerNanos, long totalNanos) {
+        long callerMs = Math.max (1L, callerNanos / 1_000_000L);
+        ctx.println ("%-5s %d events, callers %d ms (%d events/s), listeners done in %d ms".formatted(
+          mode, events, callerMs, events * 1000L / callerMs, totalNanos / 1_000_000L)
+        );
     }
 }
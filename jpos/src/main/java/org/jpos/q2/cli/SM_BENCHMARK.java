@@ -0,0 +1,112 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.cli;
+
+import org.jpos.iso.ISOUtil;
+import org.jpos.q2.CLICommand;
+import org.jpos.q2.CLIContext;
+import org.jpos.security.BaseSMAdapter;
+import org.jpos.security.EncryptedPIN;
+import org.jpos.security.MKDMethod;
+import org.jpos.security.SKDMethod;
+import org.jpos.security.SMAdapter;
+import org.jpos.security.SecureDESKey;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures throughput of the most common security module operations
+ * (PIN translation, CVV, ARQC verification and CBC-MAC) using keys
+ * generated on the fly by the given SMAdapter.
+ */
+@SuppressWarnings({"unused", "unchecked"})
+public class SM_BENCHMARK implements CLICommand {
+    private static final String PAN = "4111111111111111";
+
+    interface Op {
+        void run() throws Exception;
+    }
+
+    public void exec(CLIContext ctx, String[] args) throws Exception {
+        if (args.length != 3 && args.length != 4) {
+            ctx.println (String.format ("Usage: %s sm-name iterations [threads]", args[0]));
+            return;
+        }
+        SMAdapter<SecureDESKey> sm = BaseSMAdapter.getSMAdapter (args[1]);
+        int iterations = Integer.parseInt (args[2]);
+        int threads = args.length == 4 ? Integer.parseInt (args[3]) : 1;
+
+        SecureDESKey tpk = sm.generateKey (SMAdapter.LENGTH_DES3_2KEY, SMAdapter.TYPE_TPK);
+        SecureDESKey zpk = sm.generateKey (SMAdapter.LENGTH_DES3_2KEY, SMAdapter.TYPE_ZPK);
+        SecureDESKey cvk = sm.generateKey (SMAdapter.LENGTH_DES, SMAdapter.TYPE_CVK);
+        SecureDESKey tak = sm.generateKey (SMAdapter.LENGTH_DES3_2KEY, SMAdapter.TYPE_TAK);
+        EncryptedPIN pin = sm.exportPIN (sm.encryptPIN ("1234", PAN), tpk, SMAdapter.FORMAT01);
+        byte[] macData = ISOUtil.hex2byte ("0200F23C46D128E08000000000000000000016411111111111111100000000000001000010181030".repeat(2));
+
+        run (ctx, "translatePIN", iterations, threads,
+          () -> sm.translatePIN (pin, tpk, zpk, SMAdapter.FORMAT01));
+        run (ctx, "calculateCVD", iterations, threads,
+          () -> sm.calculateCVD (PAN, cvk, cvk, "2812", "101"));
+        run (ctx, "generateCBC_MAC", iterations, threads,
+          () -> sm.generateCBC_MAC (macData, tak));
+        SecureDESKey imkac;
+        try {
+            imkac = sm.generateKey (SMAdapter.LENGTH_DES3_2KEY, SMAdapter.TYPE_MK_AC);
+        } catch (Exception e) {
+            ctx.println (String.format ("%-16s n/a (%s)", "verifyARQC", e.getMessage()));
+            return;
+        }
+        byte[] arqc = ISOUtil.hex2byte ("0123456789ABCDEF");
+        byte[] atc = ISOUtil.hex2byte ("0001");
+        byte[] upn = ISOUtil.hex2byte ("12345678");
+        byte[] txnData = ISOUtil.hex2byte ("000000010000000000000000084000000000000840181018000123456758000001");
+        run (ctx, "verifyARQC", iterations, threads,
+          () -> sm.verifyARQC (MKDMethod.OPTION_A, SKDMethod.EMV_CSKD, imkac, PAN, "00", arqc, atc, upn, txnData));
+    }
+
+    private void run (CLIContext ctx, String name, int iterations, int threads, Op op) throws Exception {
+        for (int i=0; i<Math.min (iterations, 1000); i++)
+            op.run(); // warm up
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch (threads);
+        long start = System.nanoTime();
+        for (int t=0; t<threads; t++) {
+            Thread.ofPlatform().start (() -> {
+                try {
+                    for (int i=0; i<iterations; i++)
+                        op.run();
+                } catch (Exception e) {
+                    failure.compareAndSet (null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (failure.get() != null) {
+            ctx.println (String.format ("%-16s failed (%s)", name, failure.get().getMessage()));
+            return;
+        }
+        long ops = (long) iterations * threads;
+        ctx.println (String.format ("%-16s %d ops in %d ms (%d ops/s, %d ns/op)",
+          name, ops, elapsed / 1_000_000L, ops * 1_000_000_000L / Math.max (1L, elapsed), elapsed / ops));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.cli;
+
+import org.jpos.q2.CLICommand;
+import org.jpos.q2.CLIContext;
+import org.jpos.space.JDBMSpace;
+import org.jpos.space.JESpace;
+import org.jpos.space.LSpace;
+import org.jpos.space.MMapSpace;
+import org.jpos.space.Space;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Measures multi-threaded throughput of the local and persistent space
+ * implementations (LSpace, JDBMSpace, JESpace and MMapSpace), both for
+ * non-blocking out/inp cycles and for out/in hand-offs between producer
+ * and consumer threads.
+ */
+@SuppressWarnings({"unused", "unchecked"})
+public class SPACE_BENCHMARK implements CLICommand {
+    private static final long TIMEOUT = 10000L;
+
+    interface Op {
+        void run(int thread) throws Exception;
+    }
+
+    public void exec(CLIContext ctx, String[] args) throws Exception {
+        if (args.length < 2 || args.length > 4) {
+            ctx.println (String.format ("Usage: %s iterations [threads] [keys]", args[0]));
+            return;
+        }
+        int iterations = Integer.parseInt (args[1]);
+        int threads = args.length > 2 ? Integer.parseInt (args[2]) : 1;
+        int keys = args.length > 3 ? Integer.parseInt (args[3]) : threads;
+
+        File dir = Files.createTempDirectory ("space-benchmark").toFile();
+        try {
+            benchmark (ctx, "LSpace", new LSpace<>(), iterations, threads, keys);
+            JDBMSpace<String,Object> jdbm = JDBMSpace.getSpace (
+              "space-benchmark-" + System.nanoTime(), new File (dir, "jdbm").getAbsolutePath());
+            try {
+                benchmark (ctx, "JDBMSpace", jdbm, iterations, threads, keys);
+            } finally {
+                jdbm.close();
+            }
+            JESpace<String,Object> je = new JESpace<> ("space-benchmark", new File (dir, "je").getAbsolutePath());
+            try {
+                benchmark (ctx, "JESpace", je, iterations, threads, keys);
+            } finally {
+                je.close();
+            }
+            MMapSpace<String,Object> mmap = new MMapSpace<> ("space-benchmark", new File (dir, "mmap").getAbsolutePath());
+            try {
+                benchmark (ctx, "MMapSpace", mmap, iterations, threads, keys);
+            } finally {
+                mmap.close();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk (dir.toPath())) {
+                files.sorted (Comparator.reverseOrder()).map (Path::toFile).forEach (File::delete);
+            }
+        }
+    }
+
+    private void benchmark (CLIContext ctx, String name, Space<String,Object> sp, int iterations, int threads, int keys)
+      throws Exception
+    {
+        Object value = "value";
+        run (ctx, name + " out/inp", iterations, threads, t -> {
+            String k = "k" + (t % keys);
+            sp.out (k, value);
+            if (sp.inp (k) == null)
+                throw new IllegalStateException ("missing entry " + k);
+        });
+        // consumers (odd threads) block on in() until its producer (even thread) outs
+        int pairs = Math.max (1, threads / 2);
+        run (ctx, name + " out/in", iterations, pairs * 2, t -> {
+            String k = "h" + (t / 2 % keys);
+            if (t % 2 == 0)
+                sp.out (k, value);
+            else if (sp.in (k, TIMEOUT) == null)
+                throw new IllegalStateException ("timeout waiting for " + k);
+        });
+    }
+
+    private void run (CLIContext ctx, String name, int iterations, int threads, Op op) throws Exception {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch (threads);
+        long start = System.nanoTime();
+        for (int t=0; t<threads; t++) {
+            int thread = t;
+            Thread.ofPlatform().start (() -> {
+                try {
+                    for (int i=0; i<iterations; i++)
+                        op.run (thread);
+                } catch (Exception e) {
+                    failure.compareAndSet (null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (failure.get() != null) {
+            ctx.println (String.format ("%-20s failed (%s)", name, failure.get().getMessage()));
+            return;
+        }
+        long ops = (long) iterations * threads;
+        ctx.println (String.format ("%-20s %d ops in %d ms (%d ops/s, %d ns/op)",
+          name, ops, elapsed / 1_000_000L, ops * 1_000_000_000L / Math.max (1L, elapsed), elapsed / ops));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.iso;
+
+import org.jpos.iso.ISOMsg;
+import org.jpos.util.HashedWheelTimer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Request/response correlation table used by {@link QMUX} when configured
+ * with <code>&lt;property name="correlation" value="table" /&gt;</code>.
+ *
+ * <p>Pending requests are kept in a concurrent map keyed by the QMUX match key
+ * (see {@link QMUX#getKey(org.jpos.iso.ISOMsg)}), so registering a request and
+ * matching its response don't contend on a space-wide monitor. Callers either
+ * block on {@link Pending#await(long)} or get notified through
+ * {@link Pending#future()}; timeouts for the latter are handled by a
+ * {@link HashedWheelTimer}.</p>
+ *
+ * <p>Expired requests complete their future with a <code>null</code> response,
+ * consistent with {@link org.jpos.iso.MUX#request(ISOMsg, long)}.</p>
+ *
+ * @since 3.0.2
+ */
+public class CorrelationTable {
+    private final ConcurrentHashMap<String,Pending> pending = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer;
+
+    public CorrelationTable() {
+        this (HashedWheelTimer.getDefault());
+    }
+
+    public CorrelationTable (HashedWheelTimer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Registers a pending request.
+     *
+     * @param key match key
+     * @param expiration if greater than zero, the request expires after <code>expiration</code> millis
+     * @return pending slot, or null if there's already a pending request with the same key
+     */
+    public Pending register (String key, long expiration) {
+        Pending p = new Pending (key);
+        if (pending.putIfAbsent (key, p) != null)
+            return null;
+        if (expiration > 0L)
+            p.timeout = timer.newTimeout (() -> expire (p), expiration, TimeUnit.MILLISECONDS);
+        return p;
+    }
+
+    /**
+     * Completes the pending request associated with <code>key</code>.
+     *
+     * @param key match key
+     * @param response response
+     * @return true if a pending request was matched
+     */
+    public boolean complete (String key, ISOMsg response) {
+        Pending p = pending.remove (key);
+        if (p == null)
+            return false;
+        if (p.timeout != null)
+            p.timeout.cancel();
+        p.future.complete (response);
+        return true;
+    }
+
+    /**
+     * Removes the pending request and completes it with a null response, unless
+     * it has already been matched.
+     *
+     * @param p pending request
+     * @return true if the request was still pending
+     */
+    public boolean expire (Pending p) {
+        if (pending.remove (p.key, p)) {
+            if (p.timeout != null)
+                p.timeout.cancel();
+            p.future.complete (null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param key match key
+     * @return true if there's a pending request for the given key
+     */
+    public boolean isPending (String key) {
+        return pending.containsKey (key);
+    }
+
+    /**
+     * @return number of pending requests
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    public final class Pending {
+        private final String key;
+        private final CompletableFuture<ISOMsg> future = new CompletableFuture<>();
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private Pending (String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return future completed with the response, or with null once the request expires
+         */
+        public CompletableFuture<ISOMsg> future() {
+            return future;
+        }
+
+        /**
+         * Waits for the response, expiring this request on timeout.
+         *
+         * @param timeout time to wait in millis
+         * @return response or null
+         */
+        public ISOMsg await (long timeout) {
+            try {
+                return future.get (Math.max (0L, timeout), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (expire (this))
+                    return null;
+                return future.join(); // response matched while we were timing out
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                expire (this);
+            } catch (ExecutionException ignored) { }
+            return future.getNow (null);
+        }
+    }
+}
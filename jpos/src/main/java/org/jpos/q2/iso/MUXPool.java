@@ -28,8 +28,10 @@ import org.jpos.space.SpaceFactory;
 import org.jpos.util.NameRegistrar;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -151,6 +153,28 @@ public class MUXPool extends QBeanSupport implements MUX, MUXPoolMBean {
             throw new ISOException ("No MUX available");
     }
 
+    /**
+     * Selects a MUX using the configured strategy and delegates to its
+     * {@link MUX#requestAsync(ISOMsg, Duration)}.
+     *
+     * @param m message to send
+     * @param timeout time to wait for the response
+     * @return future response (null on timeout)
+     */
+    @Override
+    public CompletableFuture<ISOMsg> requestAsync (ISOMsg m, Duration timeout) {
+        if (!isConnected())
+            return CompletableFuture.failedFuture(new ISOException ("No MUX available"));
+        long maxWait = System.currentTimeMillis() + timeout.toMillis();
+        MUX mux = getMUX(m,maxWait);
+        if (mux == null)
+            return CompletableFuture.failedFuture(new ISOException ("No MUX available"));
+        long remainingTimeout = maxWait - System.currentTimeMillis();
+        if (remainingTimeout < 0)
+            return CompletableFuture.completedFuture(null);
+        return mux.requestAsync(m, Duration.ofMillis(remainingTimeout));
+    }
+
     public void send (ISOMsg m) throws ISOException, IOException {
         long maxWait = System.currentTimeMillis() + 1000L; // reasonable default
         MUX mux = getMUX(m,maxWait);
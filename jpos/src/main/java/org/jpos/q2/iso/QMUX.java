@@ -35,9 +35,13 @@ import org.jpos.util.Metrics;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Alejandro Revilla
@@ -58,6 +62,9 @@ public class QMUX
     private boolean headerIsKey;
     private boolean returnRejects;
     private LocalSpace isp; // internal space
+    private CorrelationTable correlation;
+    private int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
     private Map<String,String[]> mtiKey = new HashMap<>();
     private Metrics metrics = new Metrics(new AtomicHistogram(60000, 2));
 
@@ -92,6 +99,12 @@ public class QMUX
         ignorerc  = Environment.get(e.getChildTextTrim ("ignore-rc"));
         key = toStringArray(DEFAULT_KEY, ", ", null);
         returnRejects = cfg.getBoolean("return-rejects", false);
+        maxInFlight = cfg.getInt("max-in-flight", 0);
+        String correlationMode = cfg.get("correlation", "space");
+        if ("table".equalsIgnoreCase(correlationMode))
+            correlation = new CorrelationTable();
+        else if (!"space".equalsIgnoreCase(correlationMode))
+            throw new ConfigurationException ("Invalid correlation '" + correlationMode + "' (valid values are 'space' and 'table')");
         for (Element keyElement : e.getChildren("key")) {
             String mtiOverride = QFactory.getAttributeValue(keyElement, "mti");
             if (mtiOverride != null && mtiOverride.length() >= 2) {
@@ -151,10 +164,17 @@ public class QMUX
     public ISOMsg request (ISOMsg m, long timeout) throws ISOException {
         String key = getKey (m);
         String req = key + ".req";
-        synchronized (isp) {
-            if (isp.rdp (req) != null)
+        CorrelationTable.Pending pending = null;
+        if (correlation != null) {
+            pending = correlation.register (key, 0L);
+            if (pending == null)
                 throw new ISOException ("Duplicate key '" + req + "' detected");
-            isp.out (req, m);
+        } else {
+            synchronized (isp) {
+                if (isp.rdp (req) != null)
+                    throw new ISOException ("Duplicate key '" + req + "' detected");
+                isp.out (req, m);
+            }
         }
         m.setDirection(0);
         Chronometer c = new Chronometer();
@@ -168,14 +188,20 @@ public class QMUX
         try {
             synchronized (this) { tx++; rxPending++; }
 
-            for (;;) {
-                resp = (ISOMsg) isp.in (key, timeout);
-                if (!shouldIgnore (resp))
-                    break;
-            }
-            if (resp == null && isp.inp (req) == null) {
-                // possible race condition, retry for a few extra seconds
-                resp = (ISOMsg) isp.in (key, 10000);
+            if (pending != null) {
+                resp = pending.await (timeout);
+                if (shouldIgnore (resp))
+                    resp = null; // request slot is gone, no further responses would match
+            } else {
+                for (;;) {
+                    resp = (ISOMsg) isp.in (key, timeout);
+                    if (!shouldIgnore (resp))
+                        break;
+                }
+                if (resp == null && isp.inp (req) == null) {
+                    // possible race condition, retry for a few extra seconds
+                    resp = (ISOMsg) isp.in (key, 10000);
+                }
             }
             synchronized (this) {
                 if (resp != null) {
@@ -200,18 +226,84 @@ public class QMUX
     }
     public void request (ISOMsg m, long timeout, ISOResponseListener rl, Object handBack)
       throws ISOException
+    {
+        queueAsyncRequest (m, timeout, rl, handBack);
+    }
+
+    /**
+     * Sends a message to remote host without blocking the caller.
+     *
+     * <p>When <code>max-in-flight</code> is configured, the returned future
+     * completes exceptionally with an {@link ISOException} if there are already
+     * that many async requests waiting for a response.</p>
+     *
+     * @param m message to send
+     * @param timeout time to wait for the response
+     * @return future completed with the response, or with null on timeout
+     */
+    @Override
+    public CompletableFuture<ISOMsg> requestAsync (ISOMsg m, Duration timeout) {
+        if (inFlight.incrementAndGet() > maxInFlight && maxInFlight > 0) {
+            inFlight.decrementAndGet();
+            return CompletableFuture.failedFuture (
+              new ISOException ("max-in-flight (" + maxInFlight + ") reached")
+            );
+        }
+        CompletableFuture<ISOMsg> f = new CompletableFuture<>();
+        f.whenComplete ((resp, t) -> inFlight.decrementAndGet());
+        try {
+            AsyncRequest ar = queueAsyncRequest (m, timeout.toMillis(), new ISOResponseListener() {
+                @Override
+                public void responseReceived (ISOMsg resp, Object handBack) {
+                    f.complete (resp);
+                }
+                @Override
+                public void expired (Object handBack) {
+                    f.complete (null);
+                }
+            }, null);
+            f.whenComplete ((resp, t) -> {
+                if (f.isCancelled())
+                    ar.cancel();
+            });
+        } catch (ISOException e) {
+            f.completeExceptionally (e);
+        }
+        return f;
+    }
+
+    /**
+     * @return number of {@link #requestAsync(ISOMsg, Duration)} requests waiting for a response
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private AsyncRequest queueAsyncRequest (ISOMsg m, long timeout, ISOResponseListener rl, Object handBack)
+      throws ISOException
     {
         String key = getKey (m);
         String req = key + ".req";
-        synchronized (isp) {
+        AsyncRequest ar = new AsyncRequest (rl, handBack);
+        if (correlation != null) {
+            CorrelationTable.Pending pending = correlation.register (key, timeout);
+            if (pending == null)
+                throw new ISOException ("Duplicate key '" + req + "' detected.");
+            m.setDirection(0);
+            ar.pending = pending;
+            pending.future().thenAccept (resp -> {
+                if (resp != null)
+                    ar.responseReceived (resp);
+                else
+                    ar.run();
+            });
+        } else synchronized (isp) {
             if (isp.rdp (req) != null)
                 throw new ISOException ("Duplicate key '" + req + "' detected.");
             m.setDirection(0);
-            AsyncRequest ar = new AsyncRequest (rl, handBack);
-            synchronized (ar) {
-                if (timeout > 0)
-                    ar.setFuture(getScheduledThreadPoolExecutor().schedule(ar, timeout, TimeUnit.MILLISECONDS));
-            }
+            ar.req = req;
+            if (timeout > 0)
+                ar.setTimeout (HashedWheelTimer.getDefault().newTimeout (ar, timeout, TimeUnit.MILLISECONDS));
             isp.out (req, ar, timeout);
         }
         if (timeout > 0)
@@ -219,6 +311,7 @@ public class QMUX
         else
             sp.out (out, m);
         synchronized (this) { tx++; rxPending++; }
+        return ar;
     }
 
     protected boolean isNotifyEligible(ISOMsg msg) {
@@ -244,16 +337,23 @@ public class QMUX
             try {
                 if (isNotifyEligible(m)) {
                     String key = getKey (m);
-                    String req = key + ".req";
-                    Object r = isp.inp (req);
-                    if (r != null) {
-                        if (r instanceof AsyncRequest ar) {
-                            ar.responseReceived (m);
-                        } else {
-                            isp.out (key, m);
+                    if (correlation != null) {
+                        if (correlation.complete (key, m)) {
+                            rxMatchCounter.increment();
+                            return;
+                        }
+                    } else {
+                        String req = key + ".req";
+                        Object r = isp.inp (req);
+                        if (r != null) {
+                            if (r instanceof AsyncRequest ar) {
+                                ar.responseReceived (m);
+                            } else {
+                                isp.out (key, m);
+                            }
+                            rxMatchCounter.increment();
+                            return;
                         }
-                        rxMatchCounter.increment();
-                        return;
                     }
                 }
             } catch (ISOException e) {
@@ -553,7 +653,11 @@ public class QMUX
         ISOResponseListener rl;
         Object handBack;
         ScheduledFuture future;
+        HashedWheelTimer.Timeout timeout;
         Chronometer chrono;
+        String req;
+        CorrelationTable.Pending pending;
+        private final AtomicBoolean done = new AtomicBoolean();
         public AsyncRequest (ISOResponseListener rl, Object handBack) {
             super();
             this.rl = rl;
@@ -563,8 +667,12 @@ public class QMUX
         public void setFuture(ScheduledFuture future) {
             this.future = future;
         }
+        public void setTimeout(HashedWheelTimer.Timeout timeout) {
+            this.timeout = timeout;
+        }
         public void responseReceived (ISOMsg response) {
-            if (future == null || future.cancel(false)) {
+            if (done.compareAndSet(false, true)) {
+                cancelTimers();
                 synchronized (QMUX.this) {
                     rx++;
                     rxPending--;
@@ -577,11 +685,44 @@ public class QMUX
             }
         }
         public void run() {
+            if (done.compareAndSet(false, true)) {
+                synchronized(QMUX.this) {
+                    rxPending--;
+                }
+                metrics.record("all", chrono.elapsed());
+                rl.expired(handBack);
+            }
+        }
+
+        /**
+         * Discards this request; neither the listener's responseReceived nor
+         * expired methods get called afterwards.
+         *
+         * @return true if the request was still pending
+         */
+        public boolean cancel() {
+            if (!done.compareAndSet(false, true))
+                return false;
+            cancelTimers();
+            if (pending != null) {
+                correlation.expire (pending);
+            } else if (req != null) {
+                synchronized (isp) {
+                    if (isp.rdp (req) == this)
+                        isp.inp (req);
+                }
+            }
             synchronized(QMUX.this) {
                 rxPending--;
             }
-            metrics.record("all", chrono.elapsed());
-            rl.expired(handBack);
+            return true;
+        }
+
+        private void cancelTimers() {
+            if (future != null)
+                future.cancel(false);
+            if (timeout != null)
+                timeout.cancel();
         }
     }
 
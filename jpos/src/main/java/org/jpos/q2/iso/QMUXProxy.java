@@ -26,6 +26,8 @@ import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOResponseListener;
 
 import java.rmi.RemoteException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.*;
@@ -68,6 +70,15 @@ public class QMUXProxy implements RemoteQMUX, Configurable {
         qmux.request(m, timeout, rl, handBack);
         
     }
+    /**
+     * Local (non RMI) async request, see {@link QMUX#requestAsync(ISOMsg, Duration)}
+     * @param m message to send
+     * @param timeout time to wait for the response
+     * @return future response
+     */
+    public CompletableFuture<ISOMsg> requestAsync(ISOMsg m, Duration timeout) {
+        return qmux.requestAsync(m, timeout);
+    }
     public void setConfiguration(Configuration cfg)
             throws ConfigurationException {
         qmux.setConfiguration(cfg);
@@ -0,0 +1,171 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.iso;
+
+import org.jpos.core.ConfigurationException;
+import org.jpos.iso.*;
+import org.jpos.q2.QBeanSupport;
+import org.jpos.util.HashedWheelTimer;
+import org.jpos.util.NameRegistrar;
+import org.jpos.util.RateLimiter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MUX wrapper that rate limits requests (see {@link RateLimitPolicy}) before
+ * handing them to the underlying <code>mux</code>.
+ *
+ * <pre>
+ * &lt;mux class="org.jpos.q2.iso.RateLimitedMUX" name="limited-mux"&gt;
+ *   &lt;property name="mux" value="mymux" /&gt;
+ *   &lt;property name="key" value="41" /&gt;
+ *   &lt;property name="permits" value="10" /&gt;
+ *   &lt;property name="global-permits" value="200" /&gt;
+ *   &lt;property name="action" value="queue" /&gt;
+ * &lt;/mux&gt;
+ * </pre>
+ *
+ * <p>Rejected requests fail with an {@link ISOException}. Asynchronous requests
+ * over the limit are sent once their permit is available (both with the
+ * <code>delay</code> and <code>queue</code> actions) without blocking the caller.</p>
+ *
+ * @since 3.0.2
+ */
+public class RateLimitedMUX extends QBeanSupport implements MUX, RateLimitedMUXMBean {
+    private RateLimitPolicy policy;
+    private String muxName;
+    private volatile MUX mux;
+
+    @Override
+    public void initService () throws ConfigurationException {
+        muxName = cfg.get ("mux", null);
+        if (muxName == null)
+            throw new ConfigurationException (
+              String.format ("'mux' property not configured for %s '%s'", getClass().getName(), getName()));
+        policy = new RateLimitPolicy();
+        policy.setConfiguration (cfg);
+        NameRegistrar.register ("mux."+getName (), this);
+    }
+
+    @Override
+    public void stopService () {
+        NameRegistrar.unregister ("mux."+getName ());
+    }
+
+    public ISOMsg request (ISOMsg m, long timeout) throws ISOException {
+        long start = System.nanoTime();
+        await (m);
+        long remaining = timeout - TimeUnit.NANOSECONDS.toMillis (System.nanoTime() - start);
+        return timeout > 0L && remaining <= 0L ? null : getMUX().request (m, Math.max (remaining, 0L));
+    }
+
+    public void request (ISOMsg m, long timeout, ISOResponseListener r, Object handBack) throws ISOException {
+        long wait = reserve (m);
+        MUX mx = getMUX();
+        if (wait == 0L) {
+            mx.request (m, timeout, r, handBack);
+            return;
+        }
+        HashedWheelTimer.getDefault().newTimeout (() -> {
+            try {
+                mx.request (m, Math.max (timeout - TimeUnit.NANOSECONDS.toMillis (wait), 1L), r, handBack);
+            } catch (ISOException e) {
+                getLog().warn ("request", e);
+                r.expired (handBack);
+            }
+        }, wait, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public CompletableFuture<ISOMsg> requestAsync (ISOMsg m, Duration timeout) {
+        try {
+            long wait = reserve (m);
+            MUX mx = getMUX();
+            if (wait == 0L)
+                return mx.requestAsync (m, timeout);
+            CompletableFuture<ISOMsg> f = new CompletableFuture<>();
+            Duration remaining = timeout.minusNanos (wait);
+            HashedWheelTimer.getDefault().newTimeout (() -> {
+                if (!f.isDone()) {
+                    mx.requestAsync (m, remaining.isNegative() ? Duration.ofMillis (1L) : remaining)
+                      .whenComplete ((resp, e) -> {
+                          if (e != null)
+                              f.completeExceptionally (e);
+                          else
+                              f.complete (resp);
+                      });
+                }
+            }, wait, TimeUnit.NANOSECONDS);
+            return f;
+        } catch (ISOException e) {
+            return CompletableFuture.failedFuture (e);
+        }
+    }
+
+    public void send (ISOMsg m) throws ISOException, IOException {
+        await (m);
+        getMUX().send (m);
+    }
+
+    public boolean isConnected () {
+        MUX mx = mux != null ? mux : NameRegistrar.getIfExists ("mux." + muxName);
+        return mx != null && mx.isConnected();
+    }
+
+    public String getMuxName () {
+        return muxName;
+    }
+
+    public int getKeys () {
+        return policy != null ? policy.getRateLimiter().size() : 0;
+    }
+
+    /**
+     * @return nanos to wait before sending <code>m</code>
+     * @throws ISOException if the rate limit is exceeded
+     */
+    private long reserve (ISOMsg m) throws ISOException {
+        long wait = policy.reserve (m);
+        if (wait < 0L) {
+            String key = policy.getKey (m);
+            throw new ISOException ("rate limit exceeded" + (key != null ? " (" + key + ")" : ""));
+        }
+        return wait;
+    }
+
+    private void await (ISOMsg m) throws ISOException {
+        long wait = reserve (m);
+        if (wait > 0L && !RateLimiter.await (wait))
+            throw new ISOException ("interrupted while rate limited");
+    }
+
+    private MUX getMUX () throws ISOException {
+        MUX mx = mux;
+        if (mx == null) {
+            mx = NameRegistrar.getIfExists ("mux." + muxName);
+            if (mx == null)
+                throw new ISOException ("MUX '" + muxName + "' not found");
+            mux = mx;
+        }
+        return mx;
+    }
+}
@@ -18,8 +18,12 @@
 
 package org.jpos.q2.qbean;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
 import org.jdom2.Element;
 import org.jpos.core.ConfigurationException;
+import org.jpos.metrics.MeterFactory;
+import org.jpos.metrics.MeterInfo;
 import org.jpos.q2.QBeanSupport;
 import org.jpos.q2.QFactory;
 import org.jpos.util.*;
@@ -31,6 +35,8 @@ public class LoggerAdaptor extends QBeanSupport {
     private Logger logger;
     private PrintStream originalOut = null;
     private PrintStream originalErr = null;
+    private Gauge queueGauge;
+    private Gauge droppedGauge;
 
     protected void initService () {
         logger = Logger.getLogger (getName());
@@ -51,12 +57,25 @@ public class LoggerAdaptor extends QBeanSupport {
             originalErr = System.err;
             System.setErr(new PrintStream(new LogEventOutputStream(logger, "stderr", delay)));
         }
+        if (cfg.getBoolean("async")) {
+            try {
+                logger.startAsync(
+                  cfg.getInt("async-queue-size", 8192),
+                  AsyncLogDispatcher.OverflowPolicy.of(cfg.get("async-overflow", "block"))
+                );
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException(e.getMessage(), e);
+            }
+            initMeters();
+        }
     }
     protected void stopService() {
         if (originalOut != null)
             System.setOut(originalOut);
         if (originalErr != null)
             System.setErr(originalErr);
+        removeMeters();
+        logger.stopAsync ();
         logger.removeAllListeners ();
     }
     protected void destroyService() {
@@ -76,6 +95,25 @@ public class LoggerAdaptor extends QBeanSupport {
         }
     }
 
+    private void initMeters() {
+        AsyncLogDispatcher d = logger.getAsyncDispatcher();
+        var tags = Tags.of("name", getName());
+        var registry = getServer().getMeterRegistry();
+        queueGauge = MeterFactory.gauge
+          (registry, MeterInfo.LOGGER_QUEUE_DEPTH, tags, "events", d::getQueueDepth);
+        droppedGauge = MeterFactory.gauge
+          (registry, MeterInfo.LOGGER_DROPPED, tags, "events", d::getDropped);
+    }
+
+    private void removeMeters() {
+        var registry = getServer().getMeterRegistry();
+        if (queueGauge != null)
+            registry.remove(queueGauge);
+        if (droppedGauge != null)
+            registry.remove(droppedGauge);
+        queueGauge = droppedGauge = null;
+    }
+
     private void attemptToAddWriter (Element e, LogListener listener) throws ConfigurationException {
         if (e != null) {
             QFactory factory = getServer().getFactory();
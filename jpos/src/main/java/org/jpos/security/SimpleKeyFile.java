@@ -38,6 +38,13 @@ import java.util.Properties;
 
 /**
  * Implements SecureKeyStore using a properties file.
+ * <p>
+ * By default every {@link #getKey(String)} call reloads and parses the file.
+ * When the <code>cache</code> property is <code>true</code>, keys are parsed once
+ * into an immutable snapshot that is served without locking; the snapshot is
+ * rebuilt when the file's modification time or size changes, checked at most
+ * every <code>reload-interval</code> milliseconds (defaults to 1000).
+ * </p>
  * @author Hani S. Kirollos
  * @version $Revision$ $Date$
  * @see java.util.Properties
@@ -49,6 +56,10 @@ public class SimpleKeyFile
     String header = "Key File";
     protected Logger logger = null;
     protected String realm = null;
+    private volatile boolean cache;
+    private long reloadInterval = 1000L;
+    private volatile Snapshot snapshot;
+    private volatile long nextCheck;
 
     public SimpleKeyFile () {
     }
@@ -95,13 +106,42 @@ public class SimpleKeyFile
         try {
             init(cfg.get("key-file"));
             header = cfg.get("file-header", header);
+            setCache(cfg.getBoolean("cache"), cfg.getLong("reload-interval", reloadInterval));
         } catch (Exception e) {
             throw  new ConfigurationException(e);
         }
     }
 
+    /**
+     * Enables or disables the parsed keys snapshot.
+     * @param cache true to serve keys from an in-memory snapshot
+     * @param reloadInterval min time (millis) between file modification checks, 0 to check on every call
+     * @since 3.0.2
+     */
+    public synchronized void setCache (boolean cache, long reloadInterval) {
+        this.cache = cache;
+        this.reloadInterval = reloadInterval;
+        snapshot = null;
+        nextCheck = 0L;
+    }
+
     @Override
-    public synchronized SecureKey getKey (String alias) throws SecureKeyStoreException {
+    public SecureKey getKey (String alias) throws SecureKeyStoreException {
+        Snapshot snap = cache ? currentSnapshot() : null;
+        CachedKey k = snap != null ? snap.keys.get(alias) : null;
+        if (k == null)
+            return loadKey(alias); // not cached or bad key, take the long way (logging errors)
+        SecureKey secureKey = k.newKey();
+        if (logger != null) {
+            LogEvent evt = new LogEvent(this, "get-key");
+            evt.addMessage("alias", alias);
+            evt.addMessage(secureKey);
+            Logger.log(evt);
+        }
+        return secureKey;
+    }
+
+    private synchronized SecureKey loadKey (String alias) throws SecureKeyStoreException {
         SecureKey secureKey = null;
         LogEvent evt = logger != null ? new LogEvent(this, "get-key") : null;
         if (evt != null)
@@ -150,6 +190,7 @@ public class SimpleKeyFile
             String keyCheckValueHexString = ISOUtil.hexString(((SecureDESKey)secureKey).getKeyCheckValue());
             setProperty(alias, "checkvalue", keyCheckValueHexString);
             store();
+            snapshot = null;
         } catch (Exception e) {
             evt.addMessage(e);
             throw  e instanceof SecureKeyStoreException ? (SecureKeyStoreException) e : new SecureKeyStoreException(e);
@@ -203,6 +244,51 @@ public class SimpleKeyFile
         props.setProperty(key, value);
     }
 
+    private Snapshot currentSnapshot() throws SecureKeyStoreException {
+        Snapshot snap = snapshot;
+        long now = System.currentTimeMillis();
+        if (snap != null && now < nextCheck)
+            return snap;
+        if (snap != null && snap.isCurrent(file)) {
+            nextCheck = now + reloadInterval;
+            return snap;
+        }
+        return reload();
+    }
+
+    private synchronized Snapshot reload() throws SecureKeyStoreException {
+        Snapshot snap = snapshot;
+        if (snap != null && snap.isCurrent(file))
+            return snap; // reloaded by another thread
+        long lastModified = file.lastModified();
+        long length = file.length();
+        load();
+        Map<String,CachedKey> keys = new HashMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (!name.endsWith(".class"))
+                continue;
+            String alias = name.substring(0, name.length() - ".class".length());
+            try {
+                if (!SecureDESKey.class.getName().equals(getProperty(alias, "class")))
+                    continue;
+                SecureDESKey k = new SecureDESKey(
+                  Short.parseShort(getProperty(alias, "length")),
+                  getProperty(alias, "type"),
+                  ISOUtil.hex2byte(getProperty(alias, "key")),
+                  ISOUtil.hex2byte(getProperty(alias, "checkvalue"))
+                );
+                keys.put(alias, new CachedKey(k.getKeyLength(), k.getKeyType(), k.getVariant(), k.getScheme(),
+                  k.getKeyBytes(), k.getKeyCheckValue()));
+            } catch (Exception ignored) {
+                // left out of the snapshot, getKey reports the problem
+            }
+        }
+        snap = new Snapshot(lastModified, length, Map.copyOf(keys));
+        snapshot = snap;
+        nextCheck = System.currentTimeMillis() + reloadInterval;
+        return snap;
+    }
+
     @Override
     public Map<String, SecureKey> getKeys() throws SecureKeyStoreException {
         Map<String, SecureKey> keys = new HashMap<>();
@@ -215,4 +301,17 @@ public class SimpleKeyFile
         }
         return keys;
     }
+
+    private record Snapshot (long lastModified, long length, Map<String,CachedKey> keys) {
+        boolean isCurrent (File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    private record CachedKey (short length, String type, byte variant, KeyScheme scheme, byte[] key, byte[] checkValue) {
+        SecureDESKey newKey() {
+            // callers get their own instance, SecureKeys are mutable
+            return new SecureDESKey(length, type, variant, scheme, key.clone(), checkValue.clone());
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.security.jceadapter;
+
+import org.jpos.util.Loggeable;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of DUKPT intermediate keys used by {@link JCESecurityModule}.
+ * <p>
+ * Entries are identified by BDK and initial key serial number and hold the
+ * initial key (counter 0) plus the future keys computed along the way for recent
+ * transaction counters, so deriving a transaction key only has to run the
+ * shift-register steps not covered by its closest cached ancestor.
+ * </p>
+ * <p>
+ * The cache stores opaque byte arrays, callers are expected to keep them
+ * encrypted (JCESecurityModule stores them under the BDK's LMK).
+ * </p>
+ * @since 3.0.2
+ */
+public class DUKPTKeyCache implements Loggeable {
+    static final int MAX_NODES_PER_ENTRY = 64;
+    private final int maxEntries;
+    private final long ttl;
+    private final Map<String,Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries max number of BDK/initial key pairs
+     * @param ttl max time an entry is kept, in millis (0 for no limit)
+     */
+    public DUKPTKeyCache (int maxEntries, long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String,Entry> eldest) {
+                return size() > DUKPTKeyCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Looks up <code>counter</code>'s key or, failing that, its closest cached ancestor
+     * (the counter with its lowest set bits cleared), down to the initial key (counter 0).
+     *
+     * @param id entry id (BDK and initial key serial number)
+     * @param counter transaction counter
+     * @return closest cached node, or null if there's no (live) entry for this id
+     */
+    public synchronized Node closest (String id, int counter) {
+        Entry e = entries.get (id);
+        if (e != null && ttl > 0L && System.currentTimeMillis() - e.created > ttl) {
+            entries.remove (id);
+            e = null;
+        }
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        for (int c = counter; c != 0; c &= c - 1) {
+            byte[] key = e.nodes.get (c);
+            if (key != null)
+                return new Node (c, key);
+        }
+        return new Node (0, e.initialKey);
+    }
+
+    /**
+     * @param id entry id (BDK and initial key serial number)
+     * @param counter transaction counter, 0 for the initial key (which creates the entry)
+     * @param key protected key
+     */
+    public synchronized void put (String id, int counter, byte[] key) {
+        if (counter == 0) {
+            entries.put (id, new Entry (key));
+        } else {
+            Entry e = entries.get (id);
+            if (e != null)
+                e.nodes.put (counter, key);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void dump (PrintStream p, String indent) {
+        p.printf ("%s<dukpt-key-cache size=\"%d\" max-entries=\"%d\" hits=\"%d\" misses=\"%d\" />%n",
+          indent, size(), maxEntries, getHits(), getMisses());
+    }
+
+    /**
+     * A cached key and the transaction counter it belongs to
+     */
+    public record Node (int counter, byte[] key) { }
+
+    private static class Entry {
+        final long created = System.currentTimeMillis();
+        final byte[] initialKey;
+        final Map<Integer,byte[]> nodes = new LinkedHashMap<>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Integer,byte[]> eldest) {
+                return size() > MAX_NODES_PER_ENTRY;
+            }
+        };
+
+        Entry (byte[] initialKey) {
+            this.initialKey = initialKey;
+        }
+    }
+}
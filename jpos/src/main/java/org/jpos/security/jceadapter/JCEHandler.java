@@ -18,11 +18,14 @@
 
 package org.jpos.security.jceadapter;
 
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
@@ -54,7 +57,12 @@ public class JCEHandler {
     static final String DES_MODE_ECB = "ECB";
     static final String DES_MODE_CBC = "CBC";
     static final String DES_NO_PADDING = "NoPadding";
-    static final Map<MacEngineKey, Mac> macEngines = new ConcurrentHashMap();
+    /**
+     * Max number of idle engines kept per cipher transformation or MAC algorithm
+     */
+    static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    static final Map<String, Queue<Mac>> macEngines = new ConcurrentHashMap();
+    static final Map<String, Queue<Cipher>> cipherEngines = new ConcurrentHashMap();
     /**
      * The JCE provider
      */
@@ -276,11 +284,12 @@ public class JCEHandler {
         }
         AlgorithmParameterSpec aps = null;
         try {
-            Cipher c1 = Cipher.getInstance(transformation);
+            Cipher c1 = acquireCipher(transformation);
             if (cipherMode != CipherMode.ECB)
                 aps = new IvParameterSpec(iv);
             c1.init(direction, key, aps);
             result = c1.doFinal(data);
+            release(cipherEngines.get(transformation), c1);
             if (cipherMode != CipherMode.ECB)
                System.arraycopy(result, result.length-8, iv, 0, iv.length);
         } catch (Exception e) {
@@ -289,6 +298,36 @@ public class JCEHandler {
         return result;
     }
 
+    /**
+     * Takes a Cipher from the pool, or creates a new one if none is idle.
+     * <p>
+     * Ciphers are not thread safe, the caller owns the returned instance until it
+     * gives it back using {@link #release(Queue, Object)}. Ciphers that failed are
+     * just not returned.
+     * </p>
+     *
+     * @param transformation transformation suitable for {@link Cipher#getInstance(String)}
+     * @return a Cipher, not initialized for any particular key
+     * @throws GeneralSecurityException if the transformation is not available
+     */
+    Cipher acquireCipher(String transformation) throws GeneralSecurityException {
+        Queue<Cipher> pool = cipherEngines.get(transformation);
+        Cipher c = pool != null ? pool.poll() : null;
+        if (c == null) {
+            c = Cipher.getInstance(transformation);
+            cipherEngines.computeIfAbsent(transformation, k -> new ArrayBlockingQueue<>(POOL_SIZE));
+        }
+        return c;
+    }
+
+    /**
+     * Returns an engine to its pool; it's discarded if the pool is full
+     */
+    static <T> void release(Queue<T> pool, T engine) {
+        if (pool != null)
+            pool.offer(engine);
+    }
+
     /**
      * Calculates the length of key in bytes
      * 
@@ -317,28 +356,31 @@ public class JCEHandler {
     }
 
     /**
-     * Helper method used for create or retrieve MAC algorithm from cache
-     * 
+     * Helper method used for create or retrieve MAC algorithm from cache.
+     * <p>
+     * Engines are pooled per algorithm and initialized with the given key on every
+     * call (keys usually come fresh from {@code decryptFromLMK}, so caching them by
+     * key instance would never hit). The caller owns the returned engine until it
+     * gives it back using {@link #release(Queue, Object)}.
+     * </p>
+     *
      * @param engine
      *            object identyifing MAC algorithm
      * @return Initialized MAC algotithm
      * @throws org.jpos.security.jceadapter.JCEHandlerException
      */
     Mac assignMACEngine(MacEngineKey engine) throws JCEHandlerException {
-        if (macEngines.containsKey(engine)) {
-            return macEngines.get(engine);
-        }
-        // Initalize new MAC engine and store them in macEngines cache
-        Mac mac = null;
+        Queue<Mac> pool = macEngines.computeIfAbsent(engine.getMacAlgorithm(), k -> new ArrayBlockingQueue<>(POOL_SIZE));
+        Mac mac = pool.poll();
         try {
-            mac = Mac.getInstance(engine.getMacAlgorithm());
+            if (mac == null)
+                mac = Mac.getInstance(engine.getMacAlgorithm());
             mac.init(engine.getMacKey());
         } catch (NoSuchAlgorithmException e) {
             throw new JCEHandlerException(e);
         } catch (InvalidKeyException e) {
             throw new JCEHandlerException(e);
         }
-        macEngines.put(engine, mac);
         return mac;
     }
 
@@ -355,11 +397,11 @@ public class JCEHandler {
      * @throws org.jpos.security.jceadapter.JCEHandlerException
      */
     public byte[] generateMAC(byte[] data, Key kd, String macAlgorithm) throws JCEHandlerException {
-        Mac mac = assignMACEngine(new MacEngineKey(macAlgorithm, kd));
-        synchronized (mac) {
-            mac.reset();
-            return mac.doFinal(data);
-        }
+        MacEngineKey engine = new MacEngineKey(macAlgorithm, kd);
+        Mac mac = assignMACEngine(engine);
+        byte[] result = mac.doFinal(data); // leaves the engine reset
+        release(macEngines.get(macAlgorithm), mac);
+        return result;
     }
 
     /**
@@ -174,6 +174,9 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
      *             Default is DESEDEMAC from BouncyCastle provider<br>
      *             that is suitable for BASE24 with double length MAC key<br>
      *             ANSI X9.19<br>
+     *    dukpt-cache-size: max number of BDK/initial key pairs whose DUKPT intermediate keys are cached,<br>
+     *             defaults to 0 (no cache)<br>
+     *    dukpt-cache-ttl: max time (millis) a DUKPT cache entry is kept, defaults to 0 (no limit)<br>
      * @throws ConfigurationException
      */
     @Override
@@ -184,6 +187,9 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
         } catch (SMException e) {
             throw  new ConfigurationException(e);
         }
+        int dukptCacheSize = cfg.getInt("dukpt-cache-size", 0);
+        dukptCache = dukptCacheSize > 0 ?
+          new DUKPTKeyCache(dukptCacheSize, cfg.getLong("dukpt-cache-ttl", 0L)) : null;
     }
 
     @Override
@@ -2046,6 +2052,11 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
 
     protected JCEHandler jceHandler;
 
+    /**
+     * DUKPT intermediate keys cache, null if disabled
+     */
+    private volatile DUKPTKeyCache dukptCache;
+
     //--------------------------------------------------------------------------------------------------
     // DUKPT
     //--------------------------------------------------------------------------------------------------
@@ -2106,63 +2117,6 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
         return data;
     }
 
-    private void shr(byte[] b)
-    {
-        boolean carry = false;
-        for (int i = 0; i < b.length; i++)
-        {
-            byte c = b[i];
-            b[i] = (byte) (c >>> 1 & 0x7F);
-            if (carry)
-            {
-                b[i] |= 0x80;
-            }
-            carry = (c & 0x01) == 1;
-        }
-    }
-
-    private void or(byte[] b, byte[] mask, int offset)
-    {
-        int len = Math.min(b.length - offset, mask.length);
-        byte[] d = new byte[len];
-
-        for (int i = 0; i < len; i++)
-        {
-            b[offset++] |= mask[i];
-        }
-    }
-
-    private byte[] and(byte[] b, byte[] mask, int offset)
-    {
-        int len = Math.min(b.length - offset, mask.length);
-        byte[] d = new byte[b.length];
-        System.arraycopy(b, 0, d, 0, b.length);
-
-        for (int i = 0; i < len; i++, offset++)
-        {
-            d[offset] = (byte) (b[offset] & mask[i]);
-        }
-        return d;
-    }
-
-    private byte[] and(byte[] b, byte[] mask)
-    {
-        return and(b, mask, 0);
-    }
-
-    private boolean notZero(byte[] b)
-    {
-        int l = b.length;
-        for (int i = 0; i < l; i++)
-        {
-            if (b[i] != 0)
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private byte[] calculateInitialKey(KeySerialNumber sn, SecureDESKey bdk, boolean tdes)
             throws SMException
     {
@@ -2258,103 +2212,28 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
     private byte[] calculateDerivedKeySDES(KeySerialNumber ksn, SecureDESKey bdk)
             throws SMException
     {
-        final byte[] _1FFFFF =
-                new byte[]{(byte) 0x1F, (byte) 0xFF, (byte) 0xFF};
-        final byte[] _100000 =
-                new byte[]{(byte) 0x10, (byte) 0x00, (byte) 0x00};
-        final byte[] _E00000 =
-                new byte[]{(byte) 0xE0, (byte) 0x00, (byte) 0x00};
-
-        byte[] curkey = calculateInitialKey(ksn, bdk, false);
-        byte[] smidr = new byte[8];
-        System.arraycopy (ksn.getBytes(), 2, smidr, 0, smidr.length);
-
-        byte[] reg3 = ksn.getTransactionCounterBytes();
-        reg3 = and(reg3, _1FFFFF);
-        byte[] shiftr = _100000;
-        byte[] temp;
-        byte[] tksnr;
-        smidr = and(smidr, _E00000, 5);
-        do
-        {
-            temp = and(shiftr, reg3);
-            if (notZero(temp))
-            {
-                or(smidr, shiftr, 5);
-                tksnr = ISOUtil.xor(smidr, curkey);
-                tksnr = encrypt64(tksnr, curkey);
-                curkey = ISOUtil.xor(tksnr, curkey);
-            }
-            shr(shiftr);
-        }
-        while (notZero(shiftr));
+        byte[] curkey = calculateFutureKey(ksn, bdk, false, ksn.getTransactionCounterBytes());
         curkey[7] ^= 0xFF;
         return curkey;
     }
+
     private byte[] calculateDerivedKeyTDES(KeySerialNumber ksn, SecureDESKey bdk, boolean dataEncryption)
             throws SMException
     {
-        final byte[] _1FFFFF =
-                new byte[]{(byte) 0x1F, (byte) 0xFF, (byte) 0xFF};
-        final byte[] _100000 =
-                new byte[]{(byte) 0x10, (byte) 0x00, (byte) 0x00};
-        final byte[] _E00000 =
-                new byte[]{(byte) 0xE0, (byte) 0x00, (byte) 0x00};
-
-        byte[] curkey = calculateInitialKey(ksn, bdk, true);
-
-        byte[] smidr = new byte[8];
-        System.arraycopy (ksn.getBytes(), 2, smidr, 0, smidr.length);
-
         byte[] ksnImage = ksn.getBytes();
         byte[] reg3;
         if (dataEncryption && ksnImage[0] != (byte) 0xFF && ksnImage[1] != (byte) 0xFF) {
             // jPOS 2.x compatibility mode -  
-             reg3 = new byte[5];
+             reg3 = new byte[3];
              System.arraycopy (ksnImage, 5, reg3, 0, reg3.length);
         } else {
             reg3 = ksn.getTransactionCounterBytes();
         }
-        reg3 = and(reg3, _1FFFFF);
-        byte[] shiftr = _100000;
-        byte[] temp;
-        byte[] tksnr;
-        byte[] r8a;
-        byte[] r8b;
-        byte[] curkeyL = new byte[8];
-        byte[] curkeyR = new byte[8];
-        smidr = and(smidr, _E00000, 5);
-
-        do
-        {
-            temp = and(shiftr, reg3);
-            if (notZero(temp))
-            {
-                System.arraycopy(curkey, 0, curkeyL, 0, 8);
-                System.arraycopy(curkey, 8, curkeyR, 0, 8);
-
-                or(smidr, shiftr, 5);
-                // smidr == R8
-
-                tksnr = ISOUtil.xor(smidr, curkeyR);
-                tksnr = encrypt64(tksnr, curkeyL);
-                tksnr = ISOUtil.xor(tksnr, curkeyR);
-                // tksnr == R8A
-                curkeyL = ISOUtil.xor(curkeyL, _VARIANT_RIGHT_HALF);
-                curkeyR = ISOUtil.xor(curkeyR, _VARIANT_RIGHT_HALF);
-
-                r8b = ISOUtil.xor(smidr, curkeyR);
-                r8b = encrypt64(r8b, curkeyL);
-                r8b = ISOUtil.xor(r8b, curkeyR);
-
-                System.arraycopy(r8b, 0, curkey, 0, 8);
-                System.arraycopy(tksnr, 0, curkey, 8, 8);
-            }
-            shr(shiftr);
-        }
-        while (notZero(shiftr));
+        byte[] curkey = calculateFutureKey(ksn, bdk, true, reg3);
 
         if (dataEncryption) {
+            byte[] curkeyL = new byte[8];
+            byte[] curkeyR = new byte[8];
             curkey[5] ^= 0xFF;
             curkey[13] ^= 0xFF;
             System.arraycopy(curkey, 0, curkeyL, 0, 8);
@@ -2375,6 +2254,106 @@ public class JCESecurityModule extends BaseSMAdapter<SecureDESKey> {
         return curkey;
     }
 
+    /**
+     * Runs the DUKPT non-reversible key generation process for each bit set
+     * in the (21 bits) transaction counter, starting from the initial key or,
+     * when a {@link DUKPTKeyCache} is configured, from the closest cached
+     * intermediate key.
+     *
+     * @param ksn key serial number
+     * @param bdk base derivation key
+     * @param tdes true for double length keys
+     * @param reg3 transaction counter bytes
+     * @return future key, before applying the PIN/data variants
+     */
+    private byte[] calculateFutureKey(KeySerialNumber ksn, SecureDESKey bdk, boolean tdes, byte[] reg3)
+            throws SMException
+    {
+        int counter = (reg3[0] & 0x1F) << 16 | (reg3[1] & 0xFF) << 8 | reg3[2] & 0xFF;
+        byte[] smidr = new byte[8];
+        System.arraycopy (ksn.getBytes(), 2, smidr, 0, smidr.length);
+        smidr[5] &= (byte) 0xE0;
+        smidr[6] = 0;
+        smidr[7] = 0;
+
+        DUKPTKeyCache cache = dukptCache;
+        String cacheId = null;
+        byte[] curkey = null;
+        int node = 0;
+        if (cache != null) {
+            byte[] iksn = Arrays.copyOf(ksn.getBytes(), 8);
+            iksn[7] &= (byte) 0xE0;
+            cacheId = ISOUtil.hexString(bdk.getKeyBytes()) + ":" + ISOUtil.hexString(iksn) + (tdes ? ":T" : ":S");
+            DUKPTKeyCache.Node n = cache.closest(cacheId, counter);
+            if (n != null) {
+                node = n.counter();
+                curkey = unprotectDUKPTKey(n.key());
+            }
+        }
+        if (curkey == null) {
+            curkey = calculateInitialKey(ksn, bdk, tdes);
+            if (cache != null)
+                cache.put(cacheId, 0, protectDUKPTKey(curkey));
+        }
+        for (int shiftr = 0x100000; shiftr != 0; shiftr >>>= 1) {
+            if ((counter & shiftr) == 0 || (node & shiftr) != 0)
+                continue;
+            node |= shiftr;
+            // smidr == R8
+            smidr[5] = (byte) (smidr[5] & 0xE0 | node >> 16 & 0x1F);
+            smidr[6] = (byte) (node >> 8);
+            smidr[7] = (byte) node;
+            curkey = tdes ? nrkgpTDES(smidr, curkey) : nrkgpSDES(smidr, curkey);
+            if (cache != null && node != counter)
+                cache.put(cacheId, node, protectDUKPTKey(curkey));
+        }
+        return curkey;
+    }
+
+    private byte[] nrkgpSDES(byte[] smidr, byte[] curkey) throws JCEHandlerException {
+        byte[] tksnr = ISOUtil.xor(smidr, curkey);
+        tksnr = encrypt64(tksnr, curkey);
+        return ISOUtil.xor(tksnr, curkey);
+    }
+
+    private byte[] nrkgpTDES(byte[] smidr, byte[] curkey) throws JCEHandlerException {
+        byte[] curkeyL = new byte[8];
+        byte[] curkeyR = new byte[8];
+        System.arraycopy(curkey, 0, curkeyL, 0, 8);
+        System.arraycopy(curkey, 8, curkeyR, 0, 8);
+
+        byte[] tksnr = ISOUtil.xor(smidr, curkeyR);
+        tksnr = encrypt64(tksnr, curkeyL);
+        tksnr = ISOUtil.xor(tksnr, curkeyR);
+        // tksnr == R8A
+        curkeyL = ISOUtil.xor(curkeyL, _VARIANT_RIGHT_HALF);
+        curkeyR = ISOUtil.xor(curkeyR, _VARIANT_RIGHT_HALF);
+
+        byte[] r8b = ISOUtil.xor(smidr, curkeyR);
+        r8b = encrypt64(r8b, curkeyL);
+        r8b = ISOUtil.xor(r8b, curkeyR);
+
+        byte[] key = new byte[16];
+        System.arraycopy(r8b, 0, key, 0, 8);
+        System.arraycopy(tksnr, 0, key, 8, 8);
+        return key;
+    }
+
+    private byte[] protectDUKPTKey(byte[] key) throws SMException {
+        return jceHandler.encryptData(key, getLMK(keyTypeToLMKIndex.get(SMAdapter.TYPE_BDK)));
+    }
+
+    private byte[] unprotectDUKPTKey(byte[] key) throws SMException {
+        return jceHandler.decryptData(key, getLMK(keyTypeToLMKIndex.get(SMAdapter.TYPE_BDK)));
+    }
+
+    /**
+     * @return DUKPT key cache, null if not configured
+     */
+    public DUKPTKeyCache getDUKPTKeyCache() {
+        return dukptCache;
+    }
+
     public SecureDESKey importBDK(String clearComponent1HexString,
                                   String clearComponent2HexString,
                                   String clearComponent3HexString) throws SMException
@@ -39,7 +39,11 @@ import com.sleepycat.persist.model.PrimaryKey;
 import com.sleepycat.persist.model.SecondaryKey;
 import com.sleepycat.persist.model.Relationship;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.jpos.iso.ISOUtil;
 import org.jpos.util.Log;
@@ -48,6 +52,10 @@ import org.jpos.util.Loggeable;
 /**
  * BerkeleyDB Jave Edition based persistent space implementation
  *
+ * <p>Blocking operations wait on a per-key {@link Condition} (as in {@link LSpace}),
+ * so an <code>out</code> only wakes up the threads waiting on that very key, and
+ * JE transactions don't run under a space-wide monitor.</p>
+ *
  * @author Alejandro Revilla
  * @since 1.6.5
  */
@@ -66,6 +74,19 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
     public static final long DEFAULT_TXN_TIMEOUT = 30*1000L;
     public static final long DEFAULT_LOCK_TIMEOUT = 120*1000L;
     private Future gcTask;
+    private final ConcurrentHashMap<String,KeyEntry> keyEntries = new ConcurrentHashMap<>();
+    private final Object anyLock = new Object();
+    private final AtomicInteger anyWaiters = new AtomicInteger();
+
+    /**
+     * Per-key lock, held by blocking readers while they query the store,
+     * and its conditions.
+     */
+    private static class KeyEntry {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition hasValue = lock.newCondition();   // signaled when a value is added
+        final Condition isEmpty = lock.newCondition();    // signaled when a value is taken (for nrd)
+    }
 
     static final Map<String,Space> spaceRegistrar = 
         new HashMap<String,Space> ();
@@ -114,9 +135,7 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
                 );
             txn.commit();
             txn = null;
-            synchronized (this) {
-                notifyAll ();
-            }
+            signal (ref.getKey().toString(), true);
             if (sl != null)
                 notifyListeners(key, value);
         } catch (Exception e) {
@@ -137,9 +156,7 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
             pIndex.put (ref);
             txn.commit();
             txn = null;
-            synchronized (this) {
-                notifyAll ();
-            }
+            signal (ref.getKey().toString(), true);
             if (sl != null)
                 notifyListeners(key, value);
         } catch (Exception e) {
@@ -161,79 +178,31 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public synchronized V in (Object key) {
-        Object obj;
-        while ((obj = inp (key)) == null) {
-            try {
-                this.wait ();
-            } catch (InterruptedException ignored) { }
-        }
-        return (V) obj;
+    public V in (Object key) {
+        return awaitValue (key, true, -1L);
     }
-    @SuppressWarnings("unchecked")
-    public synchronized V in (Object key, long timeout) {
-        Object obj;
-        Instant now = Instant.now();
-        long duration;
-        while ((obj = inp (key)) == null &&
-                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
-        {
-            try {
-                this.wait (timeout - duration);
-            } catch (InterruptedException ignored) { }
-        }
-        return (V) obj;
+    public V in (Object key, long timeout) {
+        return awaitValue (key, true, Math.max(0L, timeout));
     }
-
-    @SuppressWarnings("unchecked")
-    public synchronized V rd  (Object key) {
-        Object obj;
-        while ((obj = rdp (key)) == null) {
-            try {
-                this.wait ();
-            } catch (InterruptedException ignored) { }
-        }
-        return (V) obj;
+    public V rd  (Object key) {
+        return awaitValue (key, false, -1L);
     }
-    @SuppressWarnings("unchecked")
-    public synchronized V rd  (Object key, long timeout) {
-        Object obj;
-        Instant now = Instant.now();
-        long duration;
-        while ((obj = rdp (key)) == null &&
-                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
-        {
-            try {
-                this.wait (timeout - duration);
-            } catch (InterruptedException ignored) { }
-        }
-        return (V) obj;
+    public V rd  (Object key, long timeout) {
+        return awaitValue (key, false, Math.max(0L, timeout));
     }
-    public synchronized void nrd  (Object key) {
-        while (rdp (key) != null) {
-            try {
-                this.wait (NRD_RESOLUTION);
-            } catch (InterruptedException ignored) { }
-        }
+    public void nrd  (Object key) {
+        awaitEmpty (key, -1L);
     }
-    public synchronized V nrd  (Object key, long timeout) {
-        Object obj;
-        Instant now = Instant.now();
-        long duration;
-        while ((obj = rdp (key)) != null &&
-                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
-        {
-            try {
-                this.wait (Math.min(NRD_RESOLUTION, timeout - duration));
-            } catch (InterruptedException ignored) { }
-        }
-        return (V) obj;
+    public V nrd  (Object key, long timeout) {
+        return awaitEmpty (key, Math.max(0L, timeout));
     }
     @SuppressWarnings("unchecked")
     public V inp (Object key) {
         try {
-            return (V) getObject (key, true);
+            Object obj = getObject (key, true);
+            if (obj != null)
+                signal (keyOf (key), false);
+            return (V) obj;
         } catch (DatabaseException e) {
             throw new SpaceError (e);
         }
@@ -250,26 +219,35 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
     public boolean existAny (Object[] keys, long timeout) {
         Instant now = Instant.now();
         long duration;
-        while ((duration = Duration.between(now, Instant.now()).toMillis()) < timeout) {
-            if (existAny (keys))
-                return true;
-            synchronized (this) {
-                try {
-                    wait (timeout - duration);
-                } catch (InterruptedException ignored) { }
+        anyWaiters.incrementAndGet();
+        try {
+            while ((duration = Duration.between(now, Instant.now()).toMillis()) < timeout) {
+                synchronized (anyLock) {
+                    if (existAny (keys))
+                        return true;
+                    try {
+                        anyLock.wait (timeout - duration);
+                    } catch (InterruptedException ignored) { }
+                }
             }
+        } finally {
+            anyWaiters.decrementAndGet();
         }
         return false;
     }
-    public synchronized void put (K key, V value, long timeout) {
-        while (inp (key) != null)
-            ; // NOPMD
-        out (key, value, timeout);
+    public void put (K key, V value, long timeout) {
+        String k = keyOf (key);
+        KeyEntry entry = lock (k);
+        try {
+            while (inp (key) != null)
+                ; // NOPMD
+            out (key, value, timeout);
+        } finally {
+            unlock (k, entry);
+        }
     }
-    public synchronized void put (K key, V value) {
-        while (inp (key) != null)
-            ; // NOPMD
-        out (key, value);
+    public void put (K key, V value) {
+        put (key, value, 0L);
     }
     public void gc () throws DatabaseException {
         Transaction txn = null;
@@ -334,6 +312,110 @@ public class JESpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpac
     public static JESpace getSpace (String name) {
         return getSpace (name, name);        
     }
+    @SuppressWarnings("unchecked")
+    private V awaitValue (Object key, boolean remove, long timeout) {
+        String k = keyOf (key);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        KeyEntry entry = lock (k);
+        try {
+            Object obj;
+            while ((obj = remove ? inp (key) : rdp (key)) == null) {
+                if (timeout < 0L) {
+                    entry.hasValue.awaitUninterruptibly();
+                } else {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0L)
+                        break;
+                    try {
+                        entry.hasValue.awaitNanos (nanos);
+                    } catch (InterruptedException ignored) { }
+                }
+            }
+            return (V) obj;
+        } finally {
+            unlock (k, entry);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V awaitEmpty (Object key, long timeout) {
+        String k = keyOf (key);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        KeyEntry entry = lock (k);
+        try {
+            Object obj;
+            while ((obj = rdp (key)) != null) {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(NRD_RESOLUTION); // entries may expire
+                if (timeout >= 0L) {
+                    nanos = Math.min (nanos, deadline - System.nanoTime());
+                    if (nanos <= 0L)
+                        break;
+                }
+                try {
+                    entry.isEmpty.awaitNanos (nanos);
+                } catch (InterruptedException ignored) { }
+            }
+            return (V) obj;
+        } finally {
+            unlock (k, entry);
+        }
+    }
+
+    /**
+     * @return the (locked) entry for key <code>k</code>
+     */
+    private KeyEntry lock (String k) {
+        for (;;) {
+            KeyEntry entry = keyEntries.computeIfAbsent(k, x -> new KeyEntry());
+            entry.lock.lock();
+            if (keyEntries.get(k) == entry)
+                return entry;
+            entry.lock.unlock(); // removed meanwhile, retry
+        }
+    }
+
+    /**
+     * Unlocks the entry, dropping it if nobody else is waiting on it.
+     */
+    private void unlock (String k, KeyEntry entry) {
+        try {
+            if (entry.lock.getHoldCount() == 1 && !entry.lock.hasQueuedThreads()
+              && !entry.lock.hasWaiters(entry.hasValue) && !entry.lock.hasWaiters(entry.isEmpty))
+                keyEntries.remove(k, entry);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up the threads waiting on key <code>k</code>.
+     *
+     * @param added true if a value was added, false if it was taken
+     */
+    private void signal (String k, boolean added) {
+        KeyEntry entry = keyEntries.get(k);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                if (added)
+                    entry.hasValue.signalAll();
+                else
+                    entry.isEmpty.signalAll();
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        if (added && anyWaiters.get() > 0) {
+            synchronized (anyLock) {
+                anyLock.notifyAll();
+            }
+        }
+    }
+
+    private static String keyOf (Object key) {
+        return (key instanceof Template tmpl ? tmpl.getKey() : key).toString();
+    }
+
     private Object getObject (Object key, boolean remove) throws DatabaseException {
         Transaction txn = null;
         EntityCursor<Ref> cursor = null;
@@ -0,0 +1,762 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.space;
+
+import org.jpos.iso.ISOUtil;
+import org.jpos.util.Log;
+import org.jpos.util.Loggeable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Persistent space backed by an append-only log of memory mapped segments.
+ *
+ * <p>Every <code>out</code> or <code>push</code> appends a CRC-checked record to the
+ * active segment, and every <code>inp</code> appends a small tombstone. Entries are
+ * located through an in-memory index that is rebuilt from the log on startup,
+ * where torn or corrupted records are discarded. A background task deletes
+ * segments whose entries have all been taken. It also moves the few entries
+ * still alive in the oldest segment to the active one, so that segment can be
+ * deleted too.</p>
+ *
+ * <p>Records reach the OS page cache as soon as they are written, so they survive
+ * a process crash. With <code>sync=true</code> (the default) they are also forced
+ * to disk before the operation returns, and concurrent callers share a single
+ * {@link MappedByteBuffer#force(int, int)}. When auto-commit is off (see
+ * {@link #setAutoCommit(boolean)}), a whole batch of operations is forced by a
+ * single {@link #commit()}.</p>
+ *
+ * <p>This engine is designed for short lived, append-mostly workloads such as
+ * the {@link org.jpos.transaction.TransactionManager} recovery data. Keys are
+ * stored as strings and values have to be {@link Serializable}.</p>
+ *
+ * <pre>
+ *   mmap:name[:path[,segment.size=n][,sync=false]]
+ * </pre>
+ *
+ * @since 3.0.2
+ */
+@SuppressWarnings("unchecked")
+public class MMapSpace<K,V> extends Log implements LocalSpace<K,V>, PersistentSpace, Loggeable, Runnable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64*1024*1024;
+    public static final long GC_DELAY = 15*1000L;
+    private static final long NRD_RESOLUTION = 500L;
+    private static final String SUFFIX = ".seg";
+
+    private static final byte OUT = 1;
+    private static final byte DEL = 2;
+    /** length and crc */
+    private static final int HEADER = 8;
+    /** op, seq, expiration and key length */
+    private static final int OUT_HEADER = 1 + 8 + 8 + 2;
+    /** op and seq */
+    private static final int DEL_LENGTH = 1 + 8;
+
+    static final Map<String,Space> spaceRegistrar = new HashMap<>();
+
+    private final String name;
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean sync;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final Map<String,ArrayDeque<Ref>> entries = new HashMap<>();
+    private final Object syncLock = new Object();
+    private final Semaphore gcSem = new Semaphore(1);
+    private Segment active;
+    private long seq;
+    private long written;
+    private long synced;
+    private volatile boolean autoCommit = true;
+    private LocalSpace<Object,SpaceListener> sl;
+    private Future<?> gcTask;
+
+    public MMapSpace(String name, String params) throws SpaceError {
+        super();
+        String[] p = ISOUtil.commaDecode(params);
+        this.name = name;
+        this.dir = Paths.get(p[0]);
+        this.segmentSize = Integer.parseInt(getParam("segment.size", p, Integer.toString(DEFAULT_SEGMENT_SIZE)));
+        this.sync = Boolean.parseBoolean(getParam("sync", p, "true"));
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException e) {
+            throw new SpaceError (e);
+        }
+        gcTask = SpaceFactory.getGCExecutor().scheduleAtFixedRate(this, GC_DELAY, GC_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    public void out (K key, V value) {
+        out (key, value, 0L);
+    }
+    public void out (K key, V value, long timeout) {
+        write (key, value, timeout, false, false);
+    }
+    public void push (K key, V value) {
+        push (key, value, 0L);
+    }
+    public void push (K key, V value, long timeout) {
+        write (key, value, timeout, true, false);
+    }
+    public void put (K key, V value) {
+        put (key, value, 0L);
+    }
+    public void put (K key, V value, long timeout) {
+        write (key, value, timeout, false, true);
+    }
+    public V rdp (Object key) {
+        synchronized (this) {
+            return (V) getObject (key, false);
+        }
+    }
+    public V inp (Object key) {
+        Object obj;
+        long w;
+        synchronized (this) {
+            w = written;
+            obj = getObject (key, true);
+            if (w == written)
+                return (V) obj;
+            w = written;
+            notifyAll ();
+        }
+        autoSync (w);
+        return (V) obj;
+    }
+
+    public synchronized V in (Object key) {
+        Object obj;
+        while ((obj = inp (key)) == null) {
+            try {
+                this.wait ();
+            } catch (InterruptedException ignored) { }
+        }
+        return (V) obj;
+    }
+    public synchronized V in (Object key, long timeout) {
+        Object obj;
+        Instant now = Instant.now();
+        long duration;
+        while ((obj = inp (key)) == null &&
+                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
+        {
+            try {
+                this.wait (timeout - duration);
+            } catch (InterruptedException ignored) { }
+        }
+        return (V) obj;
+    }
+    public synchronized V rd  (Object key) {
+        Object obj;
+        while ((obj = rdp (key)) == null) {
+            try {
+                this.wait ();
+            } catch (InterruptedException ignored) { }
+        }
+        return (V) obj;
+    }
+    public synchronized V rd  (Object key, long timeout) {
+        Object obj;
+        Instant now = Instant.now();
+        long duration;
+        while ((obj = rdp (key)) == null &&
+                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
+        {
+            try {
+                this.wait (timeout - duration);
+            } catch (InterruptedException ignored) { }
+        }
+        return (V) obj;
+    }
+    public synchronized void nrd  (Object key) {
+        while (rdp (key) != null) {
+            try {
+                this.wait (NRD_RESOLUTION);
+            } catch (InterruptedException ignored) { }
+        }
+    }
+    public synchronized V nrd  (Object key, long timeout) {
+        Object obj;
+        Instant now = Instant.now();
+        long duration;
+        while ((obj = rdp (key)) != null &&
+                (duration = Duration.between(now, Instant.now()).toMillis()) < timeout)
+        {
+            try {
+                this.wait (Math.min(NRD_RESOLUTION, timeout - duration));
+            } catch (InterruptedException ignored) { }
+        }
+        return (V) obj;
+    }
+    public synchronized boolean existAny (Object[] keys) {
+        long now = Instant.now().toEpochMilli();
+        for (Object key : keys) {
+            ArrayDeque<Ref> q = entries.get(key.toString());
+            if (q != null) {
+                for (Ref ref : q) {
+                    if (!ref.isExpired(now))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+    public boolean existAny (Object[] keys, long timeout) {
+        Instant now = Instant.now();
+        long duration;
+        while ((duration = Duration.between(now, Instant.now()).toMillis()) < timeout) {
+            if (existAny (keys))
+                return true;
+            synchronized (this) {
+                try {
+                    wait (timeout - duration);
+                } catch (InterruptedException ignored) { }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enables or disables auto-commit.
+     * <p>
+     * With auto-commit off, operations don't force their records to disk;
+     * {@link #commit()} does it for all of them at once.
+     *
+     * @param autoCommit true to force every operation (if <code>sync</code> is enabled)
+     */
+    public void setAutoCommit (boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    /**
+     * Forces every record written so far to disk.
+     */
+    public void commit () {
+        long w;
+        synchronized (this) {
+            w = written;
+        }
+        sync (w);
+    }
+
+    /**
+     * Drops expired entries and deletes (compacting if necessary) the
+     * oldest segments that are no longer needed. Segments are deleted oldest
+     * first, stopping at the first one that can't be removed.
+     */
+    public void gc () {
+        if (!gcSem.tryAcquire())
+            return;
+        try {
+            List<Segment> dead;
+            synchronized (this) {
+                long now = Instant.now().toEpochMilli();
+                for (Iterator<ArrayDeque<Ref>> it = entries.values().iterator(); it.hasNext(); ) {
+                    ArrayDeque<Ref> q = it.next();
+                    q.removeIf(ref -> ref.isExpired(now) && release(ref));
+                    if (q.isEmpty())
+                        it.remove();
+                }
+                dead = compact();
+                if (sl != null && sl.getKeySet().isEmpty())
+                    sl = null;
+            }
+            for (int i=0; i<dead.size(); i++) {
+                Segment s = dead.get(i);
+                try {
+                    Files.deleteIfExists(s.path);
+                } catch (IOException e) {
+                    warn ("Unable to delete " + s.path, e);
+                    // newer segments hold the tombstones of its entries, so none
+                    // of them can go until this one does; retry on next gc
+                    synchronized (this) {
+                        for (int j=dead.size()-1; j>=i; j--)
+                            segments.addFirst(dead.get(j));
+                    }
+                    break;
+                }
+            }
+        } finally {
+            gcSem.release();
+        }
+    }
+    public void run() {
+        try {
+            gc();
+        } catch (Exception e) {
+            warn(e);
+        }
+    }
+    public void close () {
+        gcSem.acquireUninterruptibly();
+        gcTask.cancel(false);
+        synchronized (this) {
+            if (active != null)
+                active.buf.force();
+        }
+    }
+
+    public synchronized static MMapSpace getSpace (String name, String path) {
+        MMapSpace sp = (MMapSpace) spaceRegistrar.get (name);
+        if (sp == null) {
+            sp = new MMapSpace(name, path);
+            spaceRegistrar.put (name, sp);
+        }
+        return sp;
+    }
+    public static MMapSpace getSpace (String name) {
+        return getSpace (name, name);
+    }
+
+    public synchronized void addListener(Object key, SpaceListener listener) {
+        getSL().out (key, listener);
+    }
+    public synchronized void addListener(Object key, SpaceListener listener, long timeout) {
+        getSL().out (key, listener);
+    }
+    public synchronized void removeListener(Object key, SpaceListener listener) {
+        if (sl != null)
+            sl.inp (new ObjectTemplate (key, listener));
+    }
+
+    public synchronized Set getKeySet() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public synchronized int size(Object key) {
+        ArrayDeque<Ref> q = entries.get(key.toString());
+        if (q == null)
+            return 0;
+        long now = Instant.now().toEpochMilli();
+        int keyCount = 0;
+        for (Ref ref : q)
+            if (!ref.isExpired(now))
+                keyCount++;
+        return keyCount;
+    }
+
+    public synchronized void dump(PrintStream p, String indent) {
+        for (Map.Entry<String,ArrayDeque<Ref>> entry : entries.entrySet())
+            dumpKey (p, indent, entry.getKey(), entry.getValue().size());
+        p.println(indent+"<keycount>"+entries.size()+"</keycount>");
+        p.println(indent+"<segments>"+segments.size()+"</segments>");
+    }
+
+    private void dumpKey (PrintStream p, String indent, String key, int count) {
+        if (count > 0)
+            p.printf ("%s<key size='%d'>%s</key>\n", indent, count, key);
+        else
+            p.printf ("%s<key>%s</key>\n", indent, key);
+    }
+
+    private void write (K key, V value, long timeout, boolean push, boolean replace) {
+        if (key == null || value == null)
+            throw new NullPointerException ("key=" + key + ", value=" + value);
+        byte[] b = serialize (value);
+        String k = key.toString();
+        long w;
+        synchronized (this) {
+            if (replace) {
+                ArrayDeque<Ref> q = entries.remove(k);
+                if (q != null) {
+                    for (Ref ref : q)
+                        delete (ref);
+                }
+            }
+            long expires = timeout > 0L ? Instant.now().toEpochMilli() + timeout : 0L;
+            Ref ref = append (k, push ? -(++seq) : ++seq, expires, b);
+            ArrayDeque<Ref> q = entries.computeIfAbsent(k, x -> new ArrayDeque<>());
+            if (push)
+                q.addFirst(ref);
+            else
+                q.addLast(ref);
+            w = written;
+            notifyAll ();
+        }
+        autoSync (w);
+        if (sl != null)
+            notifyListeners(key, value);
+    }
+
+    private Object getObject (Object key, boolean remove) {
+        Template tmpl = null;
+        if (key instanceof Template) {
+            tmpl = (Template) key;
+            key  = tmpl.getKey();
+        }
+        String k = key.toString();
+        ArrayDeque<Ref> q = entries.get(k);
+        if (q == null)
+            return null;
+        long now = Instant.now().toEpochMilli();
+        Object value = null;
+        for (Iterator<Ref> it = q.iterator(); it.hasNext(); ) {
+            Ref ref = it.next();
+            if (ref.isExpired(now)) {
+                it.remove();
+                release(ref); // no need for a tombstone, it's expired on recovery too
+                continue;
+            }
+            Object obj = deserialize (ref.getValue());
+            if (tmpl != null && !tmpl.equals (obj))
+                continue;
+            if (remove) {
+                it.remove();
+                delete (ref);
+            }
+            value = obj;
+            break;
+        }
+        if (q.isEmpty())
+            entries.remove(k);
+        return value;
+    }
+
+    private Ref append (String key, long seq, long expires, byte[] value) {
+        byte[] k = key.getBytes(UTF_8);
+        if (k.length > 0xFFFF)
+            throw new SpaceError ("Key too long: " + key);
+        int len = OUT_HEADER + k.length + value.length;
+        ByteBuffer b = ByteBuffer.allocate(HEADER + len);
+        b.putInt(len).putInt(0)
+         .put(OUT).putLong(seq).putLong(expires).putShort((short) k.length).put(k).put(value);
+        b.putInt(4, crc(b.array(), HEADER, len));
+        int offset = append (b.array());
+        Ref ref = new Ref(key, seq, expires, active, offset, b.capacity(), HEADER + OUT_HEADER + k.length);
+        active.add(ref);
+        return ref;
+    }
+
+    private void delete (Ref ref) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER + DEL_LENGTH);
+        b.putInt(DEL_LENGTH).putInt(0).put(DEL).putLong(ref.seq);
+        b.putInt(4, crc(b.array(), HEADER, DEL_LENGTH));
+        append (b.array());
+        release (ref);
+    }
+
+    private boolean release (Ref ref) {
+        ref.segment.remove(ref);
+        return true;
+    }
+
+    /**
+     * Appends a record to the active segment.
+     * @return record offset
+     */
+    private int append (byte[] record) {
+        // keep room for the zero length that marks the end of the segment
+        if (active == null || active.position + record.length + 4 > active.buf.capacity())
+            roll (record.length + 4);
+        int offset = active.position;
+        int end = offset + record.length;
+        active.buf.putInt(end, 0);
+        active.buf.put(offset, record);
+        active.position = end;
+        written += record.length;
+        return offset;
+    }
+
+    private void roll (int minSize) {
+        try {
+            if (active != null)
+                active.buf.force(); // sealed segments are always durable
+            long id = active != null ? active.id + 1 : 1L;
+            Path path = dir.resolve(String.format("%s-%020d%s", name, id, SUFFIX));
+            try (FileChannel fc = FileChannel.open(path, CREATE_NEW, READ, WRITE)) {
+                active = new Segment(id, path, fc.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, minSize)));
+            }
+            segments.addLast(active);
+        } catch (IOException e) {
+            throw new SpaceError (e);
+        }
+    }
+
+    private void autoSync (long w) {
+        if (sync && autoCommit)
+            sync (w);
+    }
+
+    /**
+     * Forces the active segment up to <code>w</code> (number of bytes written).
+     * Callers waiting meanwhile are covered by the same force, if possible.
+     */
+    private void sync (long w) {
+        Segment s;
+        int position;
+        long pending;
+        synchronized (this) {
+            s = active;
+            position = s != null ? s.position : 0;
+            pending = written;
+        }
+        synchronized (syncLock) {
+            if (synced >= w)
+                return;
+            if (position > s.synced) {
+                s.buf.force(s.synced, position - s.synced);
+                s.synced = position;
+            }
+            synced = pending;
+        }
+    }
+
+    /**
+     * Removes the oldest segments no longer holding live entries, relocating
+     * the last few ones if needed.
+     *
+     * @return segments whose files can be deleted
+     */
+    private List<Segment> compact () {
+        List<Segment> dead = new ArrayList<>();
+        boolean relocated = false;
+        Segment s;
+        while ((s = segments.peekFirst()) != null && s != active) {
+            if (s.live > 0) {
+                if (s.liveBytes > s.buf.capacity() / 2)
+                    break;
+                relocate (s);
+                relocated = true;
+            }
+            segments.removeFirst();
+            dead.add(s);
+        }
+        if (relocated)
+            commit(); // relocated entries must be durable before their old segment goes away
+        return dead;
+    }
+
+    private void relocate (Segment s) {
+        for (ArrayDeque<Ref> q : entries.values()) {
+            for (Ref ref : q) {
+                if (ref.segment == s) {
+                    byte[] record = new byte[ref.length];
+                    s.buf.get(ref.offset, record);
+                    int offset = append (record);
+                    s.remove(ref);
+                    ref.segment = active;
+                    ref.offset = offset;
+                    active.add(ref);
+                }
+            }
+        }
+    }
+
+    private void recover () throws IOException {
+        SortedMap<Long,Path> files = new TreeMap<>();
+        String prefix = name + "-";
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefix + "*" + SUFFIX)) {
+            for (Path path : ds) {
+                String f = path.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(f.substring(prefix.length(), f.length() - SUFFIX.length())), path);
+                } catch (NumberFormatException ignored) { } // some other space's segment
+            }
+        }
+        Map<Long,Ref> refs = new HashMap<>();
+        long maxSeq = 0L;
+        for (Map.Entry<Long,Path> f : files.entrySet()) {
+            Segment s;
+            try (FileChannel fc = FileChannel.open(f.getValue(), READ, WRITE)) {
+                s = new Segment(f.getKey(), f.getValue(), fc.map(FileChannel.MapMode.READ_WRITE, 0, fc.size()));
+            }
+            ByteBuffer b = s.buf;
+            int pos = 0;
+            while (pos + HEADER <= b.capacity()) {
+                int len = b.getInt(pos);
+                if (len == 0)
+                    break;
+                byte op = len >= DEL_LENGTH && len <= b.capacity() - pos - HEADER ? b.get(pos + HEADER) : 0;
+                if (op != OUT && op != DEL || op == OUT && len < OUT_HEADER
+                  || crc (b, pos + HEADER, len) != b.getInt(pos + 4))
+                {
+                    warn ("Discarding " + s.path + " from offset " + pos);
+                    byte[] zero = new byte[4096];
+                    for (int i=pos; i<b.capacity(); i+=zero.length)
+                        b.put(i, zero, 0, Math.min(zero.length, b.capacity() - i));
+                    s.buf.force();
+                    break;
+                }
+                long q = b.getLong(pos + HEADER + 1);
+                maxSeq = Math.max(maxSeq, Math.abs(q));
+                if (op == OUT)
+                    refs.put(q, Ref.read(s, pos));
+                else
+                    refs.remove(q);
+                pos += HEADER + len;
+            }
+            s.position = s.synced = pos;
+            segments.addLast(s);
+        }
+        seq = maxSeq;
+        List<Ref> l = new ArrayList<>(refs.values());
+        l.sort(Comparator.comparingLong(ref -> ref.seq));
+        long now = Instant.now().toEpochMilli();
+        for (Ref ref : l) {
+            if (!ref.isExpired(now)) {
+                entries.computeIfAbsent(ref.key, x -> new ArrayDeque<>()).addLast(ref);
+                ref.segment.add(ref);
+            }
+        }
+        active = segments.peekLast();
+    }
+
+    private static int crc (byte[] b, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(b, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int crc (ByteBuffer b, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(b.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] serialize (Object obj) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream os = new ObjectOutputStream(baos)) {
+            os.writeObject(obj);
+        } catch (IOException e) {
+            throw new SpaceError (e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Object deserialize (byte[] b) {
+        try (ObjectInputStream is = new ObjectInputStream (new ByteArrayInputStream(b))) {
+            return is.readObject();
+        } catch (Exception e) {
+            throw new SpaceError (e);
+        }
+    }
+
+    private LocalSpace<Object,SpaceListener> getSL() {
+        synchronized (this) {
+            if (sl == null)
+                sl = new TSpace<Object,SpaceListener>();
+        }
+        return sl;
+    }
+
+    private void notifyListeners (Object key, Object value) {
+        Set<SpaceListener> listeners = new HashSet<SpaceListener>();
+        synchronized (this) {
+            if (sl == null)
+                return;
+            SpaceListener s = null;
+            while ((s = sl.inp(key)) != null)
+                listeners.add(s);
+            for (SpaceListener spl: listeners)
+                sl.out(key, spl);
+        }
+        for (SpaceListener spl: listeners)
+            spl.notify (key, value);
+    }
+
+    private static String getParam (String name, String[] params, String defaultValue) {
+        for (String s : params) {
+            int pos = s.indexOf('=');
+            if (pos >= 0 && s.substring(0, pos).trim().equals(name))
+                return s.substring(pos+1).trim();
+        }
+        return defaultValue;
+    }
+
+    private static class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buf;
+        int position;
+        int synced;
+        int live;
+        long liveBytes;
+
+        Segment(long id, Path path, MappedByteBuffer buf) {
+            this.id = id;
+            this.path = path;
+            this.buf = buf;
+        }
+        void add(Ref ref) {
+            live++;
+            liveBytes += ref.length;
+        }
+        void remove(Ref ref) {
+            live--;
+            liveBytes -= ref.length;
+        }
+    }
+
+    private static class Ref {
+        final String key;
+        final long seq;
+        final long expires;
+        final int length;
+        final int valueOffset;
+        Segment segment;
+        int offset;
+
+        Ref(String key, long seq, long expires, Segment segment, int offset, int length, int valueOffset) {
+            this.key = key;
+            this.seq = seq;
+            this.expires = expires;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.valueOffset = valueOffset;
+        }
+        static Ref read(Segment s, int offset) {
+            ByteBuffer b = s.buf;
+            int pos = offset + HEADER + 1;
+            long seq = b.getLong(pos);
+            long expires = b.getLong(pos + 8);
+            byte[] k = new byte[b.getShort(pos + 16) & 0xFFFF];
+            b.get(offset + HEADER + OUT_HEADER, k);
+            return new Ref(new String(k, UTF_8), seq, expires, s, offset,
+              HEADER + b.getInt(offset), HEADER + OUT_HEADER + k.length);
+        }
+        boolean isExpired(long now) {
+            return expires > 0L && expires < now;
+        }
+        byte[] getValue() {
+            byte[] b = new byte[length - valueOffset];
+            segment.buf.get(offset + valueOffset, b);
+            return b;
+        }
+    }
+}
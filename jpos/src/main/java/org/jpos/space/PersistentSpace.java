@@ -22,7 +22,7 @@ package org.jpos.space;
  * Marker interface for spaces that utilize a persistent store.
  *
  * <p>
- * Implementations of this interface, such as {@code JDBMSpace} and {@code JESpace},
+ * Implementations of this interface, such as {@code JDBMSpace}, {@code JESpace} and {@code MMapSpace},
  * are designed to persist data to a durable storage medium. This ensures that data
  * can survive application restarts or failures, making it suitable for use cases
  * requiring long-term storage and reliability.
@@ -36,5 +36,6 @@ package org.jpos.space;
  *
  * @see JDBMSpace
  * @see JESpace
+ * @see MMapSpace
  */
 public interface PersistentSpace { }
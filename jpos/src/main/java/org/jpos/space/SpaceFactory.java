@@ -56,6 +56,9 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
  *
  *   // jdbm space named test, storage located in /tmp/test
  *   Space sp = SpaceFactory.getSpace ("jdbm:test:/tmp/test");
+ *
+ *   // memory mapped log space named test, storage located in /tmp/test
+ *   Space sp = SpaceFactory.getSpace ("mmap:test:/tmp/test");
  * </pre>
  *
  */
@@ -67,6 +70,7 @@ public class SpaceFactory {
     public static final String SPACELET   = "spacelet";
     public static final String JDBM       = "jdbm";
     public static final String JE         = "je";
+    public static final String MMAP       = "mmap";
     public static final String DEFAULT    = "default";
     private static ScheduledThreadPoolExecutor gcExecutor = ConcurrentUtil.newScheduledThreadPoolExecutor();
 
@@ -147,6 +151,11 @@ public class SpaceFactory {
                 sp = JESpace.getSpace (name, param);
             else
                 sp = JESpace.getSpace (name);
+        } else if (MMAP.equals (scheme)) {
+            if (param != null)
+                sp = MMapSpace.getSpace (name, param);
+            else
+                sp = MMapSpace.getSpace (name);
         }
         return sp;
     }
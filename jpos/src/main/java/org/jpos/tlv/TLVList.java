@@ -21,11 +21,14 @@ package org.jpos.tlv;
 import org.jpos.iso.ISOUtil;
 import org.jpos.util.Loggeable;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -75,6 +78,14 @@ public class TLVList implements Serializable, Loggeable {
     private int tagToFind = -1;
     private int indexLastOccurrence = -1;
 
+    /**
+     * Unpacked data not yet turned into {@link TLVMsg}s, and its index.
+     * <p>
+     * Lookups are served from the index; the tags are created on first
+     * access to the list itself (see {@link #tags()}).
+     */
+    private transient TLVView view;
+
     public static class TLVListBuilder {
 
         private int tagSize = 0;
@@ -167,14 +178,14 @@ public class TLVList implements Serializable, Loggeable {
      * @return a list of tags.
      */
     public List<TLVMsg> getTags() {
-        return tags;
+        return tags();
     }
 
     /**
      * @return an enumeration of the List of tags.
      */
     public Enumeration<TLVMsg> elements() {
-        return Collections.enumeration(tags);
+        return Collections.enumeration(tags());
     }
 
     /**
@@ -187,6 +198,18 @@ public class TLVList implements Serializable, Loggeable {
      */
     public void unpack(byte[] buf, int offset) throws IllegalArgumentException
             , IndexOutOfBoundsException {
+        if (getClass() == TLVList.class && tags.isEmpty() && view == null
+          && offset >= 0 && offset <= buf.length) {
+            // index a private copy, so no TLVMsg nor value array is created
+            // unless the tags are actually requested
+            byte[] b = Arrays.copyOfRange(buf, offset, buf.length);
+            try {
+                view = TLVView.parse(b, 0, b.length, tagSize, lengthSize, true);
+                return;
+            } catch (RuntimeException e) {
+                // let the loop below append the valid tags and report the error
+            }
+        }
         ByteBuffer buffer = ByteBuffer.wrap(buf, offset, buf.length - offset);
         TLVMsg currentNode;
         while (buffer.hasRemaining()) {
@@ -205,7 +228,7 @@ public class TLVList implements Serializable, Loggeable {
     public void append(TLVMsg tlv) throws NullPointerException {
         Objects.requireNonNull(tlv, "TLV message cannot be null");
 
-        tags.add(tlv);
+        tags().add(tlv);
     }
 
     /**
@@ -239,7 +262,7 @@ public class TLVList implements Serializable, Loggeable {
      * @param index number
      */
     public void deleteByIndex(int index) {
-        tags.remove(index);
+        tags().remove(index);
     }
 
     /**
@@ -247,6 +270,7 @@ public class TLVList implements Serializable, Loggeable {
      * @param tag id
      */
     public void deleteByTag(int tag) {
+        List<TLVMsg> tags = tags();
         List<TLVMsg> t = new ArrayList<>();
         for (TLVMsg tlv2 : tags) {
             if (tlv2.getTag() == tag)
@@ -262,15 +286,8 @@ public class TLVList implements Serializable, Loggeable {
      * @return TLV message
      */
     public TLVMsg find(int tag) {
-        tagToFind = tag;
-        for (TLVMsg tlv : tags) {
-            if (tlv.getTag() == tag) {
-                indexLastOccurrence = tags.indexOf(tlv);
-                return tlv;
-            }
-        }
-        indexLastOccurrence = -1;
-        return null;
+        int i = findIndex(tag);
+        return i < 0 ? null : tags().get(i);
     }
 
     /**
@@ -282,14 +299,18 @@ public class TLVList implements Serializable, Loggeable {
      */
     public int findIndex(int tag) {
         tagToFind = tag;
-        for (TLVMsg tlv : tags) {
-            if (tlv.getTag() == tag) {
-                indexLastOccurrence = tags.indexOf(tlv);
-                return indexLastOccurrence;
+        indexLastOccurrence = -1;
+        if (view != null) {
+            indexLastOccurrence = view.indexOf(tag);
+        } else {
+            for (int i=0; i<tags.size(); i++) {
+                if (tags.get(i).getTag() == tag) {
+                    indexLastOccurrence = i;
+                    break;
+                }
             }
         }
-        indexLastOccurrence = -1;
-        return -1;
+        return indexLastOccurrence;
     }
 
     /**
@@ -303,6 +324,7 @@ public class TLVList implements Serializable, Loggeable {
             throw new IllegalStateException(
                     "The initialization of the searched tag is required"
             );
+        List<TLVMsg> tags = tags();
         for ( int i=indexLastOccurrence + 1 ; i < tags.size(); i++) {
             if (tags.get(i).getTag() == tagToFind) {
                 indexLastOccurrence = i;
@@ -322,7 +344,7 @@ public class TLVList implements Serializable, Loggeable {
      * (index < 0 || index >= size())
      */
     public TLVMsg index(int index) throws IndexOutOfBoundsException {
-        return tags.get(index);
+        return tags().get(index);
     }
 
     /**
@@ -331,15 +353,43 @@ public class TLVList implements Serializable, Loggeable {
      * @return the packed message
      */
     public byte[] pack() {
-        ByteBuffer buffer = ByteBuffer.allocate(516);
-        for (TLVMsg tlv : tags)
-            buffer.put(tlv.getTLV());
-        byte[] b = new byte[buffer.position()];
-        buffer.flip();
-        buffer.get(b);
+        byte[] b = new byte[getPackedLength()];
+        pack(b, 0);
         return b;
     }
 
+    /**
+     * @return size of the packed message
+     */
+    public int getPackedLength() {
+        int len = 0;
+        for (TLVMsg tlv : tags())
+            len += tlv.getClass() == TLVMsg.class ? tlv.getTLVLength() : tlv.getTLV().length;
+        return len;
+    }
+
+    /**
+     * Packs the TLV message (BER-TLV Encoding) straight into <code>b</code>.
+     *
+     * @param b destination buffer
+     * @param offset offset in destination buffer
+     * @return number of bytes written, that is, {@link #getPackedLength()}
+     * @throws IndexOutOfBoundsException if the packed message doesn't fit in <code>b</code>
+     */
+    public int pack(byte[] b, int offset) throws IndexOutOfBoundsException {
+        int k = offset;
+        for (TLVMsg tlv : tags()) {
+            if (tlv.getClass() == TLVMsg.class) {
+                k += tlv.writeTLV(b, k);
+            } else {
+                byte[] tlvb = tlv.getTLV();
+                System.arraycopy(tlvb, 0, b, k, tlvb.length);
+                k += tlvb.length;
+            }
+        }
+        return k - offset;
+    }
+
     private boolean isExtTagByte(int b) {
         return (b & EXT_TAG_MASK) == EXT_TAG_MASK;
     }
@@ -387,6 +437,19 @@ public class TLVList implements Serializable, Loggeable {
         return new TLVMsg(tag, value, tagSize, lengthSize);
     }
 
+    /**
+     * @return the list of tags, creating the ones still held by {@link #view}
+     */
+    private List<TLVMsg> tags() {
+        TLVView v = view;
+        if (v != null) {
+            view = null;
+            for (int i=0; i<v.size(); i++)
+                tags.add(createTLVMsg(v.getTag(i), v.getValueAt(i)));
+        }
+        return tags;
+    }
+
     /**
      * Skip padding bytes of TLV message.
      * <p>
@@ -491,6 +554,11 @@ public class TLVList implements Serializable, Loggeable {
      * @return hexString
      */
     public String getString(int tag) {
+        if (view != null) {
+            int i = findIndex(tag);
+            return i < 0 ? null
+              : ISOUtil.hexString(view.getBuffer(), view.getValueOffset(i), view.getValueLength(i));
+        }
         TLVMsg msg = find(tag);
         if (msg == null)
             return null;
@@ -504,6 +572,10 @@ public class TLVList implements Serializable, Loggeable {
      * @return byte[]
      */
     public byte[] getValue(int tag) {
+        if (view != null) {
+            int i = findIndex(tag);
+            return i < 0 ? null : view.getValueAt(i);
+        }
         TLVMsg msg = find(tag);
         if (msg == null)
             return null;
@@ -530,4 +602,9 @@ public class TLVList implements Serializable, Loggeable {
         p.println(indent + "</tlvlist>");
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        tags();
+        out.defaultWriteObject();
+    }
+
 }
@@ -20,7 +20,6 @@ package org.jpos.tlv;
 
 import java.io.PrintStream;
 import java.math.BigInteger;
-import java.util.Arrays;
 import org.jpos.iso.ISOUtil;
 import org.jpos.util.Loggeable;
 
@@ -96,14 +95,14 @@ public class TLVMsg implements Loggeable {
         if (tagSize == 0)
             verifyTag(tag);
         else
-            verifyTagLength(tag);
+            verifyTagLength(tag, tagSize);
 
-        if (lengthSize > 0)
-            verifyValue(value);
+        if (lengthSize > 0 && value != null)
+            verifyValueLength(value.length, lengthSize);
 
     }
 
-    private boolean isExtTagByte(int b) {
+    private static boolean isExtTagByte(int b) {
         return (b & EXT_TAG_MASK) == EXT_TAG_MASK;
     }
 
@@ -128,43 +127,44 @@ public class TLVMsg implements Loggeable {
      * @throws IllegalArgumentException if tag identifier is zero or less or
      * it is included in the illegal ranges.
      */
-    private void verifyTag(int tag) throws IllegalArgumentException {
+    static void verifyTag(int tag) throws IllegalArgumentException {
         if (tag <= 0)
             throw new IllegalArgumentException("Tag id must be greater than zero");
 
-        BigInteger bi = BigInteger.valueOf(tag);
-        byte[] ba = bi.toByteArray();
-
-        if (ba[0] == 0x00) {
-            // strip byte array if starts with 0x00
-            ba = Arrays.copyOfRange(ba, 1, ba.length);
-        }
-
+        int len = tagBytes(tag);
         int idx = 0;
         do {
-            boolean byteFollows = (idx == 0 && isExtTagByte(ba[idx])) || (idx > 0 && (ba[idx] & 0x80) == 0x80);
-            if ((ba[idx] & 0xff) == SKIP_BYTE1) {
+            int b = tag >>> ((len - idx - 1) << 3) & 0xff;
+            boolean byteFollows = (idx == 0 && isExtTagByte(b)) || (idx > 0 && (b & 0x80) == 0x80);
+            if (b == SKIP_BYTE1) {
                 throw new IllegalArgumentException("Tag id: 0x" + Integer.toString(tag, 0x10).toUpperCase()
                         + " cannot contain in any 0x00 byte"
                 );
-            } else if ((ba[idx] & 0xff) == SKIP_BYTE2) {
+            } else if (b == SKIP_BYTE2) {
                 throw new IllegalArgumentException("Tag id: 0x" + Integer.toString(tag, 0x10).toUpperCase()
                         + " cannot contain in any 0xff byte"
                 );
-            } else if (byteFollows && ba.length <= idx + 1) {
+            } else if (byteFollows && len <= idx + 1) {
                 throw new IllegalArgumentException("Tag id: 0x" + Integer.toString(tag, 0x10).toUpperCase()
                         + " shall contain subsequent byte"
                 );
-            } else if (!byteFollows && idx+1 < ba.length) {
+            } else if (!byteFollows && idx+1 < len) {
                 throw new IllegalArgumentException("Tag id: 0x" + Integer.toString(tag, 0x10).toUpperCase()
                         + " cannot contain subsequent byte"
                 );
             }
             idx++;
-        } while (idx < ba.length);
+        } while (idx < len);
     }
 
-    private void verifyTagLength(int tag) throws IllegalArgumentException {
+    /**
+     * @return number of significant bytes of a non negative tag id (at least one)
+     */
+    static int tagBytes(int tag) {
+        return Math.max(1, (39 - Integer.numberOfLeadingZeros(tag)) >> 3);
+    }
+
+    static void verifyTagLength(int tag, int tagSize) throws IllegalArgumentException {
         if (tag < 0)
             throw new IllegalArgumentException("The tag id must be greater than or equals zero");
 
@@ -174,13 +174,10 @@ public class TLVMsg implements Loggeable {
             throw new IllegalArgumentException("The tag id cannot be greater that: " + maxTag);
     }
 
-    private void verifyValue(byte[] value) throws IllegalArgumentException {
-        if (value == null)
-            return;
-
+    static void verifyValueLength(int length, int lengthSize) throws IllegalArgumentException {
         int maxLength = 1 << (lengthSize << 3);
         maxLength -= 1;
-        if (value.length > maxLength)
+        if (length > maxLength)
             throw new IllegalArgumentException("The tag value length cannot exceed: " + maxLength);
     }
 
@@ -223,6 +220,52 @@ public class TLVMsg implements Loggeable {
         return out;
     }
 
+    /**
+     * @return size of {@link #getTLV()}
+     */
+    int getTLVLength() {
+        int len = value == null ? 0 : value.length;
+        int lenLen;
+        if (lengthSize > 0)
+            lenLen = lengthSize;
+        else if (len < 0x80)
+            lenLen = 1;
+        else
+            lenLen = 1 + tagBytes(len);
+        return (tagSize > 0 ? tagSize : tagBytes(tag)) + lenLen + len;
+    }
+
+    /**
+     * Writes {@link #getTLV()} straight into <code>b</code>.
+     *
+     * @return number of bytes written
+     */
+    int writeTLV(byte[] b, int offset) {
+        int k = offset;
+        k = writeInt(tag, tagSize > 0 ? tagSize : tagBytes(tag), b, k);
+        int len = value == null ? 0 : value.length;
+        if (lengthSize > 0) {
+            k = writeInt(len, lengthSize, b, k);
+        } else if (len < 0x80) {
+            b[k++] = (byte) len;
+        } else {
+            int n = tagBytes(len);
+            b[k++] = (byte) (0x80 | n);
+            k = writeInt(len, n, b, k);
+        }
+        if (len > 0) {
+            System.arraycopy(value, 0, b, k, len);
+            k += len;
+        }
+        return k - offset;
+    }
+
+    private static int writeInt(int v, int size, byte[] b, int offset) {
+        for (int i=size-1; i>=0; i--)
+            b[offset++] = i < 4 ? (byte) (v >>> (i << 3)) : 0;
+        return offset;
+    }
+
     private byte[] fitInArray(byte[] bytes, int length) {
         byte[] ret = new byte[length];
         if (bytes.length <= length)
@@ -0,0 +1,384 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.tlv;
+
+import org.jpos.iso.ISOUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Read only, index based view of BER-TLV encoded data (i.e. EMV chip data).
+ * <p>
+ * A single pass over the buffer records, for every tag, its id and the offset and
+ * length of its value; no {@link TLVMsg} nor value arrays are created. Values can
+ * then be read as {@link ByteBuffer} slices, copied, or hex encoded on demand, and
+ * constructed tags are parsed only when {@link #getConstructed(int)} is called.
+ * <p>
+ * The view doesn't copy the buffer, so it must not be modified while the view is
+ * in use. Parsing rules (padding bytes, tag and length encoding) and errors are
+ * the same as {@link TLVList#unpack(byte[], int)}.
+ * <pre>{@code
+ *   TLVView iccData = TLVView.of(m.getBytes(55));
+ *   String atc = iccData.getString(0x9F36);
+ *   ByteBuffer tvr = iccData.getValueBuffer(0x95);
+ * }</pre>
+ *
+ * @since 3.0.2
+ */
+public final class TLVView {
+    private static final int SKIP_BYTE1     = 0x00;
+    private static final int SKIP_BYTE2     = 0xFF;
+    private static final int EXT_TAG_MASK   = 0x1F;
+    private static final int LEN_SIZE_MASK  = 0x7F;
+    private static final int EXT_LEN_MASK   = 0x80;
+    private static final int CONSTRUCTED    = 0x20;
+
+    private final byte[] buf;
+    /** tag id, value offset and value length of every entry */
+    private int[] entries;
+    private int size;
+    private TLVView[] children;
+
+    private TLVView(byte[] buf, int capacity) {
+        this.buf = buf;
+        this.entries = new int[Math.max(capacity, 4) * 3];
+    }
+
+    /**
+     * Indexes BER-TLV data.
+     *
+     * @param buf TLV data
+     * @return the view
+     * @throws IllegalArgumentException if the data is not valid BER-TLV
+     */
+    public static TLVView of(byte[] buf) throws IllegalArgumentException {
+        return of(buf, 0, buf.length);
+    }
+
+    /**
+     * Indexes BER-TLV data.
+     *
+     * @param buf buffer holding the TLV data
+     * @param offset offset of the TLV data
+     * @param length length of the TLV data
+     * @return the view
+     * @throws IllegalArgumentException if the data is not valid BER-TLV
+     * @throws IndexOutOfBoundsException if the range is out of the buffer bounds
+     */
+    public static TLVView of(byte[] buf, int offset, int length)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        return parse(buf, offset, length, 0, 0, false);
+    }
+
+    /**
+     * Indexes TLV data.
+     *
+     * @param tagSize fixed tag size, zero for BER encoded tags
+     * @param lengthSize fixed length size, zero for BER encoded lengths
+     * @param verify whether to verify tag ids and lengths as {@link TLVMsg} does
+     */
+    static TLVView parse(byte[] buf, int offset, int length, int tagSize, int lengthSize, boolean verify)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (offset < 0 || length < 0 || offset > buf.length - length)
+            throw new IndexOutOfBoundsException();
+        TLVView v = new TLVView(buf, length >> 3);
+        int end = offset + length;
+        int pos = offset;
+        while (pos < end) {
+            int tag;
+            if (tagSize > 0) {
+                checkRemaining(end - pos, tagSize);
+                tag = toInt(buf, pos, tagSize);
+                pos += tagSize;
+            } else {
+                // padding is skipped, but the last byte is always read as (part of) a tag
+                while (pos < end - 1 && isSkipByte(buf[pos]))
+                    pos++;
+                int b = buf[pos++] & 0xff;
+                tag = b;
+                if ((b & EXT_TAG_MASK) == EXT_TAG_MASK) {
+                    do {
+                        tag <<= 8;
+                        if (pos >= end)
+                            throw new IllegalArgumentException("BAD TLV FORMAT: encoded tag id is too short");
+                        b = buf[pos++] & 0xff;
+                        tag |= b;
+                    } while ((b & EXT_LEN_MASK) == EXT_LEN_MASK);
+                }
+                if (tag == SKIP_BYTE1)
+                    continue;
+            }
+            if (pos >= end)
+                throw new IllegalArgumentException(String.format("BAD TLV FORMAT: tag (%x)"
+                        + " without length or value", tag)
+                );
+            int len;
+            if (lengthSize > 0) {
+                checkRemaining(end - pos, lengthSize);
+                len = toInt(buf, pos, lengthSize);
+                pos += lengthSize;
+            } else {
+                int b = buf[pos++];
+                len = b & LEN_SIZE_MASK;
+                if ((b & EXT_LEN_MASK) != 0 && len != 0) {
+                    int count = len;
+                    checkRemaining(end - pos, count);
+                    len = toInt(buf, pos, count);
+                    pos += count;
+                }
+            }
+            if (len > end - pos)
+                throw new IllegalArgumentException(String.format("BAD TLV FORMAT: tag (%x)"
+                        + " length (%d) exceeds available data", tag, len)
+                );
+            if (len < 0)
+                throw new NegativeArraySizeException(Integer.toString(len));
+            if (verify) {
+                if (tagSize == 0)
+                    TLVMsg.verifyTag(tag);
+                else
+                    TLVMsg.verifyTagLength(tag, tagSize);
+                if (lengthSize > 0)
+                    TLVMsg.verifyValueLength(len, lengthSize);
+            }
+            v.add(tag, pos, len);
+            pos += len;
+        }
+        return v;
+    }
+
+    private static boolean isSkipByte(byte b) {
+        int i = b & 0xff;
+        return i == SKIP_BYTE1 || i == SKIP_BYTE2;
+    }
+
+    private static void checkRemaining(int remaining, int length) {
+        if (length > remaining)
+            throw new IllegalArgumentException(
+                    String.format("BAD TLV FORMAT: (%d) remaining bytes are not"
+                            + " enough to get tag id of length (%d)"
+                            , remaining, length
+                    )
+            );
+    }
+
+    private static int toInt(byte[] b, int offset, int length) {
+        int v = 0;
+        for (int i=0; i<length; i++)
+            v = v << 8 | b[offset + i] & 0xff;
+        return v;
+    }
+
+    private void add(int tag, int offset, int length) {
+        int k = size * 3;
+        if (k == entries.length)
+            entries = Arrays.copyOf(entries, entries.length << 1);
+        entries[k] = tag;
+        entries[k + 1] = offset;
+        entries[k + 2] = length;
+        size++;
+    }
+
+    /**
+     * @return number of tags (constructed tags count as one)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the underlying buffer
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * @param index zero based entry index
+     * @return tag id
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getTag(int index) {
+        return entries[checkIndex(index) * 3];
+    }
+
+    /**
+     * @param index zero based entry index
+     * @return offset of the value in {@link #getBuffer()}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getValueOffset(int index) {
+        return entries[checkIndex(index) * 3 + 1];
+    }
+
+    /**
+     * @param index zero based entry index
+     * @return length of the value
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getValueLength(int index) {
+        return entries[checkIndex(index) * 3 + 2];
+    }
+
+    /**
+     * @param tag tag id
+     * @return index of the first occurrence of <code>tag</code>, or -1
+     */
+    public int indexOf(int tag) {
+        return indexOf(tag, 0);
+    }
+
+    /**
+     * @param tag tag id
+     * @param from index to start searching from
+     * @return index of the next occurrence of <code>tag</code>, or -1
+     */
+    public int indexOf(int tag, int from) {
+        for (int i=Math.max(from, 0) * 3, n=size * 3; i<n; i+=3) {
+            if (entries[i] == tag)
+                return i / 3;
+        }
+        return -1;
+    }
+
+    /**
+     * @param tag tag id
+     * @return true if <code>tag</code> is present at this level
+     */
+    public boolean hasTag(int tag) {
+        return indexOf(tag) >= 0;
+    }
+
+    /**
+     * @param tag tag id
+     * @return read only slice of the value of <code>tag</code>, or null if not present
+     */
+    public ByteBuffer getValueBuffer(int tag) {
+        int i = indexOf(tag);
+        return i < 0 ? null : ByteBuffer.wrap(buf, entries[i * 3 + 1], entries[i * 3 + 2]).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @param tag tag id
+     * @return copy of the value of <code>tag</code>, or null if not present
+     */
+    public byte[] getValue(int tag) {
+        int i = indexOf(tag);
+        return i < 0 ? null : getValueAt(i);
+    }
+
+    /**
+     * @param index zero based entry index
+     * @return copy of the value
+     */
+    public byte[] getValueAt(int index) {
+        int k = checkIndex(index) * 3;
+        return Arrays.copyOfRange(buf, entries[k + 1], entries[k + 1] + entries[k + 2]);
+    }
+
+    /**
+     * @param tag tag id
+     * @return hex representation of the value of <code>tag</code>, or null if not present
+     */
+    public String getString(int tag) {
+        int i = indexOf(tag);
+        return i < 0 ? null : ISOUtil.hexString(buf, entries[i * 3 + 1], entries[i * 3 + 2]);
+    }
+
+    /**
+     * Copies the value of an entry.
+     *
+     * @param index zero based entry index
+     * @param dst destination
+     * @param offset offset in destination
+     * @return number of bytes copied
+     */
+    public int copyValue(int index, byte[] dst, int offset) {
+        int k = checkIndex(index) * 3;
+        System.arraycopy(buf, entries[k + 1], dst, offset, entries[k + 2]);
+        return entries[k + 2];
+    }
+
+    /**
+     * @param index zero based entry index
+     * @return true if the entry is a constructed (nested TLV) data object
+     */
+    public boolean isConstructed(int index) {
+        int tag = getTag(index);
+        return (tag >>> ((TLVMsg.tagBytes(tag) - 1) << 3) & CONSTRUCTED) != 0;
+    }
+
+    /**
+     * Nested view over the value of a constructed entry, parsed on first use.
+     *
+     * @param index zero based entry index
+     * @return view over the entry's value
+     * @throws IllegalArgumentException if the entry is not constructed, or its value is not valid BER-TLV
+     */
+    public TLVView getConstructed(int index) throws IllegalArgumentException {
+        if (!isConstructed(index))
+            throw new IllegalArgumentException(String.format("tag (%x) is not constructed", getTag(index)));
+        if (children == null)
+            children = new TLVView[size];
+        TLVView child = children[index];
+        if (child == null) {
+            int k = index * 3;
+            children[index] = child = of(buf, entries[k + 1], entries[k + 2]);
+        }
+        return child;
+    }
+
+    /**
+     * Depth first search of <code>tag</code>, walking into constructed tags.
+     *
+     * @param tag tag id
+     * @return view holding the tag at {@link #indexOf(int)}, or null if not found
+     */
+    public TLVView find(int tag) {
+        if (hasTag(tag))
+            return this;
+        for (int i=0; i<size; i++) {
+            if (isConstructed(i)) {
+                TLVView v = getConstructed(i).find(tag);
+                if (v != null)
+                    return v;
+            }
+        }
+        return null;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i=0; i<size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(Integer.toHexString(entries[i * 3])).append('=')
+              .append(ISOUtil.hexString(buf, entries[i * 3 + 1], entries[i * 3 + 2]));
+        }
+        return sb.append(']').toString();
+    }
+}
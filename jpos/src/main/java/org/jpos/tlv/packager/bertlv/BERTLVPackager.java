@@ -32,10 +32,12 @@ import org.jpos.iso.ISOFieldPackager;
 import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOUtil;
 import org.jpos.iso.Interpreter;
+import org.jpos.iso.LiteralBinaryInterpreter;
 import org.jpos.iso.LiteralInterpreter;
 import org.jpos.iso.packager.GenericPackager;
 import org.jpos.tlv.ISOTaggedField;
 import org.jpos.tlv.TLVDataFormat;
+import org.jpos.tlv.TLVView;
 import org.jpos.util.LogEvent;
 import org.jpos.util.Logger;
 
@@ -438,6 +440,30 @@ public abstract class BERTLVPackager extends GenericPackager {
         return value;
     }
 
+    /**
+     * Index based view of plain BER-TLV data (no leading nor trailing fixed
+     * sub-fields), for readers that only need a few tags and don't want an
+     * {@link ISOTaggedField} per tag.
+     * <p>
+     * Tags, lengths and values must share the same interpreter. Binary data is
+     * indexed in place, otherwise it is uninterpreted once.
+     *
+     * @param b packed TLV data
+     * @return view of the TLV data
+     * @throws ISOException if the interpreters differ or the data is not valid BER-TLV
+     */
+    public TLVView view(byte[] b) throws ISOException {
+        if (tagInterpreter != lengthInterpreter || tagInterpreter != valueInterpreter)
+            throw new ISOException("Can't view TLV data with different tag, length and value interpreters");
+        try {
+            if (tagInterpreter == LiteralBinaryInterpreter.INSTANCE)
+                return TLVView.of(b);
+            return TLVView.of(tagInterpreter.uninterpret(b, 0, getUninterpretLength(b.length, tagInterpreter)));
+        } catch (RuntimeException e) {
+            throw new ISOException(e);
+        }
+    }
+
     @Override
     public void unpack(ISOComponent m, InputStream in) throws IOException, ISOException {
         throw new IllegalStateException(
@@ -0,0 +1,447 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOPackager;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact {@link ContextCodec}.
+ *
+ * <p>Common value types (String, Integer, Long, Boolean, Double, BigDecimal, BigInteger, byte[],
+ * Instant, Date and ISOMsg) are written using a one byte type tag followed by their raw
+ * representation, without Java serialization's class descriptors nor its reflective
+ * deserialization. Other {@link Externalizable} values (with a public no-args constructor and
+ * no <code>writeReplace</code>/<code>readResolve</code> methods) are written with their class name (once per
+ * record, later occurrences refer to it by index) followed by their external form, and anything else
+ * falls back to Java serialization.</p>
+ *
+ * <p>ISOMsgs lazily unpacked by a {@link #registerPackager(String, ISOPackager) registered} packager
+ * (i.e. received from a channel with <code>lazy-unpack</code> enabled) and not modified since are
+ * stored using the image they were unpacked from (see {@link ISOMsg#getPackedImage()}), others use
+ * {@link ISOMsg#writeExternal(ObjectOutput)}.</p>
+ *
+ * <p>As with Java serialization, a mutable value (byte[], Date, ISOMsg or Externalizable) stored
+ * under several keys is written once, and read back as a single instance. Classes instantiated
+ * by name are checked against the stream's {@link ObjectInputFilter}, if any.</p>
+ *
+ * <p>Record layout: format version, number of entries, then each entry's key and value.</p>
+ *
+ * <p>This codec is opt-in (<code>-Djpos.context.codec=org.jpos.transaction.BinaryContextCodec</code>
+ * or {@link Context#setCodec(ContextCodec)}): jPOS versions prior to 3.0.2 can't read the Contexts
+ * it writes, so it should only be enabled once every node sharing persisted Contexts (i.e. a
+ * TransactionManager's persistent space) has been upgraded, and before that can't be rolled back.</p>
+ *
+ * @since 3.0.2
+ */
+public class BinaryContextCodec implements ContextCodec {
+    public static final int ID = 1;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL          = 0;
+    private static final byte STRING        = 1;
+    private static final byte INTEGER       = 2;
+    private static final byte LONG          = 3;
+    private static final byte TRUE          = 4;
+    private static final byte FALSE         = 5;
+    private static final byte DOUBLE        = 6;
+    private static final byte BIGDECIMAL    = 7;
+    private static final byte BIGINTEGER    = 8;
+    private static final byte BYTES         = 9;
+    private static final byte INSTANT       = 10;
+    private static final byte DATE          = 11;
+    private static final byte ISOMSG        = 12;
+    private static final byte ISOMSG_PACKED = 13;
+    private static final byte EXTERNALIZABLE = 14;
+    private static final byte REFERENCE     = 15;
+    private static final byte SERIALIZED    = 127;
+
+    private static final Map<String,ISOPackager> packagers = new ConcurrentHashMap<>();
+    private static final Map<ISOPackager,String> packagerNames = new ConcurrentHashMap<>();
+    private static final Map<String,Constructor<?>> constructors = new ConcurrentHashMap<>();
+    // Externalizables that don't rely on serialization hooks can bypass ObjectOutput.writeObject
+    private static final ClassValue<Boolean> direct = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue (Class<?> type) {
+            try {
+                type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Method m : c.getDeclaredMethods()) {
+                    if (m.getParameterCount() == 0 && ("writeReplace".equals (m.getName()) || "readResolve".equals (m.getName())))
+                        return false;
+                }
+            }
+            return true;
+        }
+    };
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    /**
+     * Registers a packager used to store ISOMsgs in their packed form.
+     *
+     * <p>The name is stored along with the packed image, so it has to be registered
+     * (with an equivalent packager) before Contexts referring to it are read back.</p>
+     *
+     * @param name packager name
+     * @param packager the packager
+     */
+    public static void registerPackager (String name, ISOPackager packager) {
+        ISOPackager old = packagers.put (name, packager);
+        if (old != null)
+            packagerNames.remove (old, name);
+        packagerNames.put (packager, name);
+    }
+
+    /**
+     * @param name packager name
+     */
+    public static void unregisterPackager (String name) {
+        ISOPackager p = packagers.remove (name);
+        if (p != null)
+            packagerNames.remove (p, name);
+    }
+
+    @Override
+    public void write (ObjectOutput out, Map<Object,Object> entries) throws IOException {
+        List<Map.Entry<Object,Object>> l = new ArrayList<>(entries.entrySet());
+        out.writeByte (FORMAT_VERSION);
+        writeVarInt (out, l.size());
+        Map<String,Integer> dictionary = new HashMap<>();
+        Map<Object,Integer> references = new IdentityHashMap<>();
+        for (Map.Entry<Object,Object> entry : l) {
+            writeValue (out, entry.getKey(), dictionary, references);
+            writeValue (out, entry.getValue(), dictionary, references);
+        }
+    }
+
+    @Override
+    public void read (ObjectInput in, Map<Object,Object> entries) throws IOException, ClassNotFoundException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION)
+            throw new IOException ("unsupported context format version " + version);
+        int size = readVarInt (in);
+        List<String> dictionary = new ArrayList<>();
+        List<Object> references = new ArrayList<>();
+        for (int i=0; i<size; i++) {
+            Object k = readValue (in, dictionary, references);
+            Object v = readValue (in, dictionary, references);
+            entries.put (k, v);
+        }
+    }
+
+    protected void writeValue (ObjectOutput out, Object value, Map<String,Integer> dictionary, Map<Object,Integer> references)
+      throws IOException
+    {
+        if (isMutable (value) && writeReference (out, value, references))
+            return; // already written under another key
+        if (value == null) {
+            out.writeByte (NULL);
+        } else if (value instanceof String s) {
+            out.writeByte (STRING);
+            writeString (out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte (INTEGER);
+            out.writeInt (i);
+        } else if (value instanceof Long l) {
+            out.writeByte (LONG);
+            out.writeLong (l);
+        } else if (value instanceof Boolean b) {
+            out.writeByte (b ? TRUE : FALSE);
+        } else if (value instanceof Double d) {
+            out.writeByte (DOUBLE);
+            out.writeDouble (d);
+        } else if (value instanceof BigDecimal d) {
+            out.writeByte (BIGDECIMAL);
+            out.writeInt (d.scale());
+            writeBytes (out, d.unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger b) {
+            out.writeByte (BIGINTEGER);
+            writeBytes (out, b.toByteArray());
+        } else if (value instanceof byte[] b) {
+            out.writeByte (BYTES);
+            writeBytes (out, b);
+        } else if (value instanceof Instant t) {
+            out.writeByte (INSTANT);
+            out.writeLong (t.getEpochSecond());
+            out.writeInt (t.getNano());
+        } else if (value.getClass() == Date.class) {
+            out.writeByte (DATE);
+            out.writeLong (((Date) value).getTime());
+        } else if (value.getClass() == ISOMsg.class) {
+            writeISOMsg (out, (ISOMsg) value, dictionary);
+        } else if (value instanceof Externalizable e && direct.get (e.getClass())) {
+            out.writeByte (EXTERNALIZABLE);
+            writeClassName (out, e.getClass().getName(), dictionary);
+            e.writeExternal (out);
+        } else {
+            out.writeByte (SERIALIZED);
+            out.writeObject (value);
+        }
+    }
+
+    protected Object readValue (ObjectInput in, List<String> dictionary, List<Object> references)
+      throws IOException, ClassNotFoundException
+    {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString (in);
+            case INTEGER -> in.readInt();
+            case LONG -> in.readLong();
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case DOUBLE -> in.readDouble();
+            case BIGDECIMAL -> {
+                int scale = in.readInt();
+                yield new BigDecimal (new BigInteger (readBytes (in)), scale);
+            }
+            case BIGINTEGER -> new BigInteger (readBytes (in));
+            case BYTES -> reference (readBytes (in), references);
+            case INSTANT -> {
+                long seconds = in.readLong();
+                yield Instant.ofEpochSecond (seconds, in.readInt());
+            }
+            case DATE -> reference (new Date (in.readLong()), references);
+            case ISOMSG -> {
+                ISOMsg m = reference (new ISOMsg(), references);
+                m.readExternal (in);
+                yield m;
+            }
+            case ISOMSG_PACKED -> reference (readPackedISOMsg (in, dictionary), references);
+            case EXTERNALIZABLE -> {
+                Externalizable e = reference (newInstance (in, readClassName (in, dictionary)), references);
+                e.readExternal (in);
+                yield e;
+            }
+            case REFERENCE -> {
+                int index = readVarInt (in);
+                if (index >= references.size())
+                    throw new IOException ("invalid object reference " + index);
+                yield references.get (index);
+            }
+            case SERIALIZED -> in.readObject();
+            default -> throw new IOException ("invalid context entry type " + tag);
+        };
+    }
+
+    private void writeISOMsg (ObjectOutput out, ISOMsg m, Map<String,Integer> dictionary) throws IOException {
+        ISOPackager p = m.getPackager();
+        String name = p != null && m.getHeader() == null ? packagerNames.get (p) : null;
+        // packing a hand built (or modified) message isn't lossless (padding, component types),
+        // only the image it was unpacked from, if still valid, can be stored as is
+        byte[] b = name != null ? m.getPackedImage() : null;
+        if (b != null) {
+            out.writeByte (ISOMSG_PACKED);
+            writeClassName (out, name, dictionary);
+            out.writeByte (m.getDirection());
+            writeBytes (out, b);
+        } else {
+            out.writeByte (ISOMSG);
+            m.writeExternal (out);
+        }
+    }
+
+    private ISOMsg readPackedISOMsg (ObjectInput in, List<String> dictionary) throws IOException {
+        String name = readClassName (in, dictionary);
+        int direction = in.readByte();
+        byte[] b = readBytes (in);
+        ISOPackager p = packagers.get (name);
+        if (p == null)
+            throw new IOException ("packager '" + name + "' not registered");
+        try {
+            ISOMsg m = new ISOMsg();
+            m.setPackager (p);
+            m.unpack (b);
+            m.setDirection (direction);
+            return m;
+        } catch (ISOException e) {
+            throw new IOException (e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true for the values {@link #readValue(ObjectInput, List, List)} adds to its references
+     */
+    private static boolean isMutable (Object value) {
+        return value instanceof byte[] || value != null && value.getClass() == Date.class
+          || value instanceof Externalizable e && direct.get (e.getClass());
+    }
+
+    /**
+     * Writes a reference to <code>value</code> if it has already been written, otherwise
+     * assigns it the next index.
+     * @return true if a reference was written
+     */
+    private static boolean writeReference (ObjectOutput out, Object value, Map<Object,Integer> references) throws IOException {
+        Integer index = references.putIfAbsent (value, references.size());
+        if (index == null)
+            return false;
+        out.writeByte (REFERENCE);
+        writeVarInt (out, index);
+        return true;
+    }
+
+    private static <T> T reference (T value, List<Object> references) {
+        references.add (value);
+        return value;
+    }
+
+    private static void writeClassName (ObjectOutput out, String name, Map<String,Integer> dictionary) throws IOException {
+        Integer index = dictionary.get (name);
+        if (index != null) {
+            writeVarInt (out, index + 1);
+        } else {
+            dictionary.put (name, dictionary.size());
+            writeVarInt (out, 0);
+            writeString (out, name);
+        }
+    }
+
+    private static String readClassName (ObjectInput in, List<String> dictionary) throws IOException {
+        int index = readVarInt (in);
+        if (index == 0) {
+            String name = readString (in);
+            dictionary.add (name);
+            return name;
+        }
+        if (index > dictionary.size())
+            throw new IOException ("invalid class reference " + index);
+        return dictionary.get (index - 1);
+    }
+
+    private static Externalizable newInstance (ObjectInput in, String className) throws IOException, ClassNotFoundException {
+        Constructor<?> c = constructors.get (className);
+        try {
+            if (c == null) {
+                Class<?> clazz = Class.forName (className, false, classLoader());
+                if (!Externalizable.class.isAssignableFrom (clazz))
+                    throw new IOException (className + " is not Externalizable");
+                checkFilter (in, clazz);
+                c = clazz.getConstructor();
+                constructors.put (className, c);
+            } else {
+                checkFilter (in, c.getDeclaringClass());
+            }
+            return (Externalizable) c.newInstance();
+        } catch (ReflectiveOperationException e) {
+            if (e instanceof ClassNotFoundException cnfe)
+                throw cnfe;
+            throw new IOException ("can't instantiate " + className, e);
+        }
+    }
+
+    /**
+     * Gives the stream's filter (if any) the chance to reject a class we're about to instantiate,
+     * as ObjectInputStream does with the classes it resolves.
+     */
+    private static void checkFilter (ObjectInput in, Class<?> clazz) throws InvalidClassException {
+        ObjectInputFilter filter = in instanceof ObjectInputStream ois ? ois.getObjectInputFilter() : null;
+        if (filter != null && filter.checkInput (new ClassFilterInfo (clazz)) == ObjectInputFilter.Status.REJECTED)
+            throw new InvalidClassException (clazz.getName(), "filter status: REJECTED");
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return cl != null ? cl : BinaryContextCodec.class.getClassLoader();
+    }
+
+    private static void writeString (ObjectOutput out, String s) throws IOException {
+        writeBytes (out, s.getBytes (StandardCharsets.UTF_8));
+    }
+
+    private static String readString (ObjectInput in) throws IOException {
+        return new String (readBytes (in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes (ObjectOutput out, byte[] b) throws IOException {
+        writeVarInt (out, b.length);
+        out.write (b);
+    }
+
+    private static byte[] readBytes (ObjectInput in) throws IOException {
+        byte[] b = new byte[readVarInt (in)];
+        in.readFully (b);
+        return b;
+    }
+
+    private static void writeVarInt (ObjectOutput out, int i) throws IOException {
+        while ((i & ~0x7F) != 0) {
+            out.writeByte ((i & 0x7F) | 0x80);
+            i >>>= 7;
+        }
+        out.writeByte (i);
+    }
+
+    private record ClassFilterInfo (Class<?> serialClass) implements ObjectInputFilter.FilterInfo {
+        @Override
+        public long arrayLength() {
+            return -1L;
+        }
+        @Override
+        public long depth() {
+            return 1L;
+        }
+        @Override
+        public long references() {
+            return 0L;
+        }
+        @Override
+        public long streamBytes() {
+            return 0L;
+        }
+    }
+
+    private static int readVarInt (ObjectInput in) throws IOException {
+        int i = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            i |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (i < 0)
+                    throw new IOException ("invalid length");
+                return i;
+            }
+        }
+        throw new IOException ("malformed varint");
+    }
+}
@@ -30,6 +30,7 @@ import java.io.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
@@ -39,16 +40,58 @@ import static org.jpos.transaction.ContextConstants.*;
 public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
     @Serial
     private static final long serialVersionUID = 2604524947983441462L;
-    private transient Map<Object,Object> map; // transient map
-    private Map<Object,Object> pmap;          // persistent (serializable) map
+    private transient ContextMap map = new ContextMap();  // transient map
+    private ContextMap pmap = new ContextMap();            // persistent (serializable) map
     private transient boolean trace = false;
+    private static final AtomicReferenceArray<ContextCodec> codecs = new AtomicReferenceArray<>(128);
+    private static volatile ContextCodec codec;
     private CompletableFuture<Integer> pausedFuture;
     private long timeout;
     private final Lock lock = new ReentrantLock();
+    static {
+        registerCodec (new SerializationContextCodec());
+        registerCodec (new BinaryContextCodec());
+        codec = codecs.get (SerializationContextCodec.ID);
+        String codecClass = System.getProperty ("jpos.context.codec");
+        if (codecClass != null) {
+            try {
+                setCodec ((ContextCodec) Class.forName (codecClass).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new ExceptionInInitializerError (e);
+            }
+        }
+    }
+
     public Context () {
         super ();
     }
 
+    /**
+     * Registers a codec, so that Contexts it wrote can be read back.
+     * @param c the codec
+     */
+    public static void registerCodec (ContextCodec c) {
+        if (c.getId() < 0 || c.getId() >= codecs.length())
+            throw new IllegalArgumentException ("invalid codec id " + c.getId());
+        codecs.set (c.getId(), c);
+    }
+
+    /**
+     * Sets (and registers) the codec used by {@link #writeExternal(ObjectOutput)}.
+     * Defaults to {@link SerializationContextCodec}, the format every jPOS version reads;
+     * can be changed using the <code>jpos.context.codec</code> system property (codec class name).
+     *
+     * @param c the codec
+     */
+    public static void setCodec (ContextCodec c) {
+        registerCodec (c);
+        codec = c;
+    }
+
+    public static ContextCodec getCodec () {
+        return codec;
+    }
+
     /**
      * puts an Object in the transient Map
      */
@@ -58,10 +101,7 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
                 String.format("%s='%s' [%s]", getKeyName(key), value, Caller.info(1))
             );
         }
-        getMap().put (key, value);
-        synchronized (this) {
-            notifyAll();
-        }
+        map.put (key, value);
     }
     /**
      * puts an Object in the transient Map
@@ -209,11 +249,13 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * @param to key
      * @return the entry's value (could be null if 'from' key not present)
      */
-    public synchronized <T> T move(Object from, Object to) {
-        T obj = get(from);
+    public <T> T move(Object from, Object to) {
+        boolean persisted = hasPersistedKey(from);
+        @SuppressWarnings("unchecked")
+        T obj = (T) map.claim(from); // so concurrent moves can't duplicate it, null values stay put
         if (obj != null) {
-            put(to, obj, hasPersistedKey(from));
-            remove(from);
+            pmap.remove(from);
+            put(to, obj, persisted);
         }
         return obj;
     }
@@ -235,10 +277,10 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
     /**
      * Transient remove
      */
-    public synchronized <T> T remove(Object key) {
-        getPMap().remove(key);
+    public <T> T remove(Object key) {
+        pmap.remove(key);
         @SuppressWarnings("unchecked")
-        T obj = (T) getMap().remove(key);
+        T obj = (T) map.remove(key);
         return obj;
     }
 
@@ -271,50 +313,33 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * @return object (null on timeout)
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get (Object key, long timeout) {
-        T obj;
-        long now = System.currentTimeMillis();
-        long end = now + timeout;
-        while ((obj = (T) map.get (key)) == null &&
-                (now = System.currentTimeMillis()) < end)
-        {
-            try {
-                if (end > now)
-                    this.wait (end - now);
-            } catch (InterruptedException ignored) { }
-        }
-        return obj;
+    public <T> T get (Object key, long timeout) {
+        return (T) map.get (key, timeout);
     }
     public void writeExternal (ObjectOutput out) throws IOException {
-        out.writeByte (0);  // reserved for future expansion (version id)
-        Set s = getPMap().entrySet();
-        out.writeInt (s.size());
-        Iterator iter = s.iterator();
-        while (iter.hasNext()) {
-            Map.Entry entry = (Map.Entry) iter.next();
-            out.writeObject(entry.getKey());
-            out.writeObject(entry.getValue());
-        }
+        ContextCodec c = codec;
+        out.writeByte (c.getId());  // used to be reserved as version id, 0 being the original format
+        c.write (out, getPMap());
     }
     public void readExternal  (ObjectInput in) 
         throws IOException, ClassNotFoundException
     {
-        in.readByte();  // ignore version for now
-        getMap();       // force creation of map
-        getPMap();      // and pmap
-        int size = in.readInt();
-        for (int i=0; i<size; i++) {
-            String k = (String) in.readObject();
-            Object v = in.readObject();
+        int id = in.readByte();
+        ContextCodec c = id >= 0 && id < codecs.length() ? codecs.get (id) : null;
+        if (c == null)
+            throw new IOException ("unknown context codec " + id);
+        Map<Object,Object> entries = new LinkedHashMap<>();
+        c.read (in, entries);
+        entries.forEach ((k, v) -> {
             map.put (k, v);
             pmap.put (k, v);
-        }
+        });
     }
 
     /**
      * Creates a copy of the current Context object.
      * <p>
-     * This method clones the Context object, creating new synchronized map containers
+     * This method clones the Context object, creating new map containers
      * that are independent of the original. However, the keys and values themselves
      * are <b>not cloned</b> - both Context instances will share references to the same
      * key/value objects. Structural changes (add/remove operations) to one Context's
@@ -322,8 +347,8 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * will be visible in both Contexts.
      * </p>
      * <p>
-     * The cloned Context preserves the thread-safety characteristics through
-     * {@code Collections.synchronizedMap} wrappers.
+     * The cloned Context's maps are as thread-safe as the original ones, and keep their
+     * insertion order.
      * </p>
      *
      * @return a copy of the current Context object with independent map containers
@@ -333,14 +358,8 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
     public Context clone() {
         try {
             Context context = (Context) super.clone();
-            if (map != null) {
-                context.map = Collections.synchronizedMap (new LinkedHashMap<>());
-                context.map.putAll(map);
-            }
-            if (pmap != null) {
-                context.pmap = Collections.synchronizedMap (new LinkedHashMap<>());
-                context.pmap.putAll(pmap);
-            }
+            context.map = new ContextMap(map);
+            context.pmap = new ContextMap(pmap);
             return context;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError(); // Should not happen
@@ -421,33 +440,26 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
     /**
      * @return persistent map
      */
-    private synchronized Map<Object,Object> getPMap() {
-        if (pmap == null)
-            pmap = Collections.synchronizedMap (new LinkedHashMap<> ());
+    private Map<Object,Object> getPMap() {
         return pmap;
     }
     /**
+     * Thread-safe view of the transient map, lookups don't lock and iteration
+     * follows insertion order over a snapshot of its entries.
+     *
      * @return transient map
      */
-    public synchronized Map<Object,Object> getMap() {
-        if (map == null)
-            map = Collections.synchronizedMap (new LinkedHashMap<>());
+    public Map<Object,Object> getMap() {
         return map;
     }
 
     @JsonIgnore
     public Map<Object,Object> getMapClone() {
-        Map<Object,Object> cloned = Collections.synchronizedMap (new LinkedHashMap<>());
-        synchronized(getMap()) {
-            cloned.putAll(map);
-        }
-        return cloned;
+        return Collections.synchronizedMap (new LinkedHashMap<>(map));
     }
 
     protected void dumpMap (PrintStream p, String indent) {
-        if (map != null) {
-            getMapClone().entrySet().forEach(e -> dumpEntry(p, indent, e));
-        }
+        map.entrySet().forEach(e -> dumpEntry(p, indent, e));
     }
 
     protected void dumpEntry (PrintStream p, String indent, Map.Entry<Object,Object> entry) {
@@ -455,7 +467,7 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
         if (key.startsWith(".") || key.startsWith("*"))
             return; // see jPOS-63
 
-        p.printf("%s%s%s: ", indent, key, pmap != null && pmap.containsKey(key) ? "(P)" : "");
+        p.printf("%s%s%s: ", indent, key, pmap.containsKey(key) ? "(P)" : "");
         Object value = entry.getValue();
         if (value instanceof Loggeable) {
             p.println();
@@ -508,12 +520,16 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * If there's no LogEvent there, it creates one.
      * @return LogEvent
      */
-    synchronized public LogEvent getLogEvent () {
+    public LogEvent getLogEvent () {
         LogEvent evt = get (LOGEVT.toString());
         if (evt == null) {
             evt = new LogEvent ();
             evt.setNoArmor(true);
-            put (LOGEVT.toString(), evt);
+            LogEvent prev = (LogEvent) map.putIfAbsent (LOGEVT.toString(), evt);
+            if (prev != null)
+                evt = prev;
+            else if (trace)
+                checkPoint (getProfiler(), LOGEVT.toString(), evt);
         }
         return evt;
     }
@@ -521,11 +537,15 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * return (or creates) a Profiler object
      * @return Profiler object
      */
-    synchronized public Profiler getProfiler () {
+    public Profiler getProfiler () {
         Profiler prof = get (PROFILER.toString());
         if (prof == null) {
             prof = new Profiler();
-            put (PROFILER.toString(), prof);
+            Profiler prev = (Profiler) map.putIfAbsent (PROFILER.toString(), prof);
+            if (prev != null)
+                prof = prev;
+            else if (trace)
+                checkPoint (prof, PROFILER.toString(), prof);
         }
         return prof;
     }
@@ -534,11 +554,15 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
      * return (or creates) a Resultr object
      * @return Profiler object
      */
-    synchronized public Result getResult () {
+    public Result getResult () {
         Result result = get (RESULT.toString());
         if (result == null) {
             result = new Result();
-            put (RESULT.toString(), result);
+            Result prev = (Result) map.putIfAbsent (RESULT.toString(), result);
+            if (prev != null)
+                result = prev;
+            else if (trace)
+                checkPoint (getProfiler(), RESULT.toString(), result);
         }
         return result;
     }
@@ -558,6 +582,15 @@ public class Context implements Externalizable, Loggeable, Cloneable, Pausable {
         getProfiler().checkPoint (detail);
     }
 
+    /**
+     * records the checkpoint {@link #put(Object, Object)} would have, for entries created on demand
+     */
+    private void checkPoint (Profiler prof, Object key, Object value) {
+        prof.checkPoint (
+          String.format("%s='%s' [%s]", getKeyName(key), value, Caller.info(1))
+        );
+    }
+
     public boolean isTrace() {
         return trace;
     }
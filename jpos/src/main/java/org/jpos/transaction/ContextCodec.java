@@ -0,0 +1,59 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the persistent entries of a {@link Context} on
+ * {@link Context#writeExternal(ObjectOutput)} / {@link Context#readExternal(ObjectInput)},
+ * which is what persistent spaces use when a TransactionManager snapshots a Context.
+ *
+ * <p>Every Context record starts with its codec's {@link #getId() id}, so records written
+ * by any {@link Context#registerCodec(ContextCodec) registered} codec can be read back
+ * regardless of the codec currently used to write.</p>
+ *
+ * @see SerializationContextCodec
+ * @see BinaryContextCodec
+ * @since 3.0.2
+ */
+public interface ContextCodec {
+    /**
+     * @return codec id (0-127), 0 being the legacy {@link SerializationContextCodec}
+     */
+    int getId();
+
+    /**
+     * @param out output
+     * @param entries persistent entries
+     * @throws IOException on error
+     */
+    void write (ObjectOutput out, Map<Object,Object> entries) throws IOException;
+
+    /**
+     * @param in input
+     * @param entries map where entries are to be put
+     * @throws IOException on error
+     * @throws ClassNotFoundException if an entry's class is not available
+     */
+    void read (ObjectInput in, Map<Object,Object> entries) throws IOException, ClassNotFoundException;
+}
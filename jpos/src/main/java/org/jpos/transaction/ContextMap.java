@@ -0,0 +1,258 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link Context} storage.
+ *
+ * <p>Entries live in a {@link ConcurrentHashMap}, so reads are lock free. Each entry
+ * remembers its insertion sequence, so that iteration (i.e. {@link Context#dump}) follows
+ * insertion order the same way a {@link LinkedHashMap} would, over a point-in-time snapshot
+ * that is never affected by concurrent updates. Unlike a plain ConcurrentHashMap, null keys and values are
+ * allowed, and callers blocked on {@link #get(Object, long)} are woken up just when their key gets a value.</p>
+ *
+ * @since 3.0.2
+ */
+final class ContextMap extends AbstractMap<Object,Object> {
+    private static final Object NULL_KEY = new Object();
+    private final ConcurrentHashMap<Object,Node> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object,Waiter> waiters = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    ContextMap () {
+        super();
+    }
+
+    ContextMap (Map<Object,Object> m) {
+        putAll (m);
+    }
+
+    @Override
+    public Object get (Object key) {
+        Node n = nodes.get (mask (key));
+        return n != null ? n.value : null;
+    }
+
+    @Override
+    public boolean containsKey (Object key) {
+        return nodes.containsKey (mask (key));
+    }
+
+    @Override
+    public Object put (Object key, Object value) {
+        Object[] old = new Object[1];
+        nodes.compute (mask (key), (k, n) -> {
+            if (n == null)
+                return new Node (key, value, sequence.getAndIncrement());
+            old[0] = n.value;
+            n.value = value;
+            return n;
+        });
+        if (value != null)
+            wakeup (key, value);
+        return old[0];
+    }
+
+    @Override
+    public Object putIfAbsent (Object key, Object value) {
+        Object[] old = new Object[1];
+        nodes.compute (mask (key), (k, n) -> {
+            if (n == null)
+                return new Node (key, value, sequence.getAndIncrement());
+            if ((old[0] = n.value) == null)
+                n.value = value;
+            return n;
+        });
+        if (old[0] == null && value != null)
+            wakeup (key, value);
+        return old[0];
+    }
+
+    @Override
+    public Object remove (Object key) {
+        Node n = nodes.remove (mask (key));
+        return n != null ? n.value : null;
+    }
+
+    /**
+     * Atomically removes <code>key</code>'s entry, unless its value is null (in which case the entry is kept).
+     * @return the removed value, or null if nothing was removed
+     */
+    Object claim (Object key) {
+        Object[] old = new Object[1];
+        nodes.computeIfPresent (mask (key), (k, n) -> (old[0] = n.value) != null ? null : n);
+        return old[0];
+    }
+
+    @Override
+    public int size () {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty () {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public void clear () {
+        nodes.clear();
+    }
+
+    @Override
+    public void forEach (BiConsumer<? super Object, ? super Object> action) {
+        for (Node n : snapshot())
+            action.accept (n.key, n.value);
+    }
+
+    @Override
+    public Set<Entry<Object,Object>> entrySet () {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Object,Object>> iterator () {
+                Iterator<Node> iter = snapshot().iterator();
+                return new Iterator<>() {
+                    private Node last;
+                    public boolean hasNext () {
+                        return iter.hasNext();
+                    }
+                    public Entry<Object,Object> next () {
+                        return last = iter.next();
+                    }
+                    public void remove () {
+                        if (last == null)
+                            throw new IllegalStateException();
+                        nodes.remove (mask (last.key), last);
+                        last = null;
+                    }
+                };
+            }
+            @Override
+            public int size () {
+                return nodes.size();
+            }
+        };
+    }
+
+    /**
+     * Waits for <code>key</code> to have a non null value.
+     *
+     * @param key the key
+     * @param timeout max wait, in millis
+     * @return the value, or null on timeout
+     */
+    Object get (Object key, long timeout) {
+        Object obj = get (key);
+        if (obj != null || timeout <= 0L)
+            return obj;
+        Object k = mask (key);
+        Waiter w = waiters.compute (k, (kk, v) -> {
+            if (v == null)
+                v = new Waiter();
+            v.count++;
+            return v;
+        });
+        try {
+            obj = get (key); // may have been put before we started waiting
+            if (obj == null)
+                obj = w.future.get (timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // not available in time
+        } finally {
+            waiters.computeIfPresent (k, (kk, v) -> v != w || --v.count > 0 ? v : null);
+        }
+        return obj;
+    }
+
+    private void wakeup (Object key, Object value) {
+        if (!waiters.isEmpty()) {
+            Waiter w = waiters.remove (mask (key));
+            if (w != null)
+                w.future.complete (value);
+        }
+    }
+
+    private List<Node> snapshot () {
+        List<Node> l = new ArrayList<>(nodes.values());
+        if (l.size() > 1)
+            l.sort (Comparator.comparingLong (n -> n.seq));
+        return l;
+    }
+
+    private static Object mask (Object key) {
+        return key != null ? key : NULL_KEY;
+    }
+
+    private final class Node implements Entry<Object,Object> {
+        final Object key;
+        final long seq;
+        volatile Object value;
+
+        Node (Object key, Object value, long seq) {
+            this.key = key;
+            this.value = value;
+            this.seq = seq;
+        }
+
+        public Object getKey () {
+            return key;
+        }
+
+        public Object getValue () {
+            return value;
+        }
+
+        public Object setValue (Object value) {
+            return put (key, value);
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            return o instanceof Entry<?,?> e
+              && Objects.equals (key, e.getKey())
+              && Objects.equals (value, e.getValue());
+        }
+
+        @Override
+        public int hashCode () {
+            return Objects.hashCode (key) ^ Objects.hashCode (value);
+        }
+
+        @Override
+        public String toString () {
+            return key + "=" + value;
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        int count;
+    }
+}
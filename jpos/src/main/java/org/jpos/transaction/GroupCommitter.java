@@ -0,0 +1,238 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import org.jpos.space.Space;
+import org.jpos.space.SpaceError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Group-commit journal used by the {@link TransactionManager} to persist
+ * state changes (snapshot, setState, purge) on its persistent space.
+ *
+ * <p>Sessions {@link #commit(Runnable) submit} their space operations to a shared
+ * journal and block until the batch holding them has been committed. A single
+ * flusher thread collects the pending operations for up to {@code window}
+ * milliseconds (or {@code maxBatch} operations), applies them while holding the
+ * space monitor and issues a single commit for the whole batch.</p>
+ *
+ * <p>Recovery guarantees are the same as in the non-batched mode: a call to
+ * {@link #commit(Runnable)} returns only after its operation is durable.</p>
+ */
+public class GroupCommitter implements Runnable {
+    private final Space<String,Object> sp;
+    private final long window;
+    private final int maxBatch;
+    private final Consumer<Space> commitOff;
+    private final Consumer<Space> commitOn;
+    private final LinkedBlockingQueue<Entry> journal = new LinkedBlockingQueue<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * @param sp persistent space
+     * @param window max time (in millis) an operation waits for other operations to join its batch
+     * @param maxBatch max number of operations per batch
+     * @param commitOff called (holding the space monitor) before a batch gets applied
+     * @param commitOn called (holding the space monitor) after a batch gets applied
+     */
+    public GroupCommitter (Space<String,Object> sp, long window, int maxBatch, Consumer<Space> commitOff, Consumer<Space> commitOn) {
+        this.sp = sp;
+        this.window = Math.max (0L, window);
+        this.maxBatch = Math.max (1, maxBatch);
+        this.commitOff = commitOff;
+        this.commitOn = commitOn;
+    }
+
+    public synchronized void start (String name) {
+        if (flusher == null) {
+            running = true;
+            flusher = Thread.ofPlatform().name(name).daemon(true).start(this);
+        }
+    }
+
+    /**
+     * Stops the flusher thread once all pending operations have been committed.
+     * Operations submitted after this call are committed synchronously by the caller.
+     */
+    public void stop () {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = flusher;
+            flusher = null;
+        }
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush (drain()); // anything that raced with stop
+    }
+
+    /**
+     * Queues a space operation and waits until it is durable.
+     * @param op operation to be performed on the persistent space
+     * @throws SpaceError if the operation or the batch commit fails
+     */
+    public void commit (Runnable op) {
+        Entry e = new Entry (op);
+        if (running) {
+            journal.add (e);
+            if (!running)
+                flush (drain()); // raced with stop
+        } else {
+            flush (List.of (e));
+        }
+        try {
+            e.done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SpaceError (ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof SpaceError se ? se : new SpaceError (ex.getCause());
+        }
+    }
+
+    @Override
+    public void run () {
+        while (running || !journal.isEmpty()) {
+            try {
+                Entry first = journal.poll (1L, TimeUnit.SECONDS);
+                if (first != null)
+                    flush (collect (first));
+            } catch (InterruptedException ignored) {
+                // stop() interrupts us, loop condition takes care
+            }
+        }
+    }
+
+    /**
+     * @return number of batches committed so far
+     */
+    public long getBatches () {
+        return batches.get();
+    }
+
+    /**
+     * @return number of operations committed so far
+     */
+    public long getOperations () {
+        return operations.get();
+    }
+
+    /**
+     * @return number of operations waiting to be committed
+     */
+    public int getPending () {
+        return journal.size();
+    }
+
+    @Override
+    public String toString() {
+        return "group-commit[batches=%d, operations=%d, pending=%d]".formatted (
+          batches.get(), operations.get(), journal.size()
+        );
+    }
+
+    private List<Entry> collect (Entry first) {
+        List<Entry> batch = new ArrayList<>();
+        batch.add (first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos (window);
+        while (batch.size() < maxBatch) {
+            journal.drainTo (batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0L || !running)
+                break;
+            try {
+                Entry e = journal.poll (remaining, TimeUnit.NANOSECONDS);
+                if (e == null)
+                    break;
+                batch.add (e);
+            } catch (InterruptedException e) {
+                break; // stopping, commit what we have
+            }
+        }
+        return batch;
+    }
+
+    private synchronized List<Entry> drain () {
+        List<Entry> batch = new ArrayList<>();
+        journal.drainTo (batch);
+        return batch;
+    }
+
+    private void flush (List<Entry> batch) {
+        if (batch.isEmpty())
+            return;
+        Throwable failure = null;
+        synchronized (sp) {
+            try {
+                commitOff.accept (sp);
+                for (Entry e : batch) {
+                    try {
+                        e.op.run();
+                    } catch (Throwable t) {
+                        e.failure = t;
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                try {
+                    commitOn.accept (sp);
+                } catch (Throwable t) {
+                    if (failure == null)
+                        failure = t;
+                }
+            }
+        }
+        batches.incrementAndGet();
+        operations.addAndGet (batch.size());
+        for (Entry e : batch) {
+            Throwable t = failure != null ? failure : e.failure;
+            if (t != null)
+                e.done.completeExceptionally (t);
+            else
+                e.done.complete (null);
+        }
+    }
+
+    private static class Entry {
+        final Runnable op;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        Throwable failure;
+        Entry (Runnable op) {
+            this.op = op;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Original Context format, every key and value is written using Java serialization.
+ *
+ * @since 3.0.2
+ */
+public class SerializationContextCodec implements ContextCodec {
+    public static final int ID = 0;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public void write (ObjectOutput out, Map<Object,Object> entries) throws IOException {
+        Map<Object,Object> snapshot = new LinkedHashMap<>(entries);
+        out.writeInt (snapshot.size());
+        for (Map.Entry<Object,Object> entry : snapshot.entrySet()) {
+            out.writeObject (entry.getKey());
+            out.writeObject (entry.getValue());
+        }
+    }
+
+    @Override
+    public void read (ObjectInput in, Map<Object,Object> entries) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        for (int i=0; i<size; i++) {
+            String k = (String) in.readObject();
+            Object v = in.readObject();
+            entries.put (k, v);
+        }
+    }
+}
@@ -115,6 +115,7 @@ public class TransactionManager
     private Gauge activeSessionsGauge;
     private Counter transactionCounter;
     private boolean freezeLog;
+    private GroupCommitter groupCommitter;
     private UUID uuid = UUID.randomUUID();
 
     @Override
@@ -132,11 +133,22 @@ public class TransactionManager
         initParticipants (getPersist());
         initStatusListeners (getPersist());
         executor = QFactory.executorService(cfg.getBoolean("virtual-threads", true));
+        if (doRecover && cfg.getBoolean("group-commit", false)) {
+            groupCommitter = new GroupCommitter (
+              psp,
+              cfg.getLong ("group-commit-window", 2L),
+              cfg.getInt ("group-commit-max-batch", 1000),
+              this::commitOff,
+              this::commitOn
+            );
+        }
     }
 
     @Override
     public void startService () throws Exception {
         recover();
+        if (groupCommitter != null)
+            groupCommitter.start (getName() + "-group-commit");
         if (tps != null)
             tps.stop();
         tps = new TPS (cfg.getBoolean ("auto-update-tps", true));
@@ -161,6 +173,8 @@ public class TransactionManager
 
         meters.forEach(getServer().getMeterRegistry()::remove);
         tps.stop();
+        if (groupCommitter != null)
+            groupCommitter.stop();
         for (Destroyable destroyable : destroyables) {
             try {
                 destroyable.destroy();
@@ -433,6 +447,8 @@ public class TransactionManager
     @Override
     public void dump (PrintStream ps, String indent) {
         ps.printf ("%s%s%n", indent, tmInfo());
+        if (groupCommitter != null)
+            ps.printf ("%s%s%n", indent, groupCommitter);
         if (metrics != null) {
             metrics.dump(ps, indent);
         }
@@ -781,12 +797,17 @@ public class TransactionManager
     protected void commitOff (Space sp) {
         if (sp instanceof JDBMSpace jsp) {
             jsp.setAutoCommit(false);
+        } else if (sp instanceof MMapSpace msp) {
+            msp.setAutoCommit(false);
         }
     }
     protected void commitOn (Space sp) {
         if (sp instanceof JDBMSpace jsp) {
             jsp.commit ();
             jsp.setAutoCommit(true);
+        } else if (sp instanceof MMapSpace msp) {
+            msp.commit ();
+            msp.setAutoCommit(true);
         }
     }
     protected void checkTail () {
@@ -818,8 +839,7 @@ public class TransactionManager
         jfr.begin();
 
         String contextKey = getKey (CONTEXT, id);
-        synchronized (psp) {
-            commitOff (psp);
+        persist (() -> {
             SpaceUtil.wipe(psp, contextKey);
             if (context != null)
                 psp.out (contextKey, context);
@@ -828,19 +848,16 @@ public class TransactionManager
                 String stateKey  = getKey (STATE, id);
                 psp.put (stateKey, status);
             }
-            commitOn (psp);
-        }
+        });
         jfr.commit();
     }
     protected void setState (long id, Integer state) {
         String stateKey  = getKey (STATE, id);
-        synchronized (psp) {
-            commitOff (psp);
+        persist (() -> {
             SpaceUtil.wipe(psp, stateKey);
             if (state!= null)
                 psp.out (stateKey, state);
-            commitOn (psp);
-        }
+        });
     }
     protected void addGroup (long id, String groupName) {
         if (groupName != null)
@@ -850,13 +867,32 @@ public class TransactionManager
         String stateKey   = getKey (STATE, id);
         String contextKey = getKey (CONTEXT, id);
         String groupsKey  = getKey (GROUPS, id);
-        synchronized (psp) {
-            commitOff (psp);
+        persist (() -> {
             if (full)
                 SpaceUtil.wipe(psp, stateKey);
             SpaceUtil.wipe(psp, contextKey);
             SpaceUtil.wipe(psp, groupsKey);
-            commitOn (psp);
+        });
+    }
+
+    /**
+     * Applies a set of operations on the persistent space as a single unit.
+     *
+     * When <code>group-commit</code> is enabled, the operations are handed to
+     * the {@link GroupCommitter} and batched together with those of other
+     * sessions; the call returns once the batch has been committed.
+     *
+     * @param ops operations to perform on the persistent space
+     */
+    protected void persist (Runnable ops) {
+        if (groupCommitter != null) {
+            groupCommitter.commit (ops);
+        } else {
+            synchronized (psp) {
+                commitOff (psp);
+                ops.run();
+                commitOn (psp);
+            }
         }
     }
 
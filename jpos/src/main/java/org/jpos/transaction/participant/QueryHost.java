@@ -19,6 +19,8 @@
 package org.jpos.transaction.participant;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
 
 import org.jpos.core.Configurable;
 import org.jpos.core.Configuration;
@@ -75,16 +77,19 @@ public class QueryHost implements TransactionParticipant, Configurable {
         Chronometer chronometer = new Chronometer();
         if (isConnected(mux)) {
             long t = Math.max(resolveTimeout(ctx) - chronometer.elapsed(), 1000L); // give at least a second to catch a response
+            if (continuations) {
+                mux.requestAsync(m, Duration.ofMillis(t)).whenComplete((resp, e) -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    ctx.resume(
+                      cause != null ?
+                        result.fail(CMF.SYSTEM_ERROR, Caller.info(), cause.getMessage()).FAIL() :
+                        processResponse(ctx, muxName, resp)
+                    );
+                });
+                return PAUSE | NO_JOIN | READONLY;
+            }
             try {
-                ISOMsg resp = mux.request(m, t);
-                if (resp != null) {
-                    ctx.put(responseName, resp);
-                    return PREPARED | READONLY | NO_JOIN;
-                } else if (ignoreUnreachable) {
-                    ctx.log(String.format ("MUX '%s' no response", muxName));
-                } else {
-                    return result.fail(CMF.HOST_UNREACHABLE, Caller.info(), "'%s' does not respond", muxName).FAIL();
-                }
+                return processResponse(ctx, muxName, mux.request(m, t));
             } catch (ISOException e) {
                 return result.fail(CMF.SYSTEM_ERROR, Caller.info(), e.getMessage()).FAIL();
             }
@@ -96,6 +101,17 @@ public class QueryHost implements TransactionParticipant, Configurable {
         return PREPARED | NO_JOIN | READONLY;
     }
 
+    protected int processResponse (Context ctx, String muxName, ISOMsg resp) {
+        if (resp != null) {
+            ctx.put(responseName, resp);
+            return PREPARED | READONLY | NO_JOIN;
+        } else if (ignoreUnreachable) {
+            ctx.log(String.format ("MUX '%s' no response", muxName));
+            return PREPARED | NO_JOIN | READONLY;
+        }
+        return ctx.getResult().fail(CMF.HOST_UNREACHABLE, Caller.info(), "'%s' does not respond", muxName).FAIL();
+    }
+
     public void setConfiguration (Configuration cfg) throws ConfigurationException {
         this.cfg = cfg;
         timeout = cfg.getLong ("timeout", DEFAULT_TIMEOUT);
@@ -106,6 +122,7 @@ public class QueryHost implements TransactionParticipant, Configurable {
         destination = cfg.get ("destination", ContextConstants.DESTINATION.toString());
         ignoreUnreachable = cfg.getBoolean("ignore-host-unreachable", false);
         checkConnected = cfg.getBoolean("check-connected", checkConnected);
+        continuations = cfg.getBoolean("continuations", false);
     }
 
     protected long resolveTimeout(Context ctx) {
@@ -0,0 +1,83 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction.participant;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.jpos.core.Configurable;
+import org.jpos.core.Configuration;
+import org.jpos.core.ConfigurationException;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.RateLimitPolicy;
+import org.jpos.rc.CMF;
+import org.jpos.util.Caller;
+import org.jpos.util.HashedWheelTimer;
+import org.jpos.util.RateLimiter;
+import org.jpos.transaction.Context;
+import org.jpos.transaction.ContextConstants;
+import org.jpos.transaction.TransactionParticipant;
+
+/**
+ * Rate limits transactions based on their request (see {@link RateLimitPolicy}).
+ *
+ * <p>With <code>action="queue"</code> an over the limit transaction gets paused
+ * (without holding a TransactionManager session) and resumed once its permit is
+ * available. Rejected transactions fail with {@link CMF#RETRY_TRANSACTION}.</p>
+ *
+ * @since 3.0.2
+ */
+public class RateLimit implements TransactionParticipant, Configurable {
+    private RateLimitPolicy policy;
+    private String requestName;
+
+    public int prepare (long id, Serializable ser) {
+        Context ctx = (Context) ser;
+        ISOMsg m = ctx.get (requestName);
+        if (m == null)
+            return ctx.getResult().fail(CMF.INVALID_REQUEST, Caller.info(), "'%s' is null", requestName).FAIL();
+
+        long wait = policy.reserve (m);
+        if (wait < 0L) {
+            String key = policy.getKey (m);
+            return ctx.getResult().fail(
+              CMF.RETRY_TRANSACTION, Caller.info(), "rate limit exceeded%s", key != null ? " (" + key + ")" : ""
+            ).FAIL();
+        }
+        if (wait > 0L) {
+            ctx.log ("rate-limit delay=" + TimeUnit.NANOSECONDS.toMillis (wait));
+            if (policy.getAction() == RateLimitPolicy.Action.QUEUE) {
+                HashedWheelTimer.getDefault().newTimeout (
+                  () -> ctx.resume (PREPARED | NO_JOIN | READONLY), wait, TimeUnit.NANOSECONDS
+                );
+                return PAUSE | NO_JOIN | READONLY;
+            }
+            if (!RateLimiter.await (wait))
+                return ctx.getResult().fail(CMF.RETRY_TRANSACTION, Caller.info(), "interrupted while rate limited").FAIL();
+        }
+        return PREPARED | NO_JOIN | READONLY;
+    }
+
+    public void setConfiguration (Configuration cfg) throws ConfigurationException {
+        RateLimitPolicy p = new RateLimitPolicy();
+        p.setConfiguration (cfg);
+        policy = p;
+        requestName = cfg.get ("request", ContextConstants.REQUEST.toString());
+    }
+}
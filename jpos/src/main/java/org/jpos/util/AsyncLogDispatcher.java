@@ -0,0 +1,295 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import org.jdom2.Element;
+import org.jpos.iso.ISOMsg;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous delivery of {@link LogEvent}s to a {@link Logger}'s listeners.
+ *
+ * <p>{@link Logger#log(LogEvent)} freezes the event and places it in a bounded,
+ * lock-free ring buffer; a single writer thread per Logger drains the buffer and
+ * runs the listener chain, so slow listeners (i.e. a busy disk) stay out of the
+ * caller's path.</p>
+ *
+ * <p>Freezing takes a snapshot of the event's payload: ISOMsgs, FSDMsgs, JDOM elements
+ * and byte arrays are cloned, other {@link Loggeable}s and immutable objects are kept as is
+ * (so that listeners such as {@link ProtectedLogListener} and the log renderers still
+ * recognize them), anything else is converted to text. Events of a {@link LogEvent}
+ * subclass are frozen as a {@link FrozenLogEvent}.</p>
+ *
+ * @since 3.0.2
+ */
+public class AsyncLogDispatcher implements Loggeable {
+    public enum OverflowPolicy {
+        /** wait for room in the buffer */
+        BLOCK,
+        /** discard the oldest queued event */
+        DROP_OLDEST,
+        /** discard the incoming event if it's a trace/debug event, block otherwise */
+        DROP_DEBUG;
+
+        /**
+         * @param s policy name, i.e. "drop-oldest"
+         * @return policy
+         */
+        public static OverflowPolicy of (String s) {
+            return valueOf (s.trim().toUpperCase().replace ('-', '_'));
+        }
+    }
+
+    private final Logger logger;
+    private final OverflowPolicy policy;
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean sleeping;
+
+    /**
+     * @param logger logger whose listeners are run by the writer thread
+     * @param capacity buffer size (rounded up to a power of two)
+     * @param policy what to do when the buffer is full
+     */
+    public AsyncLogDispatcher (Logger logger, int capacity, OverflowPolicy policy) {
+        if (capacity < 2 || capacity > 1 << 24)
+            throw new IllegalArgumentException ("invalid capacity " + capacity);
+        int size = Integer.highestOneBit (capacity - 1) << 1;
+        this.logger = logger;
+        this.policy = policy;
+        slots = new LogEvent[size];
+        sequences = new AtomicLongArray (size);
+        for (int i=0; i<size; i++)
+            sequences.set (i, i);
+        mask = size - 1;
+        writer = Thread.ofPlatform().name ("logger-" + logger.getName()).daemon (true).start (this::run);
+    }
+
+    /**
+     * Freezes and queues <code>evt</code>, applying the overflow policy if the buffer is full.
+     * @param evt event to log
+     */
+    public void log (LogEvent evt) {
+        if (Thread.currentThread() == writer) {
+            logger.dispatch (evt); // logged by a listener, don't wait on ourselves
+            return;
+        }
+        if (policy == OverflowPolicy.DROP_DEBUG && isFull() && isDebug (evt)) {
+            dropped.increment();
+            return;
+        }
+        LogEvent frozen = freeze (evt);
+        while (!offer (frozen)) {
+            if (!running) {
+                logger.dispatch (frozen);
+                return;
+            }
+            if (policy == OverflowPolicy.DROP_OLDEST) {
+                if (poll() != null)
+                    dropped.increment();
+            } else {
+                wakeup();
+                LockSupport.parkNanos (TimeUnit.MICROSECONDS.toNanos (50L));
+            }
+        }
+        if (running)
+            wakeup();
+        else
+            drain(); // raced with stop
+    }
+
+    /**
+     * Stops the writer thread once all queued events have been dispatched.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark (writer);
+        try {
+            writer.join (TimeUnit.SECONDS.toMillis (10L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * @return number of queued events
+     */
+    public int getQueueDepth() {
+        return (int) Math.max (0L, tail.get() - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return number of events discarded by the overflow policy
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of events dispatched to the listeners
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void dump (PrintStream p, String indent) {
+        p.printf ("%s<async-logger policy=\"%s\" capacity=\"%d\" depth=\"%d\" dispatched=\"%d\" dropped=\"%d\" />%n",
+          indent, policy, slots.length, getQueueDepth(), getDispatched(), getDropped());
+    }
+
+    private void run() {
+        while (running || getQueueDepth() > 0) {
+            LogEvent evt = poll();
+            if (evt != null) {
+                logger.dispatch (evt);
+                dispatched.increment();
+                continue;
+            }
+            sleeping = true;
+            if (running && getQueueDepth() == 0)
+                LockSupport.parkNanos (this, TimeUnit.MILLISECONDS.toNanos (100L));
+            sleeping = false;
+        }
+    }
+
+    private void drain() {
+        for (LogEvent evt; (evt = poll()) != null; ) {
+            logger.dispatch (evt);
+            dispatched.increment();
+        }
+    }
+
+    private void wakeup() {
+        if (sleeping)
+            LockSupport.unpark (writer);
+    }
+
+    private boolean isFull() {
+        return getQueueDepth() >= slots.length;
+    }
+
+    // Bounded MPMC ring (D. Vyukov): each slot carries a sequence number telling
+    // producers and consumers whether it's free for the current lap.
+    private boolean offer (LogEvent evt) {
+        long pos = tail.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.get (idx) - pos;
+            if (dif == 0L) {
+                if (tail.compareAndSet (pos, pos + 1)) {
+                    slots[idx] = evt;
+                    sequences.set (idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0L) {
+                return false; // full
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private LogEvent poll() {
+        long pos = head.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.get (idx) - (pos + 1);
+            if (dif == 0L) {
+                if (head.compareAndSet (pos, pos + 1)) {
+                    LogEvent evt = slots[idx];
+                    slots[idx] = null;
+                    sequences.set (idx, pos + slots.length);
+                    return evt;
+                }
+                pos = head.get();
+            } else if (dif < 0L) {
+                return null; // empty
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    private static boolean isDebug (LogEvent evt) {
+        return Log.DEBUG.equals (evt.getTag()) || Log.TRACE.equals (evt.getTag());
+    }
+
+    /**
+     * @param evt event
+     * @return a snapshot of <code>evt</code> that can be safely dumped later
+     */
+    static LogEvent freeze (LogEvent evt) {
+        if (evt instanceof FrozenLogEvent)
+            return evt;
+        if (evt.getClass() != LogEvent.class)
+            return new FrozenLogEvent (evt);
+        List<Object> payLoad;
+        synchronized (evt.getPayLoad()) {
+            payLoad = new ArrayList<>(evt.getPayLoad().size());
+            for (Object o : evt.getPayLoad())
+                payLoad.add (freeze (o));
+        }
+        return new LogEvent (evt, payLoad);
+    }
+
+    private static Object freeze (Object o) {
+        if (o == null || o instanceof String || o instanceof Number || o instanceof Boolean
+          || o instanceof Throwable || o instanceof Enum<?> || o.getClass().isRecord())
+            return o;
+        if (o instanceof ISOMsg m)
+            return m.clone();
+        if (o instanceof FSDMsg m)
+            return m.clone();
+        if (o instanceof Element e)
+            return e.clone();
+        if (o instanceof byte[] b)
+            return b.clone();
+        if (o instanceof Object[] a)
+            return a.clone();
+        if (o instanceof Loggeable)
+            return o; // protection listeners and renderers match on its type
+        return o.toString();
+    }
+}
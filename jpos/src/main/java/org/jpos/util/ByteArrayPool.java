@@ -0,0 +1,106 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of reusable byte arrays, keyed by their exact length.
+ *
+ * <p>Arrays are pooled by exact length (rather than by size class) so they can
+ * be handed to code expecting a full message image, such as packagers and
+ * incoming filters. Message lengths on a given link tend to cluster around a few
+ * values, so a small number of slots per length covers most traffic.</p>
+ *
+ * <p>Acquired arrays are not cleared, callers are expected to overwrite them.</p>
+ *
+ * @since 3.0.2
+ */
+public class ByteArrayPool implements Loggeable {
+    private static final ByteArrayPool DEFAULT = new ByteArrayPool (1024, 64);
+    private final ConcurrentHashMap<Integer,ArrayBlockingQueue<byte[]>> pools = new ConcurrentHashMap<>();
+    private final int maxLengths;
+    private final int maxPerLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxLengths max number of distinct lengths to pool
+     * @param maxPerLength max number of idle arrays kept per length
+     */
+    public ByteArrayPool (int maxLengths, int maxPerLength) {
+        this.maxLengths = maxLengths;
+        this.maxPerLength = Math.max (1, maxPerLength);
+    }
+
+    /**
+     * @return shared pool (1024 lengths, 64 arrays per length)
+     */
+    public static ByteArrayPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param length array length
+     * @return a pooled array, or a new one if none is available
+     */
+    public byte[] acquire (int length) {
+        ArrayBlockingQueue<byte[]> q = pools.get (length);
+        byte[] b = q != null ? q.poll() : null;
+        if (b != null) {
+            hits.increment();
+            return b;
+        }
+        misses.increment();
+        return new byte[length];
+    }
+
+    /**
+     * Returns an array to the pool; the caller must not use it afterwards.
+     * @param b array to recycle
+     */
+    public void release (byte[] b) {
+        if (b == null || b.length == 0)
+            return;
+        ArrayBlockingQueue<byte[]> q = pools.get (b.length);
+        if (q == null) {
+            if (pools.size() >= maxLengths)
+                return;
+            q = pools.computeIfAbsent (b.length, k -> new ArrayBlockingQueue<>(maxPerLength));
+        }
+        q.offer (b);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void dump (PrintStream p, String indent) {
+        p.printf ("%s<byte-array-pool lengths=\"%d\" hits=\"%d\" misses=\"%d\" />%n",
+          indent, pools.size(), hits.sum(), misses.sum());
+    }
+}
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.Arrays;
@@ -36,6 +37,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
@@ -95,6 +97,12 @@ import org.jpos.space.SpaceFactory;
  * Key fields allow you to specify a tree of possible message formats. The key fields are the fork points of the tree.
  * Multiple key fields are supported. It is also possible to have more key fields specified in appended schemas.
  * </p>
+ * <p>
+ * Schemas are parsed once into an immutable field descriptor table, cached by base path and schema id, so
+ * {@link #pack()} and {@link #unpack(InputStream)} don't walk the XML elements on every message. Subclasses
+ * overriding the element based <code>pack</code>, <code>unpack</code>, <code>get</code>, <code>read</code> or
+ * <code>readField</code> hooks keep using them.
+ * </p>
  *
  * @author Alejandro Revila
  * @author Mark Salter
@@ -114,6 +122,20 @@ public class FSDMsg implements Loggeable, Cloneable {
     private static final Set<String> DUMMY_SEPARATORS = new HashSet<>(Arrays.asList("DS", "EOM"));
     private static final String EOM_SEPARATOR = "EOM";
     private static final int READ_BUFFER = 8192;
+    private static final Map<String,FSDSchema> compiledSchemas = new ConcurrentHashMap<>();
+    private static final Set<String> HOOKS = new HashSet<>(Arrays.asList(
+      "pack/2", "unpack/2", "get/5", "get/6", "read/4", "readField/5", "getSchema/0", "getSchema/1"));
+    private static final ClassValue<Boolean> COMPILED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue (Class<?> type) {
+            for (Class<?> c = type; c != FSDMsg.class; c = c.getSuperclass()) {
+                for (Method m : c.getDeclaredMethods())
+                    if (HOOKS.contains(m.getName() + "/" + m.getParameterCount()))
+                        return false;
+            }
+            return true;
+        }
+    };
 
     Map<String,String> fields;
     Map<String, Character> separators;
@@ -202,7 +224,7 @@ public class FSDMsg implements Loggeable, Cloneable {
         try {
             if (is.markSupported())
                 is.mark(READ_BUFFER);
-            unpack (new InputStreamReader(is, charset), getSchema (baseSchema));
+            unpackRecord (new InputStreamReader(is, charset));
             if (is.markSupported()) {
                 is.reset();
                 is.skip (readCount);
@@ -238,7 +260,7 @@ public class FSDMsg implements Loggeable, Cloneable {
         throws JDOMException, IOException, ISOException
     {
         StringBuilder sb = new StringBuilder ();
-        pack (getSchema (baseSchema), sb);
+        pack (sb);
         return sb.toString ();
     }
     public byte[] packToBytes ()
@@ -414,6 +436,89 @@ public class FSDMsg implements Loggeable, Cloneable {
             pack (getSchema (getId (schema), keyOff, defaultKey), sb);
     }
 
+    private void pack (FSDSchema schema, StringBuilder sb)
+        throws JDOMException, IOException, ISOException
+    {
+        if (schema.fields == null) {
+            pack (schema.source, sb);
+            return;
+        }
+        StringBuilder keyOff = null;
+        StringBuilder defaultKey = null;
+        for (FSDSchema.Field f : schema.fields) {
+            String value = get (f);
+            sb.append (value);
+
+            if (isSeparated(f.packSeparator)) {
+                char c = getSeparator(f.packSeparator);
+                if (c > 0)
+                    sb.append(c);
+            }
+            if (f.key) {
+                if (keyOff == null) {
+                    keyOff = new StringBuilder();
+                    defaultKey = new StringBuilder();
+                }
+                String v = f.packBinary ? ISOUtil.hexString(value.getBytes(charset)) : value;
+                keyOff.append (normalizeKeyValue(v, f.properties));
+                defaultKey.append (f.defaultKey);
+            }
+        }
+        if (keyOff != null && keyOff.length() > 0)
+            pack (getCompiledSchema (schema.id, keyOff.toString(), defaultKey.toString()), sb);
+    }
+
+    /**
+     * Same as {@link #get(String, String, int, String, String, boolean)}, for a pre-parsed field.
+     */
+    private String get (FSDSchema.Field f) throws ISOException {
+        String value = fields.get (f.id);
+        if (value == null)
+            value = f.defValue;
+        int length = f.length;
+        if (f.kind == 'B' && length << 1 < value.length())
+            throw new IllegalArgumentException("field content=" + value
+                    + " is too long to fit in field " + f.id
+                    + " whose length is " + length);
+
+        String separator = f.packSeparator;
+        boolean separated = isSeparated(separator);
+        switch (f.kind) {
+            case 'N':
+                if (!separated)
+                    value = ISOUtil.zeropad (value, length);
+                break;
+            case 'A':
+                if (!separated && f.lengthLength == 0)
+                    value = ISOUtil.strpad (value, length);
+                if (value.length() > length)
+                    value = value.substring(0,length);
+                break;
+            case 'K':
+                value = f.defValue;
+                break;
+            case 'B':
+                if (separated) {
+                    value = new String(ISOUtil.hex2byte(value), charset);
+                } else {
+                    value = new String(ISOUtil.hex2byte(ISOUtil.zeropad(
+                            value, length << 1).substring(0, length << 1)), charset);
+                }
+                break;
+        }
+
+        if (f.lengthLength > 0) {
+            String len = Integer.toString(value.length());
+            StringBuilder sb = new StringBuilder(f.lengthLength + value.length());
+            for (int i=len.length(); i<f.lengthLength; i++)
+                sb.append('0');
+            return sb.append(len).append(value).toString();
+        }
+        if (!separated || f.kind == 'B' || EOM_SEPARATOR.equals(separator) || !f.unPad)
+            return value;
+        return ISOUtil.blankUnPad(value);
+    }
+
     private Map loadProperties(Element elem) {
     	Map props = new HashMap ();
         for (Element prop : elem.getChildren ("property")) {
@@ -467,6 +572,106 @@ public class FSDMsg implements Loggeable, Cloneable {
             unpack(r, getSchema (getId (schema), keyOff, defaultKey));      // recursion
         }
     }
+    private void unpack (InputStreamReader r, FSDSchema schema)
+        throws IOException, JDOMException {
+        if (schema.fields == null) {
+            unpack (r, schema.source);
+            return;
+        }
+        StringBuilder keyOff = null;
+        StringBuilder defaultKey = null;
+        for (FSDSchema.Field f : schema.fields) {
+            String value = read (r, f);
+            if (f.unpackBinary)
+                value = ISOUtil.hexString (value.getBytes (charset));
+            fields.put (f.id, value);
+
+            if (f.key) {
+                if (keyOff == null) {
+                    keyOff = new StringBuilder();
+                    defaultKey = new StringBuilder();
+                }
+                keyOff.append (normalizeKeyValue(value, f.properties));
+                defaultKey.append (f.defaultKey);
+            }
+
+            // constant fields should have read the constant value
+            if (f.constant && !value.equals (f.text))
+                throw new IllegalArgumentException (
+                    "Field "+f.id
+                       + " value='"     +value
+                       + "' expected='" + f.text + "'"
+                );
+        }
+        if (keyOff != null && keyOff.length() > 0) {
+            unpack(r, getCompiledSchema (schema.id, keyOff.toString(), defaultKey.toString()));      // recursion
+        }
+    }
+
+    /**
+     * Same as {@link #read(InputStreamReader, int, String, String)}, for a pre-parsed field.
+     * Fields with no separator are read in bulk rather than char by char.
+     */
+    private String read (InputStreamReader r, FSDSchema.Field f)
+        throws IOException
+    {
+        String separator = f.unpackSeparator;
+        boolean expectSeparator = isSeparated(separator);
+        if (EOM_SEPARATOR.equals(separator) || isDummySeparator(separator))
+            return read (r, f.length, null, separator);
+
+        int len = f.length;
+        if (f.lengthLength > 0) {
+            char[] ll = new char[f.lengthLength];
+            if (r.read(ll) != ll.length)
+                throw new EOFException();
+            len = Integer.parseInt(new String(ll));
+        }
+        if (expectSeparator)
+            return readSeparated (r, len, separator, getSeparator(separator));
+
+        char[] c = new char[Math.max(len, 0)];
+        int n = 0;
+        while (n < c.length) {
+            int k = r.read(c, n, c.length - n);
+            if (k < 0)
+                throw new EOFException();
+            n += k;
+            readCount += k;
+        }
+        return new String(c);
+    }
+
+    private String readSeparated (InputStreamReader r, int len, String separator, char separatorChar)
+        throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        boolean eof = "EOF".equals(separator);
+        boolean separated = true;
+        for (int i = 0; i < len; i++) {
+            int c = r.read();
+            if (c < 0) {
+                if (!eof)
+                    throw new EOFException();
+                separated = false;
+                break;
+            }
+            readCount++;
+            if (c == separatorChar) {
+                separated = false;
+                break;
+            }
+            sb.append((char) c);
+        }
+        if (separated && !eof) {
+            // we still need to read the separator and account for it under readCount
+            if (r.read() < 0)
+                throw new EOFException();
+            readCount++;
+        }
+        return sb.toString();
+    }
+
     private String getId (Element e) {
         String s = e.getAttributeValue ("id");
         return s == null ? "" : s;
@@ -660,6 +865,53 @@ public class FSDMsg implements Loggeable, Cloneable {
         return schema;
     }
 
+    /**
+     * Unpacks the next record from a reader shared by consecutive records (see {@link FSDMsgReader}).
+     */
+    void unpackRecord (InputStreamReader r) throws IOException, JDOMException {
+        if (COMPILED.get(getClass()))
+            unpack (r, getCompiledSchema (baseSchema, "", null));
+        else
+            unpack (r, getSchema (baseSchema));
+    }
+
+    /**
+     * Appends the packed message to <code>sb</code> (see {@link FSDMsgWriter}).
+     */
+    void pack (StringBuilder sb) throws JDOMException, IOException, ISOException {
+        if (COMPILED.get(getClass()))
+            pack (getCompiledSchema (baseSchema, "", null), sb);
+        else
+            pack (getSchema (baseSchema), sb);
+    }
+
+    /**
+     * @return length in bytes of every record, for schemas made only of fixed width fields
+     * packed with a single byte charset, -1 otherwise
+     */
+    int getFixedLength () throws JDOMException, IOException {
+        if (!COMPILED.get(getClass()) || !charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1f)
+            return -1;
+        return getCompiledSchema (baseSchema, "", null).fixedLength;
+    }
+
+    /**
+     * Pre-parsed version of {@link #getSchema(String, String, String)}, cached by base path and schema id.
+     * The cached entry is rebuilt whenever getSchema returns a different element (i.e. the schema was
+     * reloaded).
+     */
+    private FSDSchema getCompiledSchema (String prefix, String suffix, String defSuffix)
+        throws JDOMException, IOException {
+        Element schema = getSchema (prefix, suffix, defSuffix);
+        String key = basePath + prefix + suffix;
+        FSDSchema s = compiledSchemas.get (key);
+        if (s == null || s.source != schema) {
+            s = new FSDSchema (schema);
+            compiledSchemas.put (key, s);
+        }
+        return s;
+    }
+
     protected Element loadSchema(String uri, boolean throwex)
         throws JDOMException, IOException {
         SAXBuilder builder = new SAXBuilder();
@@ -0,0 +1,307 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.jdom2.JDOMException;
+
+/**
+ * Reads a stream of {@link FSDMsg} records (i.e. a settlement or clearing file) using a single, reused record.
+ *
+ * <p>The reader is configured with a prototype FSDMsg (base path, base schema, charset and separators) and
+ * decodes the source through a fixed size buffer, so memory use doesn't depend on the file size:</p>
+ * <pre>
+ * try (FSDMsgReader reader = new FSDMsgReader (new FSDMsg ("jar:settlement/record-"), path)) {
+ *     for (FSDMsg record; (record = reader.next()) != null; )
+ *         process (record.get ("pan"), record.get ("amount"));
+ * }
+ * </pre>
+ * <p>{@link #next()} returns the same FSDMsg instance every time, with the fields of the current record;
+ * callers that need to keep a record must {@link FSDMsg#clone()} it. Records with a trailing line terminator
+ * can define it in the schema as the separator of the last field (e.g. <code>separator="0A"</code>).</p>
+ *
+ * <p>Files whose schema is made only of fixed width fields can be parsed in parallel with
+ * {@link #forEach(FSDMsg, Path, int, Consumer)}.</p>
+ *
+ * @since 3.0.2
+ */
+public class FSDMsgReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+    private final FSDMsg record;
+    private final RecordReader reader;
+    private boolean eof;
+    private long count;
+
+    /**
+     * @param prototype message providing the schema, charset and separators
+     * @param channel source channel, closed by {@link #close()}
+     */
+    public FSDMsgReader (FSDMsg prototype, ReadableByteChannel channel) {
+        this.record = flyweight (prototype);
+        this.reader = new RecordReader (channel, null, prototype.charset);
+    }
+
+    /**
+     * Reads records out of a buffer, usually a {@link java.nio.MappedByteBuffer}, from its position to its limit.
+     * @param prototype message providing the schema, charset and separators
+     * @param buffer source buffer
+     */
+    public FSDMsgReader (FSDMsg prototype, ByteBuffer buffer) {
+        this.record = flyweight (prototype);
+        this.reader = new RecordReader (null, buffer, prototype.charset);
+    }
+
+    /**
+     * @param prototype message providing the schema, charset and separators
+     * @param file file to read
+     * @throws IOException if the file can't be opened
+     */
+    public FSDMsgReader (FSDMsg prototype, Path file) throws IOException {
+        this (prototype, FileChannel.open (file, StandardOpenOption.READ));
+    }
+
+    /**
+     * Unpacks the next record.
+     *
+     * <p>As in {@link FSDMsg#unpack(InputStream)}, a record truncated by the end of the stream is returned
+     * with an <code>EOF</code> field set to <code>true</code>, and is the last one.</p>
+     *
+     * @return the reused record holding the next record's fields, or null at the end of the stream
+     * @throws IOException on read errors
+     * @throws JDOMException if the schema can't be loaded
+     */
+    public FSDMsg next () throws IOException, JDOMException {
+        if (eof || !reader.hasMore())
+            return null;
+        record.fields.clear();
+        try {
+            record.unpackRecord (reader);
+        } catch (EOFException e) {
+            eof = true;
+            if (record.fields.isEmpty())
+                throw e;
+            record.fields.put ("EOF", "true");
+        }
+        count++;
+        return record;
+    }
+
+    /**
+     * @return number of records read so far
+     */
+    public long getCount () {
+        return count;
+    }
+
+    @Override
+    public void close () throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Parses a file of fixed length records using <code>parallelism</code> threads.
+     *
+     * <p>The file is split in chunks on record boundaries; each chunk is memory mapped and parsed with its
+     * own reused record, which is handed to <code>consumer</code>. The consumer is therefore called
+     * concurrently, and records from different chunks arrive in no particular order.</p>
+     *
+     * @param prototype message providing the schema, charset and separators; its schema must be made only
+     *                  of fixed width fields (no separators, length prefixes or key fields) and its charset
+     *                  must be single byte
+     * @param file file to read
+     * @param parallelism number of threads
+     * @param consumer record consumer
+     * @return number of records read
+     * @throws IllegalArgumentException if records aren't fixed length
+     * @throws IOException on read errors
+     * @throws JDOMException if the schema can't be loaded
+     */
+    public static long forEach (FSDMsg prototype, Path file, int parallelism, Consumer<FSDMsg> consumer)
+        throws IOException, JDOMException
+    {
+        int recordLength = prototype.getFixedLength();
+        if (recordLength <= 0)
+            throw new IllegalArgumentException ("schema '" + prototype.getBasePath() + prototype.getBaseSchema() + "' is not fixed length");
+        long chunkSize = Math.max (1L, CHUNK_SIZE / recordLength) * recordLength;
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong total = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool (parallelism, Thread.ofPlatform().name ("fsd-reader-", 0).factory());
+        try (FileChannel channel = FileChannel.open (file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Future<?>[] workers = new Future<?>[parallelism];
+            for (int i=0; i<parallelism; i++) {
+                workers[i] = executor.submit (() -> {
+                    long start;
+                    while (!failed.get() && (start = nextChunk.getAndIncrement() * chunkSize) < size) {
+                        ByteBuffer chunk = channel.map (FileChannel.MapMode.READ_ONLY, start, Math.min (chunkSize, size - start));
+                        try (FSDMsgReader reader = new FSDMsgReader (prototype, chunk)) {
+                            for (FSDMsg r; (r = reader.next()) != null; )
+                                consumer.accept (r);
+                            total.addAndGet (reader.getCount());
+                        } catch (Throwable t) {
+                            failed.set (true);
+                            throw t;
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> f : workers)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException (e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe)
+                throw ioe;
+            if (cause instanceof JDOMException je)
+                throw je;
+            if (cause instanceof RuntimeException re)
+                throw re;
+            if (cause instanceof Error err)
+                throw err;
+            throw new IOException (cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        return total.get();
+    }
+
+    private static FSDMsg flyweight (FSDMsg prototype) {
+        FSDMsg m = (FSDMsg) prototype.clone();
+        m.separators = new LinkedHashMap<> (prototype.separators); // hex separators register themselves
+        m.fields.clear();
+        return m;
+    }
+
+    /**
+     * Reader decoding a channel (or buffer) through fixed size buffers. It extends InputStreamReader
+     * because that's what the FSDMsg unpack hooks take.
+     */
+    private static final class RecordReader extends InputStreamReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer bb;
+        private final CharBuffer cb;
+        private final CharsetDecoder decoder;
+        private boolean endOfInput;
+        private boolean done;
+
+        RecordReader (ReadableByteChannel channel, ByteBuffer buffer, Charset charset) {
+            super (InputStream.nullInputStream(), charset);
+            this.channel = channel;
+            this.decoder = charset.newDecoder()
+              .onMalformedInput (CodingErrorAction.REPLACE)
+              .onUnmappableCharacter (CodingErrorAction.REPLACE);
+            if (channel != null) {
+                bb = ByteBuffer.allocate (BUFFER_SIZE).flip();
+            } else {
+                bb = buffer;
+                endOfInput = true;
+            }
+            cb = CharBuffer.allocate (BUFFER_SIZE).flip();
+        }
+
+        boolean hasMore () throws IOException {
+            return cb.hasRemaining() || fill();
+        }
+
+        @Override
+        public int read () throws IOException {
+            return hasMore() ? cb.get() : -1;
+        }
+
+        @Override
+        public int read (char[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!hasMore())
+                return -1;
+            // FSDMsg treats a short read as the end of the stream, so keep
+            // filling until len chars are read (or the input is exhausted)
+            int n = 0;
+            do {
+                int k = Math.min (len - n, cb.remaining());
+                cb.get (b, off + n, k);
+                n += k;
+            } while (n < len && hasMore());
+            return n;
+        }
+
+        @Override
+        public boolean ready () {
+            return cb.hasRemaining();
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (channel != null)
+                channel.close();
+        }
+
+        private boolean fill () throws IOException {
+            if (done)
+                return false;
+            cb.clear();
+            for (;;) {
+                CoderResult cr = decoder.decode (bb, cb, endOfInput);
+                if (endOfInput && cr.isUnderflow()) {
+                    decoder.flush (cb);
+                    done = true;
+                    break;
+                }
+                if (cb.position() > 0)
+                    break;
+                bb.compact();
+                int n = channel.read (bb);
+                bb.flip();
+                if (n < 0)
+                    endOfInput = true;
+            }
+            cb.flip();
+            return cb.hasRemaining();
+        }
+    }
+}
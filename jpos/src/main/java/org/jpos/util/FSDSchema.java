@@ -0,0 +1,135 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdom2.Element;
+
+/**
+ * Immutable, pre-parsed form of an {@link FSDMsg} schema element.
+ *
+ * <p>Attribute lookups, length parsing, type normalization and key properties are resolved
+ * once, when the schema is loaded, instead of on every pack/unpack. Schemas that can't be
+ * pre-parsed (missing type, bad length, ...) keep a null {@link #fields} so that FSDMsg walks
+ * the original element and reports the problem the usual way.</p>
+ *
+ * @since 3.0.2
+ */
+final class FSDSchema {
+    final Element source;
+    final String id;
+    final Field[] fields;
+    /** record length of schemas made only of fixed width, non key fields; -1 otherwise */
+    final int fixedLength;
+
+    FSDSchema (Element source) {
+        this.source = source;
+        String s = source != null ? source.getAttributeValue ("id") : null;
+        this.id = s == null ? "" : s;
+        this.fields = source != null ? compile (source.getChildren ("field")) : null;
+        this.fixedLength = fixedLength (fields);
+    }
+
+    private static int fixedLength (Field[] fields) {
+        if (fields == null)
+            return -1;
+        int len = 0;
+        for (Field f : fields) {
+            if (f.key || f.lengthLength > 0 || f.unpackSeparator != null || f.length < 0)
+                return -1;
+            len += f.length;
+        }
+        return len;
+    }
+
+    private static Field[] compile (List<Element> elements) {
+        Field[] fields = new Field[elements.size()];
+        try {
+            for (int i=0; i<fields.length; i++)
+                fields[i] = new Field (elements.get (i));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return fields;
+    }
+
+    static final class Field {
+        final String id;
+        final int length;
+        /** first char of the upper cased type, past the length-of-length 'L's */
+        final char kind;
+        final int lengthLength;
+        final String packSeparator;
+        final String unpackSeparator;
+        final boolean unPad;
+        final boolean key;
+        final Map<String,String> properties;
+        final String defValue;
+        final String text;
+        final String defaultKey;
+        /** the declared type starts with B (used to hex key values while packing) */
+        final boolean packBinary;
+        /** the upper cased type starts with B (unpacked values are hex encoded) */
+        final boolean unpackBinary;
+        /** the upper cased type is K (unpacked value must match the element's text) */
+        final boolean constant;
+
+        Field (Element elem) {
+            id = elem.getAttributeValue ("id");
+            length = Integer.parseInt (elem.getAttributeValue ("length"));
+            String type = elem.getAttributeValue ("type");
+            String utype = type.toUpperCase();
+            int ll = 0;
+            while (utype.charAt (ll) == 'L')
+                ll++;
+            kind = utype.charAt (ll);
+            lengthLength = ll;
+
+            String separator = elem.getAttributeValue ("separator");
+            packSeparator = separator != null ? separator : getSeparatorType (type);
+            unpackSeparator = separator != null ? separator : getSeparatorType (utype);
+            String unpad = elem.getAttributeValue ("pack_unpad");
+            unPad = packSeparator == null || unpad == null || Boolean.valueOf (unpad);
+
+            key = "true".equals (elem.getAttributeValue ("key"));
+            properties = key ? loadProperties (elem) : Collections.emptyMap();
+            text = elem.getText();
+            defValue = properties.isEmpty() ? text : text.replace("\n", "").replace("\t", "").replace("\r", "");
+            defaultKey = String.valueOf (elem.getAttributeValue ("default-key"));
+            packBinary = type.startsWith ("B");
+            unpackBinary = utype.startsWith ("B");
+            constant = "K".equals (utype);
+        }
+
+        private static String getSeparatorType (String type) {
+            return type.length() > 2 && type.charAt(0) != 'L' ? type.substring(1) : null;
+        }
+
+        private static Map<String,String> loadProperties (Element elem) {
+            Map<String,String> props = new HashMap<>();
+            for (Element prop : elem.getChildren ("property"))
+                props.put (prop.getAttributeValue ("name"), prop.getAttributeValue ("value"));
+            return Collections.unmodifiableMap (props);
+        }
+    }
+}
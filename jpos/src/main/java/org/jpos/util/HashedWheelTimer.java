@@ -0,0 +1,193 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approximate timer intended for large numbers of short lived timeouts
+ * (i.e. MUX request expirations) that are usually cancelled before they fire.
+ *
+ * <p>Scheduling and cancelling a timeout are O(1) and lock free, no task gets
+ * queued on a {@link java.util.concurrent.ScheduledExecutorService}. A single
+ * worker thread advances the wheel every <code>tickDuration</code> and runs
+ * expired tasks on virtual threads, so precision is bounded by the tick duration.</p>
+ *
+ * @since 3.0.2
+ */
+public class HashedWheelTimer {
+    private static volatile HashedWheelTimer defaultTimer;
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param name worker thread name
+     * @param tickDuration duration between ticks
+     * @param unit tickDuration's unit
+     * @param ticksPerWheel number of buckets (rounded up to a power of two)
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer (String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException ("tickDuration must be greater than 0");
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 20)
+            throw new IllegalArgumentException ("invalid ticksPerWheel " + ticksPerWheel);
+        int size = Integer.highestOneBit (ticksPerWheel - 1) << 1;
+        size = Math.max (size, 1);
+        tickNanos = unit.toNanos (tickDuration);
+        wheel = new List[size];
+        for (int i=0; i<size; i++)
+            wheel[i] = new ArrayList<>();
+        mask = size - 1;
+        worker = Thread.ofPlatform().name(name).daemon(true).start(this::run);
+    }
+
+    /**
+     * @return shared timer (10ms tick, 512 buckets)
+     */
+    public static HashedWheelTimer getDefault() {
+        if (defaultTimer == null) {
+            synchronized (HashedWheelTimer.class) {
+                if (defaultTimer == null)
+                    defaultTimer = new HashedWheelTimer ("wheel-timer", 10L, TimeUnit.MILLISECONDS, 512);
+            }
+        }
+        return defaultTimer;
+    }
+
+    /**
+     * Schedules <code>task</code> to run after <code>delay</code>.
+     * @param task task to run
+     * @param delay delay
+     * @param unit delay's unit
+     * @return a Timeout handle that can be used to cancel the task
+     */
+    public Timeout newTimeout (Runnable task, long delay, TimeUnit unit) {
+        if (!running)
+            throw new IllegalStateException ("timer stopped");
+        Timeout t = new Timeout (task, System.nanoTime() - startTime + unit.toNanos (Math.max (0L, delay)));
+        pending.incrementAndGet();
+        incoming.add (t);
+        return t;
+    }
+
+    /**
+     * @return number of scheduled timeouts not yet expired nor discarded
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the worker thread; pending timeouts never fire.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0L) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep (sleep);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            transferIncoming();
+            expire (wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        for (Timeout t; (t = incoming.poll()) != null; ) {
+            if (t.isCancelled()) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long ticks = Math.max (t.deadline / tickNanos, tick);
+            t.rounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add (t);
+        }
+    }
+
+    private void expire (List<Timeout> bucket, long deadline) {
+        int j = 0;
+        for (Timeout t : bucket) {
+            if (t.isCancelled()) {
+                pending.decrementAndGet();
+            } else if (t.rounds <= 0 && t.deadline <= deadline) {
+                pending.decrementAndGet();
+                if (t.state.compareAndSet (Timeout.ST_INIT, Timeout.ST_EXPIRED))
+                    executor.execute (t.task);
+            } else {
+                t.rounds--;
+                bucket.set (j++, t);
+            }
+        }
+        bucket.subList (j, bucket.size()).clear();
+    }
+
+    public static class Timeout {
+        static final int ST_INIT = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger (ST_INIT);
+        private long rounds;
+
+        private Timeout (Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return true if the timeout was cancelled before it expired
+         */
+        public boolean cancel() {
+            return state.compareAndSet (ST_INIT, ST_CANCELLED);
+        }
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+    }
+}
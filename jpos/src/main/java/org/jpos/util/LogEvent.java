@@ -61,6 +61,22 @@ public class LogEvent {
     public LogEvent () {
         this("info");
     }
+
+    /**
+     * Copy constructor used to freeze events (see {@link AsyncLogDispatcher})
+     * @param evt original event
+     * @param payLoad payload to use instead of evt's
+     */
+    LogEvent (LogEvent evt, List<Object> payLoad) {
+        this.source = evt.source;
+        this.tag = evt.tag;
+        this.createdAt = evt.createdAt;
+        this.honorSourceLogger = evt.honorSourceLogger;
+        this.noArmor = evt.noArmor;
+        this.hasException = evt.hasException;
+        this.traceId = evt.traceId;
+        this.payLoad = Collections.synchronizedList (payLoad);
+    }
     public LogEvent (String tag, Object msg) {
         this (tag);
         addMessage(msg);
@@ -52,6 +52,7 @@ public class Logger implements LogProducer,Configurable
     Configuration cfg;
     String name;
     List<LogListener> listeners;
+    volatile AsyncLogDispatcher dispatcher;
     public static final String NRPREFIX = "logger.";
 
     public Logger () {
@@ -94,18 +95,57 @@ public class Logger implements LogProducer,Configurable
             l = getLogger(Q2.LOGGER_NAME);
         }
         if (l != null && l.hasListeners ()) {
-            Iterator<LogListener> i = l.listeners.iterator();
-            while (i.hasNext() && evt != null) {
-                try {
-                    evt = i.next().log(evt);
-                } catch (ConcurrentModificationException e) {
-                    break;
-                } catch (Throwable t) {
-                    evt.addMessage (t);
-                }
+            AsyncLogDispatcher d = l.dispatcher;
+            if (d != null)
+                d.log (evt);
+            else
+                l.dispatch (evt);
+        }
+    }
+    /**
+     * Runs <code>evt</code> through this logger's listeners
+     * @param evt event to log
+     */
+    void dispatch (LogEvent evt) {
+        Iterator<LogListener> i = listeners.iterator();
+        while (i.hasNext() && evt != null) {
+            try {
+                evt = i.next().log(evt);
+            } catch (ConcurrentModificationException e) {
+                break;
+            } catch (Throwable t) {
+                evt.addMessage (t);
             }
         }
     }
+    /**
+     * Hands off events to a writer thread, see {@link AsyncLogDispatcher}
+     * @param capacity max number of queued events
+     * @param policy what to do when the queue is full
+     * @since 3.0.2
+     */
+    public synchronized void startAsync (int capacity, AsyncLogDispatcher.OverflowPolicy policy) {
+        stopAsync();
+        dispatcher = new AsyncLogDispatcher (this, capacity, policy);
+    }
+    /**
+     * Flushes queued events and goes back to logging in the caller's thread
+     * @since 3.0.2
+     */
+    public synchronized void stopAsync() {
+        AsyncLogDispatcher d = dispatcher;
+        if (d != null) {
+            dispatcher = null;
+            d.stop();
+        }
+    }
+    /**
+     * @return async dispatcher, null if this logger is synchronous
+     * @since 3.0.2
+     */
+    public AsyncLogDispatcher getAsyncDispatcher() {
+        return dispatcher;
+    }
     /**
      * associates this Logger with a name using NameRegistrar
      * @param name name to register
@@ -120,6 +160,7 @@ public class Logger implements LogProducer,Configurable
      */
     public void destroy () {
         NameRegistrar.unregister (NRPREFIX+name);
+        stopAsync ();
         removeAllListeners ();
     }
     /**
@@ -23,16 +23,31 @@ import org.jpos.space.TSpace;
 
 import java.io.PrintStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Allow runtime binding of jPOS's components (ISOChannels, Logger, MUXes, etc)
  *
+ * <p>Entries are kept in a {@link ConcurrentHashMap}, so lookups (i.e. resolving a MUX on every
+ * transaction) don't contend on a lock. Callers that repeatedly resolve the same name can hold
+ * a {@link Handle}, and components interested in (un)registrations can add a {@link Listener}.</p>
+ *
  * @author <a href="mailto:apr@cs.com.uy">Alejandro P. Revilla</a>
  * @version $Revision$ $Date$
  */
 public class NameRegistrar implements Loggeable {
     private static final NameRegistrar instance = new NameRegistrar();
+    private static final Map<String, Object> registry = new ConcurrentHashMap<>();
+    private static final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+    private static final Map<String, Handle<?>> handles = new ConcurrentHashMap<>();
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
     private static final TSpace<String, Object> sp = new TSpace<String,Object>();
 
     public static class NotFoundException extends Exception {
@@ -47,10 +62,82 @@ public class NameRegistrar implements Loggeable {
         }
     }
 
+    /**
+     * Gets notified when entries are registered, replaced or unregistered.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param key entry's key
+         * @param oldValue previous value, {@code null} on new registrations
+         * @param newValue new value, {@code null} on unregistrations
+         */
+        void changed(String key, Object oldValue, Object newValue);
+    }
+
+    /**
+     * Cached, typed reference to a registry entry, kept up to date on
+     * (un)registrations so that it can be held by callers and read without a map lookup.
+     *
+     * @param <T> entry's type
+     */
+    public static final class Handle<T> {
+        private final String key;
+        private volatile Object value;
+
+        private Handle(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return current value, or {@code null} if the key is not registered
+         */
+        @SuppressWarnings("unchecked")
+        public T get() {
+            return (T) value;
+        }
+
+        /**
+         * @return current value
+         * @throws NotFoundException if the key is not registered
+         */
+        public T getOrThrow() throws NotFoundException {
+            T obj = get();
+            if (obj == null)
+                throw new NotFoundException(key);
+            return obj;
+        }
+
+        public boolean isPresent() {
+            return value != null;
+        }
+
+        @Override
+        public String toString() {
+            return "Handle[" + key + (value != null ? "=" + value.getClass().getName() : "") + "]";
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        int count;
+    }
+
     private NameRegistrar() {
         super();
     }
 
+    /**
+     * @return a space mirroring the registry
+     * @deprecated lookups are no longer served by this space, use {@link #getIfExists(String)},
+     * {@link #getHandle(String)} or {@link #addListener(Listener)} instead
+     */
+    @Deprecated
     public static TSpace<String, Object> getSpace() {
         return sp;
     }
@@ -59,13 +146,7 @@ public class NameRegistrar implements Loggeable {
      * @return a copy of the NameRegistrar's entries as a Map
      */
     public static Map<String,Object> getAsMap() {
-        Map<String,Object> map = new HashMap<String,Object>();
-        for (String k : sp.getKeySet()) {
-            Object v  = sp.rdp(k);
-            if (v != null)
-                map.put(k,v);
-        }
-        return map;
+        return new HashMap<String,Object>(registry);
     }
 
     /**
@@ -84,7 +165,15 @@ public class NameRegistrar implements Loggeable {
      *            - value to be associated with the specified key
      */
     public static void register(String key, Object value) {
+        if (key == null || value == null)
+            throw new NullPointerException ("key=" + key + ", value=" + value);
+        Object old = registry.put(key, value);
         sp.put(key, value);
+        updateHandle(key);
+        Waiter w = waiters.remove(key);
+        if (w != null)
+            w.future.complete(value);
+        fireChanged(key, old, value);
     }
 
     /**
@@ -92,7 +181,12 @@ public class NameRegistrar implements Loggeable {
      *            key whose mapping is to be removed from registrar.
      */
     public static void unregister(String key) {
+        Object old = registry.remove(key);
         SpaceUtil.wipe(sp, key);
+        if (old != null) {
+            updateHandle(key);
+            fireChanged(key, old, null);
+        }
     }
 
     /**
@@ -105,7 +199,7 @@ public class NameRegistrar implements Loggeable {
      */
     public static <T> T get(String key) throws NotFoundException {
         @SuppressWarnings("unchecked")
-        T obj = (T) sp.rdp(key);
+        T obj = (T) registry.get(key);
         if (obj == null) {
             throw new NotFoundException(key);
         }
@@ -121,8 +215,29 @@ public class NameRegistrar implements Loggeable {
      * the appearance of value in the registry.
      * @return a value or {@code null} if it does not exist
      */
+    @SuppressWarnings("unchecked")
     public static <T> T get(String key, long timeout) {
-        return (T) sp.rd(key, timeout);
+        Object obj = registry.get(key);
+        if (obj != null || timeout <= 0L)
+            return (T) obj;
+        Waiter w = waiters.compute(key, (k, v) -> {
+            if (v == null)
+                v = new Waiter();
+            v.count++;
+            return v;
+        });
+        try {
+            obj = registry.get(key); // may have been registered before we started waiting
+            if (obj == null)
+                obj = w.future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // not registered in time
+        } finally {
+            waiters.computeIfPresent(key, (k, v) -> v != w || --v.count > 0 ? v : null);
+        }
+        return (T) obj;
     }
 
     /**
@@ -134,10 +249,55 @@ public class NameRegistrar implements Loggeable {
      */
     public static <T> T getIfExists(String key) {
         @SuppressWarnings("unchecked")
-        T obj = (T) sp.rdp(key);
+        T obj = (T) registry.get(key);
         return obj;
     }
 
+    /**
+     * Get a cached handle to a registry entry. The key doesn't need to be registered yet,
+     * the handle gets updated as it is (un)registered.
+     *
+     * @param <T> desired type of value.
+     * @param key the key whose associated value is to be returned by the handle.
+     * @return a handle, shared by all callers using the same key
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Handle<T> getHandle(String key) {
+        return (Handle<T>) handles.computeIfAbsent(key, k -> new Handle<>(k, registry.get(k)));
+    }
+
+    /**
+     * @param listener listener to be notified on (un)registrations
+     */
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener listener to remove
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private static void updateHandle(String key) {
+        // runs under the handle's bin lock, so it can't race with getHandle's initial read
+        handles.computeIfPresent(key, (k, h) -> {
+            h.value = registry.get(k);
+            return h;
+        });
+    }
+
+    private static void fireChanged(String key, Object oldValue, Object newValue) {
+        for (Listener l : listeners) {
+            try {
+                l.changed(key, oldValue, newValue);
+            } catch (RuntimeException ignored) {
+                // a misbehaving listener shouldn't break (un)registrations
+            }
+        }
+    }
+
     public void dump(PrintStream p, String indent) {
         dump(p, indent, false);
     }
@@ -145,8 +305,9 @@ public class NameRegistrar implements Loggeable {
     public void dump(PrintStream p, String indent, boolean detail) {
         String inner = indent + "  ";
         p.println(indent + "name-registrar:");
-        for (String key : sp.getKeySet()) {
-            Object obj = sp.rdp(key);
+        for (Map.Entry<String,Object> entry : registry.entrySet()) {
+            String key = entry.getKey();
+            Object obj = entry.getValue();
             String objectClassName = obj == null ? "<NULL>" : obj.getClass().getName();
             p.println(inner + key + ": " + objectClassName);
             if (detail && obj instanceof Loggeable) {
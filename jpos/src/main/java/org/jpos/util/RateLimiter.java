@@ -0,0 +1,203 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keyed, hierarchical rate limiter.
+ *
+ * <p>Every key (i.e. a terminal id, merchant id or BIN) gets its own {@link TokenBucket},
+ * optionally constrained by a global bucket shared by all keys, so an abusive key
+ * exhausts its own permits without slowing down the others.</p>
+ *
+ * <pre>
+ *  RateLimiter limiter = new RateLimiter (10, Duration.ofSeconds(1), 20)   // 10 TPS per key, bursts of 20
+ *    .withGlobal (new TokenBucket (500, Duration.ofSeconds(1), 500));     // 500 TPS overall
+ *
+ *  if (!limiter.tryAcquire (terminalId))
+ *      // reject
+ * </pre>
+ *
+ * @see TokenBucket
+ * @since 3.0.2
+ */
+public class RateLimiter {
+    public static final int DEFAULT_MAX_KEYS = 100000;
+
+    private final ConcurrentHashMap<String,TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long permits;
+    private final Duration period;
+    private final long burst;
+    private final long purgeInterval; // time it takes an exhausted bucket to become idle
+    private final AtomicLong nextPurge = new AtomicLong (System.nanoTime());
+    private TokenBucket global;
+    private int maxKeys = DEFAULT_MAX_KEYS;
+
+    /**
+     * @param permits number of permits per key and period
+     * @param period time window
+     * @param burst per key bucket capacity
+     */
+    public RateLimiter (long permits, Duration period, long burst) {
+        if (permits <= 0L || burst <= 0L)
+            throw new IllegalArgumentException ("permits and burst must be greater than zero");
+        this.permits = permits;
+        this.period = period;
+        this.burst = burst;
+        this.purgeInterval = Math.max (1L, period.toNanos() / permits) * burst;
+    }
+
+    /**
+     * @param global bucket shared by all keys (may be null)
+     * @return this RateLimiter
+     */
+    public RateLimiter withGlobal (TokenBucket global) {
+        this.global = global;
+        return this;
+    }
+
+    /**
+     * @param maxKeys number of per key buckets above which idle ones get discarded. Idle buckets
+     *                are looked for at most once per refill time (<code>burst</code> permits), so
+     *                the number of buckets may exceed it while all of them are in use
+     * @return this RateLimiter
+     */
+    public RateLimiter withMaxKeys (int maxKeys) {
+        this.maxKeys = maxKeys;
+        return this;
+    }
+
+    /**
+     * Acquires a permit for <code>key</code> if available right now.
+     * @param key rate limiting key, null to check just the global limit
+     * @return true if acquired
+     */
+    public boolean tryAcquire (String key) {
+        return reserve (key, 0L, TimeUnit.NANOSECONDS) == 0L;
+    }
+
+    /**
+     * Reserves a permit for <code>key</code> that becomes available within <code>maxWait</code>,
+     * from both the key's bucket and the global one.
+     *
+     * @param key rate limiting key, null to check just the global limit
+     * @param maxWait max time the caller is willing to wait
+     * @param unit maxWait's unit
+     * @return nanos to wait before using the permit (0 if available now), or -1 if not reserved
+     */
+    public long reserve (String key, long maxWait, TimeUnit unit) {
+        TokenBucket bucket = key != null ? getBucket (key) : null;
+        long now = System.nanoTime();
+        long max = unit.toNanos (maxWait);
+        long wait = bucket != null ? bucket.reserve (now, max) : 0L;
+        if (wait < 0L || global == null)
+            return wait;
+        long globalWait = global.reserve (now, max);
+        if (globalWait < 0L) {
+            if (bucket != null)
+                bucket.release();
+            return -1L;
+        }
+        return Math.max (wait, globalWait);
+    }
+
+    /**
+     * Non blocking acquire.
+     *
+     * @param key rate limiting key, null to check just the global limit
+     * @param maxWait max time the caller is willing to wait
+     * @return a future completed with <code>true</code> once the permit can be used
+     * (immediately if available now), or with <code>false</code> if no permit
+     * becomes available within <code>maxWait</code>
+     */
+    public CompletableFuture<Boolean> acquireAsync (String key, Duration maxWait) {
+        long wait = reserve (key, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        if (wait <= 0L)
+            return CompletableFuture.completedFuture (wait == 0L);
+        CompletableFuture<Boolean> f = new CompletableFuture<>();
+        HashedWheelTimer.getDefault().newTimeout (() -> f.complete (Boolean.TRUE), wait, TimeUnit.NANOSECONDS);
+        return f;
+    }
+
+    /**
+     * Waits for a reserved permit to become available.
+     *
+     * <p>Unlike a plain {@link LockSupport#parkNanos(long)}, which may return early, this keeps
+     * parking until <code>nanos</code> have elapsed, unless the thread gets interrupted (its
+     * interrupt status is preserved).</p>
+     *
+     * @param nanos wait returned by {@link #reserve(String, long, TimeUnit)}
+     * @return true if the wait elapsed, false if interrupted
+     */
+    public static boolean await (long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long remaining = nanos; remaining > 0L; remaining = deadline - System.nanoTime()) {
+            if (Thread.currentThread().isInterrupted())
+                return false;
+            LockSupport.parkNanos (remaining);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of per key buckets
+     */
+    public int size () {
+        return buckets.size();
+    }
+
+    /**
+     * Discards idle (full) per key buckets.
+     */
+    public void purge () {
+        long now = System.nanoTime();
+        buckets.values().removeIf (b -> b.isIdle (now));
+    }
+
+    private TokenBucket getBucket (String key) {
+        TokenBucket bucket = buckets.get (key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && purgeDue())
+                purge();
+            bucket = buckets.computeIfAbsent (key, k -> new TokenBucket (permits, period, burst));
+        }
+        return bucket;
+    }
+
+    /**
+     * @return true if the caller gets to purge, i.e. no purge was done within the last purge interval
+     */
+    private boolean purgeDue () {
+        long now = System.nanoTime();
+        long next = nextPurge.get();
+        return now - next >= 0L && nextPurge.compareAndSet (next, now + purgeInterval);
+    }
+
+    @Override
+    public String toString() {
+        return String.format ("RateLimiter[permits=%d, period=%dms, burst=%d, keys=%d%s]",
+          permits, period.toMillis(), burst, buckets.size(), global != null ? ", global=" + global : "");
+    }
+}
@@ -38,6 +38,8 @@ import java.time.Instant;
  *  }
  *
  * </pre>
+ *
+ * @see RateLimiter
  */
 public class ThroughputControl {
     private int[] period;
@@ -0,0 +1,99 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket.
+ *
+ * <p>Implemented as a GCRA (generic cell rate algorithm): the bucket state is a
+ * single 'theoretical arrival time' updated by CAS, so there's no refill thread
+ * and no lock, and a permit can be reserved ahead of time (the caller gets the
+ * delay after which the permit can be used) instead of sleeping until it's available.</p>
+ *
+ * @see RateLimiter
+ * @since 3.0.2
+ */
+public final class TokenBucket {
+    private final long interval;    // nanos between permits
+    private final long tolerance;   // burst allowance, in nanos
+    private final AtomicLong tat;   // theoretical arrival time
+
+    /**
+     * @param permits number of permits per period
+     * @param period time window
+     * @param burst number of permits that can be acquired at once (bucket capacity)
+     */
+    public TokenBucket (long permits, Duration period, long burst) {
+        if (permits <= 0L || burst <= 0L)
+            throw new IllegalArgumentException ("permits and burst must be greater than zero");
+        interval = Math.max (1L, period.toNanos() / permits);
+        tolerance = interval * (burst - 1);
+        tat = new AtomicLong (System.nanoTime() - interval - tolerance);
+    }
+
+    /**
+     * Acquires a permit if one is available right now.
+     * @return true if acquired
+     */
+    public boolean tryAcquire () {
+        return reserve (System.nanoTime(), 0L) == 0L;
+    }
+
+    /**
+     * Reserves a permit that becomes available within <code>maxWait</code> nanos.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @param maxWait max time (in nanos) the caller is willing to wait
+     * @return nanos to wait before using the permit (0 if available now), or -1 if not reserved
+     */
+    public long reserve (long now, long maxWait) {
+        for (;;) {
+            long t = tat.get();
+            long base = Math.max (t, now);
+            long wait = Math.max (0L, base - tolerance - now);
+            if (wait > maxWait)
+                return -1L;
+            if (tat.compareAndSet (t, base + interval))
+                return wait;
+        }
+    }
+
+    /**
+     * Gives back a permit obtained via {@link #reserve(long, long)} that won't be used.
+     */
+    public void release () {
+        tat.addAndGet (-interval);
+    }
+
+    /**
+     * @param now current {@link System#nanoTime()}
+     * @return true if the bucket is full (it has been idle long enough to be discarded)
+     */
+    public boolean isIdle (long now) {
+        return tat.get() + tolerance <= now;
+    }
+
+    @Override
+    public String toString() {
+        return String.format ("TokenBucket[interval=%dns, burst=%d]", interval, tolerance / interval + 1);
+    }
+}
@@ -20,8 +20,10 @@ package org.jpos.iso;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
@@ -35,7 +37,16 @@ import java.io.IOException;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.jpos.bsh.BSHFilter;
 import org.jpos.core.Configuration;
@@ -1165,6 +1176,99 @@ public class BaseChannelTest {
         assertFalse(result, "result");
     }
 
+    @Test
+    public void testCoalescedSend() throws Throwable {
+        int count = 200;
+        try (ServerSocket ss = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            BaseChannel server = new ASCIIChannel(new ISO87APackager());
+            BaseChannel client = new ASCIIChannel(ss.getInetAddress().getHostAddress(), ss.getLocalPort(), new ISO87APackager());
+            client.setSendMaxLinger(500L);
+            Thread acceptor = Thread.ofVirtual().start(() -> {
+                try {
+                    server.accept(ss);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            client.connect();
+            acceptor.join();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i=0; i<count; i++) {
+                    String stan = ISOUtil.zeropad(i, 6);
+                    executor.submit(() -> {
+                        ISOMsg m = new ISOMsg("0800");
+                        m.set(11, stan);
+                        client.send(m);
+                        return null;
+                    });
+                }
+                Set<String> received = new HashSet<>();
+                for (int i=0; i<count; i++)
+                    received.add(server.receive().getString(11));
+                assertEquals(count, received.size(), "all messages should arrive intact");
+            } finally {
+                client.disconnect();
+                server.disconnect();
+            }
+        }
+    }
+
+    @Test
+    public void testCoalescedSendLostOnReconnect() throws Throwable {
+        try (ServerSocket ss = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+             Socket s1 = new Socket(ss.getInetAddress(), ss.getLocalPort());
+             Socket p1 = ss.accept();
+             Socket s2 = new Socket(ss.getInetAddress(), ss.getLocalPort());
+             Socket p2 = ss.accept())
+        {
+            CountDownLatch written = new CountDownLatch(1);
+            Thread[] senders = new Thread[2];
+            BaseChannel client = new ASCIIChannel(new ISO87APackager()) {
+                @Override
+                protected void sendMessageLength(int len) throws IOException {
+                    if (Thread.currentThread() == senders[1])
+                        connect(s2); // second sender replaces the stream holding the first frame
+                    super.sendMessageLength(len);
+                }
+                @Override
+                protected void sendMessageTrailer(ISOMsg m, byte[] b) throws IOException {
+                    super.sendMessageTrailer(m, b);
+                    if (Thread.currentThread() == senders[0]) {
+                        written.countDown();
+                        while (!((ReentrantLock) serverOutLock).hasQueuedThreads())
+                            ISOUtil.sleep(1L);
+                    }
+                }
+            };
+            client.setSendMaxLinger(5000L);
+            client.connect(s1);
+            BaseChannel server = new ASCIIChannel(new ISO87APackager());
+            server.connect(p2);
+
+            FutureTask<Void> first = new FutureTask<>(() -> send(client, "000001"));
+            FutureTask<Void> second = new FutureTask<>(() -> send(client, "000002"));
+            senders[0] = Thread.ofVirtual().unstarted(first);
+            senders[1] = Thread.ofVirtual().unstarted(second);
+            senders[0].start();
+            written.await();
+            senders[1].start();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(10L, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause(), "frame lost with the old stream must not be reported as sent");
+            second.get(10L, TimeUnit.SECONDS);
+            assertEquals("000002", server.receive().getString(11));
+            client.disconnect();
+            server.disconnect();
+        }
+    }
+
+    private static Void send (BaseChannel channel, String stan) throws Exception {
+        ISOMsg m = new ISOMsg("0800");
+        m.set(11, stan);
+        channel.send(m);
+        return null;
+    }
+
     @Test
     public void testStreamReceive() throws Throwable {
         BaseChannel aSCIIChannel = new ASCIIChannel();
@@ -0,0 +1,111 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.jpos.iso.packager.GenericPackager;
+import org.junit.jupiter.api.Test;
+
+public class CompiledFieldPackagerTest {
+    @Test
+    public void testSameImage() throws Exception {
+        for (String config : new String[] {
+          "jar:packager/iso87ascii.xml", "jar:packager/iso87binary.xml",
+          "jar:packager/iso93ascii.xml", "jar:packager/iso93binary.xml" })
+        {
+            GenericPackager interpreted = new GenericPackager(config);
+            GenericPackager compiled = new GenericPackager(config);
+            assertTrue(compiled.compile() > 0, config);
+            assertInstanceOf(CompiledFieldPackager.StringField.class, compiled.getFieldPackager(11), config);
+
+            ISOMsg m = createMessage();
+            m.setPackager(interpreted);
+            byte[] image = m.pack();
+            m.setPackager(compiled);
+            assertArrayEquals(image, m.pack(), config);
+
+            ISOMsg expected = new ISOMsg();
+            expected.setPackager(interpreted);
+            expected.unpack(image);
+            ISOMsg u = new ISOMsg();
+            u.setPackager(compiled);
+            assertEquals(image.length, u.unpack(image), config);
+            for (int i=0; i<=expected.getMaxField(); i++) {
+                if (!expected.hasField(i))
+                    continue;
+                Object value = expected.getComponent(i).getValue();
+                if (value instanceof byte[] b)
+                    assertArrayEquals(b, u.getBytes(i), config + " field " + i);
+                else
+                    assertEquals(value, u.getValue(i), config + " field " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testSameErrors() throws Exception {
+        GenericPackager interpreted = new GenericPackager("jar:packager/iso87ascii.xml");
+        GenericPackager compiled = new GenericPackager("jar:packager/iso87ascii.xml");
+        compiled.compile();
+        ISOField f = new ISOField(11, "1234567");
+        ISOException e1 = assertThrows(ISOException.class, () -> interpreted.getFieldPackager(11).pack(f));
+        ISOException e2 = assertThrows(ISOException.class, () -> compiled.getFieldPackager(11).pack(f));
+        assertEquals(e1.getMessage(), e2.getMessage());
+        assertEquals(e1.getNested().getMessage(), e2.getNested().getMessage());
+
+        byte[] truncated = "99123".getBytes();
+        e1 = assertThrows(ISOException.class, () -> interpreted.getFieldPackager(2).unpack(new ISOField(2), truncated, 0));
+        e2 = assertThrows(ISOException.class, () -> compiled.getFieldPackager(2).unpack(new ISOField(2), truncated, 0));
+        assertEquals(e1.getMessage(), e2.getMessage());
+    }
+
+    @Test
+    public void testNotCompiled() {
+        IFA_BITMAP bitmap = new IFA_BITMAP(16, "bitmap");
+        assertSame(bitmap, CompiledFieldPackager.compile(bitmap));
+        IF_CHAR custom = new IF_CHAR(10, "custom") {
+            @Override
+            public byte[] pack(ISOComponent c) throws ISOException {
+                return super.pack(c);
+            }
+        };
+        assertSame(custom, CompiledFieldPackager.compile(custom));
+        IF_CHAR c = new IF_CHAR(10, "char");
+        ISOFieldPackager compiled = CompiledFieldPackager.compile(c);
+        assertNotSame(c, compiled);
+        assertSame(compiled, CompiledFieldPackager.compile(compiled));
+    }
+
+    private static ISOMsg createMessage() throws ISOException {
+        ISOMsg m = new ISOMsg("0200");
+        m.set(2, "4111111111111111");
+        m.set(3, "000000");
+        m.set(4, "000000010000");
+        m.set(7, "1018103000");
+        m.set(11, "000001");
+        m.set(35, "4111111111111111=2812101");
+        m.set(41, "29110001");
+        m.set(42, "001001001001001");
+        m.set(43, "MERCHANT NAME");
+        m.set(52, ISOUtil.hex2byte("0123456789ABCDEF"));
+        m.set(102, "0123456789");
+        return m;
+    }
+}
@@ -21,8 +21,16 @@ package org.jpos.iso;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.jpos.iso.packager.GenericPackager;
+import org.jpos.iso.packager.ISO87APackager;
+import org.jpos.iso.packager.ISO93BPackager;
 import org.jpos.util.Logger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,4 +94,99 @@ public class ISOBasePackagerTest {
         assertThat(iSOBasePackager.getFieldPackager(0), is(iSOFieldPackager));
     }
 
+    @Test
+    public void testPackMatchesFieldImages() throws Exception {
+        for (ISOBasePackager p : new ISOBasePackager[] {
+          new ISO87APackager(), new ISO93BPackager(), new GenericPackager("jar:packager/iso87ascii.xml") })
+        {
+            ISOMsg m = createMessage(p);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            expected.write(p.getFieldPackager(0).pack(m.getComponent(0)));
+            expected.write(p.getFieldPackager(1).pack(m.getComponent(-1)));
+            for (int i=2; i<=m.getMaxField(); i++) {
+                if (m.hasField(i))
+                    expected.write(p.getFieldPackager(i).pack(m.getComponent(i)));
+            }
+            assertThat(p.getClass().getSimpleName(), m.pack(), is(expected.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testPackIntoByteBuffer() throws Exception {
+        ISO87APackager p = new ISO87APackager();
+        ISOMsg m = createMessage(p);
+        byte[] image = m.pack();
+
+        ByteBuffer heap = ByteBuffer.allocate(image.length + 10);
+        Arrays.fill(heap.array(), (byte) 0xFF);
+        heap.position(5);
+        assertThat(p.pack(m, heap), is(image.length));
+        assertThat(heap.position(), is(5 + image.length));
+        assertThat(Arrays.copyOfRange(heap.array(), 5, 5 + image.length), is(image));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(image.length);
+        p.pack(m, direct);
+        byte[] b = new byte[image.length];
+        direct.flip().get(b);
+        assertThat(b, is(image));
+
+        assertThrows(ISOException.class, () -> p.pack(m, ByteBuffer.allocate(image.length - 1)));
+    }
+
+    @Test
+    public void testLazyUnpack() throws Exception {
+        for (ISOBasePackager p : new ISOBasePackager[] {
+          new ISO87APackager(), new ISO93BPackager(), new GenericPackager("jar:packager/iso87ascii.xml") })
+        {
+            byte[] image = createMessage(p).pack();
+            ISOMsg eager = new ISOMsg();
+            eager.setPackager(p);
+            p.unpack(eager, image);
+            ISOMsg lazy = new ISOMsg();
+            lazy.setPackager(p);
+            assertThat(p.unpack(lazy, image, true), is(image.length));
+            assertThat(lazy.getChildren().size(), is(eager.getChildren().size()));
+            for (int i=0; i<=eager.getMaxField(); i++) {
+                if (eager.hasField(i))
+                    assertThat(p.getClass().getSimpleName() + " field " + i,
+                      lazy.getComponent(i).getValue(), is(eager.getComponent(i).getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testLazyUnpackInvalidatesImage() throws Exception {
+        ISO87APackager p = new ISO87APackager();
+        byte[] image = createMessage(p).pack();
+        ISOMsg m = new ISOMsg();
+        m.setPackager(p);
+        p.unpack(m, image, true);
+        ISOMsg c = (ISOMsg) m.clone();
+        assertThat(m.getString(11), is("000001"));
+        assertThat(m.pack(), is(image));
+
+        m.set(11, "000002");
+        ISOMsg expected = createMessage(p);
+        expected.set(11, "000002");
+        assertThat(m.pack(), is(expected.pack()));
+        assertThat(c.getString(11), is("000001"));
+        assertThat(c.pack(), is(image));
+        assertThat(m.getBytes(52), is(ISOUtil.hex2byte("0123456789ABCDEF")));
+    }
+
+    private static ISOMsg createMessage(ISOPackager p) throws ISOException {
+        ISOMsg m = new ISOMsg("0200");
+        m.setPackager(p);
+        m.set(2, "4111111111111111");
+        m.set(3, "000000");
+        m.set(4, "000000010000");
+        m.set(7, "1018103000");
+        m.set(11, "000001");
+        m.set(35, "4111111111111111=2812101");
+        m.set(41, "29110001");
+        m.set(42, "001001001001001");
+        m.set(52, ISOUtil.hex2byte("0123456789ABCDEF"));
+        m.set(102, "0123456789");
+        return m;
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+public class ISOFieldMapTest {
+    @Test
+    public void testBehavesLikeTreeMap() {
+        Random r = new Random(42L);
+        ISOFieldMap m = new ISOFieldMap();
+        TreeMap<Integer,Object> t = new TreeMap<>();
+        for (int i=0; i<10_000; i++) {
+            int k = switch (r.nextInt(5)) {
+                case 0 -> r.nextInt(3000) - 1000;     // overflow keys
+                case 1 -> -1;
+                default -> r.nextInt(193);
+            };
+            if (r.nextInt(3) == 0)
+                assertEquals(t.remove(k), m.remove((Object) k));
+            else
+                assertEquals(t.put(k, "v" + i), m.put(k, "v" + i));
+            assertEquals(t.size(), m.size());
+            assertEquals(t.get(k), m.get((Object) k));
+            assertEquals(t.containsKey(k), m.containsKey((Object) k));
+            assertEquals(t.isEmpty() ? Integer.MIN_VALUE : t.lastKey(), m.maxKey());
+        }
+        assertEquals(new ArrayList<>(t.keySet()), new ArrayList<>(m.keySet()));
+        assertEquals(t, m);
+        assertEquals(t.hashCode(), m.hashCode());
+    }
+
+    @Test
+    public void testNextKey() {
+        ISOFieldMap m = new ISOFieldMap();
+        for (int k : new int[] { -5, -1, 0, 2, 63, 64, 128, 192, 5000 })
+            m.put(k, "x");
+        List<Integer> keys = new ArrayList<>();
+        for (int k = m.nextKey(Integer.MIN_VALUE + 1); k != Integer.MIN_VALUE; k = m.nextKey(k + 1))
+            keys.add(k);
+        assertEquals(List.of(-5, -1, 0, 2, 63, 64, 128, 192, 5000), keys);
+        assertEquals(64, m.nextKey(64));
+        assertEquals(128, m.nextKey(65));
+        assertEquals(5000, m.nextKey(193));
+        assertEquals(Integer.MIN_VALUE, m.nextKey(5001));
+    }
+
+    @Test
+    public void testCloneAndIteratorRemove() {
+        ISOFieldMap m = new ISOFieldMap();
+        for (int i=0; i<=128; i++)
+            m.put(i, Integer.toString(i));
+        ISOFieldMap c = m.clone();
+        for (Iterator<Map.Entry<Integer,Object>> iter = c.entrySet().iterator(); iter.hasNext(); ) {
+            Map.Entry<Integer,Object> e = iter.next();
+            if (e.getKey() % 2 == 0)
+                iter.remove();
+            else
+                e.setValue("odd");
+        }
+        assertEquals(129, m.size());
+        assertEquals("2", m.get(2));
+        assertEquals(64, c.size());
+        assertNull(c.get(2));
+        assertEquals("odd", c.get(3));
+        assertEquals(127, c.maxKey());
+    }
+
+    @Test
+    public void testISOMsg() throws ISOException {
+        ISOMsg m = new ISOMsg("0800");
+        m.set(11, "000001");
+        m.set(70, "301");
+        m.set(150, "150");
+        assertInstanceOf(ISOFieldMap.class, m.getChildren());
+        assertEquals(150, m.getMaxField());
+        assertTrue(m.hasFields(new int[] { 0, 11, 70 }));
+        assertFalse(m.hasFields(new int[] { 0, 11, 41 }));
+        m.recalcBitMap();
+        assertEquals("{11, 70, 150}", m.getComponent(-1).getValue().toString());
+        m.unset(150);
+        assertEquals(70, m.getMaxField());
+        ISOMsg c = (ISOMsg) m.clone();
+        c.unset(70);
+        assertTrue(m.hasField(70));
+        assertEquals(11, c.getMaxField());
+    }
+}
@@ -22,6 +22,7 @@ import static org.apache.commons.lang3.JavaVersion.JAVA_14;
 import static org.apache.commons.lang3.SystemUtils.isJavaVersionAtMost;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import jdk.jfr.Configuration;
@@ -44,6 +45,7 @@ import java.util.concurrent.Executors;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 public class ISOServerTest {
@@ -133,6 +135,72 @@ public class ISOServerTest {
         recording.close();
     }
 
+    @Test
+    public void testNioPipelinedRequests() throws Exception {
+        int clients = 50;
+        int requests = 5;
+        CSChannel channel = new CSChannel();
+        channel.setPackager(new ISO87BPackager());
+
+        ISOServer server = new ISOServer(9998, channel, clients);
+        SimpleConfiguration cfg = new SimpleConfiguration();
+        cfg.put("backlog", "100");
+        cfg.put("nio", "true");
+        cfg.put("nio-selectors", "2");
+        server.setConfiguration(cfg);
+        server.setLogger(new Logger(), "ISOServerTest");
+        server.addISORequestListener(new AutoResponder());
+        CountDownLatch accepted = new CountDownLatch(clients);
+        CountDownLatch disconnected = new CountDownLatch(clients);
+        server.addServerEventListener(ev -> {
+            if (ev instanceof ISOServerAcceptEvent)
+                accepted.countDown();
+            else if (ev instanceof ISOServerClientDisconnectEvent)
+                disconnected.countDown();
+        });
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        executor.submit(server);
+        ISOUtil.sleep (1000L);
+
+        CountDownLatch latch = new CountDownLatch(clients);
+        AtomicInteger responses = new AtomicInteger();
+        for (int i=0; i<clients; i++) {
+            final int j = i;
+            executor.submit (() -> {
+                try {
+                    CSChannel c = new CSChannel("localhost", 9998, new ISO87BPackager());
+                    c.setTimeout(10000);
+                    c.connect();
+                    for (int k=0; k<requests; k++) {
+                        ISOMsg m = new ISOMsg("0800");
+                        m.set(11, ISOUtil.zeropad(j*requests+k, 6));
+                        c.send (m);
+                    }
+                    for (int k=0; k<requests; k++) {
+                        ISOMsg r = c.receive();
+                        if (ISOUtil.zeropad(j*requests+k, 6).equals(r.getString(11)) && "00".equals(r.getString(39)))
+                            responses.incrementAndGet();
+                    }
+                    c.disconnect();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        try {
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertEquals(clients * requests, responses.get(), "responses should arrive in order");
+            assertTrue(accepted.await(5, TimeUnit.SECONDS));
+            assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+        } finally {
+            server.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
     private class AutoResponder implements ISORequestListener {
         @Override
         public boolean process(ISOSource source, ISOMsg m) {
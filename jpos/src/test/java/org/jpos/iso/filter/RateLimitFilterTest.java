@@ -0,0 +1,90 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso.filter;
+
+import org.jpos.core.ConfigurationException;
+import org.jpos.core.SimpleConfiguration;
+import org.jpos.iso.ISOFilter;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.RateLimitPolicy;
+import org.jpos.util.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTest {
+    @Test
+    public void testRejectPerTerminal() throws Exception {
+        RateLimitFilter filter = createFilter ("41", "2", "reject");
+        ISOMsg a = createMsg ("TERM0001");
+        ISOMsg b = createMsg ("TERM0002");
+        assertSame (a, filter.filter (null, a, new LogEvent()));
+        assertSame (a, filter.filter (null, a, new LogEvent()));
+        assertThrows (ISOFilter.VetoException.class, () -> filter.filter (null, a, new LogEvent()));
+        assertSame (b, filter.filter (null, b, new LogEvent()));
+    }
+
+    @Test
+    public void testDelay() throws Exception {
+        RateLimitFilter filter = createFilter ("41", "20", "delay");
+        ISOMsg m = createMsg ("TERM0001");
+        long start = System.nanoTime();
+        for (int i=0; i<22; i++)
+            assertSame (m, filter.filter (null, m, new LogEvent()));
+        assertTrue (System.nanoTime() - start >= 50_000_000L, "messages over the burst should have been delayed");
+    }
+
+    @Test
+    public void testBINKey() throws Exception {
+        RateLimitPolicy policy = new RateLimitPolicy();
+        Properties props = new Properties();
+        props.setProperty ("key", "2:6 0");
+        props.setProperty ("permits", "10");
+        policy.setConfiguration (new SimpleConfiguration (props));
+        ISOMsg m = createMsg ("TERM0001");
+        m.set (2, "4111111111111111");
+        assertEquals ("411111|0100", policy.getKey (m));
+    }
+
+    @Test
+    public void testMissingPermits() {
+        Properties props = new Properties();
+        props.setProperty ("key", "41");
+        assertThrows (ConfigurationException.class,
+          () -> new RateLimitFilter().setConfiguration (new SimpleConfiguration (props)));
+    }
+
+    private RateLimitFilter createFilter (String key, String permits, String action) throws ConfigurationException {
+        Properties props = new Properties();
+        props.setProperty ("key", key);
+        props.setProperty ("permits", permits);
+        props.setProperty ("action", action);
+        RateLimitFilter filter = new RateLimitFilter();
+        filter.setConfiguration (new SimpleConfiguration (props));
+        return filter;
+    }
+
+    private ISOMsg createMsg (String terminalId) {
+        ISOMsg m = new ISOMsg ("0100");
+        m.set (41, terminalId);
+        return m;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.iso.filter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.jpos.iso.ISOAmount;
+import org.jpos.iso.ISOFilter;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.header.BaseHeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class XSLTTemplatesFilterTest {
+    private static final String XSL =
+      "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n" +
+      " <xsl:template match=\"@*|node()\">\n" +
+      "  <xsl:copy><xsl:apply-templates select=\"@*|node()\"/></xsl:copy>\n" +
+      " </xsl:template>\n" +
+      " <xsl:template match=\"field[@id='3']\">\n" +
+      "  <field id=\"3\" value=\"{concat('PREFIX', substring(@value, 3))}\"/>\n" +
+      " </xsl:template>\n" +
+      " <xsl:template match=\"field[@id='11']\">\n" +
+      "  <xsl:copy-of select=\".\"/>\n" +
+      "  <field id=\"37\" value=\"{concat('000000', @value)}\"/>\n" +
+      " </xsl:template>\n" +
+      "</xsl:stylesheet>\n";
+
+    @TempDir
+    Path dir;
+
+    private ISOMsg createMsg() throws Exception {
+        ISOMsg m = new ISOMsg("0200");
+        m.setHeader(new BaseHeader(new byte[] { 0x60, 0x00, 0x01, 0x00, 0x00 }));
+        m.set(3, "000000");
+        m.set(11, "123456");
+        m.set(41, "TERM<01>");
+        m.set(52, new byte[] { 0x01, 0x02, (byte) 0xFF });
+        m.set(new ISOAmount(54, 840, new BigDecimal("12.34")));
+        m.set("48.1", "inner & \"quoted\"");
+        return m;
+    }
+
+    private String writeXSL(String prefix) throws Exception {
+        File f = dir.resolve("filter.xsl").toFile();
+        Files.writeString(f.toPath(), XSL.replace("PREFIX", prefix));
+        return f.getAbsolutePath();
+    }
+
+    @Test
+    public void testFilter() throws Throwable {
+        XSLTTemplatesFilter filter = new XSLTTemplatesFilter(writeXSL("99"), 0L);
+        ISOMsg m = filter.filter(null, createMsg(), null);
+        assertEquals("0200", m.getMTI());
+        assertEquals("990000", m.getString(3));
+        assertEquals("123456", m.getString(11));
+        assertEquals("000000123456", m.getString(37));
+        assertEquals("TERM<01>", m.getString(41));
+        assertArrayEquals(new byte[] { 0x01, 0x02, (byte) 0xFF }, m.getBytes(52));
+        assertEquals(new BigDecimal("12.34"), ((ISOAmount) m.getComponent(54)).getAmount());
+        assertEquals("inner & \"quoted\"", m.getString("48.1"));
+        assertArrayEquals(new byte[] { 0x60, 0x00, 0x01, 0x00, 0x00 }, m.getHeader());
+    }
+
+    @Test
+    public void testSameResultAsXSLTFilter() throws Throwable {
+        String xsl = writeXSL("99");
+        ISOMsg expected = new XSLTFilter(xsl, false).filter(null, createMsg(), null);
+        expected.setPackager(null);
+        ISOMsg m = new XSLTTemplatesFilter(xsl, 0L).filter(null, createMsg(), null);
+        assertEquals(dump(expected), dump(m));
+    }
+
+    @Test
+    public void testReload() throws Throwable {
+        String xsl = writeXSL("99");
+        XSLTTemplatesFilter filter = new XSLTTemplatesFilter(xsl, 1L);
+        assertEquals("990000", filter.filter(null, createMsg(), null).getString(3));
+        writeXSL("77");
+        new File(xsl).setLastModified(System.currentTimeMillis() + 60000L);
+        Thread.sleep(10L);
+        assertEquals("770000", filter.filter(null, createMsg(), null).getString(3));
+    }
+
+    @Test
+    public void testNotConfigured() {
+        assertThrows(ISOFilter.VetoException.class, () -> new XSLTTemplatesFilter().filter(null, new ISOMsg("0800"), null));
+    }
+
+    private String dump(ISOMsg m) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m.dump(new PrintStream(out), "");
+        return out.toString();
+    }
+}
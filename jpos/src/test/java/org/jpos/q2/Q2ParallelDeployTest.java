@@ -0,0 +1,86 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class Q2ParallelDeployTest {
+    static final List<String> started = Collections.synchronizedList(new ArrayList<>());
+    static final CountDownLatch together = new CountDownLatch(2);
+    static volatile boolean concurrent = true;
+
+    @Test
+    public void testParallelDeploy(@TempDir Path deployDir) throws IOException {
+        descriptor (deployDir, "10_a.xml", "pd-a", "", "sleep");
+        descriptor (deployDir, "20_b.xml", "pd-b", "", "together");
+        descriptor (deployDir, "20_c.xml", "pd-c", "", "together");
+        descriptor (deployDir, "x_d.xml", "pd-d", "pd-e", "");
+        descriptor (deployDir, "x_e.xml", "pd-e", "", "sleep");
+
+        Q2 q2 = new Q2(new String[] { "-d", deployDir.toString(), "-Pd", "-Ns" });
+        q2.start();
+        try {
+            assertTrue(q2.ready(10000L), "Q2 should be ready");
+            assertEquals(5, started.size(), "started " + started);
+            assertTrue(started.indexOf("pd-a") < started.indexOf("pd-b"), "10_ before 20_ " + started);
+            assertTrue(started.indexOf("pd-a") < started.indexOf("pd-c"), "10_ before 20_ " + started);
+            assertTrue(concurrent, "20_b and 20_c should start concurrently");
+            assertTrue(started.indexOf("pd-c") < started.indexOf("pd-e"), "prefixed before non-prefixed " + started);
+            assertTrue(started.indexOf("pd-e") < started.indexOf("pd-d"), "pd-d depends on pd-e " + started);
+        } finally {
+            q2.shutdown(true);
+        }
+    }
+
+    private void descriptor (Path dir, String file, String name, String depends, String mode) throws IOException {
+        Files.writeString(dir.resolve(file),
+          "<recorder class=\"" + Recorder.class.getName() + "\" name=\"" + name + "\" depends=\"" + depends + "\">\n" +
+          " <property name=\"mode\" value=\"" + mode + "\" />\n" +
+          "</recorder>\n");
+    }
+
+    public static class Recorder extends QBeanSupport {
+        @Override
+        protected void startService() throws Exception {
+            switch (cfg.get("mode")) {
+                case "sleep" -> Thread.sleep(200L);
+                case "together" -> {
+                    together.countDown();
+                    if (!together.await(5L, TimeUnit.SECONDS))
+                        concurrent = false;
+                }
+                default -> { }
+            }
+            started.add(getName());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.q2.iso;
+
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorrelationTableTest {
+    @Test
+    public void testDuplicateKey() {
+        CorrelationTable table = new CorrelationTable();
+        assertNotNull(table.register("send.0800000000029110001000001", 0L));
+        assertNull(table.register("send.0800000000029110001000001", 0L), "duplicate key should be rejected");
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testMatch() {
+        CorrelationTable table = new CorrelationTable();
+        CorrelationTable.Pending p = table.register("K", 0L);
+        ISOMsg resp = new ISOMsg("0810");
+        Thread.ofVirtual().start(() -> table.complete("K", resp));
+        assertSame(resp, p.await(5000L));
+        assertEquals(0, table.size());
+        assertFalse(table.complete("K", resp), "already matched");
+    }
+
+    @Test
+    public void testAwaitTimeout() {
+        CorrelationTable table = new CorrelationTable();
+        CorrelationTable.Pending p = table.register("K", 0L);
+        assertNull(p.await(100L));
+        assertFalse(table.isPending("K"), "expired request should be removed");
+        assertFalse(table.complete("K", new ISOMsg("0810")), "late response should not match");
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        CorrelationTable table = new CorrelationTable();
+        CompletableFuture<ISOMsg> f = table.register("K", 100L).future();
+        assertNull(f.get(5L, TimeUnit.SECONDS), "expired request should complete with null");
+        assertEquals(0, table.size());
+    }
+}
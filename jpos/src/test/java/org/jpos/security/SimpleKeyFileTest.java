@@ -20,11 +20,15 @@ package org.jpos.security;
 
 import static org.apache.commons.lang3.JavaVersion.JAVA_14;
 import static org.apache.commons.lang3.SystemUtils.isJavaVersionAtMost;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.util.Properties;
 
 import org.jpos.core.Configuration;
@@ -32,6 +36,7 @@ import org.jpos.core.ConfigurationException;
 import org.jpos.core.SimpleConfiguration;
 import org.jpos.util.Logger;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class SimpleKeyFileTest {
 
@@ -213,4 +218,31 @@ public class SimpleKeyFileTest {
             assertNull(simpleKeyFile.file, "simpleKeyFile.file");
         }
     }
+
+    @Test
+    public void testCachedKeys(@TempDir Path dir) throws Throwable {
+        String file = dir.resolve("keys").toString();
+        SecureDESKey k1 = new SecureDESKey((short) 128, "ZPK", "0123456789ABCDEF0123456789ABCDEF", "0123456789ABCDEF");
+        SimpleKeyFile writer = new SimpleKeyFile(file);
+        writer.setKey("k1", k1);
+
+        SimpleKeyFile ks = new SimpleKeyFile(file);
+        ks.setCache(true, 0L);
+        SecureKey a = ks.getKey("k1");
+        SecureKey b = ks.getKey("k1");
+        assertNotSame(a, b, "cached keys should not be shared");
+        assertArrayEquals(k1.getKeyBytes(), a.getKeyBytes());
+        assertEquals("ZPK", a.getKeyType());
+
+        SecureDESKey k2 = new SecureDESKey((short) 128, "TPK", "FEDCBA9876543210FEDCBA9876543210", "FEDCBA9876543210");
+        writer.setKey("k2", k2);
+        new File(file).setLastModified(System.currentTimeMillis() + 2000L); // in case mtime has a coarse resolution
+        assertArrayEquals(k2.getKeyBytes(), ks.getKey("k2").getKeyBytes(), "file changes should be picked up");
+        try {
+            ks.getKey("k3");
+            fail("Expected SecureKeyStoreException to be thrown");
+        } catch (SecureKeyStore.SecureKeyStoreException ex) {
+            assertEquals("Key can't be retrieved. Can't get property: k3.class", ex.getMessage());
+        }
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.jpos.security.jceadapter;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.jpos.core.ConfigurationException;
@@ -124,6 +126,40 @@ public class DUKPTTest {
         test_DUKPT ("test-bdk", new KeySerialNumber ("9876543210", "00004", "00002"), ISOUtil.hex2byte ("AEF0F261B1222EB1"), PAN,true);
     }
 
+    @Test
+    public void test_DUKPTCache() throws Exception {
+        JCESecurityModule cachedSM = new JCESecurityModule();
+        Properties props = new Properties();
+        props.put("lmk", "build/resources/test/org/jpos/security/lmk-test");
+        props.put("dukpt-cache-size", "16");
+        cachedSM.setConfiguration(new SimpleConfiguration(props));
+        SecureDESKey bdk = ks.getKey("test-bdk");
+        String[][] vectors = {
+          { "00002", "B76997F83C1479DB", "S" }, { "00003", "925BC2A39652CF75", "S" },
+          { "00009", "8DC939C56D0FD13C", "S" }, { "FF800", "A6552D24B01E71A0", "S" },
+          { "00003", "925BC2A39652CF75", "S" },
+          { "00001", "1B9C1845EB993A7A", "T" }, { "00003", "18DC07B94797B466", "T" },
+          { "0000F", "B170F6E7F7F2F64A", "T" }, { "FF800", "33365F5CC6F23C35", "T" },
+          { "FF801", "3A86BF003F835C9D", "T" }, { "FF808", "B0DA04AC90A36D85", "T" },
+          { "00001", "1B9C1845EB993A7A", "T" }
+        };
+        for (String[] v : vectors) {
+            KeySerialNumber ksn = new KeySerialNumber("987654", "3210E", v[0]);
+            EncryptedPIN pin = new EncryptedPIN(ISOUtil.hex2byte(v[1]), SMAdapter.FORMAT01, PAN);
+            boolean tdes = "T".equals(v[2]);
+            assertEquals(
+              sm.decryptPIN(sm.importPIN(pin, ksn, bdk, tdes)),
+              cachedSM.decryptPIN(cachedSM.importPIN(pin, ksn, bdk, tdes)),
+              "counter " + v[0] + " " + v[2]
+            );
+        }
+        DUKPTKeyCache cache = cachedSM.getDUKPTKeyCache();
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getMisses());
+        assertEquals(10, cache.getHits());
+        assertTrue(sm.getDUKPTKeyCache() == null, "cache should be disabled by default");
+    }
+
     @Test
     public void test_dataEncrypt() throws Exception {
         SecureDESKey bdk = ks.getKey("test-bdk");
@@ -18,6 +18,7 @@
 
 package org.jpos.security.jceadapter;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -31,9 +32,17 @@ import static org.apache.commons.lang3.SystemUtils.isJavaVersionAtMost;
 
 import java.security.Key;
 import java.security.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.crypto.spec.SecretKeySpec;
 
+import org.jpos.iso.ISOUtil;
+import org.jpos.security.SMAdapter;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -394,4 +403,32 @@ public class JCEHandlerTest {
             assertNull(ex.getNested(), "ex.getNested()");
         }
     }
+
+    @Test
+    public void testPooledEnginesAreThreadConfined() throws Throwable {
+        Key key = jCEHandler.formDESKey(SMAdapter.LENGTH_DES3_2KEY, ISOUtil.hex2byte("0123456789ABCDEFFEDCBA9876543210"));
+        byte[] data = ISOUtil.hex2byte("00112233445566778899AABBCCDDEEFF");
+        byte[] mac = jCEHandler.generateMAC(data, key, "DESEDEMAC");
+        byte[] cryptogram = jCEHandler.encryptData(data, key);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        assertArrayEquals(mac, jCEHandler.generateMAC(data, key, "DESEDEMAC"));
+                        assertArrayEquals(cryptogram, jCEHandler.encryptData(data, key));
+                        assertArrayEquals(data, jCEHandler.decryptData(cryptogram, key));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures)
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(JCEHandler.cipherEngines.get("DESede/ECB/NoPadding").size() <= JCEHandler.POOL_SIZE);
+        assertTrue(JCEHandler.macEngines.get("DESEDEMAC").size() <= JCEHandler.POOL_SIZE);
+    }
 }
@@ -213,6 +213,34 @@ public class JESpaceTestCase {
         assertNotNull(sp.inp("KA"), "Entry should not be null");
     }
     @Test
+    public void testInWokenUpByOut() throws Exception {
+        new Thread() {
+            public void run() {
+                ISOUtil.sleep (500L);
+                sp.out ("OTHER", Boolean.FALSE);
+                sp.out ("WAKEUP", Boolean.TRUE);
+            }
+        }.start();
+        Instant now = Instant.now();
+        assertEquals(Boolean.TRUE, sp.in ("WAKEUP", 5000L));
+        long elapsed = Duration.between(now, Instant.now()).toMillis();
+        assertTrue(elapsed > 400L && elapsed < 4000L, "in should wait for out, elapsed=" + elapsed);
+        assertEquals(Boolean.FALSE, sp.inp ("OTHER"));
+    }
+    @Test
+    public void testNrdWokenUpByInp() throws Exception {
+        sp.out ("NRD", Boolean.TRUE);
+        new Thread() {
+            public void run() {
+                ISOUtil.sleep (200L);
+                sp.inp ("NRD");
+            }
+        }.start();
+        Instant now = Instant.now();
+        assertNull(sp.nrd ("NRD", 5000L));
+        assertTrue(Duration.between(now, Instant.now()).toMillis() < 4000L, "nrd should return once the entry is taken");
+    }
+    @Test
     public void testByteArray() throws Exception {
         String S = "The quick brown fox jumped over the lazy dog";
         sp.out ("ByteArray", S.getBytes());
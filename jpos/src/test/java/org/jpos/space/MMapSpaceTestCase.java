@@ -0,0 +1,251 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.space;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.jpos.iso.ISOMsg;
+import org.jpos.transaction.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+@SuppressWarnings("unchecked")
+public class MMapSpaceTestCase {
+    public static final int COUNT = 1000;
+    MMapSpace<String,Object> sp;
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    public void setUp () {
+        sp = open ();
+    }
+    @AfterEach
+    public void tearDown () {
+        sp.close();
+    }
+    @Test
+    public void testOutRdpInpRdp() {
+        Object o = Boolean.TRUE;
+        String k = "testOutRdpInpRdp_Key";
+        sp.out (k, o);
+        assertTrue (o.equals (sp.rdp (k)));
+        assertTrue (o.equals (sp.rd  (k)));
+        assertTrue (o.equals (sp.rd  (k, 1000)));
+        assertTrue (o.equals (sp.inp (k)));
+        assertTrue (sp.rdp (k) == null);
+        assertTrue (sp.rd  (k, 100) == null);
+    }
+    @Test
+    public void testSingleKeyLoad() {
+        String s = "The quick brown fox jumped over the lazy dog";
+        String k = "testSingleKeyLoad_Key";
+        for (int i=0; i<COUNT; i++)
+            sp.out (k, s + i);
+        assertEquals (COUNT, sp.size (k));
+        for (int i=0; i<COUNT; i++)
+            assertEquals (s + i, sp.in (k));
+        assertNull (sp.rdp (k));
+    }
+    @Test
+    public void testTemplate () {
+        String key = "TemplateTest_Key";
+        sp.out (key, "Value 1");
+        sp.out (key, "Value 2");
+        sp.out (key, "Value 3");
+
+        assertEquals ("Value 2", sp.rdp (new MD5Template (key, "Value 2")));
+        assertEquals ("Value 2", sp.inp (new MD5Template (key, "Value 2")));
+        assertEquals ("Value 1", sp.inp (key));
+        assertEquals ("Value 3", sp.inp (key));
+    }
+    @Test
+    public void testPush() {
+        sp.push ("PUSH", "ONE");
+        sp.push ("PUSH", "TWO");
+        sp.push ("PUSH", "THREE");
+        sp.out  ("PUSH", "FOUR");
+        assertEquals ("THREE", sp.rdp ("PUSH"));
+        assertEquals ("THREE", sp.inp ("PUSH"));
+        assertEquals ("TWO", sp.inp ("PUSH"));
+        assertEquals ("ONE", sp.inp ("PUSH"));
+        assertEquals ("FOUR", sp.inp ("PUSH"));
+        assertNull (sp.rdp ("PUSH"));
+    }
+    @Test
+    public void testPut () {
+        sp.out ("PUT", "ONE");
+        sp.out ("PUT", "TWO");
+        sp.put ("PUT", "ZERO");
+        assertEquals("ZERO", sp.rdp("PUT"));
+        assertEquals("ZERO", sp.inp("PUT"));
+        assertNull(sp.rdp("PUT"));
+    }
+    @Test
+    public void testExpiration() throws Exception {
+        sp.out ("OUT", "ONE", 100L);
+        sp.out ("OUT", "TWO");
+        assertEquals ("ONE", sp.rdp ("OUT"));
+        Thread.sleep (200L);
+        assertEquals ("TWO", sp.rdp ("OUT"));
+        assertEquals (1, sp.size ("OUT"));
+    }
+    @Test
+    public void testExist() {
+        sp.out ("KEYA", Boolean.TRUE);
+        assertTrue (sp.existAny (new String[] { "KEYA", "KEYB" }));
+        assertFalse (sp.existAny (new String[] { "KEYC", "KEYD" }));
+    }
+    @Test
+    public void testPersistentContext() {
+        Context ctx = new Context();
+        ctx.put("P", "ABC", true);
+        ISOMsg m = new ISOMsg("0800");
+        m.set(11, "000001");
+        ctx.put("ISOMSG", m, true);
+        sp.out("CTX", ctx);
+        assertNotNull(sp.in("CTX"), "entry should not be null");
+    }
+    @Test
+    public void testRecover() {
+        sp.out ("A", "ONE");
+        sp.out ("A", "TWO");
+        sp.push ("A", "ZERO");
+        sp.out ("B", "B1");
+        sp.out ("C", "C1");
+        assertEquals ("B1", sp.inp ("B"));
+        sp.setAutoCommit (false);
+        sp.out ("C", "C2");
+        sp.commit ();
+        sp.setAutoCommit (true);
+        sp.close ();
+
+        sp = open ();
+        assertEquals ("ZERO", sp.inp ("A"));
+        assertEquals ("ONE", sp.inp ("A"));
+        assertEquals ("TWO", sp.inp ("A"));
+        assertNull (sp.rdp ("B"));
+        assertEquals (2, sp.size ("C"));
+        sp.out ("A", "THREE");
+        sp.close ();
+
+        sp = open ();
+        assertEquals ("THREE", sp.inp ("A"));
+        assertEquals ("C1", sp.inp ("C"));
+    }
+    @Test
+    public void testTornRecord() throws IOException {
+        sp.out ("T", "ONE");
+        sp.out ("T", "TWO");
+        sp.close ();
+
+        Path segment = segments().get(0);
+        try (RandomAccessFile f = new RandomAccessFile (segment.toFile(), "rw")) {
+            // first record is intact, corrupt the last byte of the second one
+            long pos = f.readInt() + 8L;
+            f.seek (pos);
+            long end = pos + 8L + f.readInt() - 1L;
+            f.seek (end);
+            int b = f.read();
+            f.seek (end);
+            f.write (b ^ 0xFF);
+        }
+        sp = open ();
+        assertEquals ("ONE", sp.inp ("T"));
+        assertNull (sp.rdp ("T"));
+        sp.out ("T", "THREE");
+        sp.close ();
+
+        sp = open ();
+        assertEquals ("THREE", sp.inp ("T"));
+    }
+    @Test
+    public void testCompaction() throws IOException {
+        String s = "x".repeat(1000);
+        sp.out ("LONG-LIVED", "KEEP");
+        for (int i=0; i<200; i++) {
+            sp.out ("$STATE." + i, s);
+            sp.out ("$CONTEXT." + i, s);
+            sp.inp ("$STATE." + i);
+            sp.inp ("$CONTEXT." + i);
+        }
+        assertTrue (segments().size() > 3);
+        sp.gc();
+        assertEquals (1, segments().size());
+        assertEquals ("KEEP", sp.rdp ("LONG-LIVED"));
+        sp.close ();
+
+        sp = open ();
+        assertEquals ("KEEP", sp.inp ("LONG-LIVED"));
+        assertNull (sp.rdp ("$STATE.199"));
+    }
+
+    @Test
+    public void testCompactionDeleteFailure() throws IOException {
+        String s = "x".repeat(1000);
+        for (int i=0; i<200; i++) {
+            sp.out ("$STATE." + i, s);
+            sp.inp ("$STATE." + i);
+        }
+        List<Path> before = segments();
+        assertTrue (before.size() > 3);
+
+        // turn the oldest segment into a non empty directory so it can't be deleted
+        Path oldest = before.get(0);
+        Path held = dir.resolve ("held");
+        Files.move (oldest, held);
+        Files.createDirectories (oldest.resolve ("x"));
+        sp.gc();
+        assertEquals (before.size() + 1, segments().size(), "no segment should go past the one that could not be deleted");
+
+        Files.delete (oldest.resolve ("x"));
+        Files.delete (oldest);
+        Files.move (held, oldest);
+        sp.gc();
+        assertEquals (1, segments().size());
+        sp.close ();
+
+        sp = open ();
+        assertNull (sp.rdp ("$STATE.0"));
+        assertNull (sp.rdp ("$STATE.199"));
+    }
+
+    private MMapSpace<String,Object> open () {
+        return new MMapSpace<>("mmap-test", dir + ",segment.size=65536");
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list (dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -971,4 +971,40 @@ public class TLVListTest {
         assertArrayEquals(ISOUtil.hex2byte("01"),instance.getValue(0xDF3F));
         assertArrayEquals(buf, instance.pack());
     }
+
+    @Test
+    public void testUnpackQueriesBeforeTags() {
+        byte[] buf = ISOUtil.hex2byte("9F360200419F260811223344556677885F2A020978");
+        instance.unpack(buf);
+        Arrays.fill(buf, (byte) 0x00);
+        assertEquals("0041", instance.getString(0x9F36));
+        assertNull(instance.getString(0x95));
+        assertArrayEquals(ISOUtil.hex2byte("0978"), instance.getValue(0x5F2A));
+        assertTrue(instance.hasTag(0x9F26));
+        assertEquals(1, instance.findIndex(0x9F26));
+        assertNull(instance.findNextTLV());
+        List<TLVMsg> tags = instance.getTags();
+        assertEquals(3, tags.size());
+        assertEquals(0x9F26, tags.get(1).getTag());
+        assertArrayEquals(ISOUtil.hex2byte("1122334455667788"), tags.get(1).getValue());
+        assertEquals("9F360200419F260811223344556677885F2A020978", ISOUtil.hexString(instance.pack()));
+    }
+
+    @Test
+    public void testPackIntoBuffer() {
+        instance.append(TEST_TAG3, new byte[300]);
+        instance.append(TEST_TAG1, ISOUtil.hex2byte("0102"));
+        byte[] packed = instance.pack();
+        assertEquals(2 + 3 + 300 + 4, packed.length);
+        assertEquals(packed.length, instance.getPackedLength());
+        byte[] b = new byte[packed.length + 2];
+        assertEquals(packed.length, instance.pack(b, 1));
+        assertArrayEquals(packed, Arrays.copyOfRange(b, 1, packed.length + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.pack(new byte[packed.length - 1], 0));
+
+        TLVList tl = BUILDER_FT1FL2.build();
+        tl.append(TEST_TAG1, ISOUtil.hex2byte("0102"));
+        assertArrayEquals(ISOUtil.hex2byte("6400020102"), tl.pack());
+        assertEquals(5, tl.getPackedLength());
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.tlv;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.jpos.iso.ISOUtil;
+import org.junit.jupiter.api.Test;
+
+public class TLVViewTest {
+
+    static final byte[] ICC_DATA = ISOUtil.hex2byte(
+      "009F360200417007" + "5A0541111111119F02060000000010000000" + "8200");
+
+    @Test
+    public void testIndex() {
+        TLVView v = TLVView.of(ICC_DATA);
+        assertEquals(4, v.size());
+        assertEquals(0x9F36, v.getTag(0));
+        assertEquals(0x70, v.getTag(1));
+        assertEquals(0x9F02, v.getTag(2));
+        assertEquals(0x82, v.getTag(3));
+        assertEquals(4, v.getValueOffset(0));
+        assertEquals(2, v.getValueLength(0));
+        assertEquals(0, v.getValueLength(3));
+        assertSame(ICC_DATA, v.getBuffer());
+        assertThrows(IndexOutOfBoundsException.class, () -> v.getTag(4));
+    }
+
+    @Test
+    public void testValues() {
+        TLVView v = TLVView.of(ICC_DATA);
+        assertEquals("0041", v.getString(0x9F36));
+        assertEquals("000000001000", v.getString(0x9F02));
+        assertEquals("", v.getString(0x82));
+        assertNull(v.getString(0x95));
+        assertNull(v.getValue(0x95));
+        assertNull(v.getValueBuffer(0x95));
+        assertArrayEquals(ISOUtil.hex2byte("0041"), v.getValue(0x9F36));
+
+        ByteBuffer bb = v.getValueBuffer(0x9F36);
+        assertTrue(bb.isReadOnly());
+        assertEquals(2, bb.remaining());
+        assertEquals(0x0041, bb.getShort());
+
+        byte[] dst = new byte[4];
+        assertEquals(2, v.copyValue(0, dst, 1));
+        assertArrayEquals(ISOUtil.hex2byte("00004100"), dst);
+    }
+
+    @Test
+    public void testConstructed() {
+        TLVView v = TLVView.of(ICC_DATA);
+        assertFalse(v.isConstructed(0));
+        assertTrue(v.isConstructed(1));
+        assertFalse(v.hasTag(0x5A));
+        TLVView template = v.getConstructed(1);
+        assertSame(template, v.getConstructed(1));
+        assertEquals(1, template.size());
+        assertEquals("4111111111", template.getString(0x5A));
+        assertSame(template, v.find(0x5A));
+        assertSame(v, v.find(0x9F02));
+        assertNull(v.find(0x95));
+        assertThrows(IllegalArgumentException.class, () -> v.getConstructed(0));
+    }
+
+    @Test
+    public void testSameAsTLVList() {
+        TLVList tl = new TLVList();
+        tl.unpack(ICC_DATA);
+        TLVView v = TLVView.of(ICC_DATA);
+        assertEquals(tl.getTags().size(), v.size());
+        for (int i=0; i<v.size(); i++) {
+            assertEquals(tl.index(i).getTag(), v.getTag(i));
+            assertArrayEquals(tl.index(i).getValue(), v.getValueAt(i));
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        byte[] b = ISOUtil.hex2byte("FFFF9F360200418201");
+        TLVView v = TLVView.of(b, 2, 5);
+        assertEquals(1, v.size());
+        assertEquals("0041", v.getString(0x9F36));
+        assertThrows(IndexOutOfBoundsException.class, () -> TLVView.of(b, 5, 5));
+    }
+
+    @Test
+    public void testBadFormat() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+          () -> TLVView.of(ISOUtil.hex2byte("9F36050041")));
+        assertEquals(String.format(TLVListTest.EXCEPT_MSG_EXCEEDS_AVAL, 0x9F36, 5), ex.getMessage());
+        ex = assertThrows(IllegalArgumentException.class, () -> TLVView.of(ISOUtil.hex2byte("9F36")));
+        assertEquals(String.format(TLVListTest.EXCEPT_MSG_WITHOUT_LEN, 0x9F36), ex.getMessage());
+        ex = assertThrows(IllegalArgumentException.class, () -> TLVView.of(ISOUtil.hex2byte("9F")));
+        assertEquals("BAD TLV FORMAT: encoded tag id is too short", ex.getMessage());
+    }
+}
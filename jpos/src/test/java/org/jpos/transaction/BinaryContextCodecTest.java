@@ -0,0 +1,258 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOUtil;
+import org.jpos.iso.packager.ISO87APackager;
+import org.jpos.util.Serializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryContextCodecTest {
+    @BeforeEach
+    public void setUp() {
+        Context.setCodec (new BinaryContextCodec());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Context.setCodec (new SerializationContextCodec());
+        BinaryContextCodec.unregisterPackager ("iso87");
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Context ctx = createContext();
+        Context ctx1 = Serializer.serializeDeserialize (ctx);
+        assertEquals ("ABC", ctx1.getString ("STRING"));
+        assertEquals (Integer.valueOf (42), ctx1.get ("INTEGER"));
+        assertEquals (Long.valueOf (-1L), ctx1.get ("LONG"));
+        assertEquals (Boolean.TRUE, ctx1.get ("BOOLEAN"));
+        assertEquals (Double.valueOf (1.5d), ctx1.get ("DOUBLE"));
+        assertEquals (new BigDecimal ("-1234.5600"), ctx1.get ("BIGDECIMAL"));
+        assertEquals (new BigInteger ("123456789012345678901234567890"), ctx1.get ("BIGINTEGER"));
+        assertArrayEquals (ISOUtil.hex2byte ("CAFEBABE"), (byte[]) ctx1.get ("BYTES"));
+        assertEquals (Instant.ofEpochSecond (1760000000L, 123456789), ctx1.get ("INSTANT"));
+        assertEquals (new Date (1760000000000L), ctx1.get ("DATE"));
+        assertEquals (List.of ("A", "B"), ctx1.get ("LIST"));
+        assertEquals ("nested", ((Context) ctx1.get ("CONTEXT")).getString ("N"));
+        assertNull (ctx1.get ("TRANSIENT"));
+        assertTrue (ctx1.hasPersistedKey ("STRING"));
+
+        ISOMsg m = ctx1.get ("REQUEST");
+        assertEquals ("0200", m.getMTI());
+        assertEquals ("000001", m.getString (11));
+        assertEquals ("C00000010", m.getString ("28"));
+        assertEquals (ISOMsg.INCOMING, m.getDirection());
+        assertEquals (new ArrayList<>(ctx.getMap().keySet()).subList (0, 12),
+          new ArrayList<>(ctx1.getMap().keySet()).subList (0, 12), "insertion order should be preserved");
+    }
+
+    @Test
+    public void testPackedISOMsg() throws Exception {
+        ISO87APackager p = new ISO87APackager();
+        ISOMsg m = createMessage();
+        m.setPackager (p);
+        ISOMsg received = new ISOMsg();
+        received.setPackager (p);
+        p.unpack (received, m.pack(), true);
+        received.setDirection (ISOMsg.INCOMING);
+        Context ctx = new Context();
+        ctx.put ("REQUEST", received, true);
+        byte[] unregistered = Serializer.serialize (ctx);
+
+        BinaryContextCodec.registerPackager ("iso87", p);
+        byte[] packed = Serializer.serialize (ctx);
+        ISOMsg m1 = ((Context) Serializer.deserialize (packed)).get ("REQUEST");
+        assertArrayEquals (m.pack(), m1.pack());
+        assertSame (p, m1.getPackager());
+        assertEquals (ISOMsg.INCOMING, m1.getDirection());
+        assertTrue (packed.length < unregistered.length, "packed=" + packed.length + ", unregistered=" + unregistered.length);
+
+        received.set (11, "000002");
+        ISOMsg m2 = ((Context) Serializer.serializeDeserialize (ctx)).get ("REQUEST");
+        assertEquals ("000002", m2.getString (11), "modified message should not be stored using its stale image");
+
+        BinaryContextCodec.unregisterPackager ("iso87");
+        assertThrows (IOException.class, () -> Serializer.deserialize (packed), "packager should be required to read");
+    }
+
+    @Test
+    public void testHandBuiltISOMsg() throws Exception {
+        ISO87APackager p = new ISO87APackager();
+        BinaryContextCodec.registerPackager ("iso87", p);
+        ISOMsg m = new ISOMsg ("0200");
+        m.setPackager (p);
+        m.set (4, "10000");
+        m.set (11, "1");
+        m.set (41, "T1");
+        Context ctx = new Context();
+        ctx.put ("REQUEST", m, true);
+        ISOMsg m1 = ((Context) Serializer.serializeDeserialize (ctx)).get ("REQUEST");
+        assertEquals ("10000", m1.getString (4));
+        assertEquals ("1", m1.getString (11));
+        assertEquals ("T1", m1.getString (41));
+    }
+
+    @Test
+    public void testSharedValues() throws Exception {
+        ISOMsg m = createMessage();
+        byte[] b = ISOUtil.hex2byte ("CAFEBABE");
+        Context nested = new Context();
+        nested.put ("N", "nested", true);
+        Context ctx = new Context();
+        ctx.put ("REQUEST", m, true);
+        ctx.put ("BYTES", b, true);
+        ctx.put ("CONTEXT", nested, true);
+        ctx.put ("ORIGINAL_REQUEST", m, true);
+        ctx.put ("ORIGINAL_BYTES", b, true);
+        ctx.put ("ORIGINAL_CONTEXT", nested, true);
+
+        Context ctx1 = Serializer.serializeDeserialize (ctx);
+        assertSame (ctx1.get ("REQUEST"), ctx1.get ("ORIGINAL_REQUEST"));
+        assertSame (ctx1.get ("BYTES"), ctx1.get ("ORIGINAL_BYTES"));
+        assertSame (ctx1.get ("CONTEXT"), ctx1.get ("ORIGINAL_CONTEXT"));
+        assertEquals ("000001", ((ISOMsg) ctx1.get ("ORIGINAL_REQUEST")).getString (11));
+        assertEquals ("nested", ((Context) ctx1.get ("ORIGINAL_CONTEXT")).getString ("N"));
+    }
+
+    @Test
+    public void testObjectInputFilter() throws Exception {
+        Context ctx = new Context();
+        ctx.put ("COUNTER", new Counter (7), true);
+        byte[] b = Serializer.serialize (ctx);
+        assertEquals (7, ((Counter) ((Context) Serializer.deserialize (b)).get ("COUNTER")).n);
+
+        ObjectInputStream in = new ObjectInputStream (new ByteArrayInputStream (b));
+        in.setObjectInputFilter (ObjectInputFilter.Config.createFilter ("!" + Counter.class.getName()));
+        assertThrows (InvalidClassException.class, in::readObject);
+    }
+
+    @Test
+    public void testReadsLegacyFormat() throws Exception {
+        Context.setCodec (new SerializationContextCodec());
+        Context ctx = createContext();
+        byte[] legacy = Serializer.serialize (ctx);
+        Context.setCodec (new BinaryContextCodec());
+        byte[] binary = Serializer.serialize (ctx);
+        Context ctx1 = (Context) Serializer.deserialize (legacy);
+        assertEquals (new BigDecimal ("-1234.5600"), ctx1.get ("BIGDECIMAL"));
+        assertEquals ("000001", ((ISOMsg) ctx1.get ("REQUEST")).getString (11));
+        assertTrue (binary.length < legacy.length, "binary=" + binary.length + ", legacy=" + legacy.length);
+    }
+
+    @Test
+    public void testCustomCodec() throws Exception {
+        Context.setCodec (new BinaryContextCodec() {
+            @Override
+            public int getId() {
+                return 99;
+            }
+        });
+        Context ctx = createContext();
+        byte[] b = Serializer.serialize (ctx);
+        assertEquals ("ABC", ((Context) Serializer.deserialize (b)).getString ("STRING"));
+    }
+
+    @Test
+    public void testUnknownCodec() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream (baos)) {
+            out.writeByte (100);
+        }
+        ObjectInputStream in = new ObjectInputStream (new ByteArrayInputStream (baos.toByteArray()));
+        assertThrows (IOException.class, () -> new Context().readExternal (in));
+    }
+
+    private static Context createContext() throws Exception {
+        Context ctx = new Context();
+        ctx.put ("STRING", "ABC", true);
+        ctx.put ("INTEGER", 42, true);
+        ctx.put ("LONG", -1L, true);
+        ctx.put ("BOOLEAN", Boolean.TRUE, true);
+        ctx.put ("DOUBLE", 1.5d, true);
+        ctx.put ("BIGDECIMAL", new BigDecimal ("-1234.5600"), true);
+        ctx.put ("BIGINTEGER", new BigInteger ("123456789012345678901234567890"), true);
+        ctx.put ("BYTES", ISOUtil.hex2byte ("CAFEBABE"), true);
+        ctx.put ("INSTANT", Instant.ofEpochSecond (1760000000L, 123456789), true);
+        ctx.put ("DATE", new Date (1760000000000L), true);
+        ctx.put ("LIST", new ArrayList<>(List.of ("A", "B")), true);
+        ctx.put ("REQUEST", createMessage(), true);
+        Context nested = new Context();
+        nested.put ("N", "nested", true);
+        ctx.put ("CONTEXT", nested, true);
+        ctx.put ("TRANSIENT", "not persisted");
+        return ctx;
+    }
+
+    public static class Counter implements Externalizable {
+        int n;
+
+        public Counter() { }
+
+        Counter (int n) {
+            this.n = n;
+        }
+
+        @Override
+        public void writeExternal (ObjectOutput out) throws IOException {
+            out.writeInt (n);
+        }
+
+        @Override
+        public void readExternal (ObjectInput in) throws IOException {
+            n = in.readInt();
+        }
+    }
+
+    private static ISOMsg createMessage() throws Exception {
+        ISOMsg m = new ISOMsg ("0200");
+        m.set (2, "4111111111111111");
+        m.set (3, "000000");
+        m.set (4, "000000010000");
+        m.set (11, "000001");
+        m.set (28, "C00000010");
+        m.set (41, "29110001");
+        m.set (42, "001001001001001");
+        m.set (52, ISOUtil.hex2byte ("0123456789ABCDEF"));
+        m.setDirection (ISOMsg.INCOMING);
+        return m;
+    }
+}
@@ -33,11 +33,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.jpos.iso.ISOUtil;
 import org.jpos.util.LogEvent;
 import org.jpos.util.Serializer;
 import org.junit.jupiter.api.Test;
@@ -155,20 +160,69 @@ public class ContextTest {
     }
 
     @Test
-    public void testGetThrowsNullPointerException() throws Throwable {
+    public void testGetWithTimeoutOnEmptyContext() throws Throwable {
         Context context = new Context();
-        try {
-            context.get("", 49L);
-            fail("Expected NullPointerException to be thrown");
-        } catch (NullPointerException ex) {
-            if (isJavaVersionAtMost(JAVA_14)) {
-                assertNull(ex.getMessage(), "ex.getMessage()");
-            } else {
-                assertEquals("Cannot invoke \"java.util.Map.get(Object)\" because \"this.map\" is null", ex.getMessage(), "ex.getMessage()");
-            }
+        assertNull(context.get("", 49L), "result");
+    }
+
+    @Test
+    public void testGetWithTimeoutWokenUpByPut() throws Throwable {
+        Context context = new Context();
+        new Thread(() -> {
+            ISOUtil.sleep(200L);
+            context.put("OTHER", "ignored", true);
+            context.put("KEY", "VALUE", true);
+        }).start();
+        long start = System.currentTimeMillis();
+        assertEquals("VALUE", context.get("KEY", 5000L));
+        assertTrue(System.currentTimeMillis() - start < 4000L, "get should return once the key is put");
+    }
+
+    @Test
+    public void testInsertionOrder() throws Throwable {
+        Context context = new Context();
+        for (int i=20; i>0; i--)
+            context.put("K" + i, i);
+        context.put("K10", "updated");
+        context.remove("K5");
+        context.put("K5", 5);
+        List<Object> keys = new ArrayList<>(context.getMap().keySet());
+        assertEquals("K20", keys.get(0));
+        assertEquals("K10", keys.get(10));
+        assertEquals("K5", keys.get(19));
+        assertEquals(new ArrayList<>(context.getMapClone().keySet()), keys);
+    }
+
+    @Test
+    public void testNullKeysAndValues() throws Throwable {
+        Context context = new Context();
+        context.put(null, "NULLKEY");
+        context.put("NULLVALUE", null);
+        assertEquals("NULLKEY", context.get(null));
+        assertTrue(context.hasKey("NULLVALUE"));
+        assertTrue(context.hasKeys((Object) null));
+        assertNull(context.get("NULLVALUE"));
+        assertEquals("NULLKEY", context.remove(null));
+        assertFalse(context.hasKey(null));
+    }
+
+    @Test
+    public void testConcurrentGetResult() throws Throwable {
+        Context context = new Context();
+        Set<Object> results = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int i=0; i<threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                results.add(context.getResult());
+                results.add(context.getLogEvent());
+            });
+            threads[i].start();
         }
+        for (Thread t : threads)
+            t.join();
+        assertEquals(2, results.size(), "all threads should get the same Result and LogEvent");
     }
-    
+
     @Test
     public void testLog1() throws Throwable {
         new Context().log("");
@@ -363,6 +417,33 @@ public class ContextTest {
         assertFalse(ctx.hasPersistedKey("B"));
     }
 
+    @Test
+    public void testDefaultCodec() {
+        assertEquals(SerializationContextCodec.ID, Context.getCodec().getId(), "binary codec should be opt-in");
+    }
+
+    @Test
+    public void testMoveNullValue() {
+        Context ctx = new Context();
+        ctx.put ("A", "ABC", true);
+        ctx.put ("A", null);
+        assertNull(ctx.move ("A", "B"));
+        assertTrue(ctx.hasKey("A"));
+        assertTrue(ctx.hasPersistedKey("A"));
+        assertFalse(ctx.hasKey("B"));
+    }
+
+    @Test
+    public void testTraceOnDemandEntries() {
+        Context ctx = new Context();
+        ctx.setTrace(true);
+        ctx.getResult();
+        ctx.getLogEvent();
+        Set<String> events = ctx.getProfiler().getEvents().keySet();
+        assertTrue(events.stream().anyMatch(e -> e.startsWith("RESULT=") && e.contains("getResult")), events.toString());
+        assertTrue(events.stream().anyMatch(e -> e.startsWith("LOGEVT=") && e.contains("getLogEvent")), events.toString());
+    }
+
     @Test
     public void testCloneKeys() {
         Context ctx = new Context();
@@ -0,0 +1,87 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.transaction;
+
+import org.jpos.space.Space;
+import org.jpos.space.SpaceError;
+import org.jpos.space.TSpace;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitterTest {
+    @Test
+    public void testConcurrentCommits() throws Exception {
+        Space<String,Object> sp = new TSpace<>();
+        AtomicInteger commits = new AtomicInteger();
+        GroupCommitter gc = new GroupCommitter(sp, 10L, 1000, s -> { }, s -> commits.incrementAndGet());
+        gc.start("group-commit-test");
+        int count = 500;
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i=0; i<count; i++) {
+                String key = "K" + i;
+                futures.add(executor.submit(() -> {
+                    gc.commit(() -> sp.out(key, Boolean.TRUE));
+                    assertNotNull(sp.rdp(key), "operation should be visible once commit returns");
+                }));
+            }
+            for (Future<?> f : futures)
+                f.get();
+        } finally {
+            gc.stop();
+        }
+        assertEquals(count, gc.getOperations());
+        assertEquals(commits.get(), gc.getBatches());
+        assertTrue(gc.getBatches() < count, "operations should have been batched");
+        assertEquals(0, gc.getPending());
+    }
+
+    @Test
+    public void testFailedOperation() {
+        Space<String,Object> sp = new TSpace<>();
+        GroupCommitter gc = new GroupCommitter(sp, 1L, 10, s -> { }, s -> { });
+        gc.start("group-commit-test");
+        try {
+            SpaceError e = assertThrows(SpaceError.class, () -> gc.commit(() -> { throw new IllegalStateException("boom"); }));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            gc.commit(() -> sp.out("K", "V"));
+            assertEquals("V", sp.rdp("K"));
+        } finally {
+            gc.stop();
+        }
+    }
+
+    @Test
+    public void testCommitAfterStop() {
+        Space<String,Object> sp = new TSpace<>();
+        AtomicInteger commits = new AtomicInteger();
+        GroupCommitter gc = new GroupCommitter(sp, 1L, 10, s -> { }, s -> commits.incrementAndGet());
+        gc.commit(() -> sp.out("K", "V"));
+        assertEquals("V", sp.rdp("K"));
+        assertEquals(1, commits.get());
+    }
+}
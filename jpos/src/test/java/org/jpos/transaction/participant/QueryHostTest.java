@@ -32,6 +32,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +62,20 @@ public class QueryHostTest implements TransactionConstants, MUX {
         assertFalse (ctx.getResult().hasFailures(), "Should not have failures");
     }
 
+    @Test
+    public void testSimpleQueryContinuations() throws Exception {
+        Context ctx = new Context();
+        cfg.put("continuations", "yes");
+        queryHost.setConfiguration(cfg);
+        ctx.put(ContextConstants.REQUEST.toString(), createDummyRequest());
+        ctx.put(ContextConstants.DESTINATION.toString(), "TEST");
+        int action = queryHost.prepare(1L, ctx);
+        assertEquals(PAUSE | READONLY | NO_JOIN, action);
+        assertEquals(PREPARED | READONLY | NO_JOIN, ctx.pause().get(1L, TimeUnit.SECONDS));
+        assertNotNull (ctx.get(ContextConstants.RESPONSE.toString()));
+        assertFalse (ctx.getResult().hasFailures(), "Should not have failures");
+    }
+
     @Test
     public void testNoRequest() throws Exception {
         Context ctx = new Context();
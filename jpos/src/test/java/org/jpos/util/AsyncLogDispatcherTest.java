@@ -0,0 +1,160 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import org.jpos.core.SimpleConfiguration;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLogDispatcherTest {
+    @Test
+    public void testOrderAndFreeze() throws Exception {
+        Logger logger = new Logger();
+        List<LogEvent> events = Collections.synchronizedList(new ArrayList<>());
+        logger.addListener(evt -> { events.add(evt); return evt; });
+        logger.startAsync(16, AsyncLogDispatcher.OverflowPolicy.BLOCK);
+        LogSource source = new SimpleLogSource(logger, "test");
+
+        ISOMsg m = new ISOMsg("0800");
+        m.set(11, "000001");
+        LogEvent evt = new LogEvent(source, "info", m);
+        Logger.log(evt);
+        m.set(11, "000002"); // changes after log() must not be visible to the listeners
+        for (int i=0; i<100; i++)
+            Logger.log(new LogEvent(source, "info", i));
+        logger.stopAsync();
+
+        assertNull(logger.getAsyncDispatcher());
+        assertEquals(101, events.size());
+        ISOMsg logged = (ISOMsg) events.get(0).getPayLoad().get(0);
+        assertNotSame(m, logged);
+        assertEquals("000001", logged.getString(11));
+        for (int i=0; i<100; i++)
+            assertEquals(i, events.get(i+1).getPayLoad().get(0));
+    }
+
+    @Test
+    public void testProtectedLogListener() throws Exception {
+        Logger logger = new Logger();
+        ProtectedLogListener protect = new ProtectedLogListener();
+        SimpleConfiguration cfg = new SimpleConfiguration();
+        cfg.put("protect", "2");
+        cfg.put("wipe", "52");
+        protect.setConfiguration(cfg);
+        logger.addListener(protect);
+        List<LogEvent> events = Collections.synchronizedList(new ArrayList<>());
+        logger.addListener(evt -> { events.add(evt); return evt; });
+        logger.startAsync(16, AsyncLogDispatcher.OverflowPolicy.BLOCK);
+        LogSource source = new SimpleLogSource(logger, "test");
+
+        ISOMsg m = new ISOMsg("0200");
+        m.set(2, "4111111111111111");
+        m.set(52, "0123456789ABCDEF");
+        ISOMsg inner = (ISOMsg) m.clone();
+        byte[] b = new byte[] { 1, 2, 3 };
+        Logger.log(new LogEvent(source, "info", m));
+        Logger.log(new LogEvent(source, "info", new SimpleMsg("msg", "request", inner)));
+        Logger.log(new LogEvent(source, "info", b));
+        b[0] = 0;
+        logger.stopAsync();
+
+        assertEquals(3, events.size());
+        ISOMsg logged = (ISOMsg) events.get(0).getPayLoad().get(0);
+        assertEquals("411111______1111", logged.getString(2));
+        assertEquals("[WIPED]", logged.getString(52));
+        assertEquals("4111111111111111", m.getString(2), "caller's message should not be protected");
+        SimpleMsg sm = (SimpleMsg) events.get(1).getPayLoad().get(0);
+        assertEquals("411111______1111", ((ISOMsg) sm.getMsgContent()).getString(2));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) events.get(2).getPayLoad().get(0));
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        Logger logger = new Logger();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> messages = Collections.synchronizedList(new ArrayList<>());
+        logger.addListener(evt -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) { }
+            messages.add(evt.getPayLoad().get(0));
+            return evt;
+        });
+        logger.startAsync(4, AsyncLogDispatcher.OverflowPolicy.DROP_OLDEST);
+        AsyncLogDispatcher d = logger.getAsyncDispatcher();
+        LogSource source = new SimpleLogSource(logger, "test");
+
+        Logger.log(new LogEvent(source, "info", -1));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS), "writer should be busy");
+        for (int i=0; i<10; i++)
+            Logger.log(new LogEvent(source, "info", i));
+        assertEquals(6, d.getDropped());
+        assertEquals(4, d.getQueueDepth());
+        release.countDown();
+        logger.stopAsync();
+        assertEquals(List.of(-1, 6, 7, 8, 9), messages);
+    }
+
+    @Test
+    public void testDropDebug() throws Exception {
+        Logger logger = new Logger();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> tags = Collections.synchronizedList(new ArrayList<>());
+        logger.addListener(evt -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) { }
+            tags.add(evt.getTag());
+            return evt;
+        });
+        logger.startAsync(2, AsyncLogDispatcher.OverflowPolicy.DROP_DEBUG);
+        AsyncLogDispatcher d = logger.getAsyncDispatcher();
+        LogSource source = new SimpleLogSource(logger, "test");
+
+        Logger.log(new LogEvent(source, "info", "busy"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS), "writer should be busy");
+        Logger.log(new LogEvent(source, "info", "a"));
+        Logger.log(new LogEvent(source, "info", "b"));
+        Logger.log(new LogEvent(source, Log.DEBUG, "c"));
+        Logger.log(new LogEvent(source, Log.TRACE, "d"));
+        assertEquals(2, d.getDropped());
+        release.countDown();
+        logger.stopAsync();
+        assertEquals(List.of("info", "info", "info"), tags);
+    }
+
+    @Test
+    public void testOverflowPolicyNames() {
+        assertEquals(AsyncLogDispatcher.OverflowPolicy.BLOCK, AsyncLogDispatcher.OverflowPolicy.of("block"));
+        assertEquals(AsyncLogDispatcher.OverflowPolicy.DROP_OLDEST, AsyncLogDispatcher.OverflowPolicy.of("drop-oldest"));
+        assertEquals(AsyncLogDispatcher.OverflowPolicy.DROP_DEBUG, AsyncLogDispatcher.OverflowPolicy.of(" Drop-Debug "));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteArrayPoolTest {
+    @Test
+    public void testRecycle() {
+        ByteArrayPool pool = new ByteArrayPool(4, 2);
+        byte[] b = pool.acquire(100);
+        assertEquals(100, b.length);
+        assertEquals(1, pool.getMisses());
+        pool.release(b);
+        assertSame(b, pool.acquire(100));
+        assertEquals(1, pool.getHits());
+        assertNotSame(b, pool.acquire(100), "pool should be empty");
+        assertEquals(101, pool.acquire(101).length);
+    }
+
+    @Test
+    public void testBounds() {
+        ByteArrayPool pool = new ByteArrayPool(1, 1);
+        byte[] a = new byte[10];
+        byte[] b = new byte[10];
+        pool.release(a);
+        pool.release(b);      // only one slot per length
+        pool.release(new byte[20]); // only one length
+        assertSame(a, pool.acquire(10));
+        assertNotSame(b, pool.acquire(10));
+        pool.acquire(20);
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+    }
+}
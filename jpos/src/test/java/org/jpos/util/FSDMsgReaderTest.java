@@ -0,0 +1,195 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom2.Element;
+import org.jpos.space.SpaceFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FSDMsgReaderTest {
+    static final String FIXED = "fsd-reader-fixed-";
+    static final String SEPARATED = "fsd-reader-separated-";
+    static final String VARIABLE = "fsd-reader-variable-";
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    public static void createSchemas() {
+        Element fixed = new Element("schema");
+        appendField(fixed, "seq", "N", null, 8, null);
+        appendField(fixed, "name", "A", null, 10, null);
+        appendField(fixed, "mac", "B", null, 2, null);
+        appendField(fixed, "eol", "K", null, 1, "\n");
+        SpaceFactory.getSpace().put(FIXED + "base.xml", fixed);
+
+        Element separated = new Element("schema");
+        appendField(separated, "seq", "N", "FS", 8, null);
+        appendField(separated, "name", "A", "0A", 20, null);
+        SpaceFactory.getSpace().put(SEPARATED + "base.xml", separated);
+
+        Element variable = new Element("schema");
+        appendField(variable, "seq", "N", null, 8, null);
+        appendField(variable, "data", "LLA", null, 99, null);
+        appendField(variable, "eol", "K", null, 1, "\n");
+        SpaceFactory.getSpace().put(VARIABLE + "base.xml", variable);
+    }
+
+    private static void appendField(Element schema, String id, String type, String separator, int len, String text) {
+        Element field = new Element("field");
+        field.setAttribute("id", id);
+        field.setAttribute("type", type);
+        if (separator != null)
+            field.setAttribute("separator", separator);
+        field.setAttribute("length", String.valueOf(len));
+        if (text != null)
+            field.setText(text);
+        schema.addContent(field);
+    }
+
+    private Path writeFixed(int records) throws Exception {
+        Path file = dir.resolve("fixed.dat");
+        try (FSDMsgWriter writer = new FSDMsgWriter(file)) {
+            FSDMsg m = new FSDMsg(FIXED);
+            for (int i=0; i<records; i++) {
+                m.set("seq", Integer.toString(i));
+                m.set("name", "name" + i % 100);
+                m.set("mac", Integer.toHexString(i & 0xFFFF));
+                writer.write(m);
+            }
+            assertEquals(records, writer.getCount());
+        }
+        return file;
+    }
+
+    @Test
+    public void testReadWrittenRecords() throws Throwable {
+        Path file = writeFixed(1000);
+        assertEquals(21000L, Files.size(file));
+        try (FSDMsgReader reader = new FSDMsgReader(new FSDMsg(FIXED), file)) {
+            FSDMsg first = reader.next();
+            assertEquals("00000000", first.get("seq"));
+            for (int i=1; i<1000; i++) {
+                FSDMsg m = reader.next();
+                assertSame(first, m, "record is reused");
+                assertEquals(i, m.getInt("seq"));
+                assertEquals(String.format("name%-6d", i % 100), m.get("name"));
+                assertEquals(String.format("%04X", i & 0xFFFF), m.get("mac"));
+            }
+            assertNull(reader.next());
+            assertEquals(1000, reader.getCount());
+        }
+    }
+
+    @Test
+    public void testTruncatedRecord() throws Throwable {
+        Path file = writeFixed(10);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(21 * 9 + 12); // seq and part of name
+        }
+        try (FSDMsgReader reader = new FSDMsgReader(new FSDMsg(FIXED), file)) {
+            for (int i=0; i<9; i++)
+                assertFalse(reader.next().hasField("EOF"));
+            FSDMsg last = reader.next();
+            assertEquals("true", last.get("EOF"));
+            assertEquals(9, last.getInt("seq"));
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testParallelFixedLength() throws Throwable {
+        Path file = writeFixed(5000);
+        AtomicLong sum = new AtomicLong();
+        long count = FSDMsgReader.forEach(new FSDMsg(FIXED), file, 4, m -> sum.addAndGet(m.getInt("seq")));
+        assertEquals(5000, count);
+        assertEquals(5000L * 4999 / 2, sum.get());
+        assertThrows(IllegalArgumentException.class,
+          () -> FSDMsgReader.forEach(new FSDMsg(SEPARATED), file, 4, m -> { }));
+    }
+
+    @Test
+    public void testLengthPrefixAcrossBufferBoundaries() throws Throwable {
+        // records are 31 chars long (8 + 2 + 20 + 1) but the first one, which is 24, so that
+        // the 64k buffer boundary falls between the two chars of a length prefix
+        int records = 10000;
+        Path file = dir.resolve("variable.dat");
+        try (FSDMsgWriter writer = new FSDMsgWriter(file)) {
+            FSDMsg m = new FSDMsg(VARIABLE);
+            for (int i=0; i<records; i++) {
+                m.set("seq", Integer.toString(i));
+                m.set("data", i == 0 ? "0123456789ABC" : String.format("record %013d", i));
+                writer.write(m);
+            }
+        }
+        assertEquals(24L + 31L * (records - 1), Files.size(file));
+        try (FSDMsgReader reader = new FSDMsgReader(new FSDMsg(VARIABLE), file)) {
+            FSDMsg m;
+            int i = 0;
+            while ((m = reader.next()) != null) {
+                assertFalse(m.hasField("EOF"), "record " + i + " truncated");
+                assertEquals(i, m.getInt("seq"));
+                if (i > 0)
+                    assertEquals(String.format("record %013d", i), m.get("data"));
+                i++;
+            }
+            assertEquals(records, i);
+            assertEquals(records, reader.getCount());
+        }
+    }
+
+    @Test
+    public void testSeparatedRecords() throws Throwable {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FSDMsgWriter writer = new FSDMsgWriter(Channels.newChannel(out))) {
+            FSDMsg m = new FSDMsg(SEPARATED);
+            for (int i=0; i<100; i++) {
+                m.set("seq", Integer.toString(i));
+                m.set("name", "name " + i);
+                writer.write(m);
+            }
+        }
+        assertEquals("0\u001Cname 0\n1\u001Cname 1\n", new String(out.toByteArray(), 0, 18));
+        try (FSDMsgReader reader = new FSDMsgReader(new FSDMsg(SEPARATED), ByteBuffer.wrap(out.toByteArray()))) {
+            for (int i=0; i<100; i++) {
+                FSDMsg m = reader.next();
+                assertEquals(Integer.toString(i), m.get("seq"));
+                assertEquals("name " + i, m.get("name"));
+            }
+            assertNull(reader.next());
+        }
+    }
+}
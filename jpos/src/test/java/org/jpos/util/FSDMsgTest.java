@@ -1183,4 +1183,69 @@ public class FSDMsgTest {
         msg1.unpack(packed.getBytes());
         assertEquals(msg, msg1);
     }
+
+    @Test
+    public void testCompiledSchemaMatchesElementWalk() throws Throwable {
+        Element schema = createSchema();
+        appendField(schema, "type", "N", null, 4);
+        appendField(schema, "name", "A", "FS", 20);
+        appendField(schema, "pan", "LLN", null, 19);
+        appendField(schema, "mac", "B", null, 4);
+        Element key = new Element("field");
+        key.setAttribute("id", "kind");
+        key.setAttribute("type", "A");
+        key.setAttribute("length", "2");
+        key.setAttribute("key", "true");
+        schema.addContent(key);
+        Element sub = new Element("schema");
+        appendField(sub, "amount", "N", null, 12);
+        appendField(sub, "tail", "A", "EOF", 10);
+        SpaceFactory.getSpace().put(SCHEMA_PREFIX + "base01.xml", sub);
+
+        FSDMsg compiled = new FSDMsg(SCHEMA_PREFIX);
+        FSDMsg walked = new FSDMsg(SCHEMA_PREFIX) {
+            @Override
+            protected String read(InputStreamReader r, int len, String type, String separator) throws IOException {
+                return super.read(r, len, type, separator);
+            }
+        };
+        for (FSDMsg m : new FSDMsg[] { compiled, walked }) {
+            m.set("type", "200");
+            m.set("name", "John Doe");
+            m.set("pan", "4111111111111111");
+            m.set("mac", "CAFE");
+            m.set("kind", "01");
+            m.set("amount", "1000");
+            m.set("tail", "end");
+        }
+        String packed = walked.pack();
+        assertEquals(packed, compiled.pack());
+
+        FSDMsg u = new FSDMsg(SCHEMA_PREFIX);
+        u.unpack(packed.getBytes(ISOUtil.CHARSET));
+        FSDMsg w = new FSDMsg(SCHEMA_PREFIX) {
+            @Override
+            protected String read(InputStreamReader r, int len, String type, String separator) throws IOException {
+                return super.read(r, len, type, separator);
+            }
+        };
+        w.unpack(packed.getBytes(ISOUtil.CHARSET));
+        assertEquals(w.getMap(), u.getMap());
+        assertEquals("000000001000", u.get("amount"));
+        assertEquals("0000CAFE", u.get("mac"));
+    }
+
+    @Test
+    public void testCompiledSchemaReloaded() throws Throwable {
+        Element schema = createSchema();
+        appendField(schema, "name", "A", null, 4);
+        FSDMsg m = new FSDMsg(SCHEMA_PREFIX);
+        m.set("name", "AB");
+        assertEquals("AB  ", m.pack());
+
+        schema = createSchema();
+        appendField(schema, "name", "N", null, 6);
+        m.set("name", "12");
+        assertEquals("000012", m.pack());
+    }
 }
@@ -25,11 +25,16 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.jpos.iso.ISOUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -115,6 +120,64 @@ public class NameRegistrarTest {
         NameRegistrar.unregister("unknownKey");
     }
 
+    @Test
+    public void testGetWithTimeout() throws Exception {
+        assertThat(NameRegistrar.get("test1", 1000L), is("testValue1"));
+        assertThat(NameRegistrar.get("test4", 100L), is(nullValue()));
+        new Thread(() -> {
+            ISOUtil.sleep(200L);
+            NameRegistrar.register("test4", "testValue4");
+        }).start();
+        try {
+            long start = System.currentTimeMillis();
+            assertThat(NameRegistrar.get("test4", 5000L), is("testValue4"));
+            assertTrue(System.currentTimeMillis() - start < 4000L, "get should return once registered");
+        } finally {
+            NameRegistrar.unregister("test4");
+        }
+    }
+
+    @Test
+    public void testHandle() throws Exception {
+        NameRegistrar.Handle<String> handle = NameRegistrar.getHandle("test5");
+        assertFalse(handle.isPresent());
+        assertThrows(NameRegistrar.NotFoundException.class, handle::getOrThrow);
+        NameRegistrar.register("test5", "testValue5");
+        assertThat(handle.get(), is("testValue5"));
+        assertThat(NameRegistrar.getHandle("test5"), is(sameInstance(handle)));
+        NameRegistrar.register("test5", "newValue5");
+        assertThat(handle.getOrThrow(), is("newValue5"));
+        NameRegistrar.unregister("test5");
+        assertThat(handle.get(), is(nullValue()));
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        List<String> events = new ArrayList<>();
+        NameRegistrar.Listener listener = (key, oldValue, newValue) -> {
+            if (key.equals("test6"))
+                events.add(oldValue + ">" + newValue);
+        };
+        NameRegistrar.addListener(listener);
+        try {
+            NameRegistrar.register("test6", "A");
+            NameRegistrar.register("test6", "B");
+            NameRegistrar.unregister("test6");
+            NameRegistrar.unregister("test6");
+        } finally {
+            NameRegistrar.removeListener(listener);
+        }
+        NameRegistrar.register("test6", "C");
+        NameRegistrar.unregister("test6");
+        assertEquals(List.of("null>A", "A>B", "B>null"), events);
+    }
+
+    @Test
+    public void testGetAsMapIsACopy() throws Exception {
+        NameRegistrar.getAsMap().clear();
+        assertThat(NameRegistrar.getIfExists("test1"), is("testValue1"));
+    }
+
     @Test
     public void testNotFoundExceptionConstructor1() throws Throwable {
         NameRegistrar.NotFoundException notFoundException = new NameRegistrar.NotFoundException("testNotFoundExceptionDetail");
@@ -0,0 +1,139 @@
+/*
+ * jPOS Project [http://jpos.org]
+ * Copyright (C) 2000-2026 jPOS Software SRL
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.jpos.util;
+
+import org.jpos.iso.ISOUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+    @Test
+    public void testBurst() {
+        TokenBucket bucket = new TokenBucket (1, Duration.ofHours(1), 3);
+        assertTrue (bucket.tryAcquire());
+        assertTrue (bucket.tryAcquire());
+        assertTrue (bucket.tryAcquire());
+        assertFalse (bucket.tryAcquire(), "bucket should be empty");
+    }
+
+    @Test
+    public void testRefill() {
+        TokenBucket bucket = new TokenBucket (1000, Duration.ofSeconds(1), 1);
+        assertTrue (bucket.tryAcquire());
+        long wait = bucket.reserve (System.nanoTime(), TimeUnit.SECONDS.toNanos(1));
+        assertTrue (wait > 0L && wait <= TimeUnit.MILLISECONDS.toNanos(1), "wait=" + wait);
+        ISOUtil.sleep (10L);
+        assertTrue (bucket.tryAcquire());
+    }
+
+    @Test
+    public void testKeysAreIsolated() {
+        RateLimiter limiter = new RateLimiter (1, Duration.ofHours(1), 2);
+        assertTrue (limiter.tryAcquire ("A"));
+        assertTrue (limiter.tryAcquire ("A"));
+        assertFalse (limiter.tryAcquire ("A"));
+        assertTrue (limiter.tryAcquire ("B"), "B should not be affected by A");
+        assertEquals (2, limiter.size());
+    }
+
+    @Test
+    public void testGlobalLimit() {
+        RateLimiter limiter = new RateLimiter (10, Duration.ofHours(1), 10)
+          .withGlobal (new TokenBucket (1, Duration.ofHours(1), 3));
+        assertTrue (limiter.tryAcquire ("A"));
+        assertTrue (limiter.tryAcquire ("B"));
+        assertTrue (limiter.tryAcquire ("C"));
+        assertFalse (limiter.tryAcquire ("D"), "global limit should apply");
+        assertFalse (limiter.tryAcquire (null));
+    }
+
+    @Test
+    public void testGlobalRejectReleasesKeyPermit() {
+        TokenBucket global = new TokenBucket (1, Duration.ofHours(1), 1);
+        RateLimiter limiter = new RateLimiter (1, Duration.ofHours(1), 1).withGlobal (global);
+        assertTrue (limiter.tryAcquire ("A"));
+        assertFalse (limiter.tryAcquire ("B"));
+        global.release();
+        assertTrue (limiter.tryAcquire ("B"), "B's permit should have been released");
+    }
+
+    @Test
+    public void testReserve() {
+        RateLimiter limiter = new RateLimiter (10, Duration.ofSeconds(1), 1);
+        assertEquals (0L, limiter.reserve ("A", 1, TimeUnit.SECONDS));
+        long wait = limiter.reserve ("A", 1, TimeUnit.SECONDS);
+        assertTrue (wait > TimeUnit.MILLISECONDS.toNanos(50) && wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait=" + wait);
+        assertEquals (-1L, limiter.reserve ("A", 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAcquireAsync() throws Exception {
+        RateLimiter limiter = new RateLimiter (10, Duration.ofSeconds(1), 1);
+        assertTrue (limiter.acquireAsync ("A", Duration.ZERO).get());
+        assertFalse (limiter.acquireAsync ("A", Duration.ZERO).get());
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> f = limiter.acquireAsync ("A", Duration.ofSeconds(1));
+        assertTrue (f.get (5, TimeUnit.SECONDS));
+        assertTrue (System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50L));
+    }
+
+    @Test
+    public void testPurge() {
+        RateLimiter limiter = new RateLimiter (1000, Duration.ofSeconds(1), 1).withMaxKeys (2);
+        assertTrue (limiter.tryAcquire ("A"));
+        assertTrue (limiter.tryAcquire ("B"));
+        ISOUtil.sleep (10L);
+        assertTrue (limiter.tryAcquire ("C"));
+        assertEquals (1, limiter.size(), "idle buckets should have been purged");
+    }
+
+    @Test
+    public void testAwait() throws Exception {
+        Thread caller = Thread.currentThread();
+        Thread unparker = new Thread (() -> {
+            for (int i=0; i<5; i++) {
+                ISOUtil.sleep (5L);
+                LockSupport.unpark (caller);
+            }
+        });
+        unparker.start();
+        long start = System.nanoTime();
+        assertTrue (RateLimiter.await (TimeUnit.MILLISECONDS.toNanos (100L)));
+        assertTrue (System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos (100L), "unpark should not cut the wait short");
+        unparker.join();
+
+        caller.interrupt();
+        start = System.nanoTime();
+        assertFalse (RateLimiter.await (TimeUnit.SECONDS.toNanos (10L)));
+        assertTrue (System.nanoTime() - start < TimeUnit.SECONDS.toNanos (5L), "interrupt should stop the wait");
+        assertTrue (Thread.interrupted(), "interrupt status should be preserved");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows (IllegalArgumentException.class, () -> new RateLimiter (0, Duration.ofSeconds(1), 1));
+        assertThrows (IllegalArgumentException.class, () -> new TokenBucket (1, Duration.ofSeconds(1), 0));
+    }
+}